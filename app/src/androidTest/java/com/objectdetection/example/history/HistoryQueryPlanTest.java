@@ -0,0 +1,133 @@
+package com.objectdetection.example.history;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.SystemClock;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks on the device's SQLite that every history page query is served by one of the
+ * history indexes, walked in order, rather than by a scan or a sort of the whole table.
+ */
+@RunWith(AndroidJUnit4.class)
+public class HistoryQueryPlanTest {
+
+    private static final int ROWS = 100_000;
+    private static final String[] LABELS = {"person", "car", "dog", "cat", "bicycle", "cup", "chair", "book"};
+    // Generous for a device, far below what a scan and sort of the table takes
+    private static final long MAX_PAGE_MS = 50;
+
+    private SQLiteDatabase db;
+
+    @Before
+    public void setUp() {
+        db = SQLiteDatabase.create(null);
+        DetectionHistoryStore.createSchema(db);
+        Random random = new Random(1);
+        ContentValues values = new ContentValues();
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < ROWS; i++) {
+                values.put(DetectionHistoryStore.COLUMN_SOURCE, "content://media/" + (i / 5));
+                values.put(DetectionHistoryStore.COLUMN_LABEL, LABELS[random.nextInt(LABELS.length)]);
+                values.put(DetectionHistoryStore.COLUMN_CONFIDENCE, random.nextFloat());
+                values.put(DetectionHistoryStore.COLUMN_X_MIN, 0f);
+                values.put(DetectionHistoryStore.COLUMN_Y_MIN, 0f);
+                values.put(DetectionHistoryStore.COLUMN_X_MAX, 100f);
+                values.put(DetectionHistoryStore.COLUMN_Y_MAX, 100f);
+                values.put(DetectionHistoryStore.COLUMN_IMAGE_WIDTH, 640);
+                values.put(DetectionHistoryStore.COLUMN_IMAGE_HEIGHT, 480);
+                // Five objects per result share a timestamp, so pages break within one
+                values.put(DetectionHistoryStore.COLUMN_TIMESTAMP, 1_000_000L + i / 5 * 1000L);
+                db.insert(DetectionHistoryStore.TABLE_DETECTIONS, null, values);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    @Test
+    public void labelQueriesSearchTheLabelIndex() {
+        HistoryQuery query = HistoryQuery.builder()
+                .setLabel("dog")
+                .setMinConfidence(0.8f)
+                .setSinceMs(2_000_000L)
+                .build();
+
+        assertUsesIndex(query, "idx_detections_label_time");
+        assertUsesIndex(query.after(10_000_000L, 40_000L), "idx_detections_label_time");
+    }
+
+    @Test
+    public void timeQueriesWalkTheTimeIndex() {
+        HistoryQuery all = HistoryQuery.builder().build();
+        HistoryQuery range = HistoryQuery.builder().setSinceMs(2_000_000L).setUntilMs(9_000_000L).build();
+
+        assertUsesIndex(all, "idx_detections_time");
+        assertUsesIndex(all.after(10_000_000L, 40_000L), "idx_detections_time");
+        assertUsesIndex(range, "idx_detections_time");
+    }
+
+    @Test
+    public void pagesOfALargeTableAreFast() {
+        HistoryQuery query = HistoryQuery.builder().setLabel("cat").setMinConfidence(0.5f).build();
+        // Warm up the page cache and the statement
+        count(query);
+
+        long start = SystemClock.elapsedRealtime();
+        int rows = count(query.after(15_000_000L, 50_000L));
+        long elapsedMs = SystemClock.elapsedRealtime() - start;
+
+        assertEquals(query.getPageSize() + 1, rows);
+        assertTrue("Page took " + elapsedMs + " ms", elapsedMs < MAX_PAGE_MS);
+    }
+
+    private void assertUsesIndex(HistoryQuery query, String index) {
+        List<String> plan = explain(query);
+        String details = String.join("\n", plan);
+        boolean indexed = false;
+        for (String step : plan) {
+            indexed |= step.contains("INDEX " + index);
+            // A full sort means reading every matching row before returning the first
+            assertFalse(details, step.contains("TEMP B-TREE FOR ORDER BY"));
+        }
+        assertTrue(details, indexed);
+    }
+
+    private List<String> explain(HistoryQuery query) {
+        List<String> plan = new ArrayList<>();
+        try (Cursor cursor = db.rawQuery("EXPLAIN QUERY PLAN " + DetectionHistoryStore.pageSql(query),
+                query.getSelectionArgs())) {
+            int detail = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                plan.add(cursor.getString(detail));
+            }
+        }
+        return plan;
+    }
+
+    private int count(HistoryQuery query) {
+        try (Cursor cursor = db.rawQuery(DetectionHistoryStore.pageSql(query), query.getSelectionArgs())) {
+            return cursor.getCount();
+        }
+    }
+}
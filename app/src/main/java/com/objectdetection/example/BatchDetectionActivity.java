@@ -0,0 +1,140 @@
+package com.objectdetection.example;
+
+import android.net.Uri;
+import android.os.Bundle;
+import android.os.SystemClock;
+import android.view.MenuItem;
+import android.view.View;
+import android.widget.ProgressBar;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.lifecycle.ViewModelProvider;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.objectdetection.example.adapter.BatchResultAdapter;
+import com.objectdetection.example.batch.BatchItem;
+import com.objectdetection.example.batch.BatchListener;
+import com.objectdetection.example.batch.BatchStats;
+import com.objectdetection.sdk.ImageDetector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Detects objects in many gallery images at once and lists the results as they finish,
+ * followed by the throughput and latency of the whole run.
+ */
+public class BatchDetectionActivity extends AppCompatActivity {
+
+    public static final String EXTRA_IMAGE_URIS = "extra_image_uris";
+
+    private TextView textViewBatchProgress;
+    private TextView textViewBatchStats;
+    private ProgressBar progressBarBatch;
+    private RecyclerView recyclerViewBatch;
+
+    private BatchResultAdapter resultAdapter;
+    private BatchDetectionViewModel viewModel;
+    private int totalImages;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_batch_detection);
+
+        if (getSupportActionBar() != null) {
+            getSupportActionBar().setDisplayHomeAsUpEnabled(true);
+            getSupportActionBar().setTitle(R.string.title_activity_batch_detection);
+        }
+
+        // Initialize views
+        textViewBatchProgress = findViewById(R.id.textViewBatchProgress);
+        textViewBatchStats = findViewById(R.id.textViewBatchStats);
+        progressBarBatch = findViewById(R.id.progressBarBatch);
+        recyclerViewBatch = findViewById(R.id.recyclerViewBatch);
+
+        recyclerViewBatch.setLayoutManager(new LinearLayoutManager(this));
+        resultAdapter = new BatchResultAdapter();
+        recyclerViewBatch.setAdapter(resultAdapter);
+
+        // Check SDK initialization
+        if (!ImageDetector.isInitialized()) {
+            Toast.makeText(this, R.string.error_api_url_not_set, Toast.LENGTH_LONG).show();
+            finish();
+            return;
+        }
+
+        ArrayList<String> uriStrings = getIntent().getStringArrayListExtra(EXTRA_IMAGE_URIS);
+        if (uriStrings == null || uriStrings.isEmpty()) {
+            Toast.makeText(this, R.string.error_no_images_selected, Toast.LENGTH_SHORT).show();
+            finish();
+            return;
+        }
+        List<Uri> uris = new ArrayList<>(uriStrings.size());
+        for (String uriString : uriStrings) {
+            uris.add(Uri.parse(uriString));
+        }
+
+        viewModel = new ViewModelProvider(this).get(BatchDetectionViewModel.class);
+        startBatch(uris);
+    }
+
+    private void startBatch(List<Uri> uris) {
+        viewModel.start(uris);
+        totalImages = viewModel.getTotalImages();
+        progressBarBatch.setMax(totalImages);
+        updateProgress(0);
+
+        // Replays the images finished before a configuration change
+        viewModel.attach(new BatchListener() {
+            @Override
+            public void onItemFinished(BatchItem item) {
+                resultAdapter.addItem(item);
+                updateProgress(resultAdapter.getItemCount());
+            }
+
+            @Override
+            public void onBatchFinished(BatchStats stats) {
+                showSummary(stats);
+            }
+        });
+    }
+
+    private void updateProgress(int completed) {
+        progressBarBatch.setProgress(completed);
+        textViewBatchProgress.setText(getString(R.string.batch_progress, completed, totalImages));
+    }
+
+    private void showSummary(BatchStats stats) {
+        long nowMs = SystemClock.elapsedRealtime();
+        progressBarBatch.setVisibility(View.GONE);
+        textViewBatchProgress.setText(getString(R.string.batch_finished,
+                stats.getCompleted(), stats.getElapsedMs(nowMs) / 1000.0, stats.getFailed()));
+        textViewBatchStats.setText(getString(R.string.batch_stats,
+                stats.getImagesPerSecond(nowMs),
+                stats.getLatencyPercentileMs(50),
+                stats.getLatencyPercentileMs(95)));
+        textViewBatchStats.setVisibility(View.VISIBLE);
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        if (item.getItemId() == android.R.id.home) {
+            onBackPressed();
+            return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        // The view model cancels the batch once the screen is finished for good
+        if (viewModel != null) {
+            viewModel.detach();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.objectdetection.example;
+
+import android.app.Application;
+import android.net.Uri;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.AndroidViewModel;
+
+import com.objectdetection.example.batch.BatchDetector;
+import com.objectdetection.example.batch.BatchItem;
+import com.objectdetection.example.batch.BatchListener;
+import com.objectdetection.example.batch.BatchStats;
+import com.objectdetection.example.exec.AppExecutors;
+import com.objectdetection.example.history.DetectionHistoryStore;
+import com.objectdetection.example.net.DetectionApiClients;
+import com.objectdetection.example.preprocess.EncodeBufferPool;
+import com.objectdetection.example.preprocess.ImagePreprocessor;
+import com.objectdetection.sdk.ImageDetector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs the batch shown by {@link BatchDetectionActivity}. Outlives configuration changes,
+ * so rotating the device keeps the run going and replays the finished images to the new
+ * screen; the run is cancelled only once the screen is gone for good.
+ * <p>
+ * Must only be created once the SDK is initialized.
+ */
+public class BatchDetectionViewModel extends AndroidViewModel {
+
+    private final Executor mainThread = AppExecutors.getInstance().mainThread();
+    private final BatchDetector batchDetector;
+    private final DetectionHistoryStore historyStore;
+    // Main thread only
+    private final List<BatchItem> finishedItems = new ArrayList<>();
+    private BatchStats finishedStats;
+    private BatchListener uiListener;
+    private int totalImages = -1;
+
+    public BatchDetectionViewModel(@NonNull Application application) {
+        super(application);
+        // One buffer per image in flight, so encode buffers are reused across the batch
+        ImagePreprocessor preprocessor = new ImagePreprocessor(application.getContentResolver(),
+                new EncodeBufferPool(BatchDetector.DEFAULT_MAX_IN_FLIGHT));
+        batchDetector = new BatchDetector(preprocessor,
+                DetectionApiClients.create(application, ImageDetector.getApiUrl()));
+        historyStore = DetectionHistoryStore.getInstance(application);
+    }
+
+    /**
+     * Starts detecting the images, unless the batch was already started. Main thread only.
+     *
+     * @return true if the batch was started
+     */
+    public boolean start(List<Uri> uris) {
+        if (totalImages >= 0) {
+            return false;
+        }
+        totalImages = uris.size();
+        batchDetector.start(uris, new BatchListener() {
+            @Override
+            public void onItemFinished(BatchItem item) {
+                if (item.isSuccess()) {
+                    historyStore.record(item.getUri().toString(), item.getResult(), 0, 0,
+                            System.currentTimeMillis());
+                }
+                mainThread.execute(() -> {
+                    finishedItems.add(item);
+                    if (uiListener != null) {
+                        uiListener.onItemFinished(item);
+                    }
+                });
+            }
+
+            @Override
+            public void onBatchFinished(BatchStats stats) {
+                mainThread.execute(() -> {
+                    finishedStats = stats;
+                    if (uiListener != null) {
+                        uiListener.onBatchFinished(stats);
+                    }
+                });
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Number of images in the batch, or -1 before it is started.
+     */
+    public int getTotalImages() {
+        return totalImages;
+    }
+
+    /**
+     * Attaches the screen: the images finished so far, and the statistics if the batch is
+     * over, are replayed to the listener right away, and later ones follow as they finish.
+     * Unlike {@link BatchDetector}'s, the listener is called on the main thread. Main
+     * thread only.
+     */
+    public void attach(BatchListener listener) {
+        uiListener = listener;
+        for (BatchItem item : finishedItems) {
+            listener.onItemFinished(item);
+        }
+        if (finishedStats != null) {
+            listener.onBatchFinished(finishedStats);
+        }
+    }
+
+    /**
+     * Detaches the screen, e.g. while it is recreated. Main thread only.
+     */
+    public void detach() {
+        uiListener = null;
+    }
+
+    @Override
+    protected void onCleared() {
+        batchDetector.cancel();
+    }
+}
@@ -1,8 +1,10 @@
 package com.objectdetection.example;
 
+import android.graphics.Bitmap;
 import android.graphics.drawable.Drawable;
 import android.net.Uri;
 import android.os.Bundle;
+import android.util.Log;
 import android.view.MenuItem;
 import android.view.View;
 import android.view.ViewTreeObserver;
@@ -13,6 +15,7 @@ import android.widget.Toast;
 
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
@@ -22,22 +25,27 @@ import com.bumptech.glide.load.engine.GlideException;
 import com.bumptech.glide.request.RequestListener;
 import com.bumptech.glide.request.target.Target;
 import com.objectdetection.example.adapter.DetectedObjectAdapter;
-import com.objectdetection.sdk.DetectorBuilder;
+import com.objectdetection.example.exec.AppExecutors;
+import com.objectdetection.example.exec.UiDispatcher;
+import com.objectdetection.example.live.OverlayTransform;
+import com.objectdetection.example.session.DetectionSession;
 import com.objectdetection.sdk.ImageDetector;
-import com.objectdetection.sdk.listener.ImageDetectionListener;
 import com.objectdetection.sdk.model.DetectedObject;
 import com.objectdetection.sdk.model.DetectionResult;
 import com.objectdetection.sdk.view.DetectionOverlayView;
 
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 
 public class DetectionResultActivity extends AppCompatActivity {
+    private static final String TAG = "DetectionResultActivity";
 
     public static final String EXTRA_IMAGE_URI = "extra_image_uri";
     public static final String EXTRA_IMAGE_URL = "extra_image_url";
 
+    // Keys of main-thread updates: the displayed image, and the result views
+    private static final String UPDATE_IMAGE = "image";
+    private static final String UPDATE_RESULT = "result";
+
     private ImageView imageViewResult;
     private DetectionOverlayView detectionOverlay;
     private ProgressBar progressBar;
@@ -48,6 +56,19 @@ public class DetectionResultActivity extends AppCompatActivity {
 
     private DetectedObjectAdapter objectAdapter;
     private DetectionResult pendingResult; // Store result until image is loaded
+    // Size of the image the result's boxes refer to, 0 when unknown
+    private int resultImageWidth;
+    private int resultImageHeight;
+    // Where fitCenter places the image inside the ImageView
+    private final OverlayTransform resultTransform = new OverlayTransform(OverlayTransform.ScaleMode.FIT_CENTER);
+
+    // Only the latest update per key runs; dropped when the activity is destroyed
+    private final UiDispatcher ui = AppExecutors.getInstance().newUiDispatcher();
+    // Holds the detection across configuration changes
+    private DetectionResultViewModel viewModel;
+    // Loads the image with Glide if the view model couldn't decode it
+    private Runnable fallbackImageLoad;
+    private boolean imageShown;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -80,6 +101,8 @@ public class DetectionResultActivity extends AppCompatActivity {
             return;
         }
 
+        viewModel = new ViewModelProvider(this).get(DetectionResultViewModel.class);
+
         // Process intent data
         processIntent();
     }
@@ -88,19 +111,23 @@ public class DetectionResultActivity extends AppCompatActivity {
         String imageUriString = getIntent().getStringExtra(EXTRA_IMAGE_URI);
         String imageUrl = getIntent().getStringExtra(EXTRA_IMAGE_URL);
 
+        // The view model loads and decodes the image once for display and detection; after a
+        // rotation the running or finished detection is reused
         if (imageUriString != null) {
-            // We got a URI, load and process
             Uri imageUri = Uri.parse(imageUriString);
-            loadImage(imageUri);
-            processImageUri(imageUri);
+            fallbackImageLoad = () -> loadImage(imageUri);
+            viewModel.detectUri(imageUri);
         } else if (imageUrl != null) {
-            // We got a URL, load and process
-            loadImageFromUrl(imageUrl);
-            processImageUrl(imageUrl);
+            fallbackImageLoad = () -> loadImageFromUrl(imageUrl);
+            viewModel.detectUrl(imageUrl);
         } else {
             Toast.makeText(this, "No image source provided", Toast.LENGTH_SHORT).show();
             finish();
+            return;
         }
+
+        // A decoded image and a finished result are delivered again right away
+        showProgress(viewModel.getSession().attach(sessionObserver) == DetectionSession.State.RUNNING);
     }
 
     private void loadImage(Uri imageUri) {
@@ -151,74 +178,56 @@ public class DetectionResultActivity extends AppCompatActivity {
                 .into(imageViewResult);
     }
 
-    private void processImageUri(Uri imageUri) {
-        showProgress(true);
+    private final DetectionSession.Observer<Bitmap> sessionObserver = new DetectionSession.Observer<Bitmap>() {
+        @Override
+        public void onImage(final Bitmap image) {
+            ui.post(UPDATE_IMAGE, () -> showImage(image));
+        }
 
-        DetectorBuilder.with(this)
-                .setListener(new ImageDetectionListener() {
-                    @Override
-                    public void onResult(final DetectionResult result) {
-                        runOnUiThread(new Runnable() {
-                            @Override
-                            public void run() {
-                                showProgress(false);
-                                if (result.isSuccess()) {
-                                    pendingResult = result;
-                                    displayDetectionResultWhenReady(result);
-                                } else {
-                                    handleError(new Exception(result.getError()));
-                                }
-                            }
-                        });
-                    }
+        @Override
+        public void onResult(final DetectionResult result, final int imageWidth, final int imageHeight) {
+            ui.post(UPDATE_RESULT, () -> {
+                loadFallbackImageIfNeeded();
+                showProgress(false);
+                resultImageWidth = imageWidth;
+                resultImageHeight = imageHeight;
+                pendingResult = result;
+                displayDetectionResultWhenReady(result);
+            });
+        }
 
-                    @Override
-                    public void onError(final Exception e) {
-                        runOnUiThread(new Runnable() {
-                            @Override
-                            public void run() {
-                                showProgress(false);
-                                handleError(e);
-                            }
-                        });
-                    }
-                })
-                .detectFromUri(imageUri);
+        @Override
+        public void onFailure(final Exception error, final boolean queued) {
+            ui.post(UPDATE_RESULT, () -> {
+                loadFallbackImageIfNeeded();
+                showProgress(false);
+                if (queued) {
+                    showQueued();
+                } else {
+                    handleError(error);
+                }
+                // Shown; a screen recreated from now on mustn't report it again
+                viewModel.getSession().acknowledgeFailure(error);
+            });
+        }
+    };
+
+    /**
+     * Shows the bitmap the view model decoded, without another load or decode.
+     */
+    private void showImage(Bitmap image) {
+        imageShown = true;
+        imageViewResult.setImageBitmap(image);
+        if (pendingResult != null) {
+            displayDetectionResultWhenReady(pendingResult);
+        }
     }
 
-    private void processImageUrl(String imageUrl) {
-        showProgress(true);
-
-        DetectorBuilder.with(this)
-                .setListener(new ImageDetectionListener() {
-                    @Override
-                    public void onResult(final DetectionResult result) {
-                        runOnUiThread(new Runnable() {
-                            @Override
-                            public void run() {
-                                showProgress(false);
-                                if (result.isSuccess()) {
-                                    pendingResult = result;
-                                    displayDetectionResultWhenReady(result);
-                                } else {
-                                    handleError(new Exception(result.getError()));
-                                }
-                            }
-                        });
-                    }
-
-                    @Override
-                    public void onError(final Exception e) {
-                        runOnUiThread(new Runnable() {
-                            @Override
-                            public void run() {
-                                showProgress(false);
-                                handleError(e);
-                            }
-                        });
-                    }
-                })
-                .detectFromUrl(imageUrl);
+    private void loadFallbackImageIfNeeded() {
+        if (!imageShown && fallbackImageLoad != null) {
+            imageShown = true;
+            fallbackImageLoad.run();
+        }
     }
 
     private void displayDetectionResultWhenReady(final DetectionResult result) {
@@ -241,37 +250,18 @@ public class DetectionResultActivity extends AppCompatActivity {
             return;
         }
 
-        // Get the original image dimensions
-        int originalImageWidth = drawable.getIntrinsicWidth();
-        int originalImageHeight = drawable.getIntrinsicHeight();
-
-        // Get the ImageView dimensions
-        int imageViewWidth = imageViewResult.getWidth();
-        int imageViewHeight = imageViewResult.getHeight();
-
-        // Calculate the scale and offset for the image inside the ImageView
-        // Since we're using scaleType="fitCenter", we need to calculate the actual displayed image area
-        float imageViewAspectRatio = (float) imageViewWidth / imageViewHeight;
-        float imageAspectRatio = (float) originalImageWidth / originalImageHeight;
+        // Get the original image dimensions, preferring the size the boxes were mapped to
+        int originalImageWidth = resultImageWidth > 0 ? resultImageWidth : drawable.getIntrinsicWidth();
+        int originalImageHeight = resultImageHeight > 0 ? resultImageHeight : drawable.getIntrinsicHeight();
 
-        int displayedImageWidth, displayedImageHeight;
-        int offsetX = 0, offsetY = 0;
-
-        if (imageAspectRatio > imageViewAspectRatio) {
-            // Image is wider than ImageView - fit to width
-            displayedImageWidth = imageViewWidth;
-            displayedImageHeight = (int) (imageViewWidth / imageAspectRatio);
-            offsetY = (imageViewHeight - displayedImageHeight) / 2;
-        } else {
-            // Image is taller than ImageView - fit to height
-            displayedImageHeight = imageViewHeight;
-            displayedImageWidth = (int) (imageViewHeight * imageAspectRatio);
-            offsetX = (imageViewWidth - displayedImageWidth) / 2;
-        }
+        // scaleType="fitCenter" letterboxes the image inside the ImageView
+        resultTransform.update(imageViewResult.getWidth(), imageViewResult.getHeight(),
+                originalImageWidth, originalImageHeight);
 
         // Set the detection overlay with the correctly calculated dimensions
         detectionOverlay.setDetectionResult(result, originalImageWidth, originalImageHeight,
-                displayedImageWidth, displayedImageHeight, offsetX, offsetY);
+                resultTransform.getDisplayedWidth(), resultTransform.getDisplayedHeight(),
+                resultTransform.getOffsetX(), resultTransform.getOffsetY());
 
         // Update texts
         List<DetectedObject> objects = result.getDetectedObjects();
@@ -280,16 +270,8 @@ public class DetectionResultActivity extends AppCompatActivity {
         textViewObjectsDetected.setText(getString(R.string.label_objects_detected, objectCount));
         textViewProcessingTime.setText(getString(R.string.label_processing_time, result.getProcessingTimeMs()));
 
-        // Update RecyclerView
+        // Update RecyclerView; objects are already ordered by confidence
         if (objectCount > 0) {
-            // Sort objects by confidence (highest first)
-            Collections.sort(objects, new Comparator<DetectedObject>() {
-                @Override
-                public int compare(DetectedObject o1, DetectedObject o2) {
-                    return Float.compare(o2.getConfidence(), o1.getConfidence());
-                }
-            });
-
             objectAdapter.setObjects(objects);
             textViewNoObjects.setVisibility(View.GONE);
             recyclerViewObjects.setVisibility(View.VISIBLE);
@@ -297,6 +279,7 @@ public class DetectionResultActivity extends AppCompatActivity {
             textViewNoObjects.setVisibility(View.VISIBLE);
             recyclerViewObjects.setVisibility(View.GONE);
         }
+        viewModel.onResultDrawn();
     }
 
     private void handleError(Exception e) {
@@ -308,10 +291,24 @@ public class DetectionResultActivity extends AppCompatActivity {
         Toast.makeText(this, getString(R.string.error_detection_failed, errorMessage), Toast.LENGTH_LONG).show();
     }
 
+    private void showQueued() {
+        Toast.makeText(this, R.string.message_detection_queued, Toast.LENGTH_LONG).show();
+    }
+
     private void showProgress(boolean show) {
         progressBar.setVisibility(show ? View.VISIBLE : View.GONE);
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        ui.close();
+        if (viewModel != null) {
+            viewModel.getSession().detach(sessionObserver);
+        }
+        Log.d(TAG, "Execution: " + AppExecutors.getInstance().getStats());
+    }
+
     @Override
     public boolean onOptionsItemSelected(MenuItem item) {
         if (item.getItemId() == android.R.id.home) {
@@ -0,0 +1,363 @@
+package com.objectdetection.example;
+
+import android.app.Application;
+import android.graphics.Bitmap;
+import android.net.Uri;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.AndroidViewModel;
+
+import com.objectdetection.example.backend.CascadeDetectorBackend;
+import com.objectdetection.example.backend.CascadePolicy;
+import com.objectdetection.example.backend.DetectorBackend;
+import com.objectdetection.example.backend.DetectorBackends;
+import com.objectdetection.example.cache.CacheKeys;
+import com.objectdetection.example.cache.DetectionCache;
+import com.objectdetection.example.exec.AppExecutors;
+import com.objectdetection.example.history.DetectionHistoryStore;
+import com.objectdetection.example.net.DetectionApiClient;
+import com.objectdetection.example.net.DetectionApiClients;
+import com.objectdetection.example.postprocess.DetectionPostProcessor;
+import com.objectdetection.example.preprocess.EncodeBufferPool;
+import com.objectdetection.example.preprocess.EncodedImage;
+import com.objectdetection.example.preprocess.ImagePreprocessor;
+import com.objectdetection.example.preprocess.PreparedImage;
+import com.objectdetection.example.preprocess.SourceImage;
+import com.objectdetection.example.queue.DetectionQueue;
+import com.objectdetection.example.session.DetectionSession;
+import com.objectdetection.example.trace.DetectionTrace;
+import com.objectdetection.example.trace.LatencyTracer;
+import com.objectdetection.example.trace.TraceStage;
+import com.objectdetection.example.util.DetectionBuffer;
+import com.objectdetection.example.util.DetectionResults;
+import com.objectdetection.sdk.DetectorBuilder;
+import com.objectdetection.sdk.ImageDetector;
+import com.objectdetection.sdk.listener.ImageDetectionListener;
+import com.objectdetection.sdk.model.DetectionResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs the detection shown by {@link DetectionResultActivity}. Outlives configuration
+ * changes, so rotating the device re-renders the result from memory, or waits for the
+ * detection already in flight, instead of uploading the image again.
+ * <p>
+ * Each image is read or downloaded once and decoded once: the same bytes are hashed for
+ * the cache and, if small enough, uploaded as they are, and the decoded bitmap is both
+ * displayed and downscaled for the upload.
+ * <p>
+ * Must only be created once the SDK is initialized.
+ */
+public class DetectionResultViewModel extends AndroidViewModel {
+    private static final String TAG = "DetectionResultViewModel";
+
+    // Overlapping duplicates are dropped and at most this many objects are drawn and listed
+    static final int MAX_SHOWN_OBJECTS = 50;
+    // Long edge of the displayed bitmap; larger images only cost memory on a phone screen
+    static final int MAX_DISPLAY_LONG_EDGE = 2048;
+
+    private final DetectionSession<Bitmap> session = new DetectionSession<>();
+    private final Executor io = AppExecutors.getInstance().io();
+    private final Executor cpu = AppExecutors.getInstance().cpu();
+    private final Executor mainThread = AppExecutors.getInstance().mainThread();
+    // Guarded by itself
+    private final DetectionPostProcessor postProcessor = DetectionPostProcessor.builder()
+            .setMaxResults(MAX_SHOWN_OBJECTS)
+            .build();
+    private final DetectionBuffer rawDetections = new DetectionBuffer();
+    private final DetectionBuffer shownDetections = new DetectionBuffer();
+    private final ImagePreprocessor imagePreprocessor;
+    private final DetectionApiClient apiClient;
+    private final DetectorBackend detectorBackend;
+    private final DetectionCache detectionCache;
+    private final DetectionHistoryStore historyStore;
+    // Backend mode and API URL, so cached results of another backend or server aren't shown
+    private final String cacheScope;
+    private DetectionQueue detectionQueue;
+    // Stage times of the session's detection, set once it starts
+    private volatile DetectionTrace trace;
+
+    public DetectionResultViewModel(@NonNull Application application) {
+        super(application);
+        imagePreprocessor = new ImagePreprocessor(application.getContentResolver(), new EncodeBufferPool());
+        apiClient = DetectionApiClients.create(application, ImageDetector.getApiUrl());
+        // Downloaded remote images too; the API fetches them itself only if the download fails
+        detectorBackend = DetectorBackends.create(application, apiClient, CascadePolicy.forStillImages());
+        cacheScope = DetectorBackends.getMode(application).getPreferenceValue() + ' ' + ImageDetector.getApiUrl();
+        detectionCache = DetectionCache.getInstance(application.getCacheDir());
+        historyStore = DetectionHistoryStore.getInstance(application);
+        try {
+            detectionQueue = DetectionQueue.getInstance(application);
+        } catch (IOException e) {
+            Log.e(TAG, "Unable to open the detection queue, failed detections won't be retried", e);
+        }
+    }
+
+    /**
+     * The detection; attach to it to get the decoded image and the outcome.
+     */
+    public DetectionSession<Bitmap> getSession() {
+        return session;
+    }
+
+    /**
+     * Detects a local image, unless it is already being or has been detected.
+     *
+     * @return true if a detection was started
+     */
+    public boolean detectUri(final Uri imageUri) {
+        if (!session.start(imageUri.toString())) {
+            return false;
+        }
+        trace = LatencyTracer.getInstance().start(LatencyTracer.PIPELINE_STILL);
+        // One read of the file feeds the cache key, the displayed bitmap and the upload
+        io.execute(() -> {
+            final EncodedImage encoded;
+            try {
+                encoded = imagePreprocessor.read(imageUri);
+            } catch (IOException | RuntimeException e) {
+                Log.w(TAG, "Reading failed, uploading original image", e);
+                mainThread.execute(() -> detectFromOriginalUri(imageUri, null));
+                return;
+            }
+            final String cacheKey = contentCacheKey(encoded);
+            detectEncoded(imageUri, encoded, cacheKey,
+                    () -> mainThread.execute(() -> detectFromOriginalUri(imageUri, cacheKey)));
+        });
+        return true;
+    }
+
+    /**
+     * Detects a remote image, unless it is already being or has been detected.
+     *
+     * @return true if a detection was started
+     */
+    public boolean detectUrl(final String imageUrl) {
+        if (!session.start(imageUrl)) {
+            return false;
+        }
+        trace = LatencyTracer.getInstance().start(LatencyTracer.PIPELINE_STILL);
+        // The image is downloaded once, for display and upload, instead of by the screen and the server
+        io.execute(() -> {
+            final EncodedImage encoded;
+            try {
+                encoded = apiClient.fetchImage(imageUrl);
+            } catch (IOException | RuntimeException e) {
+                Log.w(TAG, "Download failed, letting the server fetch the image", e);
+                mainThread.execute(() -> detectFromUrl(imageUrl, null));
+                return;
+            }
+            final String cacheKey = contentCacheKey(encoded);
+            detectEncoded(Uri.parse(imageUrl), encoded, cacheKey,
+                    () -> mainThread.execute(() -> detectFromUrl(imageUrl, cacheKey)));
+        });
+        return true;
+    }
+
+    /**
+     * Decodes the image once, publishes it for display and detects it, from the cache if
+     * possible. Called off the main thread.
+     *
+     * @param fallback Detects the image without decoding it here, if that fails
+     */
+    private void detectEncoded(Uri source, EncodedImage encoded, String cacheKey, Runnable fallback) {
+        final SourceImage image;
+        try {
+            image = imagePreprocessor.decode(encoded, MAX_DISPLAY_LONG_EDGE);
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Decoding failed, detecting without preprocessing", e);
+            fallback.run();
+            return;
+        }
+        session.publishImage(image.getBitmap());
+        if (showCachedResult(cacheKey, image)) {
+            return;
+        }
+
+        final PreparedImage prepared;
+        try {
+            prepared = imagePreprocessor.prepare(image);
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Preprocessing failed, detecting without preprocessing", e);
+            fallback.run();
+            return;
+        }
+        trace.mark(TraceStage.PREPROCESSED);
+        uploadPreparedImage(source, prepared, cacheKey);
+    }
+
+    private String contentCacheKey(EncodedImage encoded) {
+        try (InputStream input = encoded.newInputStream()) {
+            return CacheKeys.forContent(input, cacheScope);
+        } catch (IOException e) {
+            Log.w(TAG, "Unable to hash image, skipping cache", e);
+            return null;
+        }
+    }
+
+    /**
+     * Shows a cached result for the key, if there is one. Called off the main thread.
+     *
+     * @param image The decoded image, whose size is used if the entry has none
+     * @return true if the result was found and the network detection can be skipped
+     */
+    private boolean showCachedResult(String cacheKey, SourceImage image) {
+        if (cacheKey == null) {
+            return false;
+        }
+        final DetectionCache.Entry cached = detectionCache.get(cacheKey);
+        Log.d(TAG, "Detection cache: hits=" + detectionCache.getHitCount()
+                + " misses=" + detectionCache.getMissCount()
+                + " evictions=" + detectionCache.getEvictionCount());
+        if (cached == null) {
+            return false;
+        }
+        boolean sized = cached.getImageWidth() > 0 && cached.getImageHeight() > 0;
+        showResult(cached.getResult(),
+                sized ? cached.getImageWidth() : image.getWidth(),
+                sized ? cached.getImageHeight() : image.getHeight());
+        return true;
+    }
+
+    private void cacheResult(final String cacheKey, final DetectionResult result,
+                             final int imageWidth, final int imageHeight) {
+        if (cacheKey == null || !result.isSuccess()) {
+            return;
+        }
+        io.execute(() -> {
+            try {
+                detectionCache.put(cacheKey, result, imageWidth, imageHeight);
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to write detection cache", e);
+            }
+        });
+    }
+
+    private void recordHistory(String source, DetectionResult result, int imageWidth, int imageHeight) {
+        if (result.isSuccess()) {
+            historyStore.record(source, result, imageWidth, imageHeight, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * @param imageUri URI or URL of the image, also used to queue it
+     */
+    private void uploadPreparedImage(final Uri imageUri, final PreparedImage prepared, final String cacheKey) {
+        detectorBackend.detectJpeg(prepared.getJpegData(), 0, prepared.getJpegSize(), trace,
+                new ImageDetectionListener() {
+                    @Override
+                    public void onResult(DetectionResult result) {
+                        imagePreprocessor.release(prepared);
+                        // Boxes refer to the uploaded image, map them back to the original size
+                        final DetectionResult mapped = DetectionResults.scaleBoxes(result,
+                                prepared.getScaleX(), prepared.getScaleY());
+                        cacheResult(cacheKey, mapped, prepared.getOriginalWidth(), prepared.getOriginalHeight());
+                        recordHistory(imageUri.toString(), mapped,
+                                prepared.getOriginalWidth(), prepared.getOriginalHeight());
+                        showResult(mapped, prepared.getOriginalWidth(), prepared.getOriginalHeight());
+                    }
+
+                    @Override
+                    public void onError(final Exception e) {
+                        // The upload never reached the server, keep the prepared image for a later retry
+                        final boolean queued = e instanceof IOException && detectionQueue != null
+                                && detectionQueue.enqueueImage(imageUri, cacheKey, prepared);
+                        imagePreprocessor.release(prepared);
+                        session.fail(e, queued);
+                    }
+                });
+    }
+
+    private void detectFromOriginalUri(final Uri imageUri, final String cacheKey) {
+        DetectorBuilder.with(getApplication())
+                .setListener(new ImageDetectionListener() {
+                    @Override
+                    public void onResult(final DetectionResult result) {
+                        cacheResult(cacheKey, result, 0, 0);
+                        recordHistory(imageUri.toString(), result, 0, 0);
+                        showResult(result, 0, 0);
+                    }
+
+                    @Override
+                    public void onError(final Exception e) {
+                        session.fail(e, false);
+                    }
+                })
+                .detectFromUri(imageUri);
+    }
+
+    private void detectFromUrl(final String imageUrl, final String cacheKey) {
+        apiClient.detectUrl(imageUrl, new ImageDetectionListener() {
+            @Override
+            public void onResult(final DetectionResult result) {
+                cacheResult(cacheKey, result, 0, 0);
+                recordHistory(imageUrl, result, 0, 0);
+                showResult(result, 0, 0);
+            }
+
+            @Override
+            public void onError(final Exception e) {
+                queueUrlOrFail(imageUrl, cacheKey, e);
+            }
+        });
+    }
+
+    private void queueUrlOrFail(final String imageUrl, final String cacheKey, final Exception e) {
+        if (detectionQueue == null) {
+            session.fail(e, false);
+            return;
+        }
+        // Queueing writes to disk, keep it off the main thread
+        io.execute(() -> session.fail(e, detectionQueue.enqueueUrl(imageUrl, cacheKey)));
+    }
+
+    /**
+     * Filters the result on the CPU pool and finishes the session with it. Callable from
+     * any thread.
+     *
+     * @param imageWidth  Width of the image the boxes refer to, 0 if unknown
+     * @param imageHeight Height of the image the boxes refer to, 0 if unknown
+     */
+    private void showResult(final DetectionResult result, final int imageWidth, final int imageHeight) {
+        if (!result.isSuccess()) {
+            session.fail(new Exception(result.getError()), false);
+            return;
+        }
+        cpu.execute(() -> {
+            final DetectionResult shown;
+            synchronized (postProcessor) {
+                DetectionResults.toBuffer(result, rawDetections);
+                postProcessor.process(rawDetections, shownDetections);
+                shown = DetectionResults.fromBuffer(shownDetections);
+            }
+            trace.mark(TraceStage.POST_PROCESSED);
+            session.complete(shown, imageWidth, imageHeight);
+        });
+    }
+
+    /**
+     * Called by the screen once it has drawn the result; ends the detection's trace.
+     * Later calls, e.g. after rotation, are ignored.
+     */
+    public void onResultDrawn() {
+        DetectionTrace current = trace;
+        if (current != null && !current.isFinished()) {
+            current.mark(TraceStage.DRAWN);
+            LatencyTracer.getInstance().finish(current);
+        }
+    }
+
+    @Override
+    protected void onCleared() {
+        session.close();
+        Log.d(TAG, "Detections started: " + session.getStartedCount()
+                + ", joined after recreation: " + session.getJoinedCount());
+        if (detectorBackend instanceof CascadeDetectorBackend) {
+            Log.d(TAG, "Cascade: " + ((CascadeDetectorBackend) detectorBackend).getMetrics());
+        }
+        detectorBackend.close();
+    }
+}
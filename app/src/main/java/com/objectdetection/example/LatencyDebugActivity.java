@@ -0,0 +1,83 @@
+package com.objectdetection.example;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.view.Menu;
+import android.view.MenuItem;
+import android.widget.TextView;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+import com.objectdetection.example.trace.LatencyTracer;
+import com.objectdetection.example.trace.TraceReport;
+
+/**
+ * Shows the per-stage latency percentiles of the detections since the last reset, and
+ * shares them as CSV for comparison across builds and devices.
+ */
+public class LatencyDebugActivity extends AppCompatActivity {
+
+    private TextView textViewLatency;
+    private final LatencyTracer latencyTracer = LatencyTracer.getInstance();
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_latency_debug);
+
+        if (getSupportActionBar() != null) {
+            getSupportActionBar().setDisplayHomeAsUpEnabled(true);
+            getSupportActionBar().setTitle(R.string.title_activity_latency_debug);
+        }
+
+        textViewLatency = findViewById(R.id.textViewLatency);
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        refresh();
+    }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.latency_debug_menu, menu);
+        return true;
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        int id = item.getItemId();
+        if (id == android.R.id.home) {
+            onBackPressed();
+            return true;
+        }
+        if (id == R.id.action_refresh_latency) {
+            refresh();
+            return true;
+        }
+        if (id == R.id.action_reset_latency) {
+            latencyTracer.reset();
+            refresh();
+            return true;
+        }
+        if (id == R.id.action_export_latency) {
+            exportCsv();
+            return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
+
+    private void refresh() {
+        textViewLatency.setText(latencyTracer.snapshot().toText());
+    }
+
+    private void exportCsv() {
+        TraceReport report = latencyTracer.snapshot();
+        Intent intent = new Intent(Intent.ACTION_SEND);
+        intent.setType("text/csv");
+        intent.putExtra(Intent.EXTRA_SUBJECT, getString(R.string.latency_export_subject, report.getCreatedAtMs()));
+        intent.putExtra(Intent.EXTRA_TEXT, report.toCsv());
+        startActivity(Intent.createChooser(intent, getString(R.string.action_export_latency)));
+    }
+}
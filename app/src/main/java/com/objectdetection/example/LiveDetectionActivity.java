@@ -3,8 +3,10 @@ package com.objectdetection.example;
 import android.Manifest;
 import android.content.pm.PackageManager;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.util.Log;
 import android.util.Size;
+import android.view.Choreographer;
 import android.widget.Button;
 import android.widget.TextView;
 import android.widget.Toast;
@@ -15,22 +17,110 @@ import androidx.camera.view.PreviewView;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 
+import com.objectdetection.example.backend.BackendMode;
+import com.objectdetection.example.backend.CascadeDetectorBackend;
+import com.objectdetection.example.backend.CascadePolicy;
+import com.objectdetection.example.backend.DetectorBackend;
+import com.objectdetection.example.backend.DetectorBackends;
+import com.objectdetection.example.backend.RemoteDetectorBackend;
+import com.objectdetection.example.exec.AppExecutors;
+import com.objectdetection.example.exec.UiDispatcher;
+import com.objectdetection.example.live.BackendLiveTransport;
+import com.objectdetection.example.live.DetectionStatusText;
+import com.objectdetection.example.live.FrameInfo;
+import com.objectdetection.example.live.FrameScheduler;
+import com.objectdetection.example.live.HttpLiveTransport;
+import com.objectdetection.example.live.LiveDetectionPipeline;
+import com.objectdetection.example.live.LiveFrameListener;
+import com.objectdetection.example.live.LiveTransport;
+import com.objectdetection.example.live.LiveResultSlot;
+import com.objectdetection.example.live.ObjectTracker;
+import com.objectdetection.example.live.OverlayTransform;
+import com.objectdetection.example.live.SceneChangeDetector;
+import com.objectdetection.example.live.TrackOverlayView;
+import com.objectdetection.example.live.WebSocketLiveTransport;
+import com.objectdetection.example.net.DetectionApiClient;
+import com.objectdetection.example.net.DetectionApiClients;
+import com.objectdetection.example.net.HttpClients;
+import com.objectdetection.example.postprocess.DetectionPostProcessor;
+import com.objectdetection.example.trace.DetectionTrace;
+import com.objectdetection.example.trace.LatencyTracer;
+import com.objectdetection.example.trace.TraceStage;
+import com.objectdetection.example.util.DetectionBuffer;
 import com.objectdetection.sdk.ImageDetector;
-import com.objectdetection.sdk.listener.LiveDetectionListener;
-import com.objectdetection.sdk.model.DetectionResult;
-import com.objectdetection.sdk.view.DetectionOverlayView;
 
-import java.util.Locale;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class LiveDetectionActivity extends AppCompatActivity {
     private static final String TAG = "LiveDetectionActivity";
     private static final int REQUEST_CAMERA_PERMISSION = 10;
 
+    // Analysis resolution in sensor orientation; smaller frames are cheaper to convert and upload
+    private static final Size ANALYSIS_TARGET_RESOLUTION = new Size(640, 480);
+    // A live result older than this is of no use anymore
+    private static final long LIVE_CALL_TIMEOUT_MS = 5000;
+    // Mean luma change (0-255) that counts as a new scene; handheld jitter stays below it
+    private static final float SCENE_CHANGE_THRESHOLD = SceneChangeDetector.DEFAULT_THRESHOLD;
+    // Objects beyond the most confident ones only clutter the preview
+    private static final int MAX_TRACKED_OBJECTS = 20;
+    // Keys of main-thread updates; the result slot only posts when its last frame was taken
+    private static final String UPDATE_RESULT = "result";
+    private static final String UPDATE_ERROR = "error";
+
     private PreviewView previewView;
-    private DetectionOverlayView overlayView;
+    private TrackOverlayView overlayView;
     private TextView statusTextView;
     private Button switchCameraButton;
 
+    private LiveDetectionPipeline detectionPipeline;
+    // Set when frames are detected on the device
+    private DetectorBackend detectorBackend;
+    private final LiveResultSlot resultSlot = new LiveResultSlot();
+    // PreviewView crops the preview to fill the view by default, boxes must be mapped the same way
+    private final OverlayTransform overlayTransform = new OverlayTransform(OverlayTransform.ScaleMode.FILL_CENTER);
+    private final DetectionStatusText statusText = new DetectionStatusText();
+    // Server results only refresh the tracks; the overlay shows them extrapolated to each display frame
+    private final ObjectTracker tracker = new ObjectTracker();
+    // Frames that look like the last one sent reuse its result
+    private final SceneChangeDetector sceneChangeDetector = new SceneChangeDetector(SCENE_CHANGE_THRESHOLD);
+    // Guarded by itself, used on the network threads; overlapping duplicates are dropped
+    // before they become tracks
+    private final DetectionPostProcessor postProcessor = DetectionPostProcessor.builder()
+            .setMaxResults(MAX_TRACKED_OBJECTS)
+            .build();
+    private final DetectionBuffer processedBuffer = new DetectionBuffer();
+    // Only used on the main thread
+    private final DetectionBuffer trackBuffer = new DetectionBuffer();
+    private final UiDispatcher ui = AppExecutors.getInstance().newUiDispatcher();
+    // Trace of the latest tracked result, finished by the next display frame; superseded ones are dropped
+    private final AtomicReference<DetectionTrace> pendingTrace = new AtomicReference<>();
+    private final LatencyTracer latencyTracer = LatencyTracer.getInstance();
+
+    private final Runnable renderLatestResult = new Runnable() {
+        @Override
+        public void run() {
+            LiveResultSlot.Frame frame = resultSlot.take();
+            if (frame != null && isDetectionRunning) {
+                renderResult(frame);
+            }
+        }
+    };
+
+    private final Choreographer.FrameCallback renderTracks = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (!isDetectionRunning) return;
+            tracker.predict(SystemClock.elapsedRealtime(), trackBuffer);
+            overlayView.setTracks(trackBuffer, overlayTransform);
+            DetectionTrace trace = pendingTrace.getAndSet(null);
+            if (trace != null) {
+                trace.mark(TraceStage.DRAWN);
+                latencyTracer.finish(trace);
+            }
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    };
+
     private boolean isFrontCamera = false;
     private boolean isDetectionRunning = false;
 
@@ -57,6 +147,15 @@ public class LiveDetectionActivity extends AppCompatActivity {
             return;
         }
 
+        // Frames are scheduled by the app so that slow round-trips don't pile up
+        detectionPipeline = new LiveDetectionPipeline(
+                createTransport(),
+                new FrameScheduler(),
+                ANALYSIS_TARGET_RESOLUTION);
+        // Frames are only sent when the scene changed or the tracks need a refresh
+        detectionPipeline.setDetectionGate(tracker);
+        detectionPipeline.setSceneChangeDetector(sceneChangeDetector);
+
         // Check for camera permission
         if (hasCameraPermission()) {
             startDetection();
@@ -65,6 +164,21 @@ public class LiveDetectionActivity extends AppCompatActivity {
         }
     }
 
+    private LiveTransport createTransport() {
+        DetectionApiClient liveClient = DetectionApiClients.create(this, ImageDetector.getApiUrl(),
+                LIVE_CALL_TIMEOUT_MS);
+        BackendMode mode = DetectorBackends.getMode(this);
+        if (mode != BackendMode.REMOTE) {
+            detectorBackend = DetectorBackends.create(this, mode, new RemoteDetectorBackend(liveClient),
+                    CascadePolicy.forLive());
+            return new BackendLiveTransport(detectorBackend);
+        }
+        // Frames stream over one WebSocket, falling back to a request per frame if the
+        // server doesn't offer the stream
+        return new WebSocketLiveTransport(HttpClients.getShared(), ImageDetector.getApiUrl(),
+                new HttpLiveTransport(liveClient));
+    }
+
     private boolean hasCameraPermission() {
         return ContextCompat.checkSelfPermission(this, Manifest.permission.CAMERA)
                 == PackageManager.PERMISSION_GRANTED;
@@ -100,103 +214,77 @@ public class LiveDetectionActivity extends AppCompatActivity {
         if (isDetectionRunning) return;
 
         statusTextView.setText("Starting detection...");
+        statusText.reset();
+        tracker.reset();
 
-        LiveDetectionListener listener = new LiveDetectionListener() {
+        LiveFrameListener listener = new LiveFrameListener() {
             @Override
-            public void onDetectionResult(DetectionResult result, long frameTimestamp) {
-                runOnUiThread(() -> {
-                    if (result.isSuccess()) {
-                        // Get the preview view dimensions
-                        int previewWidth = previewView.getWidth();
-                        int previewHeight = previewView.getHeight();
-
-                        // Get the actual camera frame dimensions from the result
-                        // If your SDK provides frame dimensions, use those. Otherwise, use common camera resolutions
-                        Size frameSize = getCameraFrameSize(result);
-                        int frameWidth = frameSize.getWidth();
-                        int frameHeight = frameSize.getHeight();
-
-                        // Calculate scale and offset for proper coordinate transformation
-                        float previewAspectRatio = (float) previewWidth / previewHeight;
-                        float frameAspectRatio = (float) frameWidth / frameHeight;
-
-                        int displayedFrameWidth, displayedFrameHeight;
-                        int offsetX = 0, offsetY = 0;
-
-                        if (frameAspectRatio > previewAspectRatio) {
-                            // Frame is wider than preview - fit to width
-                            displayedFrameWidth = previewWidth;
-                            displayedFrameHeight = (int) (previewWidth / frameAspectRatio);
-                            offsetY = (previewHeight - displayedFrameHeight) / 2;
-                        } else {
-                            // Frame is taller than preview - fit to height
-                            displayedFrameHeight = previewHeight;
-                            displayedFrameWidth = (int) (previewHeight * frameAspectRatio);
-                            offsetX = (previewWidth - displayedFrameWidth) / 2;
-                        }
-
-                        // Update overlay with proper coordinate transformation
-                        overlayView.setDetectionResult(result, frameWidth, frameHeight,
-                                displayedFrameWidth, displayedFrameHeight,
-                                offsetX, offsetY);
-
-                        // Update status text
-                        int objectCount = result.getDetectedObjects() != null ?
-                                result.getDetectedObjects().size() : 0;
-                        statusTextView.setText(String.format(Locale.US,
-                                "Detected %d objects (%.0f ms)",
-                                objectCount,
-                                (float) result.getProcessingTimeMs()));
-                    } else {
-                        statusTextView.setText("Detection error: " + result.getError());
+            public void onDetectionResult(DetectionBuffer result, FrameInfo frame) {
+                if (result.getError() == null) {
+                    synchronized (postProcessor) {
+                        postProcessor.process(result, processedBuffer);
+                        tracker.update(processedBuffer, frame.getAnalyzedAtMs());
                     }
-                });
+                    DetectionTrace trace = frame.getTrace();
+                    if (trace != null) {
+                        trace.mark(TraceStage.POST_PROCESSED);
+                        pendingTrace.set(trace);
+                    }
+                }
+                // Hand the result over without allocating; bursts collapse into one UI update
+                if (resultSlot.publish(result, frame.getTimestamp(), frame.getWidth(), frame.getHeight())) {
+                    ui.post(UPDATE_RESULT, renderLatestResult);
+                }
             }
 
             @Override
             public void onError(Exception e, long frameTimestamp) {
-                runOnUiThread(() -> {
+                ui.post(UPDATE_ERROR, () -> {
                     statusTextView.setText("Error: " + e.getMessage());
                     Log.e(TAG, "Detection error", e);
                 });
             }
         };
 
-        if (isFrontCamera) {
-            ImageDetector.startLiveDetectionFrontCamera(this, previewView, listener);
-        } else {
-            ImageDetector.startLiveDetection(this, previewView, listener);
-        }
+        detectionPipeline.start(this, previewView, isFrontCamera, listener);
 
         isDetectionRunning = true;
+        Choreographer.getInstance().postFrameCallback(renderTracks);
     }
 
     /**
-     * Gets the camera frame size from the detection result.
-     * If your SDK provides frame dimensions in the result, use those.
-     * Otherwise, use common camera resolutions as fallback.
+     * Applies the frame size and status of a live result; the boxes are drawn from the
+     * tracks. Runs for every delivered result, so it must not allocate.
      */
-    private Size getCameraFrameSize(DetectionResult result) {
-        // Check if your SDK provides frame dimensions
-        // This is just an example - replace with actual method from your SDK
-        // if (result.getFrameWidth() > 0 && result.getFrameHeight() > 0) {
-        //     return new Size(result.getFrameWidth(), result.getFrameHeight());
-        // }
-
-        // Fallback to common camera resolutions
-        // You might need to adjust these based on your camera configuration
-        return new Size(1920, 1080); // Common Full HD resolution
-
-        // Alternative fallback resolutions:
-        // return new Size(1280, 720); // HD
-        // return new Size(640, 480);  // VGA
+    private void renderResult(LiveResultSlot.Frame frame) {
+        if (!frame.isSuccess()) {
+            statusText.reset();
+            statusTextView.setText("Detection error: " + frame.getError());
+            return;
+        }
+
+        // Only recomputed when the preview or frame size changes
+        overlayTransform.update(previewView.getWidth(), previewView.getHeight(),
+                frame.getWidth(), frame.getHeight());
+
+        // Update status text
+        if (statusText.update(frame.getObjectCount(), frame.getProcessingTimeMs())) {
+            statusTextView.setText(statusText.getChars(), 0, statusText.length());
+        }
     }
 
     private void stopDetection() {
         if (!isDetectionRunning) return;
 
-        ImageDetector.stopLiveDetection();
-        overlayView.clearDetections();
+        detectionPipeline.stop();
+        Log.d(TAG, "Unchanged frames not uploaded: " + sceneChangeDetector.getSavedFrames());
+        if (detectorBackend instanceof CascadeDetectorBackend) {
+            Log.d(TAG, "Cascade: " + ((CascadeDetectorBackend) detectorBackend).getMetrics());
+        }
+        Choreographer.getInstance().removeFrameCallback(renderTracks);
+        pendingTrace.set(null);
+        tracker.reset();
+        overlayView.clear();
         statusTextView.setText("Detection stopped");
         isDetectionRunning = false;
     }
@@ -220,4 +308,17 @@ public class LiveDetectionActivity extends AppCompatActivity {
         super.onPause();
         stopDetection();
     }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        ui.close();
+        Log.d(TAG, "Execution: " + AppExecutors.getInstance().getStats());
+        if (detectionPipeline != null) {
+            detectionPipeline.shutdown();
+        }
+        if (detectorBackend != null) {
+            detectorBackend.close();
+        }
+    }
 }
\ No newline at end of file
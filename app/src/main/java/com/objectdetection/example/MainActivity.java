@@ -1,6 +1,7 @@
 package com.objectdetection.example;
 
 import android.Manifest;
+import android.content.ClipData;
 import android.content.DialogInterface;
 import android.content.Intent;
 import android.content.SharedPreferences;
@@ -9,11 +10,14 @@ import android.os.Bundle;
 import android.os.Environment;
 import android.provider.MediaStore;
 import android.text.InputType;
+import android.util.Log;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
 import android.widget.Button;
+import android.widget.CheckBox;
 import android.widget.EditText;
+import android.widget.LinearLayout;
 import android.widget.TextView;
 import android.widget.Toast;
 
@@ -24,11 +28,18 @@ import androidx.core.content.FileProvider;
 import androidx.preference.PreferenceManager;
 
 import com.google.android.material.button.MaterialButton;
+import com.objectdetection.example.backend.BackendMode;
+import com.objectdetection.example.backend.DetectorBackends;
+import com.objectdetection.example.backend.LocalDetectorBackend;
+import com.objectdetection.example.net.DetectionApiClients;
+import com.objectdetection.example.net.WireFormat;
+import com.objectdetection.example.queue.DetectionQueue;
 import com.objectdetection.sdk.ImageDetector;
 
 import java.io.File;
 import java.io.IOException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
@@ -37,11 +48,14 @@ import pub.devrel.easypermissions.AfterPermissionGranted;
 import pub.devrel.easypermissions.EasyPermissions;
 
 public class MainActivity extends AppCompatActivity implements EasyPermissions.PermissionCallbacks {
+    private static final String TAG = "MainActivity";
 
     private static final int RC_CAMERA_PERM = 123;
     private static final int RC_GALLERY_PERM = 124;
+    private static final int RC_BATCH_PERM = 125;
     private static final int REQUEST_IMAGE_CAPTURE = 1;
     private static final int REQUEST_PICK_IMAGE = 2;
+    private static final int REQUEST_PICK_BATCH = 3;
 
     private static final String API_URL_PREF_KEY = "api_url";
     private static final String DEFAULT_API_URL = "https://object-detection-api-production.up.railway.app";
@@ -65,6 +79,7 @@ public class MainActivity extends AppCompatActivity implements EasyPermissions.P
         buttonUrl = findViewById(R.id.buttonUrl);
         textViewApiStatus = findViewById(R.id.textViewApiStatus);
         Button buttonLiveDetection = findViewById(R.id.buttonLiveDetection);
+        Button buttonBatch = findViewById(R.id.buttonBatch);
 
         buttonLiveDetection.setOnClickListener(new View.OnClickListener() {
             @Override
@@ -95,8 +110,26 @@ public class MainActivity extends AppCompatActivity implements EasyPermissions.P
             }
         });
 
+        buttonBatch.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                requestBatchGalleryPermission();
+            }
+        });
+
         // Initialize SDK with API URL from preferences
         initializeApiUrl();
+
+        // Resume detections queued while offline in an earlier session
+        startDetectionQueue();
+    }
+
+    private void startDetectionQueue() {
+        try {
+            DetectionQueue.getInstance(this).start();
+        } catch (IOException e) {
+            Log.e(TAG, "Unable to open the detection queue", e);
+        }
     }
 
     private void startLiveDetection() {
@@ -114,16 +147,30 @@ public class MainActivity extends AppCompatActivity implements EasyPermissions.P
         String apiUrl = prefs.getString(API_URL_PREF_KEY, DEFAULT_API_URL);
 
         try {
-            ImageDetector.init(apiUrl);
+            initDetector(apiUrl);
             updateApiStatusText();
         } catch (Exception e) {
             Toast.makeText(this, getString(R.string.error_api_url_not_set), Toast.LENGTH_LONG).show();
         }
     }
 
+    /**
+     * Initializes the SDK unless it already points at the URL, so its client state isn't
+     * thrown away on every launch or save.
+     */
+    private void initDetector(String apiUrl) {
+        if (ImageDetector.isInitialized() && apiUrl.equals(ImageDetector.getApiUrl())) {
+            return;
+        }
+        ImageDetector.init(apiUrl);
+    }
+
     private void updateApiStatusText() {
-        if (ImageDetector.isInitialized()) {
-            textViewApiStatus.setText("API URL: " + ImageDetector.getApiUrl());
+        if (DetectorBackends.getMode(this) == BackendMode.LOCAL) {
+            textViewApiStatus.setText("Detecting on device");
+        } else if (ImageDetector.isInitialized()) {
+            textViewApiStatus.setText("API URL: " + ImageDetector.getApiUrl()
+                    + (DetectionApiClients.getWireFormat(this) == WireFormat.BINARY ? " (binary)" : ""));
         } else {
             textViewApiStatus.setText("API not initialized");
         }
@@ -154,26 +201,41 @@ public class MainActivity extends AppCompatActivity implements EasyPermissions.P
 
     @AfterPermissionGranted(RC_GALLERY_PERM)
     private void requestGalleryPermission() {
-        // Different permissions needed based on Android version
-        String[] perms;
-        if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.TIRAMISU) {
-            // Android 13+ uses READ_MEDIA_IMAGES instead of READ_EXTERNAL_STORAGE
-            perms = new String[]{Manifest.permission.READ_MEDIA_IMAGES};
+        String[] perms = getGalleryPermissions();
+        if (EasyPermissions.hasPermissions(this, perms)) {
+            pickImageFromGallery();
         } else {
-            perms = new String[]{Manifest.permission.READ_EXTERNAL_STORAGE};
+            EasyPermissions.requestPermissions(
+                    this,
+                    getString(R.string.permission_rationale_storage),
+                    RC_GALLERY_PERM,
+                    perms);
         }
+    }
 
+    @AfterPermissionGranted(RC_BATCH_PERM)
+    private void requestBatchGalleryPermission() {
+        String[] perms = getGalleryPermissions();
         if (EasyPermissions.hasPermissions(this, perms)) {
-            pickImageFromGallery();
+            pickImagesForBatch();
         } else {
             EasyPermissions.requestPermissions(
                     this,
                     getString(R.string.permission_rationale_storage),
-                    RC_GALLERY_PERM,
+                    RC_BATCH_PERM,
                     perms);
         }
     }
 
+    private String[] getGalleryPermissions() {
+        // Different permissions needed based on Android version
+        if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.TIRAMISU) {
+            // Android 13+ uses READ_MEDIA_IMAGES instead of READ_EXTERNAL_STORAGE
+            return new String[]{Manifest.permission.READ_MEDIA_IMAGES};
+        }
+        return new String[]{Manifest.permission.READ_EXTERNAL_STORAGE};
+    }
+
     private void dispatchTakePictureIntent() {
         Intent takePictureIntent = new Intent(MediaStore.ACTION_IMAGE_CAPTURE);
         if (takePictureIntent.resolveActivity(getPackageManager()) != null) {
@@ -218,6 +280,43 @@ public class MainActivity extends AppCompatActivity implements EasyPermissions.P
         startActivityForResult(intent, REQUEST_PICK_IMAGE);
     }
 
+    private void pickImagesForBatch() {
+        // ACTION_PICK ignores multi-select in most galleries, GET_CONTENT honors it
+        Intent intent = new Intent(Intent.ACTION_GET_CONTENT);
+        intent.setType("image/*");
+        intent.addCategory(Intent.CATEGORY_OPENABLE);
+        intent.putExtra(Intent.EXTRA_ALLOW_MULTIPLE, true);
+        startActivityForResult(intent, REQUEST_PICK_BATCH);
+    }
+
+    private void startBatchDetection(Intent data) {
+        ArrayList<String> uris = new ArrayList<>();
+        ClipData clipData = data.getClipData();
+        if (clipData != null) {
+            for (int i = 0; i < clipData.getItemCount(); i++) {
+                uris.add(clipData.getItemAt(i).getUri().toString());
+            }
+        } else if (data.getData() != null) {
+            // A single selection comes back without clip data
+            uris.add(data.getData().toString());
+        }
+        if (uris.isEmpty()) {
+            Toast.makeText(this, R.string.error_no_images_selected, Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        Intent intent = new Intent(this, BatchDetectionActivity.class);
+        intent.putStringArrayListExtra(BatchDetectionActivity.EXTRA_IMAGE_URIS, uris);
+        // Pass the read grants on to the batch activity
+        if (clipData != null) {
+            intent.setClipData(clipData);
+        } else {
+            intent.setData(data.getData());
+        }
+        intent.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION);
+        startActivity(intent);
+    }
+
     private void showUrlInputDialog() {
         AlertDialog.Builder builder = new AlertDialog.Builder(this);
         builder.setTitle(R.string.dialog_enter_url_title);
@@ -272,6 +371,10 @@ public class MainActivity extends AppCompatActivity implements EasyPermissions.P
                     intent.putExtra(DetectionResultActivity.EXTRA_IMAGE_URI, selectedImageUri.toString());
                     startActivity(intent);
                 }
+            } else if (requestCode == REQUEST_PICK_BATCH) {
+                if (data != null) {
+                    startBatchDetection(data);
+                }
             }
         }
     }
@@ -296,6 +399,9 @@ public class MainActivity extends AppCompatActivity implements EasyPermissions.P
             // After permissions are granted, explicitly open the gallery
             pickImageFromGallery();
         }
+        else if (requestCode == RC_BATCH_PERM) {
+            pickImagesForBatch();
+        }
     }
 
     @Override
@@ -308,7 +414,7 @@ public class MainActivity extends AppCompatActivity implements EasyPermissions.P
 
         if (requestCode == RC_CAMERA_PERM) {
             Toast.makeText(this, "Camera permissions denied: " + deniedPerms.toString(), Toast.LENGTH_LONG).show();
-        } else if (requestCode == RC_GALLERY_PERM) {
+        } else if (requestCode == RC_GALLERY_PERM || requestCode == RC_BATCH_PERM) {
             Toast.makeText(this, "Gallery " + deniedPerms.toString(), Toast.LENGTH_LONG).show();
         }
     }
@@ -327,6 +433,14 @@ public class MainActivity extends AppCompatActivity implements EasyPermissions.P
             showApiUrlDialog();
             return true;
         }
+        if (id == R.id.action_detector_backend) {
+            showDetectorBackendDialog();
+            return true;
+        }
+        if (id == R.id.action_latency_debug) {
+            startActivity(new Intent(this, LatencyDebugActivity.class));
+            return true;
+        }
 
         return super.onOptionsItemSelected(item);
     }
@@ -341,7 +455,14 @@ public class MainActivity extends AppCompatActivity implements EasyPermissions.P
         final EditText input = new EditText(this);
         input.setInputType(InputType.TYPE_CLASS_TEXT | InputType.TYPE_TEXT_VARIATION_URI);
         input.setText(currentUrl);
-        builder.setView(input);
+        final CheckBox binaryFormat = new CheckBox(this);
+        binaryFormat.setText(R.string.settings_wire_format_binary);
+        binaryFormat.setChecked(DetectionApiClients.getWireFormat(this) == WireFormat.BINARY);
+        LinearLayout layout = new LinearLayout(this);
+        layout.setOrientation(LinearLayout.VERTICAL);
+        layout.addView(input);
+        layout.addView(binaryFormat);
+        builder.setView(layout);
 
         builder.setPositiveButton("Save", new DialogInterface.OnClickListener() {
             @Override
@@ -350,7 +471,7 @@ public class MainActivity extends AppCompatActivity implements EasyPermissions.P
                 if (url.isEmpty() || !(url.startsWith("http://") || url.startsWith("https://"))) {
                     Toast.makeText(MainActivity.this, R.string.error_invalid_url, Toast.LENGTH_SHORT).show();
                 } else {
-                    saveApiUrl(url);
+                    saveApiUrl(url, binaryFormat.isChecked() ? WireFormat.BINARY : WireFormat.JSON);
                 }
             }
         });
@@ -364,12 +485,58 @@ public class MainActivity extends AppCompatActivity implements EasyPermissions.P
         builder.show();
     }
 
-    private void saveApiUrl(String url) {
+    private void showDetectorBackendDialog() {
+        if (!LocalDetectorBackend.isModelAvailable(this)) {
+            // Without a model the local modes would only fall back to the API
+            new AlertDialog.Builder(this)
+                    .setTitle(R.string.settings_detector_backend)
+                    .setMessage(R.string.error_local_model_missing)
+                    .setPositiveButton(android.R.string.ok, null)
+                    .show();
+            return;
+        }
+        final BackendMode[] modes = BackendMode.values();
+        String[] names = {
+                getString(R.string.settings_backend_remote),
+                getString(R.string.settings_backend_local),
+                getString(R.string.settings_backend_local_first),
+        };
+        int checked = DetectorBackends.getMode(this).ordinal();
+
+        AlertDialog.Builder builder = new AlertDialog.Builder(this);
+        builder.setTitle(R.string.settings_detector_backend);
+        builder.setSingleChoiceItems(names, checked, new DialogInterface.OnClickListener() {
+            @Override
+            public void onClick(DialogInterface dialog, int which) {
+                saveDetectorBackend(modes[which]);
+                dialog.dismiss();
+            }
+        });
+        builder.setNegativeButton("Cancel", new DialogInterface.OnClickListener() {
+            @Override
+            public void onClick(DialogInterface dialog, int which) {
+                dialog.cancel();
+            }
+        });
+
+        builder.show();
+    }
+
+    private void saveDetectorBackend(BackendMode mode) {
+        SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(this);
+        prefs.edit().putString(BackendMode.PREF_KEY, mode.getPreferenceValue()).apply();
+        updateApiStatusText();
+    }
+
+    private void saveApiUrl(String url, WireFormat wireFormat) {
         SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(this);
-        prefs.edit().putString(API_URL_PREF_KEY, url).apply();
+        prefs.edit()
+                .putString(API_URL_PREF_KEY, url)
+                .putString(WireFormat.PREF_KEY, wireFormat.getPreferenceValue())
+                .apply();
 
         try {
-            ImageDetector.init(url);
+            initDetector(url);
             updateApiStatusText();
             Toast.makeText(this, "API URL updated", Toast.LENGTH_SHORT).show();
         } catch (Exception e) {
@@ -0,0 +1,115 @@
+package com.objectdetection.example.adapter;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.bumptech.glide.Glide;
+import com.objectdetection.example.R;
+import com.objectdetection.example.batch.BatchItem;
+import com.objectdetection.sdk.model.DetectedObject;
+import com.objectdetection.sdk.model.DetectionResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Adapter for the results of a batch run, shown in completion order.
+ */
+public class BatchResultAdapter extends RecyclerView.Adapter<BatchResultAdapter.BatchViewHolder> {
+
+    // Labels listed per row before the summary is cut off
+    private static final int MAX_SUMMARY_LABELS = 5;
+
+    private final List<BatchItem> items = new ArrayList<>();
+
+    /**
+     * Appends a finished image. Must be called on the main thread.
+     *
+     * @param item The finished image
+     */
+    public void addItem(BatchItem item) {
+        items.add(item);
+        notifyItemInserted(items.size() - 1);
+    }
+
+    @NonNull
+    @Override
+    public BatchViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.item_batch_result, parent, false);
+        return new BatchViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull BatchViewHolder holder, int position) {
+        holder.bind(items.get(position));
+    }
+
+    @Override
+    public int getItemCount() {
+        return items.size();
+    }
+
+    /**
+     * ViewHolder for batch result items.
+     */
+    static class BatchViewHolder extends RecyclerView.ViewHolder {
+
+        private final ImageView imageViewThumbnail;
+        private final TextView textViewTitle;
+        private final TextView textViewSummary;
+        private final TextView textViewLatency;
+
+        BatchViewHolder(@NonNull View itemView) {
+            super(itemView);
+            imageViewThumbnail = itemView.findViewById(R.id.imageViewThumbnail);
+            textViewTitle = itemView.findViewById(R.id.textViewTitle);
+            textViewSummary = itemView.findViewById(R.id.textViewSummary);
+            textViewLatency = itemView.findViewById(R.id.textViewLatency);
+        }
+
+        void bind(BatchItem item) {
+            Glide.with(itemView)
+                    .load(item.getUri())
+                    .centerCrop()
+                    .into(imageViewThumbnail);
+
+            int number = item.getIndex() + 1;
+            DetectionResult result = item.getResult();
+            if (item.isSuccess()) {
+                List<DetectedObject> objects = result.getDetectedObjects();
+                int count = objects != null ? objects.size() : 0;
+                textViewTitle.setText(itemView.getContext().getString(R.string.batch_item_title, number, count));
+                textViewSummary.setText(summarizeLabels(objects));
+            } else {
+                textViewTitle.setText(itemView.getContext().getString(R.string.batch_item_failed, number));
+                textViewSummary.setText(item.getError());
+            }
+            textViewLatency.setText(itemView.getContext().getString(R.string.batch_latency, item.getLatencyMs()));
+        }
+
+        private static String summarizeLabels(List<DetectedObject> objects) {
+            if (objects == null || objects.isEmpty()) {
+                return "";
+            }
+            StringBuilder summary = new StringBuilder();
+            int shown = Math.min(objects.size(), MAX_SUMMARY_LABELS);
+            for (int i = 0; i < shown; i++) {
+                if (i > 0) {
+                    summary.append(", ");
+                }
+                summary.append(objects.get(i).getLabel());
+            }
+            if (objects.size() > shown) {
+                summary.append(", …");
+            }
+            return summary.toString();
+        }
+    }
+}
@@ -1,37 +1,77 @@
 package com.objectdetection.example.adapter;
 
-import android.graphics.Color;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.objectdetection.example.R;
+import com.objectdetection.example.util.LabelPalette;
 import com.objectdetection.sdk.model.DetectedObject;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
 
 /**
  * Adapter for displaying detected objects in a RecyclerView.
+ * <p>
+ * New lists are diffed against the shown one on a background thread, and only the rows
+ * that changed are rebound; a row whose confidence changed only gets its confidence
+ * text updated. This keeps updates cheap enough for lists refreshed at the frame rate.
  */
 public class DetectedObjectAdapter extends RecyclerView.Adapter<DetectedObjectAdapter.ObjectViewHolder> {
 
-    private List<DetectedObject> objects = new ArrayList<>();
-    private final Random random = new Random();
+    static final DiffUtil.ItemCallback<DetectedObjectItem> DIFF_CALLBACK =
+            new DiffUtil.ItemCallback<DetectedObjectItem>() {
+                @Override
+                public boolean areItemsTheSame(@NonNull DetectedObjectItem oldItem,
+                                               @NonNull DetectedObjectItem newItem) {
+                    return oldItem.getId() == newItem.getId();
+                }
+
+                @Override
+                public boolean areContentsTheSame(@NonNull DetectedObjectItem oldItem,
+                                                  @NonNull DetectedObjectItem newItem) {
+                    return oldItem.hasSameContents(newItem);
+                }
+
+                @Override
+                public Object getChangePayload(@NonNull DetectedObjectItem oldItem,
+                                               @NonNull DetectedObjectItem newItem) {
+                    return newItem.getChangePayload(oldItem);
+                }
+            };
+
+    private final LabelPalette palette = LabelPalette.getInstance();
+    private final AsyncListDiffer<DetectedObjectItem> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
+    // Main thread only
+    private final ObjectRowIds rowIds = new ObjectRowIds();
+
+    public DetectedObjectAdapter() {
+        setHasStableIds(true);
+    }
 
     /**
-     * Updates the list of detected objects and notifies the adapter.
+     * Updates the list of detected objects. The change is diffed in the background and
+     * applied shortly after. Must be called on the main thread.
      *
      * @param objects The new list of objects
      */
     public void setObjects(List<DetectedObject> objects) {
-        this.objects = objects != null ? objects : new ArrayList<>();
-        notifyDataSetChanged();
+        submitItems(objects != null ? DetectedObjectItem.fromObjects(objects, rowIds) : null);
+    }
+
+    /**
+     * Updates the list with prepared rows. Must be called on the main thread.
+     *
+     * @param items The new rows, not modified afterwards, or null to clear the list
+     */
+    public void submitItems(List<DetectedObjectItem> items) {
+        differ.submitList(items);
     }
 
     @NonNull
@@ -44,13 +84,27 @@ public class DetectedObjectAdapter extends RecyclerView.Adapter<DetectedObjectAd
 
     @Override
     public void onBindViewHolder(@NonNull ObjectViewHolder holder, int position) {
-        DetectedObject object = objects.get(position);
-        holder.bind(object);
+        holder.bind(differ.getCurrentList().get(position));
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ObjectViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        // Only partial changes are sent as payloads
+        holder.bindConfidence(differ.getCurrentList().get(position));
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return differ.getCurrentList().get(position).getId();
     }
 
     @Override
     public int getItemCount() {
-        return objects.size();
+        return differ.getCurrentList().size();
     }
 
     /**
@@ -69,34 +123,17 @@ public class DetectedObjectAdapter extends RecyclerView.Adapter<DetectedObjectAd
             textViewConfidence = itemView.findViewById(R.id.textViewConfidence);
         }
 
-        void bind(DetectedObject object) {
+        void bind(DetectedObjectItem item) {
             // Set label and confidence
-            textViewLabel.setText(object.getLabel());
-            textViewConfidence.setText(object.getConfidenceAsPercentage());
+            textViewLabel.setText(item.getLabel());
+            bindConfidence(item);
 
-            // Generate a consistent color based on the label
-            int color = getColorForLabel(object.getLabel());
-            colorIndicator.setBackgroundColor(color);
+            // Same color as the label has everywhere else
+            colorIndicator.setBackgroundColor(palette.getColor(item.getLabel()));
         }
 
-        /**
-         * Generates a color based on the label text.
-         * This ensures the same label always gets the same color.
-         *
-         * @param label The object label
-         * @return A color value
-         */
-        private int getColorForLabel(String label) {
-            // Use the label's hash code as seed for consistent colors for the same labels
-            Random labelRandom = new Random(label != null ? label.hashCode() : 0);
-
-            // Generate a bright, saturated color
-            float[] hsv = new float[3];
-            hsv[0] = labelRandom.nextFloat() * 360;  // Hue
-            hsv[1] = 0.8f + labelRandom.nextFloat() * 0.2f;  // Saturation
-            hsv[2] = 0.8f + labelRandom.nextFloat() * 0.2f;  // Value
-
-            return Color.HSVToColor(hsv);
+        void bindConfidence(DetectedObjectItem item) {
+            textViewConfidence.setText(item.getConfidenceText());
         }
     }
-}
\ No newline at end of file
+}
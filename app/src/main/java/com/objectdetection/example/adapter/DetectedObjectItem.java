@@ -0,0 +1,88 @@
+package com.objectdetection.example.adapter;
+
+import com.objectdetection.sdk.model.DetectedObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Immutable row of the {@link DetectedObjectAdapter}.
+ * <p>
+ * The id identifies the same object across updates, so the list can be diffed and rows
+ * keep their views. The displayed texts are prepared up front, so binding and diffing
+ * don't format anything.
+ */
+public final class DetectedObjectItem {
+
+    /**
+     * Payload for a row whose object is unchanged except for its confidence.
+     */
+    public static final Object PAYLOAD_CONFIDENCE = new Object();
+
+    private final long id;
+    private final String label;
+    private final float confidence;
+    private final String confidenceText;
+
+    public DetectedObjectItem(long id, String label, float confidence, String confidenceText) {
+        this.id = id;
+        this.label = label;
+        this.confidence = confidence;
+        this.confidenceText = confidenceText;
+    }
+
+    /**
+     * Converts detected objects to rows, keeping their order.
+     *
+     * @param ids Ids of the rows shown so far, see {@link ObjectRowIds}
+     */
+    static List<DetectedObjectItem> fromObjects(List<DetectedObject> objects, ObjectRowIds ids) {
+        List<DetectedObjectItem> items = new ArrayList<>(objects.size());
+        Map<String, Integer> occurrences = new HashMap<>();
+        for (DetectedObject object : objects) {
+            String label = object.getLabel();
+            Integer seen = occurrences.get(label);
+            int occurrence = seen != null ? seen : 0;
+            occurrences.put(label, occurrence + 1);
+            items.add(new DetectedObjectItem(ids.get(label, occurrence), label,
+                    object.getConfidence(), object.getConfidenceAsPercentage()));
+        }
+        return items;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public float getConfidence() {
+        return confidence;
+    }
+
+    public String getConfidenceText() {
+        return confidenceText;
+    }
+
+    /**
+     * Whether the row shows the same thing as the other one.
+     */
+    public boolean hasSameContents(DetectedObjectItem other) {
+        return Objects.equals(label, other.label) && Objects.equals(confidenceText, other.confidenceText);
+    }
+
+    /**
+     * What changed from the old row to this one, for a partial rebind.
+     *
+     * @return {@link #PAYLOAD_CONFIDENCE} if only the confidence text changed, or null
+     * if the row needs a full bind
+     */
+    public Object getChangePayload(DetectedObjectItem old) {
+        return Objects.equals(label, old.label) ? PAYLOAD_CONFIDENCE : null;
+    }
+}
@@ -0,0 +1,36 @@
+package com.objectdetection.example.adapter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Row ids of detected objects, by label and by rank among the objects with that label.
+ * <p>
+ * Each (label, rank) pair gets the next id in sequence the first time it is seen and
+ * keeps it for as long as the assigner lives, so ids are unique and the second "person"
+ * keeps its row while its confidence changes. The API has no object identity, so when
+ * two objects with the same label trade places in the confidence order, their rows trade
+ * contents instead of moving. Not thread-safe.
+ */
+final class ObjectRowIds {
+
+    private final Map<String, List<Long>> idsByLabel = new HashMap<>();
+    private long nextId;
+
+    /**
+     * Id of the {@code occurrence}-th object with the label, which may be null.
+     */
+    long get(String label, int occurrence) {
+        List<Long> ids = idsByLabel.get(label);
+        if (ids == null) {
+            ids = new ArrayList<>();
+            idsByLabel.put(label, ids);
+        }
+        while (ids.size() <= occurrence) {
+            ids.add(nextId++);
+        }
+        return ids.get(occurrence);
+    }
+}
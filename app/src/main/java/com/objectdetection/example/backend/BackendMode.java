@@ -0,0 +1,37 @@
+package com.objectdetection.example.backend;
+
+/**
+ * Where detection runs, as chosen in the settings.
+ */
+public enum BackendMode {
+    /** Every image is sent to the detection API. */
+    REMOTE("remote"),
+    /** Every image is detected on the device. */
+    LOCAL("local"),
+    /** Images are detected on the device, unsure ones are sent to the API as well, see {@link CascadeDetectorBackend}. */
+    LOCAL_FIRST("local_first");
+
+    public static final String PREF_KEY = "detector_backend";
+
+    private final String preferenceValue;
+
+    BackendMode(String preferenceValue) {
+        this.preferenceValue = preferenceValue;
+    }
+
+    public String getPreferenceValue() {
+        return preferenceValue;
+    }
+
+    /**
+     * Returns the mode stored under the value, or {@link #REMOTE} if there is none.
+     */
+    public static BackendMode fromPreferenceValue(String value) {
+        for (BackendMode mode : values()) {
+            if (mode.preferenceValue.equals(value)) {
+                return mode;
+            }
+        }
+        return REMOTE;
+    }
+}
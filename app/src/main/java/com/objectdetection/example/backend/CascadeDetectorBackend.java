@@ -0,0 +1,203 @@
+package com.objectdetection.example.backend;
+
+import com.objectdetection.example.trace.DetectionTrace;
+import com.objectdetection.example.trace.TraceStage;
+import com.objectdetection.example.util.DetectionBuffer;
+import com.objectdetection.example.util.DetectionBufferListener;
+import com.objectdetection.example.util.DetectionJsonParser;
+import com.objectdetection.example.util.DetectionResults;
+import com.objectdetection.sdk.listener.ImageDetectionListener;
+import com.objectdetection.sdk.model.DetectionResult;
+
+import java.util.ArrayDeque;
+
+/**
+ * Answers images with a fast local detector and only asks the server when the
+ * {@link CascadePolicy} says the local result is not good enough.
+ * <p>
+ * Escalated images are detected by the server and the two results are merged with
+ * {@link CascadeMerger}. If the server request fails, the local result is delivered
+ * instead; only when both fail does the listener get the server's failure. Every image is
+ * recorded in the {@link CascadeMetrics}.
+ * <p>
+ * Both backends are asked for buffers, and a {@link DetectionBufferListener} gets one in
+ * turn. The local result of an escalated image is kept in a pooled {@link Escalation}
+ * until the server answers, so live frames don't allocate once the pool is warm.
+ */
+public class CascadeDetectorBackend implements DetectorBackend {
+
+    // More escalations than this may wait on the server at once, the extra ones are dropped after use
+    private static final int MAX_POOLED_ESCALATIONS = 4;
+
+    private final DetectorBackend local;
+    private final DetectorBackend remote;
+    private final CascadePolicy policy;
+    private final CascadeMetrics metrics = new CascadeMetrics();
+    // Guarded by itself
+    private final ArrayDeque<Escalation> escalations = new ArrayDeque<>();
+
+    public CascadeDetectorBackend(DetectorBackend local, DetectorBackend remote, CascadePolicy policy) {
+        this.local = local;
+        this.remote = remote;
+        this.policy = policy;
+    }
+
+    public CascadePolicy getPolicy() {
+        return policy;
+    }
+
+    public CascadeMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public void detectJpeg(byte[] data, int offset, int length, ImageDetectionListener listener) {
+        detectJpeg(data, offset, length, null, listener);
+    }
+
+    /**
+     * The trace goes to the server request only, so an escalated image is timed by its
+     * network stages; a local answer stamps {@link TraceStage#PARSED} when accepted.
+     */
+    @Override
+    public void detectJpeg(byte[] data, int offset, int length, DetectionTrace trace,
+                           ImageDetectionListener listener) {
+        final long startNanos = System.nanoTime();
+        local.detectJpeg(data, offset, length, new DetectionBufferListener() {
+            @Override
+            public void onDetections(DetectionBuffer detections) {
+                long localMs = elapsedMs(startNanos);
+                if (policy.shouldEscalate(detections)) {
+                    Escalation escalation = acquireEscalation();
+                    // The buffer is only valid during this call
+                    escalation.setLocal(detections.getError() == null ? detections : null);
+                    escalate(data, offset, length, trace, escalation, localMs, listener);
+                } else {
+                    metrics.recordLocal(localMs);
+                    if (trace != null) {
+                        trace.mark(TraceStage.PARSED);
+                    }
+                    DetectionResults.deliver(detections, listener);
+                }
+            }
+
+            @Override
+            public void onResult(DetectionResult result) {
+                // Local backends that don't deliver buffers
+                DetectionBuffer detections = DetectionJsonParser.getThreadBuffer();
+                DetectionResults.toBuffer(result, detections);
+                onDetections(detections);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Escalation escalation = acquireEscalation();
+                escalation.setLocal(null);
+                escalate(data, offset, length, trace, escalation, elapsedMs(startNanos), listener);
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        local.close();
+        remote.close();
+    }
+
+    private void escalate(byte[] data, int offset, int length, DetectionTrace trace,
+                          Escalation escalation, long localMs, ImageDetectionListener listener) {
+        final long startNanos = System.nanoTime();
+        remote.detectJpeg(data, offset, length, trace, new DetectionBufferListener() {
+            @Override
+            public void onDetections(DetectionBuffer detections) {
+                metrics.recordEscalated(localMs, elapsedMs(startNanos));
+                try {
+                    if (!escalation.hasLocal) {
+                        DetectionResults.deliver(detections, listener);
+                    } else if (detections.getError() != null) {
+                        DetectionResults.deliver(escalation.local, listener);
+                    } else {
+                        escalation.merger.merge(escalation.local, detections, escalation.merged);
+                        DetectionResults.deliver(escalation.merged, listener);
+                    }
+                } finally {
+                    releaseEscalation(escalation);
+                }
+            }
+
+            @Override
+            public void onResult(DetectionResult result) {
+                if (!escalation.hasLocal) {
+                    // Nothing to merge with, pass the server's result on as it is
+                    metrics.recordEscalated(localMs, elapsedMs(startNanos));
+                    releaseEscalation(escalation);
+                    listener.onResult(result);
+                    return;
+                }
+                DetectionBuffer detections = DetectionJsonParser.getThreadBuffer();
+                DetectionResults.toBuffer(result, detections);
+                onDetections(detections);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                metrics.recordEscalationFailure(localMs);
+                try {
+                    if (escalation.hasLocal) {
+                        DetectionResults.deliver(escalation.local, listener);
+                    } else {
+                        listener.onError(e);
+                    }
+                } finally {
+                    releaseEscalation(escalation);
+                }
+            }
+        });
+    }
+
+    private Escalation acquireEscalation() {
+        synchronized (escalations) {
+            Escalation escalation = escalations.poll();
+            if (escalation != null) {
+                return escalation;
+            }
+        }
+        return new Escalation(policy.getMergeIouThreshold());
+    }
+
+    private void releaseEscalation(Escalation escalation) {
+        synchronized (escalations) {
+            if (escalations.size() < MAX_POOLED_ESCALATIONS) {
+                escalations.push(escalation);
+            }
+        }
+    }
+
+    private static long elapsedMs(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    /**
+     * Scratch space of one image waiting on the server: its successful local result, if
+     * any, and the merge of it with the server's.
+     */
+    private static final class Escalation {
+        final DetectionBuffer local = new DetectionBuffer();
+        final DetectionBuffer merged = new DetectionBuffer();
+        final CascadeMerger merger;
+        boolean hasLocal;
+
+        Escalation(float mergeIouThreshold) {
+            this.merger = new CascadeMerger(mergeIouThreshold);
+        }
+
+        void setLocal(DetectionBuffer detections) {
+            hasLocal = detections != null;
+            if (hasLocal) {
+                local.copyFrom(detections);
+            } else {
+                local.clear();
+            }
+        }
+    }
+}
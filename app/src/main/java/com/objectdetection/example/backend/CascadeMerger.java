@@ -0,0 +1,57 @@
+package com.objectdetection.example.backend;
+
+import com.objectdetection.example.postprocess.DetectionPostProcessor;
+import com.objectdetection.example.util.DetectionBuffer;
+
+/**
+ * Merges the local and server detections of an escalated image.
+ * <p>
+ * Both lists are pooled and reduced by a {@link DetectionPostProcessor}: of two boxes with
+ * the same label that overlap by more than the threshold only the more confident one is
+ * kept. Objects only one of the detectors found are kept as they are. Scratch buffers are
+ * kept between calls, so merging stops allocating once it has seen its largest input. Not
+ * thread-safe.
+ */
+public final class CascadeMerger {
+
+    private final DetectionPostProcessor processor;
+    private final DetectionBuffer candidates = new DetectionBuffer();
+
+    /**
+     * @param iouThreshold Overlap above which two boxes of a label are the same object
+     */
+    public CascadeMerger(float iouThreshold) {
+        this.processor = DetectionPostProcessor.builder()
+                .setIouThreshold(iouThreshold)
+                .build();
+    }
+
+    /**
+     * Replaces the contents of {@code out} with the merged detections. Metadata (processing
+     * time, error, image size) is taken from the server result.
+     *
+     * @param local  Detections of the local model
+     * @param remote Detections of the server
+     * @param out    Receives the merged detections; must be neither input
+     */
+    public void merge(DetectionBuffer local, DetectionBuffer remote, DetectionBuffer out) {
+        // Local ones first, so they win ties
+        candidates.clear();
+        candidates.ensureCapacity(local.size() + remote.size());
+        appendAll(local, candidates);
+        appendAll(remote, candidates);
+        processor.process(candidates, out);
+
+        out.setProcessingTimeMs(remote.getProcessingTimeMs());
+        out.setError(remote.getError());
+        out.setImageSize(remote.getImageWidth() > 0 ? remote.getImageWidth() : local.getImageWidth(),
+                remote.getImageHeight() > 0 ? remote.getImageHeight() : local.getImageHeight());
+    }
+
+    private static void appendAll(DetectionBuffer source, DetectionBuffer target) {
+        for (int i = 0; i < source.size(); i++) {
+            target.add(source.getLabel(i), source.getConfidence(i),
+                    source.getXMin(i), source.getYMin(i), source.getXMax(i), source.getYMax(i));
+        }
+    }
+}
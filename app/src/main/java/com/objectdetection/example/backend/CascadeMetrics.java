@@ -0,0 +1,98 @@
+package com.objectdetection.example.backend;
+
+import java.util.Locale;
+
+/**
+ * Counts how a {@link CascadeDetectorBackend} answered its images.
+ * <p>
+ * The saved latency is an estimate against sending every image to the server: each image
+ * answered locally saves a mean server round-trip, and every image costs its local run.
+ * It is only known once at least one image was escalated.
+ */
+public class CascadeMetrics {
+
+    private long images;
+    private long escalated;
+    private long escalationFailures;
+    private long localTotalMs;
+    private long remoteTotalMs;
+    private long remoteSamples;
+
+    /**
+     * Records an image the local model answered on its own.
+     */
+    public synchronized void recordLocal(long localMs) {
+        images++;
+        localTotalMs += localMs;
+    }
+
+    /**
+     * Records an image the server answered after the local run.
+     *
+     * @param localMs  Time of the local run, 0 if it failed right away
+     * @param remoteMs Round-trip time of the server request
+     */
+    public synchronized void recordEscalated(long localMs, long remoteMs) {
+        images++;
+        escalated++;
+        localTotalMs += localMs;
+        remoteTotalMs += remoteMs;
+        remoteSamples++;
+    }
+
+    /**
+     * Records an escalated image whose server request failed.
+     */
+    public synchronized void recordEscalationFailure(long localMs) {
+        images++;
+        escalated++;
+        escalationFailures++;
+        localTotalMs += localMs;
+    }
+
+    public synchronized long getImages() {
+        return images;
+    }
+
+    public synchronized long getEscalated() {
+        return escalated;
+    }
+
+    public synchronized long getEscalationFailures() {
+        return escalationFailures;
+    }
+
+    /**
+     * Share of images sent to the server, from 0 to 1.
+     */
+    public synchronized float getEscalationRate() {
+        return images > 0 ? (float) escalated / images : 0f;
+    }
+
+    public synchronized float getMeanLocalMs() {
+        return images > 0 ? (float) localTotalMs / images : 0f;
+    }
+
+    public synchronized float getMeanRemoteMs() {
+        return remoteSamples > 0 ? (float) remoteTotalMs / remoteSamples : 0f;
+    }
+
+    /**
+     * Estimated latency saved against sending every image to the server, or 0 while no
+     * server round-trip has been measured.
+     */
+    public synchronized long getEstimatedSavedMs() {
+        if (remoteSamples == 0) {
+            return 0;
+        }
+        return Math.round((images - escalated) * getMeanRemoteMs()) - localTotalMs;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.US,
+                "%d images, %.0f%% escalated (%d failed), local %.0f ms, server %.0f ms, ~%d ms saved",
+                images, getEscalationRate() * 100f, escalationFailures,
+                getMeanLocalMs(), getMeanRemoteMs(), getEstimatedSavedMs());
+    }
+}
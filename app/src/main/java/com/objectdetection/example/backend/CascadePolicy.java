@@ -0,0 +1,133 @@
+package com.objectdetection.example.backend;
+
+import com.objectdetection.example.util.DetectionBuffer;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Decides which local results of a {@link CascadeDetectorBackend} are escalated to the
+ * server, and how the two results are merged.
+ * <p>
+ * A local result is escalated if its most confident detection is below
+ * {@link #getMinConfidence()} (including when nothing was found), or if it contains a
+ * label the local model is not trusted with. Each use case has its own policy: stills
+ * are worth a round-trip for a better answer, live frames mostly are not.
+ */
+public final class CascadePolicy {
+
+    public static final float DEFAULT_MIN_CONFIDENCE = 0.6f;
+    public static final float DEFAULT_MERGE_IOU = 0.5f;
+
+    private final float minConfidence;
+    private final Set<String> trustedLabels;
+    private final float mergeIouThreshold;
+
+    private CascadePolicy(Builder builder) {
+        this.minConfidence = builder.minConfidence;
+        this.trustedLabels = builder.trustedLabels != null
+                ? Collections.unmodifiableSet(new HashSet<>(builder.trustedLabels))
+                : null;
+        this.mergeIouThreshold = builder.mergeIouThreshold;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Policy for single images, where the user waits for the answer once: escalates
+     * anything the local model is not clearly sure about.
+     */
+    public static CascadePolicy forStillImages() {
+        return builder().build();
+    }
+
+    /**
+     * Policy for live frames: a new frame follows shortly, so only frames the local model
+     * is quite unsure about are escalated.
+     */
+    public static CascadePolicy forLive() {
+        return builder().setMinConfidence(0.4f).build();
+    }
+
+    public float getMinConfidence() {
+        return minConfidence;
+    }
+
+    /**
+     * Labels the local model is trusted with, or null to trust it with every known label.
+     */
+    public Set<String> getTrustedLabels() {
+        return trustedLabels;
+    }
+
+    /**
+     * Overlap above which a local and a server box of the same label count as one object.
+     */
+    public float getMergeIouThreshold() {
+        return mergeIouThreshold;
+    }
+
+    /**
+     * Whether a local result should be checked by the server.
+     */
+    public boolean shouldEscalate(DetectionBuffer local) {
+        if (local.getError() != null) {
+            return true;
+        }
+        float maxConfidence = 0f;
+        for (int i = 0; i < local.size(); i++) {
+            if (isUnknownLabel(local.getLabel(i))) {
+                return true;
+            }
+            maxConfidence = Math.max(maxConfidence, local.getConfidence(i));
+        }
+        return maxConfidence < minConfidence;
+    }
+
+    private boolean isUnknownLabel(String label) {
+        if (label == null || DetectionOutputDecoder.UNKNOWN_LABEL.equals(label)) {
+            return true;
+        }
+        return trustedLabels != null && !trustedLabels.contains(label);
+    }
+
+    public static final class Builder {
+        private float minConfidence = DEFAULT_MIN_CONFIDENCE;
+        private Set<String> trustedLabels;
+        private float mergeIouThreshold = DEFAULT_MERGE_IOU;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the confidence the best local detection needs to skip the server.
+         */
+        public Builder setMinConfidence(float minConfidence) {
+            this.minConfidence = minConfidence;
+            return this;
+        }
+
+        /**
+         * Restricts the labels answered locally; results with any other label are escalated.
+         */
+        public Builder setTrustedLabels(Set<String> trustedLabels) {
+            this.trustedLabels = trustedLabels;
+            return this;
+        }
+
+        public Builder setMergeIouThreshold(float mergeIouThreshold) {
+            if (mergeIouThreshold <= 0f || mergeIouThreshold > 1f) {
+                throw new IllegalArgumentException("IoU threshold must be in (0, 1]");
+            }
+            this.mergeIouThreshold = mergeIouThreshold;
+            return this;
+        }
+
+        public CascadePolicy build() {
+            return new CascadePolicy(this);
+        }
+    }
+}
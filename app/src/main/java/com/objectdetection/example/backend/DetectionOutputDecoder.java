@@ -0,0 +1,62 @@
+package com.objectdetection.example.backend;
+
+import com.objectdetection.example.util.DetectionBuffer;
+
+/**
+ * Turns the outputs of a {@link ModelRunner} into detections in image pixels.
+ */
+public final class DetectionOutputDecoder {
+
+    static final String UNKNOWN_LABEL = "unknown";
+
+    private DetectionOutputDecoder() {
+    }
+
+    /**
+     * Appends every detection scoring at least {@code minScore} to the buffer. Boxes are
+     * clamped to the image and scaled from normalized coordinates to its pixels.
+     *
+     * @param boxes       {@code yMin, xMin, yMax, xMax} per detection, normalized
+     * @param classes     Class index per detection
+     * @param scores      Score per detection
+     * @param count       Number of valid detections
+     * @param labels      Label per class index
+     * @param minScore    Detections below this score are dropped
+     * @param imageWidth  Width of the image in pixels
+     * @param imageHeight Height of the image in pixels
+     * @param out         Buffer the detections are appended to
+     * @return The number of detections appended
+     */
+    public static int decode(float[] boxes, float[] classes, float[] scores, int count,
+                             String[] labels, float minScore, int imageWidth, int imageHeight,
+                             DetectionBuffer out) {
+        int added = 0;
+        for (int i = 0; i < count; i++) {
+            float score = scores[i];
+            if (!(score >= minScore)) {
+                continue;
+            }
+            int offset = i * 4;
+            float yMin = clamp(boxes[offset]);
+            float xMin = clamp(boxes[offset + 1]);
+            float yMax = clamp(boxes[offset + 2]);
+            float xMax = clamp(boxes[offset + 3]);
+            if (xMax <= xMin || yMax <= yMin) {
+                continue;
+            }
+            out.add(labelOf(labels, classes[i]), score,
+                    xMin * imageWidth, yMin * imageHeight, xMax * imageWidth, yMax * imageHeight);
+            added++;
+        }
+        return added;
+    }
+
+    private static String labelOf(String[] labels, float classValue) {
+        int index = Math.round(classValue);
+        return index >= 0 && index < labels.length && labels[index] != null ? labels[index] : UNKNOWN_LABEL;
+    }
+
+    private static float clamp(float value) {
+        return value < 0f ? 0f : (value > 1f ? 1f : value);
+    }
+}
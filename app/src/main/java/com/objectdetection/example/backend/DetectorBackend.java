@@ -0,0 +1,48 @@
+package com.objectdetection.example.backend;
+
+import com.objectdetection.example.trace.DetectionTrace;
+import com.objectdetection.sdk.listener.ImageDetectionListener;
+
+/**
+ * Runs object detection on encoded JPEG images.
+ * <p>
+ * Implementations either upload the image to the detection API or run a model on the
+ * device; either way the listener gets the SDK's result model with boxes in pixels of the
+ * given image, so callers don't depend on where detection runs. A
+ * {@link com.objectdetection.example.util.DetectionBufferListener} gets the detections as
+ * a buffer instead where the backend has them in one. The listener is called on a
+ * background thread.
+ */
+public interface DetectorBackend {
+
+    /**
+     * Detects objects in part of a byte array holding a JPEG image. The array must not be
+     * modified until the listener has been called.
+     *
+     * @param data     Array holding the encoded image
+     * @param offset   Start of the image in the array
+     * @param length   Number of bytes of the image
+     * @param listener Receives the result or the failure. Transport failures are
+     *                 {@link java.io.IOException}s, so callers can tell them apart from
+     *                 failures that a retry won't fix.
+     */
+    void detectJpeg(byte[] data, int offset, int length,
+                    ImageDetectionListener listener);
+
+    /**
+     * Like {@link #detectJpeg(byte[], int, int, ImageDetectionListener)}, stamping the
+     * stages the backend goes through on a trace. Backends that can't tell their stages
+     * apart leave them to the caller.
+     *
+     * @param trace Trace of the detection, or null
+     */
+    default void detectJpeg(byte[] data, int offset, int length, DetectionTrace trace,
+                            ImageDetectionListener listener) {
+        detectJpeg(data, offset, length, listener);
+    }
+
+    /**
+     * Releases the backend's resources. Detections still running may fail afterwards.
+     */
+    void close();
+}
@@ -0,0 +1,64 @@
+package com.objectdetection.example.backend;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.preference.PreferenceManager;
+
+import com.objectdetection.example.net.DetectionApiClient;
+
+import java.io.IOException;
+
+/**
+ * Creates the detector backend selected in the settings.
+ */
+public final class DetectorBackends {
+    private static final String TAG = "DetectorBackends";
+
+    private DetectorBackends() {
+    }
+
+    /**
+     * Returns the mode selected in the settings, or {@link BackendMode#REMOTE} if the app
+     * bundles no model for the local modes.
+     */
+    public static BackendMode getMode(Context context) {
+        BackendMode mode = BackendMode.fromPreferenceValue(PreferenceManager.getDefaultSharedPreferences(context)
+                .getString(BackendMode.PREF_KEY, null));
+        if (mode != BackendMode.REMOTE && !LocalDetectorBackend.isModelAvailable(context)) {
+            return BackendMode.REMOTE;
+        }
+        return mode;
+    }
+
+    /**
+     * Creates the backend for the selected mode. Loads the model for the local modes, so
+     * it should be called once per screen rather than per image. Falls back to the remote
+     * backend if the app has no usable model.
+     *
+     * @param context   Any context
+     * @param apiClient Client for the remote backend
+     * @param policy    When the local-first mode asks the server, for this use case
+     */
+    public static DetectorBackend create(Context context, DetectionApiClient apiClient, CascadePolicy policy) {
+        return create(context, getMode(context), new RemoteDetectorBackend(apiClient), policy);
+    }
+
+    /**
+     * Creates the backend for a mode, using the given backend for remote detection.
+     */
+    public static DetectorBackend create(Context context, BackendMode mode, DetectorBackend remote,
+                                         CascadePolicy policy) {
+        if (mode == BackendMode.REMOTE) {
+            return remote;
+        }
+        LocalDetectorBackend local;
+        try {
+            local = LocalDetectorBackend.create(context);
+        } catch (IOException e) {
+            Log.w(TAG, "No usable local model, detecting remotely", e);
+            return remote;
+        }
+        return mode == BackendMode.LOCAL ? local : new CascadeDetectorBackend(local, remote, policy);
+    }
+}
@@ -0,0 +1,65 @@
+package com.objectdetection.example.backend;
+
+import com.objectdetection.example.util.DetectionBuffer;
+
+/**
+ * Runs a {@link ModelRunner} on pixels that are already at the model's input size and
+ * decodes its outputs into a {@link DetectionBuffer}.
+ * <p>
+ * The input buffer and output arrays are allocated once, so detecting a frame doesn't
+ * allocate. Not thread-safe, like the runner it wraps.
+ */
+public class LocalDetector {
+
+    public static final float DEFAULT_MIN_SCORE = 0.3f;
+
+    private final ModelRunner runner;
+    private final ModelInput input;
+    private final String[] labels;
+    private final float minScore;
+    private final float[] boxes;
+    private final float[] classes;
+    private final float[] scores;
+
+    /**
+     * @param runner   The model
+     * @param labels   Label per class index of the model
+     * @param minScore Detections below this score are dropped
+     */
+    public LocalDetector(ModelRunner runner, String[] labels, float minScore) {
+        this.runner = runner;
+        this.labels = labels;
+        this.minScore = minScore;
+        this.input = new ModelInput(runner.getInputWidth(), runner.getInputHeight(), runner.isQuantized());
+        int maxDetections = runner.getMaxDetections();
+        boxes = new float[maxDetections * 4];
+        classes = new float[maxDetections];
+        scores = new float[maxDetections];
+    }
+
+    public int getInputWidth() {
+        return input.getWidth();
+    }
+
+    public int getInputHeight() {
+        return input.getHeight();
+    }
+
+    /**
+     * Detects objects in a frame, replacing the contents of {@code out}.
+     *
+     * @param argb        Pixels resized to the model input, in {@code Bitmap.getPixels} order
+     * @param imageWidth  Width of the image the boxes should refer to
+     * @param imageHeight Height of the image the boxes should refer to
+     * @param out         Receives the detections, the image size and the inference time
+     */
+    public void detect(int[] argb, int imageWidth, int imageHeight, DetectionBuffer out) {
+        long startNanos = System.nanoTime();
+        out.clear();
+        int count = runner.run(input.write(argb), boxes, classes, scores);
+        DetectionOutputDecoder.decode(boxes, classes, scores, Math.min(count, scores.length),
+                labels, minScore, imageWidth, imageHeight, out);
+        out.setImageSize(imageWidth, imageHeight);
+        out.setProcessingTimeMs((System.nanoTime() - startNanos) / 1_000_000);
+    }
+}
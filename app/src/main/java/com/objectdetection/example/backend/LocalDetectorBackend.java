@@ -0,0 +1,184 @@
+package com.objectdetection.example.backend;
+
+import android.content.Context;
+import android.content.res.AssetManager;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+import com.objectdetection.example.preprocess.ImageSizing;
+import com.objectdetection.example.trace.DetectionTrace;
+import com.objectdetection.example.trace.TraceStage;
+import com.objectdetection.example.util.DetectionBuffer;
+import com.objectdetection.example.util.DetectionResults;
+import com.objectdetection.sdk.listener.ImageDetectionListener;
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Detects objects on the device with a quantized TensorFlow Lite model, without a network.
+ * <p>
+ * The model is read from {@link #MODEL_ASSET}, its labels from {@link #LABELS_ASSET}, one per
+ * line by the model's class index. The label file is required: COCO models number their
+ * classes with gaps, so no built-in list matches every model. Images are decoded
+ * straight to about the model's input size and run one at a time on a single worker, with
+ * the interpreter itself using up to {@link #MAX_INTERPRETER_THREADS} cores. Detections go to
+ * a {@link com.objectdetection.example.util.DetectionBufferListener} in the backend's own
+ * buffer, so live frames build no result objects. Failures are reported as
+ * {@link IllegalStateException}s, as retrying them won't help.
+ */
+public class LocalDetectorBackend implements DetectorBackend {
+
+    public static final String MODEL_ASSET = "detector.tflite";
+    public static final String LABELS_ASSET = "detector_labels.txt";
+    public static final int MAX_INTERPRETER_THREADS = 4;
+
+    private final TfLiteModelRunner runner;
+    private final LocalDetector detector;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    // Only used on the executor
+    private final int[] pixels;
+    private final DetectionBuffer buffer = new DetectionBuffer();
+    // Guarded by runner
+    private boolean closed;
+
+    /**
+     * Loads the bundled model.
+     *
+     * @throws IOException If the app has no usable model
+     */
+    public static LocalDetectorBackend create(Context context) throws IOException {
+        AssetManager assets = context.getAssets();
+        int threads = Math.min(MAX_INTERPRETER_THREADS, Runtime.getRuntime().availableProcessors());
+        TfLiteModelRunner runner = new TfLiteModelRunner(assets, MODEL_ASSET, threads);
+        try {
+            return new LocalDetectorBackend(runner, readLabels(assets));
+        } catch (IOException e) {
+            runner.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Whether the app bundles a model and its labels, without loading them.
+     */
+    public static boolean isModelAvailable(Context context) {
+        AssetManager assets = context.getAssets();
+        try {
+            assets.openFd(MODEL_ASSET).close();
+            assets.open(LABELS_ASSET).close();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private LocalDetectorBackend(TfLiteModelRunner runner, String[] labels) {
+        this.runner = runner;
+        this.detector = new LocalDetector(runner, labels, LocalDetector.DEFAULT_MIN_SCORE);
+        this.pixels = new int[detector.getInputWidth() * detector.getInputHeight()];
+    }
+
+    @Override
+    public void detectJpeg(byte[] data, int offset, int length, ImageDetectionListener listener) {
+        detectJpeg(data, offset, length, null, listener);
+    }
+
+    @Override
+    public void detectJpeg(byte[] data, int offset, int length, DetectionTrace trace,
+                           ImageDetectionListener listener) {
+        try {
+            executor.execute(() -> detect(data, offset, length, trace, listener));
+        } catch (RejectedExecutionException e) {
+            listener.onError(new IllegalStateException("Local detector is closed"));
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        // The interpreter must not be closed under a running inference
+        synchronized (runner) {
+            closed = true;
+            runner.close();
+        }
+    }
+
+    private void detect(byte[] data, int offset, int length, DetectionTrace trace,
+                        ImageDetectionListener listener) {
+        try {
+            runDetection(data, offset, length);
+        } catch (RuntimeException e) {
+            listener.onError(e instanceof IllegalStateException ? e
+                    : new IllegalStateException("Local detection failed", e));
+            return;
+        }
+        if (trace != null) {
+            trace.mark(TraceStage.PARSED);
+        }
+        DetectionResults.deliver(buffer, listener);
+    }
+
+    /**
+     * Detects the objects of an image into {@link #buffer}.
+     */
+    private void runDetection(byte[] data, int offset, int length) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(data, offset, length, options);
+        int imageWidth = options.outWidth;
+        int imageHeight = options.outHeight;
+        if (imageWidth <= 0 || imageHeight <= 0) {
+            throw new IllegalStateException("Unable to decode image bounds");
+        }
+
+        int inputWidth = detector.getInputWidth();
+        int inputHeight = detector.getInputHeight();
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = ImageSizing.calculateInSampleSize(imageWidth, imageHeight,
+                Math.max(inputWidth, inputHeight));
+        Bitmap sampled = BitmapFactory.decodeByteArray(data, offset, length, options);
+        if (sampled == null) {
+            throw new IllegalStateException("Unable to decode image");
+        }
+        // SSD models are trained on stretched images, so the aspect ratio is not kept
+        Bitmap scaled = Bitmap.createScaledBitmap(sampled, inputWidth, inputHeight, true);
+        scaled.getPixels(pixels, 0, inputWidth, 0, 0, inputWidth, inputHeight);
+        if (scaled != sampled) {
+            scaled.recycle();
+        }
+        sampled.recycle();
+
+        synchronized (runner) {
+            if (closed) {
+                throw new IllegalStateException("Local detector is closed");
+            }
+            detector.detect(pixels, imageWidth, imageHeight, buffer);
+        }
+    }
+
+    private static String[] readLabels(AssetManager assets) throws IOException {
+        List<String> labels = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(assets.open(LABELS_ASSET), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                labels.add(line.trim());
+            }
+        } catch (FileNotFoundException e) {
+            throw new IOException("Model has no label file " + LABELS_ASSET, e);
+        }
+        if (labels.isEmpty()) {
+            throw new IOException("Label file " + LABELS_ASSET + " is empty");
+        }
+        return labels.toArray(new String[0]);
+    }
+}
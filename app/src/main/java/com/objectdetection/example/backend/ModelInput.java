@@ -0,0 +1,80 @@
+package com.objectdetection.example.backend;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Writes ARGB pixels into a model input buffer.
+ * <p>
+ * Quantized models take the RGB bytes as they are, float models take each channel
+ * normalized with a mean and standard deviation. The buffer is allocated once per input
+ * size and reused for every frame.
+ */
+public final class ModelInput {
+
+    // Normalizes channels to [-1, 1], which float SSD models expect
+    public static final float DEFAULT_MEAN = 127.5f;
+    public static final float DEFAULT_STD = 127.5f;
+
+    private final int width;
+    private final int height;
+    private final boolean quantized;
+    private final ByteBuffer buffer;
+
+    public ModelInput(int width, int height, boolean quantized) {
+        this.width = width;
+        this.height = height;
+        this.quantized = quantized;
+        int bytesPerChannel = quantized ? 1 : 4;
+        buffer = ByteBuffer.allocateDirect(width * height * 3 * bytesPerChannel)
+                .order(ByteOrder.nativeOrder());
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Replaces the input with the given pixels, which must have the input's size.
+     *
+     * @param argb Pixels in {@code Bitmap.getPixels} order
+     * @return The input buffer, positioned at its start
+     */
+    public ByteBuffer write(int[] argb) {
+        int count = width * height;
+        if (argb.length < count) {
+            throw new IllegalArgumentException("Expected " + count + " pixels, got " + argb.length);
+        }
+        buffer.clear();
+        if (quantized) {
+            writeQuantized(argb, count, buffer);
+        } else {
+            writeNormalized(argb, count, DEFAULT_MEAN, DEFAULT_STD, buffer);
+        }
+        buffer.rewind();
+        return buffer;
+    }
+
+    static void writeQuantized(int[] argb, int count, ByteBuffer out) {
+        for (int i = 0; i < count; i++) {
+            int pixel = argb[i];
+            out.put((byte) (pixel >> 16));
+            out.put((byte) (pixel >> 8));
+            out.put((byte) pixel);
+        }
+    }
+
+    static void writeNormalized(int[] argb, int count, float mean, float std, ByteBuffer out) {
+        float scale = 1f / std;
+        for (int i = 0; i < count; i++) {
+            int pixel = argb[i];
+            out.putFloat((((pixel >> 16) & 0xFF) - mean) * scale);
+            out.putFloat((((pixel >> 8) & 0xFF) - mean) * scale);
+            out.putFloat(((pixel & 0xFF) - mean) * scale);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.objectdetection.example.backend;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A detection model with the common SSD post-processed outputs: per detection a box
+ * ({@code yMin, xMin, yMax, xMax}, normalized to [0, 1]), a class index and a score,
+ * plus the number of valid detections.
+ * <p>
+ * Runners are not thread-safe; a runner may use several threads inside {@link #run}.
+ */
+public interface ModelRunner {
+
+    int getInputWidth();
+
+    int getInputHeight();
+
+    /**
+     * Whether the model takes uint8 RGB input rather than normalized floats.
+     */
+    boolean isQuantized();
+
+    /**
+     * Maximum number of detections a run can return.
+     */
+    int getMaxDetections();
+
+    /**
+     * Runs the model on an input written by {@link ModelInput}.
+     *
+     * @param input   The model input, positioned at its start
+     * @param boxes   Receives 4 box values per detection
+     * @param classes Receives the class index per detection
+     * @param scores  Receives the score per detection
+     * @return The number of valid detections
+     */
+    int run(ByteBuffer input, float[] boxes, float[] classes, float[] scores);
+}
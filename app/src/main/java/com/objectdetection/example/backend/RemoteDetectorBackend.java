@@ -0,0 +1,33 @@
+package com.objectdetection.example.backend;
+
+import com.objectdetection.example.net.DetectionApiClient;
+import com.objectdetection.example.trace.DetectionTrace;
+import com.objectdetection.sdk.listener.ImageDetectionListener;
+
+/**
+ * Uploads images to the remote detection API.
+ */
+public class RemoteDetectorBackend implements DetectorBackend {
+
+    private final DetectionApiClient apiClient;
+
+    public RemoteDetectorBackend(DetectionApiClient apiClient) {
+        this.apiClient = apiClient;
+    }
+
+    @Override
+    public void detectJpeg(byte[] data, int offset, int length, ImageDetectionListener listener) {
+        apiClient.detectJpeg(data, offset, length, listener);
+    }
+
+    @Override
+    public void detectJpeg(byte[] data, int offset, int length, DetectionTrace trace,
+                           ImageDetectionListener listener) {
+        apiClient.detectJpeg(data, offset, length, trace, listener);
+    }
+
+    @Override
+    public void close() {
+        // Connections are pooled by the shared HTTP client
+    }
+}
@@ -0,0 +1,124 @@
+package com.objectdetection.example.backend;
+
+import android.content.res.AssetFileDescriptor;
+import android.content.res.AssetManager;
+
+import org.tensorflow.lite.DataType;
+import org.tensorflow.lite.Interpreter;
+import org.tensorflow.lite.Tensor;
+
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Runs a TensorFlow Lite SSD model with the standard detection post-processing outputs
+ * (boxes, classes, scores, count, in that order) on the CPU.
+ * <p>
+ * The model is memory-mapped from the APK's assets, so it is not copied onto the heap.
+ * The interpreter splits each run over {@code numThreads} threads.
+ */
+public class TfLiteModelRunner implements ModelRunner, Closeable {
+
+    private final Interpreter interpreter;
+    private final int inputWidth;
+    private final int inputHeight;
+    private final boolean quantized;
+    private final int maxDetections;
+
+    // Output tensors, reused for every run
+    private final float[][][] outputBoxes;
+    private final float[][] outputClasses;
+    private final float[][] outputScores;
+    private final float[] outputCount = new float[1];
+    private final Object[] inputs = new Object[1];
+    private final Map<Integer, Object> outputs = new HashMap<>();
+
+    /**
+     * @param assets     Assets holding the model
+     * @param modelAsset Path of the model in the assets
+     * @param numThreads Threads the interpreter may use per run
+     * @throws IOException If the model is missing or not a detection model
+     */
+    public TfLiteModelRunner(AssetManager assets, String modelAsset, int numThreads) throws IOException {
+        Interpreter.Options options = new Interpreter.Options();
+        options.setNumThreads(numThreads);
+        try {
+            interpreter = new Interpreter(mapAsset(assets, modelAsset), options);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid model " + modelAsset, e);
+        }
+
+        Tensor input = interpreter.getInputTensor(0);
+        int[] inputShape = input.shape(); // [1, height, width, 3]
+        if (inputShape.length != 4 || inputShape[3] != 3 || interpreter.getOutputTensorCount() < 4) {
+            interpreter.close();
+            throw new IOException("Not an SSD detection model: " + modelAsset);
+        }
+        inputHeight = inputShape[1];
+        inputWidth = inputShape[2];
+        quantized = input.dataType() == DataType.UINT8;
+        maxDetections = interpreter.getOutputTensor(0).shape()[1]; // [1, n, 4]
+
+        outputBoxes = new float[1][maxDetections][4];
+        outputClasses = new float[1][maxDetections];
+        outputScores = new float[1][maxDetections];
+        outputs.put(0, outputBoxes);
+        outputs.put(1, outputClasses);
+        outputs.put(2, outputScores);
+        outputs.put(3, new float[][]{outputCount});
+    }
+
+    @Override
+    public int getInputWidth() {
+        return inputWidth;
+    }
+
+    @Override
+    public int getInputHeight() {
+        return inputHeight;
+    }
+
+    @Override
+    public boolean isQuantized() {
+        return quantized;
+    }
+
+    @Override
+    public int getMaxDetections() {
+        return maxDetections;
+    }
+
+    @Override
+    public int run(ByteBuffer input, float[] boxes, float[] classes, float[] scores) {
+        inputs[0] = input;
+        interpreter.runForMultipleInputsOutputs(inputs, outputs);
+
+        int count = Math.min((int) outputCount[0], maxDetections);
+        for (int i = 0; i < count; i++) {
+            System.arraycopy(outputBoxes[0][i], 0, boxes, i * 4, 4);
+        }
+        System.arraycopy(outputClasses[0], 0, classes, 0, count);
+        System.arraycopy(outputScores[0], 0, scores, 0, count);
+        return count;
+    }
+
+    @Override
+    public void close() {
+        interpreter.close();
+    }
+
+    private static MappedByteBuffer mapAsset(AssetManager assets, String path) throws IOException {
+        // Fails for compressed assets, which AGP doesn't do for .tflite files
+        try (AssetFileDescriptor descriptor = assets.openFd(path);
+             FileInputStream input = new FileInputStream(descriptor.getFileDescriptor())) {
+            return input.getChannel().map(FileChannel.MapMode.READ_ONLY,
+                    descriptor.getStartOffset(), descriptor.getDeclaredLength());
+        }
+    }
+}
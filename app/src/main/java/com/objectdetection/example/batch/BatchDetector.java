@@ -0,0 +1,186 @@
+package com.objectdetection.example.batch;
+
+import android.net.Uri;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.objectdetection.example.net.DetectionApiClient;
+import com.objectdetection.example.preprocess.ImagePreprocessor;
+import com.objectdetection.example.preprocess.PreparedImage;
+import com.objectdetection.example.util.DetectionResults;
+import com.objectdetection.sdk.listener.ImageDetectionListener;
+import com.objectdetection.sdk.model.DetectionResult;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Call;
+
+/**
+ * Runs detection over many images with pipelined, bounded concurrency.
+ * <p>
+ * A small decode pool prepares images (decode, downscale, re-encode) while earlier images
+ * are still uploading, so the CPU and the network are busy at the same time. At most
+ * {@code maxInFlight} images are being prepared or uploaded at once; a decode thread waits
+ * for a slot before starting the next image, which bounds both memory and the number of
+ * concurrent requests. All uploads go through the same {@link DetectionApiClient}, and thus
+ * share one HTTP connection pool.
+ */
+public class BatchDetector {
+    private static final String TAG = "BatchDetector";
+
+    public static final int DEFAULT_DECODE_THREADS = 2;
+    public static final int DEFAULT_MAX_IN_FLIGHT = 4;
+
+    private final ImagePreprocessor preprocessor;
+    private final DetectionApiClient apiClient;
+    private final ExecutorService decodeExecutor;
+    private final Semaphore slots;
+    private final Set<Call> calls = ConcurrentHashMap.newKeySet();
+    private final BatchStats stats = new BatchStats();
+
+    private volatile boolean cancelled;
+
+    public BatchDetector(ImagePreprocessor preprocessor, DetectionApiClient apiClient) {
+        this(preprocessor, apiClient, DEFAULT_DECODE_THREADS, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    /**
+     * @param decodeThreads Number of threads preparing images
+     * @param maxInFlight   Maximum number of images being prepared or uploaded at once; the
+     *                      preprocessor's buffer pool should hold as many buffers
+     */
+    public BatchDetector(ImagePreprocessor preprocessor, DetectionApiClient apiClient,
+                         int decodeThreads, int maxInFlight) {
+        if (decodeThreads < 1 || maxInFlight < 1) {
+            throw new IllegalArgumentException("decodeThreads and maxInFlight must be at least 1");
+        }
+        this.preprocessor = preprocessor;
+        this.apiClient = apiClient;
+        this.decodeExecutor = Executors.newFixedThreadPool(decodeThreads);
+        this.slots = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Starts detecting the images in order. Returns immediately; results are reported to
+     * the listener as they finish. A detector runs a single batch.
+     *
+     * @param uris     Images to detect
+     * @param listener Receives the results and the final statistics
+     */
+    public void start(List<Uri> uris, BatchListener listener) {
+        stats.start(SystemClock.elapsedRealtime());
+        if (uris.isEmpty()) {
+            stats.finish(SystemClock.elapsedRealtime());
+            listener.onBatchFinished(stats);
+            return;
+        }
+
+        AtomicInteger remaining = new AtomicInteger(uris.size());
+        for (int i = 0; i < uris.size(); i++) {
+            final int index = i;
+            final Uri uri = uris.get(i);
+            decodeExecutor.execute(() -> process(index, uri, remaining, listener));
+        }
+    }
+
+    private void process(int index, Uri uri, AtomicInteger remaining, BatchListener listener) {
+        try {
+            slots.acquire();
+        } catch (InterruptedException e) {
+            // Cancelled while waiting for a slot
+            return;
+        }
+        if (cancelled) {
+            slots.release();
+            return;
+        }
+
+        long startMs = SystemClock.elapsedRealtime();
+        PreparedImage prepared;
+        try {
+            prepared = preprocessor.prepare(uri);
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Failed to prepare " + uri, e);
+            slots.release();
+            finishItem(new BatchItem(index, uri, null, e.getMessage(),
+                    SystemClock.elapsedRealtime() - startMs), remaining, listener);
+            return;
+        }
+
+        Call[] call = new Call[1];
+        ImageDetectionListener uploadListener = new ImageDetectionListener() {
+            @Override
+            public void onResult(DetectionResult result) {
+                release();
+                DetectionResult mapped = DetectionResults.scaleBoxes(result,
+                        prepared.getScaleX(), prepared.getScaleY());
+                String error = result.isSuccess() ? null : result.getError();
+                finishItem(new BatchItem(index, uri, mapped, error,
+                        SystemClock.elapsedRealtime() - startMs), remaining, listener);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                release();
+                finishItem(new BatchItem(index, uri, null, e.getMessage(),
+                        SystemClock.elapsedRealtime() - startMs), remaining, listener);
+            }
+
+            private void release() {
+                synchronized (call) {
+                    if (call[0] != null) {
+                        calls.remove(call[0]);
+                    }
+                }
+                preprocessor.release(prepared);
+                slots.release();
+            }
+        };
+        synchronized (call) {
+            // The listener may run before enqueue returns; it waits on this lock, so the
+            // call is always registered before it is removed
+            call[0] = apiClient.detectJpeg(prepared.getJpegData(), 0, prepared.getJpegSize(), uploadListener);
+            calls.add(call[0]);
+        }
+    }
+
+    private void finishItem(BatchItem item, AtomicInteger remaining, BatchListener listener) {
+        if (cancelled) {
+            return;
+        }
+        stats.record(item.getLatencyMs(), item.isSuccess());
+        listener.onItemFinished(item);
+        if (remaining.decrementAndGet() == 0) {
+            stats.finish(SystemClock.elapsedRealtime());
+            decodeExecutor.shutdown();
+            listener.onBatchFinished(stats);
+        }
+    }
+
+    /**
+     * Returns the live statistics of the run.
+     */
+    public BatchStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Stops the run. Images not started yet are skipped, uploads in flight are cancelled and
+     * no further results are reported.
+     */
+    public void cancel() {
+        cancelled = true;
+        decodeExecutor.shutdownNow();
+        for (Call call : calls) {
+            call.cancel();
+        }
+        calls.clear();
+    }
+}
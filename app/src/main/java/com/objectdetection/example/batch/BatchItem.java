@@ -0,0 +1,61 @@
+package com.objectdetection.example.batch;
+
+import android.net.Uri;
+
+import com.objectdetection.sdk.model.DetectionResult;
+
+/**
+ * Outcome of one image of a batch run.
+ */
+public class BatchItem {
+
+    private final int index;
+    private final Uri uri;
+    private final DetectionResult result;
+    private final String error;
+    private final long latencyMs;
+
+    BatchItem(int index, Uri uri, DetectionResult result, String error, long latencyMs) {
+        this.index = index;
+        this.uri = uri;
+        this.result = result;
+        this.error = error;
+        this.latencyMs = latencyMs;
+    }
+
+    /**
+     * Position of the image in the submitted list.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public Uri getUri() {
+        return uri;
+    }
+
+    /**
+     * The result with boxes in original image coordinates, or null if the image failed.
+     */
+    public DetectionResult getResult() {
+        return result;
+    }
+
+    /**
+     * The failure message, or null if the image was detected.
+     */
+    public String getError() {
+        return error;
+    }
+
+    public boolean isSuccess() {
+        return result != null && result.isSuccess();
+    }
+
+    /**
+     * Time from starting to decode the image until its result arrived.
+     */
+    public long getLatencyMs() {
+        return latencyMs;
+    }
+}
@@ -0,0 +1,23 @@
+package com.objectdetection.example.batch;
+
+/**
+ * Receives the results of a batch run as they finish.
+ */
+public interface BatchListener {
+
+    /**
+     * Called for every image once its result or failure is known, in completion order.
+     * Called on a background thread.
+     *
+     * @param item The finished image
+     */
+    void onItemFinished(BatchItem item);
+
+    /**
+     * Called once after the last image has finished. Not called if the run is cancelled.
+     * Called on a background thread.
+     *
+     * @param stats Statistics of the whole run
+     */
+    void onBatchFinished(BatchStats stats);
+}
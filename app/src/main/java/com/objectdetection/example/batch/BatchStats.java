@@ -0,0 +1,101 @@
+package com.objectdetection.example.batch;
+
+import java.util.Arrays;
+
+/**
+ * Aggregate statistics of a batch run: completed and failed images, throughput and
+ * per-image latency percentiles.
+ * <p>
+ * Latencies are kept in a growable primitive array, so recording an image does not
+ * allocate. All methods are thread-safe.
+ */
+public class BatchStats {
+
+    private long[] latenciesMs = new long[64];
+    private int count;
+    private int failed;
+    private long startMs = -1;
+    private long endMs = -1;
+
+    /**
+     * Marks the start of the run.
+     *
+     * @param nowMs Monotonic clock time in milliseconds
+     */
+    public synchronized void start(long nowMs) {
+        count = 0;
+        failed = 0;
+        startMs = nowMs;
+        endMs = -1;
+    }
+
+    /**
+     * Records a finished image.
+     *
+     * @param latencyMs Time from starting to decode the image until its result arrived
+     * @param success   Whether the image was detected successfully
+     */
+    public synchronized void record(long latencyMs, boolean success) {
+        if (count == latenciesMs.length) {
+            latenciesMs = Arrays.copyOf(latenciesMs, count * 2);
+        }
+        latenciesMs[count++] = latencyMs;
+        if (!success) {
+            failed++;
+        }
+    }
+
+    /**
+     * Marks the end of the run.
+     *
+     * @param nowMs Monotonic clock time in milliseconds
+     */
+    public synchronized void finish(long nowMs) {
+        endMs = nowMs;
+    }
+
+    public synchronized int getCompleted() {
+        return count;
+    }
+
+    public synchronized int getFailed() {
+        return failed;
+    }
+
+    /**
+     * Returns the wall clock duration of the run, up to {@code nowMs} while it is still running.
+     */
+    public synchronized long getElapsedMs(long nowMs) {
+        if (startMs < 0) {
+            return 0;
+        }
+        return (endMs >= 0 ? endMs : nowMs) - startMs;
+    }
+
+    /**
+     * Returns the throughput in images per second over the elapsed time.
+     */
+    public synchronized double getImagesPerSecond(long nowMs) {
+        long elapsedMs = getElapsedMs(nowMs);
+        return elapsedMs > 0 ? count * 1000.0 / elapsedMs : 0.0;
+    }
+
+    /**
+     * Returns the latency percentile using the nearest-rank method.
+     *
+     * @param percentile Percentile between 0 and 100
+     * @return The latency in milliseconds, or 0 if nothing was recorded
+     */
+    public synchronized long getLatencyPercentileMs(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100");
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(latenciesMs, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100.0 * count);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+}
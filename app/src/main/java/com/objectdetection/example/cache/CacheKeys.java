@@ -0,0 +1,25 @@
+package com.objectdetection.example.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Builds keys for the {@link DetectionCache}. Keys are fixed-length hex strings,
+ * so they are also safe to use as file names.
+ */
+public final class CacheKeys {
+
+    private CacheKeys() {
+    }
+
+    /**
+     * Key for an image identified by its bytes, as detected by one detector. Results of
+     * different backends or servers for the same image get different keys. The stream is
+     * read to the end but not closed.
+     *
+     * @param detector Identifies what detects the image, e.g. the backend mode and API URL
+     */
+    public static String forContent(InputStream imageBytes, String detector) throws IOException {
+        return "c" + ContentHasher.hash(ContentHasher.hash(imageBytes) + '\n' + detector);
+    }
+}
@@ -0,0 +1,99 @@
+package com.objectdetection.example.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Fast non-cryptographic 64-bit hash used to build cache keys.
+ * <p>
+ * Input is consumed eight bytes at a time with a multiply-rotate step and finished
+ * with the MurmurHash3 avalanche, which is plenty to tell a user's images apart.
+ */
+public final class ContentHasher {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long PRIME_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+
+    private long hash = PRIME_2;
+    private long length;
+
+    /**
+     * Hashes the whole stream. The stream is read to the end but not closed.
+     *
+     * @return The hash as a 16 character hex string
+     */
+    public static String hash(InputStream input) throws IOException {
+        ContentHasher hasher = new ContentHasher();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int pending = 0;
+        int read;
+        while ((read = input.read(buffer, pending, buffer.length - pending)) != -1) {
+            pending += read;
+            // Keep a partial word at the end of the buffer for the next read
+            int whole = pending & ~7;
+            hasher.update(buffer, 0, whole);
+            System.arraycopy(buffer, whole, buffer, 0, pending - whole);
+            pending -= whole;
+        }
+        hasher.update(buffer, 0, pending);
+        return toHex(hasher.finish());
+    }
+
+    /**
+     * Hashes a string's UTF-8 bytes.
+     *
+     * @return The hash as a 16 character hex string
+     */
+    public static String hash(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ContentHasher hasher = new ContentHasher();
+        hasher.update(bytes, 0, bytes.length);
+        return toHex(hasher.finish());
+    }
+
+    /**
+     * Feeds bytes into the hash. All calls but the last must pass a multiple of
+     * eight bytes, otherwise the result depends on how the input was split.
+     */
+    void update(byte[] data, int offset, int count) {
+        int end = offset + count;
+        int i = offset;
+        for (; i + 8 <= end; i += 8) {
+            long word = (data[i] & 0xFFL)
+                    | (data[i + 1] & 0xFFL) << 8
+                    | (data[i + 2] & 0xFFL) << 16
+                    | (data[i + 3] & 0xFFL) << 24
+                    | (data[i + 4] & 0xFFL) << 32
+                    | (data[i + 5] & 0xFFL) << 40
+                    | (data[i + 6] & 0xFFL) << 48
+                    | (data[i + 7] & 0xFFL) << 56;
+            mix(word);
+        }
+        for (; i < end; i++) {
+            mix(data[i] & 0xFFL);
+        }
+        length += count;
+    }
+
+    long finish() {
+        long h = hash ^ length;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private void mix(long word) {
+        hash ^= Long.rotateLeft(word * PRIME_2, 31) * PRIME_1;
+        hash = Long.rotateLeft(hash, 27) * PRIME_1 + PRIME_2;
+    }
+
+    private static String toHex(long value) {
+        String hex = Long.toHexString(value);
+        return "0000000000000000".substring(hex.length()) + hex;
+    }
+}
@@ -0,0 +1,184 @@
+package com.objectdetection.example.cache;
+
+import com.objectdetection.example.util.DetectionBuffer;
+import com.objectdetection.example.util.DetectionResults;
+import com.objectdetection.sdk.model.DetectionResult;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Two-tier cache of detection results in front of the network.
+ * <p>
+ * Keys are content hashes (see {@link CacheKeys}). The memory tier is an LRU bounded
+ * by entry count; the disk tier is a {@link DiskResultStore} bounded by bytes, so
+ * results survive process restarts. Disk hits are promoted into memory. Only
+ * successful results are stored.
+ */
+public class DetectionCache {
+
+    public static final int DEFAULT_MAX_MEMORY_ENTRIES = 32;
+    public static final long DEFAULT_MAX_DISK_BYTES = 4L * 1024 * 1024;
+    private static final String DIRECTORY_NAME = "detections";
+
+    private static DetectionCache instance;
+
+    private final LinkedHashMap<String, Entry> memory;
+    private final DiskResultStore diskStore;
+    private final DetectionBuffer diskBuffer = new DetectionBuffer();
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Returns the process-wide cache, stored under the given cache directory.
+     */
+    public static synchronized DetectionCache getInstance(File cacheDir) {
+        if (instance == null) {
+            instance = new DetectionCache(DEFAULT_MAX_MEMORY_ENTRIES,
+                    new DiskResultStore(new File(cacheDir, DIRECTORY_NAME), DEFAULT_MAX_DISK_BYTES));
+        }
+        return instance;
+    }
+
+    public DetectionCache(final int maxMemoryEntries, DiskResultStore diskStore) {
+        this.diskStore = diskStore;
+        this.memory = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > maxMemoryEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Looks up a result, checking memory first and then disk.
+     *
+     * @param key Cache key
+     * @return The cached entry, or null on a miss
+     */
+    public Entry get(String key) {
+        synchronized (memory) {
+            Entry entry = memory.get(key);
+            if (entry != null) {
+                memoryHits.incrementAndGet();
+                return entry;
+            }
+        }
+
+        Entry entry = null;
+        synchronized (diskBuffer) {
+            if (diskStore != null && diskStore.read(key, diskBuffer)) {
+                entry = new Entry(DetectionResults.fromBuffer(diskBuffer),
+                        diskBuffer.getImageWidth(), diskBuffer.getImageHeight());
+            }
+        }
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        diskHits.incrementAndGet();
+        synchronized (memory) {
+            memory.put(key, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Stores a successful result in both tiers. Failed results are ignored.
+     *
+     * @param key         Cache key
+     * @param result      The detection result
+     * @param imageWidth  Width of the image the boxes refer to, or 0 if unknown
+     * @param imageHeight Height of the image the boxes refer to, or 0 if unknown
+     * @throws IOException If the disk record could not be written; the memory tier is still updated
+     */
+    public void put(String key, DetectionResult result, int imageWidth, int imageHeight) throws IOException {
+        if (result == null || !result.isSuccess()) {
+            return;
+        }
+        synchronized (memory) {
+            memory.put(key, new Entry(result, imageWidth, imageHeight));
+        }
+        if (diskStore == null) {
+            return;
+        }
+        synchronized (diskBuffer) {
+            DetectionResults.toBuffer(result, diskBuffer);
+            diskBuffer.setImageSize(imageWidth, imageHeight);
+            evictions.addAndGet(diskStore.write(key, diskBuffer));
+        }
+    }
+
+    /**
+     * Clears both tiers. Counters are kept.
+     */
+    public void clear() {
+        synchronized (memory) {
+            memory.clear();
+        }
+        if (diskStore != null) {
+            diskStore.clear();
+        }
+    }
+
+    public long getHitCount() {
+        return memoryHits.get() + diskHits.get();
+    }
+
+    public long getMemoryHitCount() {
+        return memoryHits.get();
+    }
+
+    public long getDiskHitCount() {
+        return diskHits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Number of entries evicted from either tier to stay within its bound.
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * A cached result and the size of the image its boxes refer to.
+     */
+    public static class Entry {
+        private final DetectionResult result;
+        private final int imageWidth;
+        private final int imageHeight;
+
+        Entry(DetectionResult result, int imageWidth, int imageHeight) {
+            this.result = result;
+            this.imageWidth = imageWidth;
+            this.imageHeight = imageHeight;
+        }
+
+        public DetectionResult getResult() {
+            return result;
+        }
+
+        public int getImageWidth() {
+            return imageWidth;
+        }
+
+        public int getImageHeight() {
+            return imageHeight;
+        }
+    }
+}
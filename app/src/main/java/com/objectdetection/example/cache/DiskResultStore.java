@@ -0,0 +1,175 @@
+package com.objectdetection.example.cache;
+
+import com.objectdetection.example.util.DetectionBuffer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Size-bounded on-disk store of detection results, one compact binary record per key.
+ * <p>
+ * Record layout: magic, version, processing time, image size, detection count and
+ * then label, confidence and four box coordinates per detection. When the store
+ * grows past its byte budget the least recently used records are deleted.
+ */
+public class DiskResultStore {
+
+    private static final int MAGIC = 0x44455443; // "DETC"
+    private static final int VERSION = 1;
+    private static final String SUFFIX = ".det";
+
+    private final File directory;
+    private final long maxBytes;
+    private long totalBytes = -1;
+
+    public DiskResultStore(File directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Reads a record into the given buffer.
+     *
+     * @return true if the record existed and was read
+     */
+    public synchronized boolean read(String key, DetectionBuffer out) {
+        File file = fileFor(key);
+        if (!file.isFile()) {
+            return false;
+        }
+        try (DataInputStream input = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            if (input.readInt() != MAGIC || input.readByte() != VERSION) {
+                throw new IOException("Unsupported record format");
+            }
+            out.clear();
+            out.setProcessingTimeMs(input.readLong());
+            out.setImageSize(input.readInt(), input.readInt());
+            int count = input.readInt();
+            out.ensureCapacity(count);
+            for (int i = 0; i < count; i++) {
+                String label = input.readBoolean() ? input.readUTF() : null;
+                out.add(label, input.readFloat(), input.readFloat(), input.readFloat(),
+                        input.readFloat(), input.readFloat());
+            }
+        } catch (IOException e) {
+            // Corrupt or truncated record, drop it
+            if (totalBytes >= 0) {
+                totalBytes -= file.length();
+            }
+            delete(file);
+            return false;
+        }
+        // Mark as recently used for eviction
+        file.setLastModified(System.currentTimeMillis());
+        return true;
+    }
+
+    /**
+     * Writes a record, replacing any existing one with the same key.
+     *
+     * @return The number of records evicted to stay within the byte budget
+     */
+    public synchronized int write(String key, DetectionBuffer buffer) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create " + directory);
+        }
+        File file = fileFor(key);
+        File temp = new File(directory, key + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(temp)))) {
+            output.writeInt(MAGIC);
+            output.writeByte(VERSION);
+            output.writeLong(buffer.getProcessingTimeMs());
+            output.writeInt(buffer.getImageWidth());
+            output.writeInt(buffer.getImageHeight());
+            output.writeInt(buffer.size());
+            for (int i = 0; i < buffer.size(); i++) {
+                String label = buffer.getLabel(i);
+                output.writeBoolean(label != null);
+                if (label != null) {
+                    output.writeUTF(label);
+                }
+                output.writeFloat(buffer.getConfidence(i));
+                output.writeFloat(buffer.getXMin(i));
+                output.writeFloat(buffer.getYMin(i));
+                output.writeFloat(buffer.getXMax(i));
+                output.writeFloat(buffer.getYMax(i));
+            }
+        }
+
+        ensureTotalBytes();
+        if (file.isFile()) {
+            totalBytes -= file.length();
+        }
+        if (!temp.renameTo(file)) {
+            delete(temp);
+            throw new IOException("Unable to write " + file);
+        }
+        totalBytes += file.length();
+        return trimToSize(file);
+    }
+
+    /**
+     * Deletes all records.
+     */
+    public synchronized void clear() {
+        File[] files = listRecords();
+        for (File file : files) {
+            delete(file);
+        }
+        totalBytes = 0;
+    }
+
+    public synchronized long sizeBytes() {
+        ensureTotalBytes();
+        return totalBytes;
+    }
+
+    private int trimToSize(File keep) {
+        if (totalBytes <= maxBytes) {
+            return 0;
+        }
+        File[] files = listRecords();
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        int evicted = 0;
+        for (File file : files) {
+            if (totalBytes <= maxBytes) break;
+            if (file.equals(keep)) continue;
+            totalBytes -= file.length();
+            delete(file);
+            evicted++;
+        }
+        return evicted;
+    }
+
+    private void ensureTotalBytes() {
+        if (totalBytes >= 0) return;
+        totalBytes = 0;
+        for (File file : listRecords()) {
+            totalBytes += file.length();
+        }
+    }
+
+    private File[] listRecords() {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(SUFFIX));
+        return files != null ? files : new File[0];
+    }
+
+    private File fileFor(String key) {
+        return new File(directory, key + SUFFIX);
+    }
+
+    private static void delete(File file) {
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+    }
+}
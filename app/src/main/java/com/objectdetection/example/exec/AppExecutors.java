@@ -0,0 +1,136 @@
+package com.objectdetection.example.exec;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The app-wide executors.
+ * <ul>
+ * <li>{@link #cpu()}: bounded pool with a thread per core (up to {@link #MAX_CPU_THREADS}),
+ * for computation such as post-processing results. When its queue is full the submitting
+ * thread runs the task itself, which slows producers down instead of queueing without
+ * bound.</li>
+ * <li>{@link #io()}: {@value #IO_THREADS} threads for blocking work such as decoding,
+ * hashing, disk and network.</li>
+ * <li>{@link #newUiDispatcher()}: coalesced delivery to the main thread, one per screen.</li>
+ * </ul>
+ * Background threads run below the main thread's priority, so they don't take frame time
+ * from it. Every task and main-thread update is reported to the metrics hook, by default
+ * the {@link ExecutionStats} returned by {@link #getStats()}.
+ */
+public final class AppExecutors {
+
+    public static final String POOL_CPU = "cpu";
+    public static final String POOL_IO = "io";
+    public static final int MAX_CPU_THREADS = 4;
+    public static final int IO_THREADS = 4;
+
+    private static final int CPU_QUEUE_CAPACITY = 64;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private static AppExecutors instance;
+
+    private final ExecutionStats stats = new ExecutionStats();
+    private volatile ExecutionMetrics metrics = stats;
+    // Forwards to the current hook, so it can be replaced after the executors are created
+    private final ExecutionMetrics metricsHook = new ExecutionMetrics() {
+        @Override
+        public void onTaskFinished(String pool, long queuedNanos, long runNanos) {
+            metrics.onTaskFinished(pool, queuedNanos, runNanos);
+        }
+
+        @Override
+        public void onMainThreadUpdate(String name, long runNanos, int coalesced) {
+            metrics.onMainThreadUpdate(name, runNanos, coalesced);
+        }
+    };
+
+    private final Executor cpu;
+    private final Executor io;
+    private final Executor mainThread;
+
+    public static synchronized AppExecutors getInstance() {
+        if (instance == null) {
+            instance = new AppExecutors();
+        }
+        return instance;
+    }
+
+    private AppExecutors() {
+        int cpuThreads = Math.max(1, Math.min(MAX_CPU_THREADS, Runtime.getRuntime().availableProcessors() - 1));
+        ThreadPoolExecutor cpuPool = new ThreadPoolExecutor(cpuThreads, cpuThreads,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(CPU_QUEUE_CAPACITY),
+                new PriorityThreadFactory(POOL_CPU, Process.THREAD_PRIORITY_BACKGROUND + Process.THREAD_PRIORITY_MORE_FAVORABLE),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        cpuPool.allowCoreThreadTimeOut(true);
+        ThreadPoolExecutor ioPool = new ThreadPoolExecutor(IO_THREADS, IO_THREADS,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new PriorityThreadFactory(POOL_IO, Process.THREAD_PRIORITY_BACKGROUND));
+        ioPool.allowCoreThreadTimeOut(true);
+
+        cpu = new InstrumentedExecutor(POOL_CPU, cpuPool, metricsHook);
+        io = new InstrumentedExecutor(POOL_IO, ioPool, metricsHook);
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        mainThread = mainHandler::post;
+    }
+
+    public Executor cpu() {
+        return cpu;
+    }
+
+    public Executor io() {
+        return io;
+    }
+
+    public Executor mainThread() {
+        return mainThread;
+    }
+
+    /**
+     * Creates a dispatcher for one screen; close it when the screen is destroyed.
+     */
+    public UiDispatcher newUiDispatcher() {
+        return new UiDispatcher(mainThread, metricsHook);
+    }
+
+    public ExecutionStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Sends all timings to another hook instead of {@link #getStats()}, or back to it if
+     * null.
+     */
+    public void setMetrics(ExecutionMetrics metrics) {
+        this.metrics = metrics != null ? metrics : stats;
+    }
+
+    private static final class PriorityThreadFactory implements ThreadFactory {
+        private final String name;
+        private final int priority;
+        private final AtomicInteger count = new AtomicInteger();
+
+        PriorityThreadFactory(String name, int priority) {
+            this.name = name;
+            this.priority = priority;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            return new Thread(() -> {
+                Process.setThreadPriority(priority);
+                runnable.run();
+            }, name + "-" + count.incrementAndGet());
+        }
+    }
+}
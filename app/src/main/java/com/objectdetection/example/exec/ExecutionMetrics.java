@@ -0,0 +1,26 @@
+package com.objectdetection.example.exec;
+
+/**
+ * Receives timings from the app's executors. Called on the thread that ran the work, so
+ * implementations must be thread-safe and cheap.
+ */
+public interface ExecutionMetrics {
+
+    /**
+     * A task finished on a background pool.
+     *
+     * @param pool        Name of the pool
+     * @param queuedNanos Time the task waited for a thread
+     * @param runNanos    Time the task ran
+     */
+    void onTaskFinished(String pool, long queuedNanos, long runNanos);
+
+    /**
+     * An update ran on the main thread.
+     *
+     * @param name      Key the update was posted under
+     * @param runNanos  Main-thread time of the update
+     * @param coalesced Updates under the same key that were replaced by this one
+     */
+    void onMainThreadUpdate(String name, long runNanos, int coalesced);
+}
@@ -0,0 +1,102 @@
+package com.objectdetection.example.exec;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Aggregates {@link ExecutionMetrics} per pool and per main-thread update key.
+ */
+public class ExecutionStats implements ExecutionMetrics {
+
+    private final ConcurrentHashMap<String, Stat> tasks = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Stat> updates = new ConcurrentHashMap<>();
+
+    @Override
+    public void onTaskFinished(String pool, long queuedNanos, long runNanos) {
+        statOf(tasks, pool).record(runNanos, queuedNanos);
+    }
+
+    @Override
+    public void onMainThreadUpdate(String name, long runNanos, int coalesced) {
+        statOf(updates, name).record(runNanos, coalesced);
+    }
+
+    /**
+     * Returns the timings of a pool's tasks; the extra value is the total wait for a thread
+     * in nanoseconds. Null if the pool ran nothing yet.
+     */
+    public Stat getTaskStat(String pool) {
+        return tasks.get(pool);
+    }
+
+    /**
+     * Returns the timings of the main-thread updates posted under a key; the extra value is
+     * the number of updates dropped by coalescing. Null if nothing ran under the key yet.
+     */
+    public Stat getMainThreadStat(String name) {
+        return updates.get(name);
+    }
+
+    private static Stat statOf(ConcurrentHashMap<String, Stat> stats, String name) {
+        Stat stat = stats.get(name);
+        return stat != null ? stat : stats.computeIfAbsent(name, key -> new Stat());
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        append(builder, "pool", tasks);
+        append(builder, "main", updates);
+        return builder.toString();
+    }
+
+    private static void append(StringBuilder builder, String kind, Map<String, Stat> stats) {
+        for (Map.Entry<String, Stat> entry : stats.entrySet()) {
+            if (builder.length() > 0) {
+                builder.append("; ");
+            }
+            builder.append(kind).append(' ').append(entry.getKey()).append(": ").append(entry.getValue());
+        }
+    }
+
+    public static final class Stat {
+        private long count;
+        private long totalNanos;
+        private long maxNanos;
+        private long extra;
+
+        synchronized void record(long nanos, long extraValue) {
+            count++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+            extra += extraValue;
+        }
+
+        public synchronized long getCount() {
+            return count;
+        }
+
+        public synchronized double getMeanMs() {
+            return count > 0 ? totalNanos / 1e6 / count : 0;
+        }
+
+        public synchronized double getMaxMs() {
+            return maxNanos / 1e6;
+        }
+
+        public synchronized double getTotalMs() {
+            return totalNanos / 1e6;
+        }
+
+        public synchronized long getExtra() {
+            return extra;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return String.format(Locale.US, "%d runs, mean %.2f ms, max %.2f ms, extra %d",
+                    count, getMeanMs(), getMaxMs(), extra);
+        }
+    }
+}
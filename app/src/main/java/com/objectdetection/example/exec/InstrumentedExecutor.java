@@ -0,0 +1,36 @@
+package com.objectdetection.example.exec;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Reports how long each task waited and ran to {@link ExecutionMetrics}.
+ */
+public class InstrumentedExecutor implements Executor {
+
+    private final String name;
+    private final Executor delegate;
+    private final ExecutionMetrics metrics;
+
+    public InstrumentedExecutor(String name, Executor delegate, ExecutionMetrics metrics) {
+        this.name = name;
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        final long queuedAtNanos = System.nanoTime();
+        delegate.execute(() -> {
+            long startNanos = System.nanoTime();
+            try {
+                task.run();
+            } finally {
+                metrics.onTaskFinished(name, startNanos - queuedAtNanos, System.nanoTime() - startNanos);
+            }
+        });
+    }
+}
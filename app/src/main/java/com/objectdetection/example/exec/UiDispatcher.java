@@ -0,0 +1,140 @@
+package com.objectdetection.example.exec;
+
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+
+/**
+ * Delivers updates to the main thread, running only the latest pending update per key.
+ * <p>
+ * Each key stands for a view or a group of views that an update rewrites completely, so
+ * an update still waiting when a newer one for the same key arrives is dropped instead of
+ * drawn and overwritten in the same frame. All pending updates run in one main-thread
+ * message, each timed and reported to the {@link ExecutionMetrics}. Posting doesn't
+ * allocate once every key has been seen.
+ * <p>
+ * One dispatcher belongs to one screen: {@link #close()} drops pending updates and ignores
+ * later posts, so callbacks arriving after the screen is gone don't touch its views.
+ */
+public class UiDispatcher {
+
+    private static final int INITIAL_KEYS = 4;
+
+    private final Executor mainExecutor;
+    private final ExecutionMetrics metrics;
+    private final Runnable drain = this::drain;
+
+    // Guarded by this
+    private String[] keys = new String[INITIAL_KEYS];
+    private Runnable[] updates = new Runnable[INITIAL_KEYS];
+    private int[] coalesced = new int[INITIAL_KEYS];
+    private int pendingCount;
+    private boolean drainScheduled;
+    private boolean closed;
+
+    // Only used on the main thread
+    private String[] drainingKeys = new String[INITIAL_KEYS];
+    private Runnable[] drainingUpdates = new Runnable[INITIAL_KEYS];
+    private int[] drainingCoalesced = new int[INITIAL_KEYS];
+
+    /**
+     * @param mainExecutor Runs tasks on the main thread
+     * @param metrics      Receives the main-thread time of every update
+     */
+    public UiDispatcher(Executor mainExecutor, ExecutionMetrics metrics) {
+        this.mainExecutor = mainExecutor;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Runs the update on the main thread, replacing an update for the same key that has
+     * not run yet. Callable from any thread.
+     *
+     * @param key    Names what the update rewrites, e.g. "status"; also the metrics name
+     * @param update The update
+     */
+    public void post(String key, Runnable update) {
+        boolean schedule;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            int index = indexOf(key);
+            if (index >= 0) {
+                updates[index] = update;
+                coalesced[index]++;
+            } else {
+                ensureCapacity(pendingCount + 1);
+                keys[pendingCount] = key;
+                updates[pendingCount] = update;
+                coalesced[pendingCount] = 0;
+                pendingCount++;
+            }
+            schedule = !drainScheduled;
+            drainScheduled = true;
+        }
+        if (schedule) {
+            mainExecutor.execute(drain);
+        }
+    }
+
+    /**
+     * Drops pending updates and ignores all later ones.
+     */
+    public synchronized void close() {
+        closed = true;
+        Arrays.fill(updates, 0, pendingCount, null);
+        pendingCount = 0;
+    }
+
+    private void drain() {
+        int count;
+        synchronized (this) {
+            drainScheduled = false;
+            count = pendingCount;
+            if (drainingKeys.length < count) {
+                drainingKeys = new String[keys.length];
+                drainingUpdates = new Runnable[keys.length];
+                drainingCoalesced = new int[keys.length];
+            }
+            System.arraycopy(keys, 0, drainingKeys, 0, count);
+            System.arraycopy(updates, 0, drainingUpdates, 0, count);
+            System.arraycopy(coalesced, 0, drainingCoalesced, 0, count);
+            Arrays.fill(updates, 0, count, null);
+            pendingCount = 0;
+        }
+        for (int i = 0; i < count; i++) {
+            Runnable update = drainingUpdates[i];
+            drainingUpdates[i] = null;
+            synchronized (this) {
+                // Closed by an earlier update of this batch
+                if (closed) {
+                    Arrays.fill(drainingUpdates, i, count, null);
+                    return;
+                }
+            }
+            long startNanos = System.nanoTime();
+            try {
+                update.run();
+            } finally {
+                metrics.onMainThreadUpdate(drainingKeys[i], System.nanoTime() - startNanos, drainingCoalesced[i]);
+            }
+        }
+    }
+
+    private int indexOf(String key) {
+        for (int i = 0; i < pendingCount; i++) {
+            if (keys[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= keys.length) return;
+        int newCapacity = Math.max(capacity, keys.length * 2);
+        keys = Arrays.copyOf(keys, newCapacity);
+        updates = Arrays.copyOf(updates, newCapacity);
+        coalesced = Arrays.copyOf(coalesced, newCapacity);
+    }
+}
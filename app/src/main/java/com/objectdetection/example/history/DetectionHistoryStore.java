@@ -0,0 +1,269 @@
+package com.objectdetection.example.history;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteQueryBuilder;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+import com.objectdetection.example.util.DetectionBuffer;
+import com.objectdetection.example.util.DetectionResults;
+import com.objectdetection.sdk.model.DetectionResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * On-device history of detections, one row per detected object.
+ * <p>
+ * Results are recorded without blocking the caller: they are collected in memory and
+ * written by a single background thread in one transaction per batch, at most
+ * {@link #FLUSH_DELAY_MS} after they were recorded. Queries page through the history
+ * newest first using the label and time indexes, see {@link HistoryQuery}.
+ */
+public class DetectionHistoryStore extends SQLiteOpenHelper {
+    private static final String TAG = "DetectionHistoryStore";
+
+    private static final String DATABASE_NAME = "detection_history.db";
+    // 2: indexes on label and time
+    private static final int DATABASE_VERSION = 2;
+
+    static final String TABLE_DETECTIONS = "detections";
+    static final String COLUMN_ID = "_id";
+    static final String COLUMN_SOURCE = "source";
+    static final String COLUMN_LABEL = "label";
+    static final String COLUMN_CONFIDENCE = "confidence";
+    static final String COLUMN_X_MIN = "x_min";
+    static final String COLUMN_Y_MIN = "y_min";
+    static final String COLUMN_X_MAX = "x_max";
+    static final String COLUMN_Y_MAX = "y_max";
+    static final String COLUMN_IMAGE_WIDTH = "image_width";
+    static final String COLUMN_IMAGE_HEIGHT = "image_height";
+    static final String COLUMN_TIMESTAMP = "timestamp";
+
+    // Serves label queries with a time range; confidence is included so rows below the
+    // threshold are skipped without reading the table
+    private static final String INDEX_LABEL_TIME = "idx_detections_label_time";
+    // Serves time-only queries and newest-first listing
+    private static final String INDEX_TIME = "idx_detections_time";
+
+    public static final long FLUSH_DELAY_MS = 500;
+    // Results that trigger a write before the delay is up
+    public static final int MAX_BATCH_RESULTS = 64;
+
+    private static final String[] QUERY_COLUMNS = {
+            COLUMN_ID, COLUMN_SOURCE, COLUMN_LABEL, COLUMN_CONFIDENCE,
+            COLUMN_X_MIN, COLUMN_Y_MIN, COLUMN_X_MAX, COLUMN_Y_MAX,
+            COLUMN_IMAGE_WIDTH, COLUMN_IMAGE_HEIGHT, COLUMN_TIMESTAMP
+    };
+    private static final String ORDER_NEWEST_FIRST = COLUMN_TIMESTAMP + " DESC, " + COLUMN_ID + " DESC";
+
+    private static DetectionHistoryStore instance;
+
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor();
+    // Results waiting to be written, guarded by itself
+    private final List<PendingResult> pendingResults = new ArrayList<>();
+    private boolean flushScheduled;
+    // Only used on the writer thread
+    private final DetectionBuffer insertBuffer = new DetectionBuffer();
+
+    /**
+     * Returns the process-wide history store.
+     */
+    public static synchronized DetectionHistoryStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new DetectionHistoryStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private DetectionHistoryStore(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        // Queries don't wait for a batch being written
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        createSchema(db);
+    }
+
+    static void createSchema(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_DETECTIONS + " ("
+                + COLUMN_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + COLUMN_SOURCE + " TEXT NOT NULL, "
+                + COLUMN_LABEL + " TEXT, "
+                + COLUMN_CONFIDENCE + " REAL NOT NULL, "
+                + COLUMN_X_MIN + " REAL NOT NULL, "
+                + COLUMN_Y_MIN + " REAL NOT NULL, "
+                + COLUMN_X_MAX + " REAL NOT NULL, "
+                + COLUMN_Y_MAX + " REAL NOT NULL, "
+                + COLUMN_IMAGE_WIDTH + " INTEGER NOT NULL, "
+                + COLUMN_IMAGE_HEIGHT + " INTEGER NOT NULL, "
+                + COLUMN_TIMESTAMP + " INTEGER NOT NULL)");
+        createIndexes(db);
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        if (oldVersion < 2) {
+            createIndexes(db);
+        }
+    }
+
+    private static void createIndexes(SQLiteDatabase db) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_LABEL_TIME + " ON " + TABLE_DETECTIONS
+                + " (" + COLUMN_LABEL + ", " + COLUMN_TIMESTAMP + ", " + COLUMN_CONFIDENCE + ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_TIME + " ON " + TABLE_DETECTIONS
+                + " (" + COLUMN_TIMESTAMP + ")");
+    }
+
+    /**
+     * Records the objects of a successful result. Returns immediately; the result is
+     * written in the background together with others recorded around the same time.
+     *
+     * @param source      URI or URL of the image
+     * @param result      The result, with boxes in original image coordinates
+     * @param imageWidth  Width of the image the boxes refer to, 0 if unknown
+     * @param imageHeight Height of the image the boxes refer to, 0 if unknown
+     * @param timestampMs Wall clock time of the detection
+     */
+    public void record(String source, DetectionResult result, int imageWidth, int imageHeight,
+                       long timestampMs) {
+        PendingResult pending = new PendingResult(source, result, imageWidth, imageHeight, timestampMs);
+        synchronized (pendingResults) {
+            pendingResults.add(pending);
+            if (pendingResults.size() >= MAX_BATCH_RESULTS) {
+                writer.execute(this::flush);
+            } else if (!flushScheduled) {
+                writer.schedule(this::flush, FLUSH_DELAY_MS, TimeUnit.MILLISECONDS);
+            } else {
+                return;
+            }
+            flushScheduled = true;
+        }
+    }
+
+    /**
+     * Returns one page of detections matching the query, newest first. Blocks on disk
+     * I/O, so it must be called off the main thread.
+     */
+    public HistoryPage query(HistoryQuery query) {
+        int pageSize = query.getPageSize();
+        List<HistoryEntry> entries = new ArrayList<>(Math.min(pageSize, HistoryQuery.DEFAULT_PAGE_SIZE));
+        boolean hasMore = false;
+        // One row more than the page tells whether another page follows
+        try (Cursor cursor = getReadableDatabase().rawQuery(pageSql(query), query.getSelectionArgs())) {
+            while (cursor.moveToNext()) {
+                if (entries.size() == pageSize) {
+                    hasMore = true;
+                    break;
+                }
+                entries.add(new HistoryEntry(
+                        cursor.getLong(0),
+                        cursor.getString(1),
+                        cursor.getString(2),
+                        cursor.getFloat(3),
+                        cursor.getFloat(4),
+                        cursor.getFloat(5),
+                        cursor.getFloat(6),
+                        cursor.getFloat(7),
+                        cursor.getInt(8),
+                        cursor.getInt(9),
+                        cursor.getLong(10)));
+            }
+        }
+        HistoryQuery next = null;
+        if (hasMore) {
+            HistoryEntry last = entries.get(entries.size() - 1);
+            next = query.after(last.getTimestampMs(), last.getId());
+        }
+        return new HistoryPage(entries, next);
+    }
+
+    /**
+     * SQL of one page of the query, newest first; its arguments are the query's
+     * selection arguments.
+     */
+    static String pageSql(HistoryQuery query) {
+        return SQLiteQueryBuilder.buildQueryString(false, TABLE_DETECTIONS, QUERY_COLUMNS,
+                query.getSelection(), null, null, ORDER_NEWEST_FIRST, String.valueOf(query.getPageSize() + 1));
+    }
+
+    private void flush() {
+        List<PendingResult> batch;
+        synchronized (pendingResults) {
+            flushScheduled = false;
+            if (pendingResults.isEmpty()) {
+                return;
+            }
+            batch = new ArrayList<>(pendingResults);
+            pendingResults.clear();
+        }
+        try {
+            write(batch);
+        } catch (RuntimeException e) {
+            // SQLiteException and friends; history is best effort
+            Log.e(TAG, "Failed to write " + batch.size() + " results to the history", e);
+        }
+    }
+
+    private void write(List<PendingResult> batch) {
+        SQLiteDatabase db = getWritableDatabase();
+        SQLiteStatement statement = db.compileStatement("INSERT INTO " + TABLE_DETECTIONS + " ("
+                + COLUMN_SOURCE + ", " + COLUMN_LABEL + ", " + COLUMN_CONFIDENCE + ", "
+                + COLUMN_X_MIN + ", " + COLUMN_Y_MIN + ", " + COLUMN_X_MAX + ", " + COLUMN_Y_MAX + ", "
+                + COLUMN_IMAGE_WIDTH + ", " + COLUMN_IMAGE_HEIGHT + ", " + COLUMN_TIMESTAMP
+                + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        db.beginTransaction();
+        try {
+            for (PendingResult pending : batch) {
+                DetectionResults.toBuffer(pending.result, insertBuffer);
+                for (int i = 0; i < insertBuffer.size(); i++) {
+                    statement.clearBindings();
+                    statement.bindString(1, pending.source);
+                    String label = insertBuffer.getLabel(i);
+                    if (label != null) {
+                        statement.bindString(2, label);
+                    } else {
+                        statement.bindNull(2);
+                    }
+                    statement.bindDouble(3, insertBuffer.getConfidence(i));
+                    statement.bindDouble(4, insertBuffer.getXMin(i));
+                    statement.bindDouble(5, insertBuffer.getYMin(i));
+                    statement.bindDouble(6, insertBuffer.getXMax(i));
+                    statement.bindDouble(7, insertBuffer.getYMax(i));
+                    statement.bindLong(8, pending.imageWidth);
+                    statement.bindLong(9, pending.imageHeight);
+                    statement.bindLong(10, pending.timestampMs);
+                    statement.executeInsert();
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            statement.close();
+        }
+    }
+
+    private static final class PendingResult {
+        final String source;
+        final DetectionResult result;
+        final int imageWidth;
+        final int imageHeight;
+        final long timestampMs;
+
+        PendingResult(String source, DetectionResult result, int imageWidth, int imageHeight, long timestampMs) {
+            this.source = source;
+            this.result = result;
+            this.imageWidth = imageWidth;
+            this.imageHeight = imageHeight;
+            this.timestampMs = timestampMs;
+        }
+    }
+}
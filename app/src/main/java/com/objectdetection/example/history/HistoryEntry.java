@@ -0,0 +1,88 @@
+package com.objectdetection.example.history;
+
+/**
+ * One detected object from the history.
+ */
+public class HistoryEntry {
+
+    private final long id;
+    private final String source;
+    private final String label;
+    private final float confidence;
+    private final float xMin;
+    private final float yMin;
+    private final float xMax;
+    private final float yMax;
+    private final int imageWidth;
+    private final int imageHeight;
+    private final long timestampMs;
+
+    public HistoryEntry(long id, String source, String label, float confidence,
+                        float xMin, float yMin, float xMax, float yMax,
+                        int imageWidth, int imageHeight, long timestampMs) {
+        this.id = id;
+        this.source = source;
+        this.label = label;
+        this.confidence = confidence;
+        this.xMin = xMin;
+        this.yMin = yMin;
+        this.xMax = xMax;
+        this.yMax = yMax;
+        this.imageWidth = imageWidth;
+        this.imageHeight = imageHeight;
+        this.timestampMs = timestampMs;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * URI or URL of the image the object was detected in.
+     */
+    public String getSource() {
+        return source;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public float getConfidence() {
+        return confidence;
+    }
+
+    public float getXMin() {
+        return xMin;
+    }
+
+    public float getYMin() {
+        return yMin;
+    }
+
+    public float getXMax() {
+        return xMax;
+    }
+
+    public float getYMax() {
+        return yMax;
+    }
+
+    /**
+     * Width of the image the box refers to, or 0 if unknown.
+     */
+    public int getImageWidth() {
+        return imageWidth;
+    }
+
+    /**
+     * Height of the image the box refers to, or 0 if unknown.
+     */
+    public int getImageHeight() {
+        return imageHeight;
+    }
+
+    public long getTimestampMs() {
+        return timestampMs;
+    }
+}
@@ -0,0 +1,32 @@
+package com.objectdetection.example.history;
+
+import java.util.List;
+
+/**
+ * One page of history entries, newest first.
+ */
+public class HistoryPage {
+
+    private final List<HistoryEntry> entries;
+    private final HistoryQuery nextQuery;
+
+    HistoryPage(List<HistoryEntry> entries, HistoryQuery nextQuery) {
+        this.entries = entries;
+        this.nextQuery = nextQuery;
+    }
+
+    public List<HistoryEntry> getEntries() {
+        return entries;
+    }
+
+    public boolean hasMore() {
+        return nextQuery != null;
+    }
+
+    /**
+     * The query for the following page, or null if this is the last one.
+     */
+    public HistoryQuery getNextQuery() {
+        return nextQuery;
+    }
+}
@@ -0,0 +1,188 @@
+package com.objectdetection.example.history;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Filter and page of a {@link DetectionHistoryStore} query, e.g. all "person" objects
+ * with at least 0.8 confidence from the last week.
+ * <p>
+ * Pages are newest first and continue from the last row of the previous page (keyset
+ * paging) rather than skipping an offset, so later pages cost the same as the first and
+ * rows added meanwhile don't shift them. Label and time filters are served by the
+ * {@code (label, timestamp, confidence)} and {@code (timestamp)} indexes.
+ */
+public final class HistoryQuery {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+
+    private static final long NO_CURSOR = Long.MAX_VALUE;
+
+    private final String label;
+    private final float minConfidence;
+    private final long sinceMs;
+    private final long untilMs;
+    private final int pageSize;
+    // Timestamp and id of the last row of the previous page
+    private final long afterTimestampMs;
+    private final long afterId;
+
+    private HistoryQuery(String label, float minConfidence, long sinceMs, long untilMs, int pageSize,
+                         long afterTimestampMs, long afterId) {
+        this.label = label;
+        this.minConfidence = minConfidence;
+        this.sinceMs = sinceMs;
+        this.untilMs = untilMs;
+        this.pageSize = pageSize;
+        this.afterTimestampMs = afterTimestampMs;
+        this.afterId = afterId;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Label to match exactly, or null for all labels.
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    public float getMinConfidence() {
+        return minConfidence;
+    }
+
+    public long getSinceMs() {
+        return sinceMs;
+    }
+
+    public long getUntilMs() {
+        return untilMs;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Whether this query continues after a previous page.
+     */
+    public boolean isContinuation() {
+        return afterTimestampMs != NO_CURSOR;
+    }
+
+    /**
+     * Returns the same query, continuing after the given row.
+     *
+     * @param lastTimestampMs Timestamp of the last row of the current page
+     * @param lastId          Id of the last row of the current page
+     */
+    public HistoryQuery after(long lastTimestampMs, long lastId) {
+        return new HistoryQuery(label, minConfidence, sinceMs, untilMs, pageSize, lastTimestampMs, lastId);
+    }
+
+    /**
+     * SQL {@code WHERE} clause of the query, or null to match all rows.
+     */
+    String getSelection() {
+        List<String> conditions = new ArrayList<>(5);
+        if (label != null) {
+            conditions.add(DetectionHistoryStore.COLUMN_LABEL + " = ?");
+        }
+        if (minConfidence > 0) {
+            conditions.add(DetectionHistoryStore.COLUMN_CONFIDENCE + " >= ?");
+        }
+        if (sinceMs != Long.MIN_VALUE) {
+            conditions.add(DetectionHistoryStore.COLUMN_TIMESTAMP + " >= ?");
+        }
+        if (untilMs != Long.MAX_VALUE) {
+            conditions.add(DetectionHistoryStore.COLUMN_TIMESTAMP + " < ?");
+        }
+        if (isContinuation()) {
+            // Same as (timestamp, _id) < (?, ?), written so the timestamp bound can use an index
+            conditions.add(DetectionHistoryStore.COLUMN_TIMESTAMP + " <= ? AND ("
+                    + DetectionHistoryStore.COLUMN_TIMESTAMP + " < ? OR "
+                    + DetectionHistoryStore.COLUMN_ID + " < ?)");
+        }
+        return conditions.isEmpty() ? null : String.join(" AND ", conditions);
+    }
+
+    /**
+     * Arguments for the placeholders of {@link #getSelection()}, in order.
+     */
+    String[] getSelectionArgs() {
+        List<String> args = new ArrayList<>(7);
+        if (label != null) {
+            args.add(label);
+        }
+        if (minConfidence > 0) {
+            // Confidences are stored as floats widened to REAL, so the bound is widened the same way
+            args.add(Double.toString((double) minConfidence));
+        }
+        if (sinceMs != Long.MIN_VALUE) {
+            args.add(Long.toString(sinceMs));
+        }
+        if (untilMs != Long.MAX_VALUE) {
+            args.add(Long.toString(untilMs));
+        }
+        if (isContinuation()) {
+            args.add(Long.toString(afterTimestampMs));
+            args.add(Long.toString(afterTimestampMs));
+            args.add(Long.toString(afterId));
+        }
+        return args.toArray(new String[0]);
+    }
+
+    public static final class Builder {
+        private String label;
+        private float minConfidence;
+        private long sinceMs = Long.MIN_VALUE;
+        private long untilMs = Long.MAX_VALUE;
+        private int pageSize = DEFAULT_PAGE_SIZE;
+
+        private Builder() {
+        }
+
+        public Builder setLabel(String label) {
+            this.label = label;
+            return this;
+        }
+
+        /**
+         * @param minConfidence Lowest confidence to include, from 0 to 1
+         */
+        public Builder setMinConfidence(float minConfidence) {
+            this.minConfidence = minConfidence;
+            return this;
+        }
+
+        /**
+         * Only includes detections from this time on (inclusive).
+         */
+        public Builder setSinceMs(long sinceMs) {
+            this.sinceMs = sinceMs;
+            return this;
+        }
+
+        /**
+         * Only includes detections before this time (exclusive).
+         */
+        public Builder setUntilMs(long untilMs) {
+            this.untilMs = untilMs;
+            return this;
+        }
+
+        public Builder setPageSize(int pageSize) {
+            if (pageSize <= 0) {
+                throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+            }
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        public HistoryQuery build() {
+            return new HistoryQuery(label, minConfidence, sinceMs, untilMs, pageSize, NO_CURSOR, 0);
+        }
+    }
+}
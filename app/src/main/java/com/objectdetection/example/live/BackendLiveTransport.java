@@ -0,0 +1,39 @@
+package com.objectdetection.example.live;
+
+import com.objectdetection.example.backend.DetectorBackend;
+import com.objectdetection.example.trace.DetectionTrace;
+import com.objectdetection.sdk.listener.ImageDetectionListener;
+
+/**
+ * Hands every live frame to a {@link DetectorBackend}, e.g. to detect on the device.
+ * The pipeline's listener takes buffers, so the backends pass their detections on without
+ * building a result. The backend is owned by the caller and outlives the live sessions.
+ */
+public class BackendLiveTransport implements LiveTransport {
+
+    private final DetectorBackend backend;
+
+    public BackendLiveTransport(DetectorBackend backend) {
+        this.backend = backend;
+    }
+
+    @Override
+    public void open() {
+        // The backend is ready once created
+    }
+
+    @Override
+    public void send(long frameTimestamp, byte[] jpeg, ImageDetectionListener listener) {
+        backend.detectJpeg(jpeg, 0, jpeg.length, listener);
+    }
+
+    @Override
+    public void send(long frameTimestamp, byte[] jpeg, DetectionTrace trace, ImageDetectionListener listener) {
+        backend.detectJpeg(jpeg, 0, jpeg.length, trace, listener);
+    }
+
+    @Override
+    public void close() {
+        // Results of frames in flight are dropped by the pipeline
+    }
+}
@@ -0,0 +1,16 @@
+package com.objectdetection.example.live;
+
+/**
+ * Decides whether a live frame needs a server detection at all, before the
+ * {@link FrameScheduler} decides whether it may be sent now.
+ */
+public interface DetectionGate {
+
+    /**
+     * Called on the analysis thread for every frame.
+     *
+     * @param nowMs {@link android.os.SystemClock#elapsedRealtime()} at analysis time
+     * @return true if the frame should be detected
+     */
+    boolean shouldDetect(long nowMs);
+}
@@ -0,0 +1,82 @@
+package com.objectdetection.example.live;
+
+/**
+ * Builds the "Detected N objects (M ms)" status line into a reusable char buffer,
+ * so updating the status text for every live result allocates no strings.
+ */
+public class DetectionStatusText {
+
+    private static final char[] PREFIX = "Detected ".toCharArray();
+    private static final char[] MIDDLE = " objects (".toCharArray();
+    private static final char[] SUFFIX = " ms)".toCharArray();
+
+    private final char[] chars = new char[64];
+    private int length;
+    private int lastCount = -1;
+    private long lastProcessingTimeMs = -1;
+
+    /**
+     * Formats the status line.
+     *
+     * @return true if the text changed and the view needs updating
+     */
+    public boolean update(int objectCount, long processingTimeMs) {
+        if (objectCount == lastCount && processingTimeMs == lastProcessingTimeMs) {
+            return false;
+        }
+        lastCount = objectCount;
+        lastProcessingTimeMs = processingTimeMs;
+
+        length = 0;
+        append(PREFIX);
+        appendNumber(objectCount);
+        append(MIDDLE);
+        appendNumber(processingTimeMs);
+        append(SUFFIX);
+        return true;
+    }
+
+    /**
+     * Forgets the last formatted values, so the next update always reports a change.
+     */
+    public void reset() {
+        lastCount = -1;
+        lastProcessingTimeMs = -1;
+    }
+
+    public char[] getChars() {
+        return chars;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public String toString() {
+        return new String(chars, 0, length);
+    }
+
+    private void append(char[] text) {
+        System.arraycopy(text, 0, chars, length, text.length);
+        length += text.length;
+    }
+
+    private void appendNumber(long value) {
+        if (value < 0) {
+            chars[length++] = '-';
+            value = -value;
+        }
+        int start = length;
+        do {
+            chars[length++] = (char) ('0' + (value % 10));
+            value /= 10;
+        } while (value > 0);
+        // Digits were written in reverse
+        for (int i = start, j = length - 1; i < j; i++, j--) {
+            char tmp = chars[i];
+            chars[i] = chars[j];
+            chars[j] = tmp;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.objectdetection.example.live;
+
+import android.graphics.ImageFormat;
+import android.graphics.Rect;
+import android.graphics.YuvImage;
+
+import androidx.camera.core.ImageProxy;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Converts YUV_420_888 analysis frames into upright JPEG bytes for upload.
+ * <p>
+ * The NV21 and output buffers are reused between frames, so an encoder must only be
+ * used from a single thread (the analysis executor).
+ */
+public class FrameEncoder {
+
+    private static final int JPEG_QUALITY = 80;
+
+    private final ByteArrayOutputStream jpegStream = new ByteArrayOutputStream();
+    private byte[] nv21 = new byte[0];
+    private byte[] rotated = new byte[0];
+
+    private int encodedWidth;
+    private int encodedHeight;
+
+    /**
+     * Encodes the frame as JPEG, rotated by the frame's rotation degrees and optionally
+     * mirrored, so that the server sees the image the way the preview shows it.
+     *
+     * @param image  The analysis frame; the caller remains responsible for closing it
+     * @param mirror Whether to mirror the frame horizontally, as the front camera preview is
+     * @return The encoded JPEG bytes
+     */
+    public byte[] encode(ImageProxy image, boolean mirror) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int rotationDegrees = image.getImageInfo().getRotationDegrees();
+
+        int frameSize = width * height * 3 / 2;
+        if (nv21.length != frameSize) {
+            nv21 = new byte[frameSize];
+            rotated = new byte[frameSize];
+        }
+        toNv21(image, nv21);
+
+        byte[] data = nv21;
+        int outWidth = Nv21Transform.outputWidth(width, height, rotationDegrees);
+        int outHeight = Nv21Transform.outputHeight(width, height, rotationDegrees);
+        if (rotationDegrees != 0 || mirror) {
+            Nv21Transform.transform(nv21, rotated, width, height, rotationDegrees, mirror);
+            data = rotated;
+        }
+        encodedWidth = outWidth;
+        encodedHeight = outHeight;
+
+        jpegStream.reset();
+        YuvImage yuvImage = new YuvImage(data, ImageFormat.NV21, outWidth, outHeight, null);
+        yuvImage.compressToJpeg(new Rect(0, 0, outWidth, outHeight), JPEG_QUALITY, jpegStream);
+        return jpegStream.toByteArray();
+    }
+
+    /**
+     * Width of the last encoded frame, after rotation.
+     */
+    public int getEncodedWidth() {
+        return encodedWidth;
+    }
+
+    /**
+     * Height of the last encoded frame, after rotation.
+     */
+    public int getEncodedHeight() {
+        return encodedHeight;
+    }
+
+    private static void toNv21(ImageProxy image, byte[] out) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        ImageProxy.PlaneProxy[] planes = image.getPlanes();
+
+        // Luma rows may be padded, copy them one by one
+        ByteBuffer yBuffer = planes[0].getBuffer();
+        int yRowStride = planes[0].getRowStride();
+        for (int row = 0; row < height; row++) {
+            yBuffer.position(row * yRowStride);
+            yBuffer.get(out, row * width, width);
+        }
+
+        // Interleave chroma as V,U pairs
+        ByteBuffer uBuffer = planes[1].getBuffer();
+        ByteBuffer vBuffer = planes[2].getBuffer();
+        int uRowStride = planes[1].getRowStride();
+        int uPixelStride = planes[1].getPixelStride();
+        int vRowStride = planes[2].getRowStride();
+        int vPixelStride = planes[2].getPixelStride();
+        int pos = width * height;
+        for (int row = 0; row < height / 2; row++) {
+            for (int col = 0; col < width / 2; col++) {
+                out[pos++] = vBuffer.get(row * vRowStride + col * vPixelStride);
+                out[pos++] = uBuffer.get(row * uRowStride + col * uPixelStride);
+            }
+        }
+    }
+}
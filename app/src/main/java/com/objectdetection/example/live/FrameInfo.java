@@ -0,0 +1,83 @@
+package com.objectdetection.example.live;
+
+import com.objectdetection.example.trace.DetectionTrace;
+
+/**
+ * Describes the analysis frame a live result was computed from.
+ * <p>
+ * Boxes in the result refer to the upright frame of {@link #getWidth()} x
+ * {@link #getHeight()} pixels, i.e. the sensor image after rotation (and mirroring
+ * for the front camera), which is also what the preview shows.
+ */
+public class FrameInfo {
+
+    private final long timestamp;
+    private final long analyzedAtMs;
+    private final int width;
+    private final int height;
+    private final int rotationDegrees;
+    private final boolean mirrored;
+    private final DetectionTrace trace;
+
+    public FrameInfo(long timestamp, long analyzedAtMs, int width, int height, int rotationDegrees,
+                     boolean mirrored, DetectionTrace trace) {
+        this.timestamp = timestamp;
+        this.analyzedAtMs = analyzedAtMs;
+        this.width = width;
+        this.height = height;
+        this.rotationDegrees = rotationDegrees;
+        this.mirrored = mirrored;
+        this.trace = trace;
+    }
+
+    /**
+     * Capture timestamp of the frame in nanoseconds.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * {@link android.os.SystemClock#elapsedRealtime()} when the frame reached analysis,
+     * shortly after capture. Unlike the capture timestamp it can be compared with UI time.
+     */
+    public long getAnalyzedAtMs() {
+        return analyzedAtMs;
+    }
+
+    /**
+     * Width of the upright frame that was uploaded.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Height of the upright frame that was uploaded.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Clockwise rotation that was applied to the sensor image.
+     */
+    public int getRotationDegrees() {
+        return rotationDegrees;
+    }
+
+    /**
+     * Whether the frame was mirrored horizontally to match a front camera preview.
+     */
+    public boolean isMirrored() {
+        return mirrored;
+    }
+
+    /**
+     * Stage timestamps of the frame's detection, or null if the frame reused an earlier
+     * result and wasn't detected itself.
+     */
+    public DetectionTrace getTrace() {
+        return trace;
+    }
+}
@@ -0,0 +1,160 @@
+package com.objectdetection.example.live;
+
+/**
+ * Decides which camera frames are sent for live detection.
+ * <p>
+ * At most {@code maxInFlight} frames are outstanding at once. Frames that arrive while the
+ * pipeline is saturated, or sooner than the current submit interval, are dropped so that the
+ * next submission is always the newest frame. The submit interval follows a moving average of
+ * the server processing time, which keeps the request rate at what the backend can serve.
+ * Results that come back after a newer frame's result was already delivered are stale and
+ * should be discarded (latest wins).
+ */
+public class FrameScheduler {
+
+    public static final int DEFAULT_MAX_IN_FLIGHT = 2;
+    public static final long DEFAULT_MIN_INTERVAL_MS = 33;   // ~30 fps
+    public static final long DEFAULT_MAX_INTERVAL_MS = 2000;
+
+    // Weight of the newest sample in the processing time moving average
+    private static final float SMOOTHING_FACTOR = 0.2f;
+
+    private final int maxInFlight;
+    private final long minIntervalMs;
+    private final long maxIntervalMs;
+
+    private int inFlight;
+    private boolean hasSubmitted;
+    private long lastSubmitMs;
+    private float averageProcessingMs = -1f;
+    private long latestDeliveredTimestamp = Long.MIN_VALUE;
+
+    private long submittedFrames;
+    private long droppedFrames;
+    private long staleResults;
+
+    public FrameScheduler() {
+        this(DEFAULT_MAX_IN_FLIGHT, DEFAULT_MIN_INTERVAL_MS, DEFAULT_MAX_INTERVAL_MS);
+    }
+
+    public FrameScheduler(int maxInFlight, long minIntervalMs, long maxIntervalMs) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be at least 1");
+        }
+        if (minIntervalMs < 0 || maxIntervalMs < minIntervalMs) {
+            throw new IllegalArgumentException("Invalid submit interval bounds");
+        }
+        this.maxInFlight = maxInFlight;
+        this.minIntervalMs = minIntervalMs;
+        this.maxIntervalMs = maxIntervalMs;
+    }
+
+    /**
+     * Asks whether a frame captured now may be submitted. A successful call reserves an
+     * in-flight slot that must be released with {@link #onResult} or {@link #onError}.
+     *
+     * @param nowMs Monotonic clock time in milliseconds
+     * @return true if the frame should be submitted, false if it should be dropped
+     */
+    public synchronized boolean tryAcquire(long nowMs) {
+        if (inFlight >= maxInFlight
+                || (hasSubmitted && nowMs - lastSubmitMs < getSubmitIntervalMs())) {
+            droppedFrames++;
+            return false;
+        }
+        inFlight++;
+        hasSubmitted = true;
+        lastSubmitMs = nowMs;
+        submittedFrames++;
+        return true;
+    }
+
+    /**
+     * Releases the slot of a completed frame and feeds its processing time into the average.
+     *
+     * @param frameTimestamp   Capture timestamp of the frame the result belongs to
+     * @param processingTimeMs Processing time reported for the result
+     * @return true if the result is the newest seen so far and should be delivered
+     */
+    public synchronized boolean onResult(long frameTimestamp, long processingTimeMs) {
+        release();
+        if (processingTimeMs > 0) {
+            averageProcessingMs = averageProcessingMs < 0
+                    ? processingTimeMs
+                    : averageProcessingMs + SMOOTHING_FACTOR * (processingTimeMs - averageProcessingMs);
+        }
+        return markDelivered(frameTimestamp);
+    }
+
+    /**
+     * Releases the slot of a frame whose detection failed.
+     *
+     * @param frameTimestamp Capture timestamp of the failed frame
+     * @return true if the error is not superseded by a newer result and should be reported
+     */
+    public synchronized boolean onError(long frameTimestamp) {
+        release();
+        return markDelivered(frameTimestamp);
+    }
+
+    /**
+     * Returns the current minimum spacing between two submissions. With {@code maxInFlight}
+     * requests overlapping, one submission per {@code average / maxInFlight} keeps the
+     * pipeline full without queueing behind the backend.
+     */
+    public synchronized long getSubmitIntervalMs() {
+        if (averageProcessingMs < 0) {
+            return minIntervalMs;
+        }
+        long interval = (long) (averageProcessingMs / maxInFlight);
+        return Math.max(minIntervalMs, Math.min(maxIntervalMs, interval));
+    }
+
+    /**
+     * Clears all in-flight state, e.g. when the camera is restarted.
+     */
+    public synchronized void reset() {
+        inFlight = 0;
+        hasSubmitted = false;
+        averageProcessingMs = -1f;
+        latestDeliveredTimestamp = Long.MIN_VALUE;
+        submittedFrames = 0;
+        droppedFrames = 0;
+        staleResults = 0;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized float getAverageProcessingMs() {
+        return averageProcessingMs;
+    }
+
+    public synchronized long getSubmittedFrames() {
+        return submittedFrames;
+    }
+
+    public synchronized long getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    public synchronized long getStaleResults() {
+        return staleResults;
+    }
+
+    private void release() {
+        if (inFlight > 0) {
+            inFlight--;
+        }
+    }
+
+    private boolean markDelivered(long frameTimestamp) {
+        if (frameTimestamp < latestDeliveredTimestamp) {
+            staleResults++;
+            return false;
+        }
+        latestDeliveredTimestamp = frameTimestamp;
+        return true;
+    }
+}
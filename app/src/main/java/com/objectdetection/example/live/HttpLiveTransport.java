@@ -0,0 +1,37 @@
+package com.objectdetection.example.live;
+
+import com.objectdetection.example.net.DetectionApiClient;
+import com.objectdetection.example.trace.DetectionTrace;
+import com.objectdetection.sdk.listener.ImageDetectionListener;
+
+/**
+ * Sends every live frame as its own multipart request to {@code /api/detect}.
+ */
+public class HttpLiveTransport implements LiveTransport {
+
+    private final DetectionApiClient apiClient;
+
+    public HttpLiveTransport(DetectionApiClient apiClient) {
+        this.apiClient = apiClient;
+    }
+
+    @Override
+    public void open() {
+        // Connections are pooled by the HTTP client
+    }
+
+    @Override
+    public void send(long frameTimestamp, byte[] jpeg, ImageDetectionListener listener) {
+        apiClient.detectJpeg(jpeg, listener);
+    }
+
+    @Override
+    public void send(long frameTimestamp, byte[] jpeg, DetectionTrace trace, ImageDetectionListener listener) {
+        apiClient.detectJpeg(jpeg, 0, jpeg.length, trace, listener);
+    }
+
+    @Override
+    public void close() {
+        // Results of frames in flight are dropped by the pipeline
+    }
+}
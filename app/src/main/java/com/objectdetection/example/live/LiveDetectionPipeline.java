@@ -0,0 +1,320 @@
+package com.objectdetection.example.live;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+import android.util.Size;
+
+import androidx.camera.core.CameraSelector;
+import androidx.camera.core.ImageAnalysis;
+import androidx.camera.core.ImageProxy;
+import androidx.camera.core.Preview;
+import androidx.camera.core.resolutionselector.AspectRatioStrategy;
+import androidx.camera.core.resolutionselector.ResolutionSelector;
+import androidx.camera.core.resolutionselector.ResolutionStrategy;
+import androidx.camera.lifecycle.ProcessCameraProvider;
+import androidx.camera.view.PreviewView;
+import androidx.core.content.ContextCompat;
+import androidx.lifecycle.LifecycleOwner;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.objectdetection.example.trace.DetectionTrace;
+import com.objectdetection.example.trace.LatencyTracer;
+import com.objectdetection.example.trace.TraceStage;
+import com.objectdetection.example.util.DetectionBuffer;
+import com.objectdetection.example.util.DetectionBufferListener;
+import com.objectdetection.example.util.DetectionJsonParser;
+import com.objectdetection.example.util.DetectionResults;
+import com.objectdetection.sdk.model.DetectionResult;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Camera-to-server pipeline for live detection.
+ * <p>
+ * Binds a preview and a keep-only-latest image analysis use case, asks the
+ * {@link FrameScheduler} whether each analysis frame may be submitted, and only encodes
+ * and sends the admitted ones through the {@link LiveTransport}. Results are handed to
+ * the listener on a background thread, with stale results already filtered out, together
+ * with the {@link FrameInfo} of the frame they were computed from. Transports that parse
+ * responses themselves stream them into a {@link DetectionBuffer}; results of other
+ * transports and backends are copied into one.
+ * <p>
+ * With a {@link SceneChangeDetector}, frames that look like the last one sent are not
+ * uploaded; the last result is delivered again instead, at most for
+ * {@link #MAX_RESULT_REUSE_MS} after the last upload.
+ * <p>
+ * Analysis frames are requested close to a target resolution (640x480 by default), which
+ * keeps capture, conversion and upload cost low. Preview and analysis share the same 4:3
+ * aspect ratio so that both show the same field of view.
+ */
+public class LiveDetectionPipeline {
+    private static final String TAG = "LiveDetectionPipeline";
+
+    public static final Size DEFAULT_TARGET_RESOLUTION = new Size(640, 480);
+    // Slow changes can stay below the scene change threshold, so results are not reused forever
+    public static final long MAX_RESULT_REUSE_MS = 2000;
+
+    private final LiveTransport transport;
+    private final FrameScheduler scheduler;
+    private final Size targetResolution;
+    private final FrameEncoder encoder = new FrameEncoder();
+    private volatile DetectionGate detectionGate;
+    private volatile SceneChangeDetector sceneChangeDetector;
+    private final ExecutorService analysisExecutor = Executors.newSingleThreadExecutor();
+
+    private ProcessCameraProvider cameraProvider;
+    private volatile LiveFrameListener listener;
+    private volatile boolean running;
+    private volatile boolean mirrorFrames;
+    // Incremented on every start so callbacks from a previous session are ignored
+    private volatile int generation;
+    // Newest delivered successful result and its frame, reused for unchanged frames.
+    // The result is guarded by itself and only valid while the frame is set
+    private final DetectionBuffer lastResult = new DetectionBuffer();
+    private volatile FrameInfo lastResultFrame;
+    // Only used on the analysis thread
+    private long lastSubmitMs;
+    // The last result as delivered again; only used on the analysis thread, so the
+    // listener runs without holding the lock of the last result
+    private final DetectionBuffer reusedResult = new DetectionBuffer();
+
+    public LiveDetectionPipeline(LiveTransport transport, FrameScheduler scheduler) {
+        this(transport, scheduler, DEFAULT_TARGET_RESOLUTION);
+    }
+
+    /**
+     * @param targetResolution Preferred analysis resolution in sensor orientation (landscape);
+     *                         the closest supported size is used
+     */
+    public LiveDetectionPipeline(LiveTransport transport, FrameScheduler scheduler, Size targetResolution) {
+        this.transport = transport;
+        this.scheduler = scheduler;
+        this.targetResolution = targetResolution;
+    }
+
+    /**
+     * Starts the camera and live detection.
+     *
+     * @param lifecycleOwner Owner the camera use cases are bound to
+     * @param previewView    View showing the camera preview
+     * @param frontCamera    Whether to use the front camera
+     * @param listener       Receives detection results and errors
+     */
+    public void start(LifecycleOwner lifecycleOwner, PreviewView previewView, boolean frontCamera,
+                      LiveFrameListener listener) {
+        this.listener = listener;
+        // The front camera preview is mirrored, so mirror uploads too and boxes line up
+        this.mirrorFrames = frontCamera;
+        scheduler.reset();
+        lastResultFrame = null;
+        SceneChangeDetector scene = sceneChangeDetector;
+        if (scene != null) {
+            scene.reset();
+        }
+        generation++;
+        running = true;
+        transport.open();
+
+        Context context = previewView.getContext();
+        ListenableFuture<ProcessCameraProvider> providerFuture = ProcessCameraProvider.getInstance(context);
+        providerFuture.addListener(() -> {
+            if (!running) return;
+            try {
+                cameraProvider = providerFuture.get();
+                bindUseCases(lifecycleOwner, previewView, frontCamera);
+            } catch (ExecutionException | InterruptedException e) {
+                Log.e(TAG, "Failed to get camera provider", e);
+                listener.onError(e, 0);
+            }
+        }, ContextCompat.getMainExecutor(context));
+    }
+
+    private void bindUseCases(LifecycleOwner lifecycleOwner, PreviewView previewView, boolean frontCamera) {
+        Preview preview = new Preview.Builder()
+                .setResolutionSelector(new ResolutionSelector.Builder()
+                        .setAspectRatioStrategy(AspectRatioStrategy.RATIO_4_3_FALLBACK_AUTO_STRATEGY)
+                        .build())
+                .build();
+        preview.setSurfaceProvider(previewView.getSurfaceProvider());
+
+        ImageAnalysis imageAnalysis = new ImageAnalysis.Builder()
+                .setResolutionSelector(new ResolutionSelector.Builder()
+                        .setAspectRatioStrategy(AspectRatioStrategy.RATIO_4_3_FALLBACK_AUTO_STRATEGY)
+                        .setResolutionStrategy(new ResolutionStrategy(targetResolution,
+                                ResolutionStrategy.FALLBACK_RULE_CLOSEST_HIGHER_THEN_LOWER))
+                        .build())
+                .setBackpressureStrategy(ImageAnalysis.STRATEGY_KEEP_ONLY_LATEST)
+                .build();
+        imageAnalysis.setAnalyzer(analysisExecutor, this::analyze);
+
+        CameraSelector cameraSelector = frontCamera
+                ? CameraSelector.DEFAULT_FRONT_CAMERA
+                : CameraSelector.DEFAULT_BACK_CAMERA;
+
+        cameraProvider.unbindAll();
+        cameraProvider.bindToLifecycle(lifecycleOwner, cameraSelector, preview, imageAnalysis);
+    }
+
+    private void analyze(ImageProxy image) {
+        long analyzedAtNanos = System.nanoTime();
+        long frameTimestamp = image.getImageInfo().getTimestamp();
+        long nowMs = SystemClock.elapsedRealtime();
+        if (!running) {
+            image.close();
+            return;
+        }
+        DetectionGate gate = detectionGate;
+        SceneChangeDetector scene = sceneChangeDetector;
+        // Without a scene check every frame may have changed, and the gate decides alone
+        boolean changed = scene == null || hasSceneChanged(scene, image);
+        if (!changed) {
+            if (reuseLastResult(scene, gate, image, frameTimestamp, nowMs)) {
+                return;
+            }
+        } else if (scene == null && gate != null && !gate.shouldDetect(nowMs)) {
+            image.close();
+            return;
+        }
+        if (!scheduler.tryAcquire(nowMs)) {
+            image.close();
+            return;
+        }
+        lastSubmitMs = nowMs;
+        if (scene != null) {
+            scene.markSubmitted();
+        }
+
+        byte[] jpeg;
+        FrameInfo frame;
+        try {
+            boolean mirror = mirrorFrames;
+            jpeg = encoder.encode(image, mirror);
+            // The sensor timestamp is on another clock, so the trace starts when analysis does
+            DetectionTrace trace = new DetectionTrace(LatencyTracer.PIPELINE_LIVE, analyzedAtNanos);
+            trace.mark(TraceStage.PREPROCESSED);
+            frame = new FrameInfo(frameTimestamp, nowMs, encoder.getEncodedWidth(), encoder.getEncodedHeight(),
+                    image.getImageInfo().getRotationDegrees(), mirror, trace);
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Failed to encode frame", e);
+            scheduler.onError(frameTimestamp);
+            return;
+        } finally {
+            image.close();
+        }
+
+        final int frameGeneration = generation;
+        transport.send(frameTimestamp, jpeg, frame.getTrace(), new DetectionBufferListener() {
+            @Override
+            public void onDetections(DetectionBuffer detections) {
+                if (frameGeneration != generation) return;
+                if (scheduler.onResult(frameTimestamp, detections.getProcessingTimeMs()) && running) {
+                    if (detections.getError() == null) {
+                        synchronized (lastResult) {
+                            lastResult.copyFrom(detections);
+                            lastResultFrame = frame;
+                        }
+                    }
+                    listener.onDetectionResult(detections, frame);
+                }
+            }
+
+            @Override
+            public void onResult(DetectionResult result) {
+                // Only for transports and backends that don't deliver buffers; the app's
+                // transports and backends all call onDetections, so live frames skip this
+                DetectionBuffer detections = DetectionJsonParser.getThreadBuffer();
+                DetectionResults.toBuffer(result, detections);
+                onDetections(detections);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                if (frameGeneration != generation) return;
+                if (scheduler.onError(frameTimestamp) && running) {
+                    listener.onError(e, frameTimestamp);
+                }
+            }
+        });
+    }
+
+    private static boolean hasSceneChanged(SceneChangeDetector scene, ImageProxy image) {
+        ImageProxy.PlaneProxy luma = image.getPlanes()[0];
+        return scene.hasChanged(luma.getBuffer(), image.getWidth(), image.getHeight(),
+                luma.getRowStride(), luma.getPixelStride());
+    }
+
+    /**
+     * Handles a frame that looks like the last one sent. Closes the image unless it
+     * should be sent anyway.
+     *
+     * @return true if the frame was handled, false if it should be sent
+     */
+    private boolean reuseLastResult(SceneChangeDetector scene, DetectionGate gate, ImageProxy image,
+                                    long frameTimestamp, long nowMs) {
+        if (lastResultFrame == null || nowMs - lastSubmitMs >= MAX_RESULT_REUSE_MS) {
+            return false;
+        }
+        image.close();
+        // A result still in flight is newer than the one at hand, and would be dropped as stale after it
+        if ((gate != null && !gate.shouldDetect(nowMs)) || scheduler.getInFlight() > 0) {
+            return true;
+        }
+        FrameInfo resultFrame;
+        synchronized (lastResult) {
+            resultFrame = lastResultFrame;
+            if (resultFrame == null) {
+                // Cleared by a restart since it was checked
+                return true;
+            }
+            reusedResult.copyFrom(lastResult);
+        }
+        scene.countSavedFrame();
+        listener.onDetectionResult(reusedResult, new FrameInfo(frameTimestamp, nowMs,
+                resultFrame.getWidth(), resultFrame.getHeight(),
+                resultFrame.getRotationDegrees(), resultFrame.isMirrored(), null));
+        return true;
+    }
+
+    /**
+     * Stops the camera. Results of frames still in flight are discarded.
+     */
+    public void stop() {
+        running = false;
+        generation++;
+        if (cameraProvider != null) {
+            cameraProvider.unbindAll();
+        }
+        transport.close();
+    }
+
+    /**
+     * Stops the pipeline and releases its analysis thread. The pipeline cannot be restarted.
+     */
+    public void shutdown() {
+        stop();
+        analysisExecutor.shutdown();
+    }
+
+    /**
+     * Sets the gate that decides whether a frame needs a detection, e.g. an
+     * {@link ObjectTracker}. Without a gate every frame the scheduler admits is sent.
+     */
+    public void setDetectionGate(DetectionGate detectionGate) {
+        this.detectionGate = detectionGate;
+    }
+
+    /**
+     * Sets the detector used to skip frames that look like the last one sent, or null to
+     * send every frame the gate and scheduler admit.
+     */
+    public void setSceneChangeDetector(SceneChangeDetector sceneChangeDetector) {
+        this.sceneChangeDetector = sceneChangeDetector;
+    }
+
+    public FrameScheduler getScheduler() {
+        return scheduler;
+    }
+}
@@ -0,0 +1,96 @@
+package com.objectdetection.example.live;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Binary message format of the live detection stream.
+ * <p>
+ * Every message is a 16 byte header followed by the payload:
+ * <pre>
+ *   int32 magic       "LFR1" for frames (JPEG payload), "LRS1" for results (UTF-8 JSON payload)
+ *   int64 timestamp   capture timestamp of the frame, echoed back with its result
+ *   int32 length      payload length in bytes
+ * </pre>
+ * All values are big-endian. The explicit length lets the receiver validate a message
+ * before touching the payload, independently of how the stream frames messages.
+ */
+public final class LiveFrameCodec {
+
+    public static final int FRAME_MAGIC = 0x4C465231;  // "LFR1"
+    public static final int RESULT_MAGIC = 0x4C525331; // "LRS1"
+    public static final int HEADER_SIZE = 16;
+
+    private LiveFrameCodec() {
+    }
+
+    /**
+     * Encodes a message.
+     *
+     * @param magic     {@link #FRAME_MAGIC} or {@link #RESULT_MAGIC}
+     * @param timestamp Frame timestamp
+     * @param payload   Array holding the payload
+     * @param offset    Start of the payload in the array
+     * @param length    Payload length
+     * @return The encoded message
+     */
+    public static byte[] encode(int magic, long timestamp, byte[] payload, int offset, int length) {
+        byte[] message = new byte[HEADER_SIZE + length];
+        ByteBuffer.wrap(message)
+                .putInt(magic)
+                .putLong(timestamp)
+                .putInt(length)
+                .put(payload, offset, length);
+        return message;
+    }
+
+    /**
+     * Decodes a message. The returned payload is a view of the message, not a copy.
+     *
+     * @param message       The received message
+     * @param expectedMagic {@link #FRAME_MAGIC} or {@link #RESULT_MAGIC}
+     * @throws IOException If the message is malformed or of the wrong kind
+     */
+    public static Message decode(ByteBuffer message, int expectedMagic) throws IOException {
+        ByteBuffer buffer = message.duplicate();
+        if (buffer.remaining() < HEADER_SIZE) {
+            throw new IOException("Truncated live message header");
+        }
+        int magic = buffer.getInt();
+        if (magic != expectedMagic) {
+            throw new IOException("Unexpected live message type 0x" + Integer.toHexString(magic));
+        }
+        long timestamp = buffer.getLong();
+        int length = buffer.getInt();
+        if (length < 0 || length != buffer.remaining()) {
+            throw new IOException("Live message length " + length + " does not match "
+                    + buffer.remaining() + " payload bytes");
+        }
+        return new Message(timestamp, buffer.slice());
+    }
+
+    /**
+     * A decoded message.
+     */
+    public static final class Message {
+
+        private final long timestamp;
+        private final ByteBuffer payload;
+
+        Message(long timestamp, ByteBuffer payload) {
+            this.timestamp = timestamp;
+            this.payload = payload;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * The payload, positioned at its first byte.
+         */
+        public ByteBuffer getPayload() {
+            return payload;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.objectdetection.example.live;
+
+import com.objectdetection.example.util.DetectionBuffer;
+
+/**
+ * Listener for live detection results that also receives the frame each result belongs to.
+ */
+public interface LiveFrameListener {
+
+    /**
+     * Called with the result of a frame. Called on a background thread.
+     *
+     * @param result The detection result; only valid during the call, copy what must be kept
+     * @param frame  The frame the result's boxes refer to
+     */
+    void onDetectionResult(DetectionBuffer result, FrameInfo frame);
+
+    /**
+     * Called when a frame could not be processed. Called on a background thread.
+     *
+     * @param e              The error
+     * @param frameTimestamp Capture timestamp of the frame, or 0 if not tied to a frame
+     */
+    void onError(Exception e, long frameTimestamp);
+}
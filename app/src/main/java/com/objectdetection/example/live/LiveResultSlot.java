@@ -0,0 +1,104 @@
+package com.objectdetection.example.live;
+
+import com.objectdetection.example.util.DetectionBuffer;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Allocation-free, latest-wins handoff of live results from the network thread to
+ * the UI thread.
+ * <p>
+ * Three preallocated {@link Frame} holders rotate between the producer, a shared
+ * middle slot and the consumer (triple buffering). Publishing overwrites any frame
+ * the UI has not picked up yet, and only the first publish after a take asks the
+ * caller to schedule a UI update, so bursts of results cost one UI hop. Frames keep the
+ * status of a result, not its detections, which reach the UI through the tracker.
+ */
+public class LiveResultSlot {
+
+    private final AtomicReference<Frame> middle = new AtomicReference<>(new Frame());
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private Frame back = new Frame();
+    private Frame front = new Frame();
+
+    /**
+     * Publishes the status of a result. Safe to call from several producer threads.
+     *
+     * @return true if the caller must schedule a UI update that calls {@link #take()}
+     */
+    public synchronized boolean publish(DetectionBuffer result, long frameTimestamp, int frameWidth, int frameHeight) {
+        Frame frame = back;
+        frame.objectCount = result.size();
+        frame.processingTimeMs = result.getProcessingTimeMs();
+        frame.error = result.getError();
+        frame.timestamp = frameTimestamp;
+        frame.width = frameWidth;
+        frame.height = frameHeight;
+        frame.ready = true;
+        back = middle.getAndSet(frame);
+        return drainScheduled.compareAndSet(false, true);
+    }
+
+    /**
+     * Takes the newest published frame. Must only be called from the consumer thread.
+     * The returned frame stays valid until the next call.
+     *
+     * @return The newest frame, or null if nothing new was published
+     */
+    public Frame take() {
+        // Clear first so a publish racing with this take schedules another update
+        drainScheduled.set(false);
+        if (!middle.get().ready) {
+            return null;
+        }
+        front.ready = false;
+        front.error = null;
+        front = middle.getAndSet(front);
+        return front;
+    }
+
+    /**
+     * The status of a live result and the frame it belongs to.
+     */
+    public static class Frame {
+        private volatile boolean ready;
+        private int objectCount;
+        private long processingTimeMs;
+        private String error;
+        private long timestamp;
+        private int width;
+        private int height;
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+
+        /**
+         * Error of a failed result, or null.
+         */
+        public String getError() {
+            return error;
+        }
+
+        public int getObjectCount() {
+            return objectCount;
+        }
+
+        public long getProcessingTimeMs() {
+            return processingTimeMs;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.objectdetection.example.live;
+
+import com.objectdetection.example.trace.DetectionTrace;
+import com.objectdetection.sdk.listener.ImageDetectionListener;
+
+/**
+ * Carries encoded live frames to the detection server and their results back.
+ */
+public interface LiveTransport {
+
+    /**
+     * Prepares the transport for a live session, e.g. by connecting.
+     */
+    void open();
+
+    /**
+     * Sends a frame. The listener is called exactly once, on a background thread, with the
+     * frame's result or the failure.
+     *
+     * @param frameTimestamp Capture timestamp identifying the frame
+     * @param jpeg           Encoded upright frame; must not be modified afterwards
+     * @param listener       Receives the result of this frame
+     */
+    void send(long frameTimestamp, byte[] jpeg, ImageDetectionListener listener);
+
+    /**
+     * Like {@link #send(long, byte[], ImageDetectionListener)}, stamping the network
+     * stages and the parse of the result on the frame's trace. Transports that can't tell
+     * their stages apart leave them to the caller.
+     *
+     * @param trace Trace of the frame, or null
+     */
+    default void send(long frameTimestamp, byte[] jpeg, DetectionTrace trace, ImageDetectionListener listener) {
+        send(frameTimestamp, jpeg, listener);
+    }
+
+    /**
+     * Ends the session. Frames still in flight are failed.
+     */
+    void close();
+}
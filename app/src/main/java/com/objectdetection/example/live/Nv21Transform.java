@@ -0,0 +1,86 @@
+package com.objectdetection.example.live;
+
+/**
+ * Rotates and mirrors NV21 frames so uploaded frames match what the preview shows.
+ */
+public final class Nv21Transform {
+
+    private Nv21Transform() {
+    }
+
+    /**
+     * Rotates a frame clockwise by 0, 90, 180 or 270 degrees and then optionally mirrors
+     * it horizontally (as the preview does for the front camera).
+     *
+     * @param src     Source frame, {@code width * height * 3 / 2} bytes
+     * @param dst     Destination, same size as the source and not the same array
+     * @param width   Source width, must be even
+     * @param height  Source height, must be even
+     * @param degrees Clockwise rotation
+     * @param mirror  Whether to mirror the rotated frame horizontally
+     */
+    public static void transform(byte[] src, byte[] dst, int width, int height, int degrees, boolean mirror) {
+        int dstWidth = outputWidth(width, height, degrees);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                dst[targetIndex(x, y, width, height, dstWidth, degrees, mirror)] = src[y * width + x];
+            }
+        }
+
+        // Chroma is subsampled 2x2 and stored as interleaved V,U pairs
+        int chromaWidth = width / 2;
+        int chromaHeight = height / 2;
+        int dstChromaWidth = dstWidth / 2;
+        int offset = width * height;
+        for (int y = 0; y < chromaHeight; y++) {
+            for (int x = 0; x < chromaWidth; x++) {
+                int from = offset + (y * chromaWidth + x) * 2;
+                int to = offset + targetIndex(x, y, chromaWidth, chromaHeight, dstChromaWidth, degrees, mirror) * 2;
+                dst[to] = src[from];
+                dst[to + 1] = src[from + 1];
+            }
+        }
+    }
+
+    /**
+     * Returns the width of the frame after rotation.
+     */
+    public static int outputWidth(int width, int height, int degrees) {
+        return (degrees == 90 || degrees == 270) ? height : width;
+    }
+
+    /**
+     * Returns the height of the frame after rotation.
+     */
+    public static int outputHeight(int width, int height, int degrees) {
+        return (degrees == 90 || degrees == 270) ? width : height;
+    }
+
+    private static int targetIndex(int x, int y, int width, int height, int dstWidth,
+                                   int degrees, boolean mirror) {
+        int targetX;
+        int targetY;
+        switch (degrees) {
+            case 90:
+                targetX = height - 1 - y;
+                targetY = x;
+                break;
+            case 180:
+                targetX = width - 1 - x;
+                targetY = height - 1 - y;
+                break;
+            case 270:
+                targetX = y;
+                targetY = width - 1 - x;
+                break;
+            default:
+                targetX = x;
+                targetY = y;
+                break;
+        }
+        if (mirror) {
+            targetX = dstWidth - 1 - targetX;
+        }
+        return targetY * dstWidth + targetX;
+    }
+}
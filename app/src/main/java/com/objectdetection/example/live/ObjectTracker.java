@@ -0,0 +1,310 @@
+package com.objectdetection.example.live;
+
+import com.objectdetection.example.util.DetectionBuffer;
+
+import java.util.Arrays;
+
+/**
+ * Follows live detections across frames, so boxes keep their identity and move smoothly
+ * between server results.
+ * <p>
+ * Each server result is associated with the current tracks greedily, best match first:
+ * a detection matches a track with the same label if their boxes overlap by at least
+ * {@link #MIN_MATCH_IOU}, or failing that, if its center is close to the track's. Matched
+ * tracks take the new box and update a per-edge velocity (a constant-velocity model with
+ * exponential smoothing), unmatched detections start new tracks, and tracks missing from
+ * {@link #MAX_MISSES} results in a row are dropped. Between results {@link #predict}
+ * extrapolates every track to the display time.
+ * <p>
+ * As a {@link DetectionGate} the tracker only asks for a new detection when a track is
+ * older than {@link #REFRESH_INTERVAL_MS}, when there is nothing to track, or when the
+ * last result changed the set of tracks. Box coordinates are in frame pixels and times
+ * are in milliseconds of one monotonic clock. All methods are thread-safe, and updating
+ * and predicting don't allocate once the arrays have grown to the largest scene.
+ */
+public class ObjectTracker implements DetectionGate {
+
+    public static final float MIN_MATCH_IOU = 0.3f;
+    // Largest center distance for a match without overlap, relative to the track's box size
+    public static final float MAX_CENTER_DISTANCE = 0.5f;
+    public static final int MAX_MISSES = 2;
+    public static final long REFRESH_INTERVAL_MS = 500;
+    // Boxes stop moving this long after their last result, so a stalled stream doesn't fling them away
+    public static final long MAX_EXTRAPOLATION_MS = 300;
+    // Weight of the newest measurement in the velocity estimate
+    private static final float VELOCITY_SMOOTHING = 0.5f;
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private long nextTrackId;
+    private boolean refreshNeeded = true;
+
+    // Tracks, in creation order
+    private int trackCount;
+    private long[] ids = new long[DEFAULT_CAPACITY];
+    private String[] labels = new String[DEFAULT_CAPACITY];
+    private float[] confidences = new float[DEFAULT_CAPACITY];
+    private float[] boxes = new float[DEFAULT_CAPACITY * 4];
+    // Edge velocities in pixels per millisecond
+    private float[] velocities = new float[DEFAULT_CAPACITY * 4];
+    private long[] updatedAtMs = new long[DEFAULT_CAPACITY];
+    private int[] misses = new int[DEFAULT_CAPACITY];
+
+    // Association scratch space
+    private int[] trackMatch = new int[DEFAULT_CAPACITY];
+    private int[] detectionMatch = new int[DEFAULT_CAPACITY];
+    private float[] predicted = new float[DEFAULT_CAPACITY * 4];
+    private final float[] measured = new float[4];
+
+    /**
+     * Feeds the detections of one server result.
+     *
+     * @param detections  The detected objects, in frame pixels
+     * @param timestampMs When the frame they were detected in was captured
+     */
+    public synchronized void update(DetectionBuffer detections, long timestampMs) {
+        int detectionCount = detections.size();
+        ensureScratchCapacity(detectionCount);
+        Arrays.fill(trackMatch, 0, trackCount, -1);
+        Arrays.fill(detectionMatch, 0, detectionCount, -1);
+
+        for (int t = 0; t < trackCount; t++) {
+            predictBox(t, timestampMs, predicted, t * 4);
+        }
+        associate(detections, detectionCount);
+
+        boolean changed = false;
+        for (int t = 0; t < trackCount; t++) {
+            int d = trackMatch[t];
+            if (d >= 0) {
+                correct(t, detections, d, timestampMs);
+            } else {
+                misses[t]++;
+            }
+        }
+        // Drop lost tracks, keeping the others in order
+        int kept = 0;
+        for (int t = 0; t < trackCount; t++) {
+            if (misses[t] > MAX_MISSES) {
+                changed = true;
+                continue;
+            }
+            if (kept != t) {
+                moveTrack(t, kept);
+            }
+            kept++;
+        }
+        for (int t = kept; t < trackCount; t++) {
+            labels[t] = null;
+        }
+        trackCount = kept;
+
+        for (int d = 0; d < detectionCount; d++) {
+            if (detectionMatch[d] < 0) {
+                startTrack(detections, d, timestampMs);
+                changed = true;
+            }
+        }
+        // A new or lost object may be the start of a scene change, check again right away
+        refreshNeeded = changed;
+    }
+
+    /**
+     * Writes every track's box extrapolated to the given time, with its track id.
+     *
+     * @param nowMs Display time
+     * @param out   Receives the tracked objects; cleared first
+     */
+    public synchronized void predict(long nowMs, DetectionBuffer out) {
+        out.clear();
+        out.ensureCapacity(trackCount);
+        for (int t = 0; t < trackCount; t++) {
+            predictBox(t, nowMs, predicted, 0);
+            int index = out.add(labels[t], confidences[t],
+                    predicted[0], predicted[1], predicted[2], predicted[3]);
+            out.setTrackId(index, ids[t]);
+        }
+    }
+
+    @Override
+    public synchronized boolean shouldDetect(long nowMs) {
+        if (refreshNeeded || trackCount == 0) {
+            return true;
+        }
+        for (int t = 0; t < trackCount; t++) {
+            if (nowMs - updatedAtMs[t] >= REFRESH_INTERVAL_MS) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Forces a detection for the next frame, e.g. when the scene is known to have changed.
+     */
+    public synchronized void invalidate() {
+        refreshNeeded = true;
+    }
+
+    /**
+     * Drops all tracks, e.g. when the camera is switched.
+     */
+    public synchronized void reset() {
+        Arrays.fill(labels, 0, trackCount, null);
+        trackCount = 0;
+        refreshNeeded = true;
+    }
+
+    public synchronized int getTrackCount() {
+        return trackCount;
+    }
+
+    /**
+     * Greedy association: repeatedly takes the best remaining track-detection pair.
+     * Scenes hold tens of objects, so the quadratic scan is cheaper than sorting pairs.
+     */
+    private void associate(DetectionBuffer detections, int detectionCount) {
+        while (true) {
+            float bestScore = 0f;
+            int bestTrack = -1;
+            int bestDetection = -1;
+            for (int t = 0; t < trackCount; t++) {
+                if (trackMatch[t] >= 0) continue;
+                for (int d = 0; d < detectionCount; d++) {
+                    if (detectionMatch[d] >= 0) continue;
+                    float score = matchScore(t, detections, d);
+                    if (score > bestScore) {
+                        bestScore = score;
+                        bestTrack = t;
+                        bestDetection = d;
+                    }
+                }
+            }
+            if (bestTrack < 0) {
+                return;
+            }
+            trackMatch[bestTrack] = bestDetection;
+            detectionMatch[bestDetection] = bestTrack;
+        }
+    }
+
+    /**
+     * Score of matching a detection to a track's predicted box; 0 means no match. IoU
+     * matches score at least {@link #MIN_MATCH_IOU}, center matches below it.
+     */
+    private float matchScore(int t, DetectionBuffer detections, int d) {
+        String label = detections.getLabel(d);
+        if (label == null ? labels[t] != null : !label.equals(labels[t])) {
+            return 0f;
+        }
+        int p = t * 4;
+        float iou = iou(predicted[p], predicted[p + 1], predicted[p + 2], predicted[p + 3],
+                detections.getXMin(d), detections.getYMin(d), detections.getXMax(d), detections.getYMax(d));
+        if (iou >= MIN_MATCH_IOU) {
+            return iou;
+        }
+        float size = Math.max(predicted[p + 2] - predicted[p], predicted[p + 3] - predicted[p + 1]);
+        float limit = MAX_CENTER_DISTANCE * size;
+        if (limit <= 0f) {
+            return 0f;
+        }
+        float dx = (detections.getXMin(d) + detections.getXMax(d) - predicted[p] - predicted[p + 2]) * 0.5f;
+        float dy = (detections.getYMin(d) + detections.getYMax(d) - predicted[p + 1] - predicted[p + 3]) * 0.5f;
+        float distance = (float) Math.sqrt(dx * dx + dy * dy);
+        if (distance >= limit) {
+            return 0f;
+        }
+        // Below any IoU match, closer is better
+        return MIN_MATCH_IOU * 0.99f * (1f - distance / limit) + Float.MIN_VALUE;
+    }
+
+    static float iou(float aXMin, float aYMin, float aXMax, float aYMax,
+                     float bXMin, float bYMin, float bXMax, float bYMax) {
+        float width = Math.min(aXMax, bXMax) - Math.max(aXMin, bXMin);
+        float height = Math.min(aYMax, bYMax) - Math.max(aYMin, bYMin);
+        if (width <= 0f || height <= 0f) {
+            return 0f;
+        }
+        float intersection = width * height;
+        float union = (aXMax - aXMin) * (aYMax - aYMin) + (bXMax - bXMin) * (bYMax - bYMin) - intersection;
+        return union > 0f ? intersection / union : 0f;
+    }
+
+    private void correct(int t, DetectionBuffer detections, int d, long timestampMs) {
+        long elapsedMs = timestampMs - updatedAtMs[t];
+        int offset = t * 4;
+        measured[0] = detections.getXMin(d);
+        measured[1] = detections.getYMin(d);
+        measured[2] = detections.getXMax(d);
+        measured[3] = detections.getYMax(d);
+        for (int i = 0; i < 4; i++) {
+            if (elapsedMs > 0) {
+                float velocity = (measured[i] - boxes[offset + i]) / elapsedMs;
+                velocities[offset + i] += VELOCITY_SMOOTHING * (velocity - velocities[offset + i]);
+            }
+            boxes[offset + i] = measured[i];
+        }
+        confidences[t] = detections.getConfidence(d);
+        if (timestampMs > updatedAtMs[t]) {
+            updatedAtMs[t] = timestampMs;
+        }
+        misses[t] = 0;
+    }
+
+    private void startTrack(DetectionBuffer detections, int d, long timestampMs) {
+        ensureTrackCapacity(trackCount + 1);
+        int t = trackCount++;
+        int offset = t * 4;
+        ids[t] = nextTrackId++;
+        labels[t] = detections.getLabel(d);
+        confidences[t] = detections.getConfidence(d);
+        boxes[offset] = detections.getXMin(d);
+        boxes[offset + 1] = detections.getYMin(d);
+        boxes[offset + 2] = detections.getXMax(d);
+        boxes[offset + 3] = detections.getYMax(d);
+        Arrays.fill(velocities, offset, offset + 4, 0f);
+        updatedAtMs[t] = timestampMs;
+        misses[t] = 0;
+    }
+
+    private void predictBox(int t, long nowMs, float[] out, int outOffset) {
+        long elapsedMs = Math.max(0, Math.min(MAX_EXTRAPOLATION_MS, nowMs - updatedAtMs[t]));
+        int offset = t * 4;
+        for (int i = 0; i < 4; i++) {
+            out[outOffset + i] = boxes[offset + i] + velocities[offset + i] * elapsedMs;
+        }
+    }
+
+    private void moveTrack(int from, int to) {
+        ids[to] = ids[from];
+        labels[to] = labels[from];
+        confidences[to] = confidences[from];
+        System.arraycopy(boxes, from * 4, boxes, to * 4, 4);
+        System.arraycopy(velocities, from * 4, velocities, to * 4, 4);
+        updatedAtMs[to] = updatedAtMs[from];
+        misses[to] = misses[from];
+    }
+
+    private void ensureTrackCapacity(int capacity) {
+        if (capacity <= ids.length) return;
+        int newCapacity = Math.max(capacity, ids.length * 2);
+        ids = Arrays.copyOf(ids, newCapacity);
+        labels = Arrays.copyOf(labels, newCapacity);
+        confidences = Arrays.copyOf(confidences, newCapacity);
+        boxes = Arrays.copyOf(boxes, newCapacity * 4);
+        velocities = Arrays.copyOf(velocities, newCapacity * 4);
+        updatedAtMs = Arrays.copyOf(updatedAtMs, newCapacity);
+        misses = Arrays.copyOf(misses, newCapacity);
+    }
+
+    private void ensureScratchCapacity(int detectionCount) {
+        if (trackMatch.length < trackCount) {
+            trackMatch = new int[Math.max(trackCount, trackMatch.length * 2)];
+        }
+        if (predicted.length < Math.max(trackCount, 1) * 4) {
+            predicted = new float[Math.max(trackCount, predicted.length / 2) * 4];
+        }
+        if (detectionMatch.length < detectionCount) {
+            detectionMatch = new int[Math.max(detectionCount, detectionMatch.length * 2)];
+        }
+    }
+}
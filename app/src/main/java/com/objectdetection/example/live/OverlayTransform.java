@@ -0,0 +1,126 @@
+package com.objectdetection.example.live;
+
+/**
+ * Fit-center or fill-center mapping from camera frame coordinates to overlay view
+ * coordinates, matching how the preview or image view scales its content.
+ * <p>
+ * The displayed frame size and offsets only change when the view or frame size
+ * changes, so they are computed once in {@link #update} and then reused for every
+ * result without any per-frame math or allocation.
+ */
+public class OverlayTransform {
+
+    /**
+     * How the frame is scaled into the view.
+     */
+    public enum ScaleMode {
+        /** The whole frame is visible, letterboxed if needed. */
+        FIT_CENTER,
+        /** The frame covers the view and is cropped if needed (the PreviewView default). */
+        FILL_CENTER
+    }
+
+    private final ScaleMode scaleMode;
+
+    private int viewWidth = -1;
+    private int viewHeight = -1;
+    private int frameWidth = -1;
+    private int frameHeight = -1;
+
+    private int displayedWidth;
+    private int displayedHeight;
+    private int offsetX;
+    private int offsetY;
+    private float scaleX;
+    private float scaleY;
+
+    public OverlayTransform() {
+        this(ScaleMode.FIT_CENTER);
+    }
+
+    public OverlayTransform(ScaleMode scaleMode) {
+        this.scaleMode = scaleMode;
+    }
+
+    /**
+     * Recomputes the transform if any dimension changed.
+     *
+     * @return true if the transform was recomputed
+     */
+    public boolean update(int viewWidth, int viewHeight, int frameWidth, int frameHeight) {
+        if (viewWidth == this.viewWidth && viewHeight == this.viewHeight
+                && frameWidth == this.frameWidth && frameHeight == this.frameHeight) {
+            return false;
+        }
+        this.viewWidth = viewWidth;
+        this.viewHeight = viewHeight;
+        this.frameWidth = frameWidth;
+        this.frameHeight = frameHeight;
+
+        offsetX = 0;
+        offsetY = 0;
+        if (viewWidth <= 0 || viewHeight <= 0 || frameWidth <= 0 || frameHeight <= 0) {
+            displayedWidth = 0;
+            displayedHeight = 0;
+            scaleX = 0f;
+            scaleY = 0f;
+            return true;
+        }
+
+        float viewAspectRatio = (float) viewWidth / viewHeight;
+        float frameAspectRatio = (float) frameWidth / frameHeight;
+        boolean wider = frameAspectRatio > viewAspectRatio;
+        if (wider == (scaleMode == ScaleMode.FIT_CENTER)) {
+            // Fit: frame is wider than the view. Fill: frame is taller. Match the widths
+            displayedWidth = viewWidth;
+            displayedHeight = (int) (viewWidth / frameAspectRatio);
+            offsetY = (viewHeight - displayedHeight) / 2;
+        } else {
+            // Match the heights
+            displayedHeight = viewHeight;
+            displayedWidth = (int) (viewHeight * frameAspectRatio);
+            offsetX = (viewWidth - displayedWidth) / 2;
+        }
+        scaleX = (float) displayedWidth / frameWidth;
+        scaleY = (float) displayedHeight / frameHeight;
+        return true;
+    }
+
+    public int getFrameWidth() {
+        return frameWidth;
+    }
+
+    public int getFrameHeight() {
+        return frameHeight;
+    }
+
+    public int getDisplayedWidth() {
+        return displayedWidth;
+    }
+
+    public int getDisplayedHeight() {
+        return displayedHeight;
+    }
+
+    public int getOffsetX() {
+        return offsetX;
+    }
+
+    public int getOffsetY() {
+        return offsetY;
+    }
+
+    /**
+     * Maps a frame x coordinate (in pixels) to a view x coordinate.
+     */
+    public float mapX(float frameX) {
+        return frameX * scaleX + offsetX;
+    }
+
+    /**
+     * Maps a frame y coordinate (in pixels) to a view y coordinate.
+     */
+    public float mapY(float frameY) {
+        return frameY * scaleY + offsetY;
+    }
+}
@@ -0,0 +1,154 @@
+package com.objectdetection.example.live;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Cheap check whether a live frame differs meaningfully from the last one that was sent.
+ * <p>
+ * Each frame is reduced to a {@link #GRID_WIDTH} x {@link #GRID_HEIGHT} luma thumbnail,
+ * averaging a sparse sample of every cell (one pixel in {@link #SAMPLE_STEP} in each
+ * direction), which reads about 20k bytes of a 640x480 Y plane. The difference to the
+ * reference thumbnail is the mean absolute difference of the cells after removing each
+ * thumbnail's mean brightness, so auto-exposure drift doesn't count as a change.
+ * <p>
+ * Used on the analysis thread only; the threshold and the saved frame counter may be
+ * accessed from any thread.
+ */
+public class SceneChangeDetector {
+
+    public static final int GRID_WIDTH = 32;
+    public static final int GRID_HEIGHT = 24;
+    public static final int SAMPLE_STEP = 4;
+    // Mean luma difference (0-255) above which a frame counts as changed
+    public static final float DEFAULT_THRESHOLD = 6f;
+
+    private static final int CELLS = GRID_WIDTH * GRID_HEIGHT;
+
+    private final int[] current = new int[CELLS];
+    private final int[] reference = new int[CELLS];
+    private int currentMean;
+    private int referenceMean;
+    private int currentWidth;
+    private int currentHeight;
+    private int referenceWidth;
+    private int referenceHeight;
+    private boolean hasReference;
+
+    private volatile float threshold;
+    private volatile long savedFrames;
+
+    public SceneChangeDetector() {
+        this(DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * @param threshold Mean luma difference (0-255) above which a frame counts as changed;
+     *                  lower is more sensitive
+     */
+    public SceneChangeDetector(float threshold) {
+        setThreshold(threshold);
+    }
+
+    /**
+     * Reduces a frame to its thumbnail and tells whether it differs from the reference.
+     *
+     * @param luma        Y plane of the frame
+     * @param width       Frame width in pixels
+     * @param height      Frame height in pixels
+     * @param rowStride   Bytes between the starts of two rows
+     * @param pixelStride Bytes between two pixels of a row
+     * @return true if the frame differs by more than the threshold or there is no reference
+     */
+    public boolean hasChanged(ByteBuffer luma, int width, int height, int rowStride, int pixelStride) {
+        return computeDifference(luma, width, height, rowStride, pixelStride) > threshold;
+    }
+
+    /**
+     * Reduces a frame to its thumbnail and returns its difference from the reference.
+     *
+     * @return Mean luma difference per cell, or {@link Float#MAX_VALUE} if there is no
+     * reference of the same size
+     */
+    public float computeDifference(ByteBuffer luma, int width, int height, int rowStride, int pixelStride) {
+        computeThumbnail(luma, width, height, rowStride, pixelStride);
+        if (!hasReference || width != referenceWidth || height != referenceHeight) {
+            return Float.MAX_VALUE;
+        }
+        long sum = 0;
+        for (int i = 0; i < CELLS; i++) {
+            sum += Math.abs((current[i] - currentMean) - (reference[i] - referenceMean));
+        }
+        return sum / (float) CELLS;
+    }
+
+    /**
+     * Makes the last checked frame the reference, e.g. because it was sent.
+     */
+    public void markSubmitted() {
+        System.arraycopy(current, 0, reference, 0, CELLS);
+        referenceMean = currentMean;
+        referenceWidth = currentWidth;
+        referenceHeight = currentHeight;
+        hasReference = true;
+    }
+
+    /**
+     * Counts a frame that was not sent because it was unchanged.
+     */
+    public void countSavedFrame() {
+        savedFrames++;
+    }
+
+    /**
+     * Frames that were not sent because they were unchanged, since the last reset.
+     */
+    public long getSavedFrames() {
+        return savedFrames;
+    }
+
+    public float getThreshold() {
+        return threshold;
+    }
+
+    public void setThreshold(float threshold) {
+        if (threshold < 0f) {
+            throw new IllegalArgumentException("Threshold must not be negative: " + threshold);
+        }
+        this.threshold = threshold;
+    }
+
+    /**
+     * Forgets the reference, e.g. when the camera is restarted.
+     */
+    public void reset() {
+        hasReference = false;
+        savedFrames = 0;
+    }
+
+    private void computeThumbnail(ByteBuffer luma, int width, int height, int rowStride, int pixelStride) {
+        long total = 0;
+        for (int cy = 0; cy < GRID_HEIGHT; cy++) {
+            int yStart = cy * height / GRID_HEIGHT;
+            int yEnd = (cy + 1) * height / GRID_HEIGHT;
+            for (int cx = 0; cx < GRID_WIDTH; cx++) {
+                int xStart = cx * width / GRID_WIDTH;
+                int xEnd = (cx + 1) * width / GRID_WIDTH;
+                int sum = 0;
+                int count = 0;
+                for (int y = yStart; y < yEnd; y += SAMPLE_STEP) {
+                    int rowOffset = y * rowStride;
+                    for (int x = xStart; x < xEnd; x += SAMPLE_STEP) {
+                        sum += luma.get(rowOffset + x * pixelStride) & 0xFF;
+                        count++;
+                    }
+                }
+                int value = count > 0 ? sum / count : 0;
+                current[cy * GRID_WIDTH + cx] = value;
+                total += value;
+            }
+        }
+        currentMean = (int) (total / CELLS);
+        currentWidth = width;
+        currentHeight = height;
+    }
+}
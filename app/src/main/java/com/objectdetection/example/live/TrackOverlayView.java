@@ -0,0 +1,112 @@
+package com.objectdetection.example.live;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.objectdetection.example.util.DetectionBuffer;
+import com.objectdetection.example.util.LabelPalette;
+
+/**
+ * Draws tracked live objects over the camera preview, colored by label.
+ * <p>
+ * Redrawn on every display frame while objects are tracked, so drawing doesn't allocate.
+ */
+public class TrackOverlayView extends View {
+
+    private static final float STROKE_WIDTH_DP = 3f;
+    private static final float TEXT_SIZE_SP = 14f;
+    private static final float LABEL_PADDING_DP = 4f;
+
+    private final LabelPalette palette = LabelPalette.getInstance();
+    private final Paint boxPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint labelBackgroundPaint = new Paint();
+    private final Paint textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final float labelPadding;
+
+    private DetectionBuffer tracks;
+    private OverlayTransform transform;
+    private int drawnCount;
+
+    public TrackOverlayView(Context context) {
+        this(context, null);
+    }
+
+    public TrackOverlayView(Context context, @Nullable AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public TrackOverlayView(Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        boxPaint.setStyle(Paint.Style.STROKE);
+        boxPaint.setStrokeWidth(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, STROKE_WIDTH_DP,
+                getResources().getDisplayMetrics()));
+        labelBackgroundPaint.setStyle(Paint.Style.FILL);
+        textPaint.setColor(0xFFFFFFFF);
+        textPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, TEXT_SIZE_SP,
+                getResources().getDisplayMetrics()));
+        labelPadding = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, LABEL_PADDING_DP,
+                getResources().getDisplayMetrics());
+    }
+
+    /**
+     * Shows tracked objects. Must be called on the main thread; the buffer is read when
+     * drawing, so it must not change until the next call.
+     *
+     * @param tracks    Objects with boxes in frame pixels
+     * @param transform Mapping from frame pixels to this view
+     */
+    public void setTracks(DetectionBuffer tracks, OverlayTransform transform) {
+        // Nothing to draw before or after, skip the redraw
+        if (tracks.size() == 0 && drawnCount == 0) {
+            return;
+        }
+        this.tracks = tracks;
+        this.transform = transform;
+        invalidate();
+    }
+
+    /**
+     * Removes all boxes.
+     */
+    public void clear() {
+        tracks = null;
+        invalidate();
+    }
+
+    @Override
+    protected void onDraw(@NonNull Canvas canvas) {
+        super.onDraw(canvas);
+        if (tracks == null || transform == null || transform.getFrameWidth() == 0) {
+            drawnCount = 0;
+            return;
+        }
+        int count = tracks.size();
+        for (int i = 0; i < count; i++) {
+            float left = transform.mapX(tracks.getXMin(i));
+            float top = transform.mapY(tracks.getYMin(i));
+            float right = transform.mapX(tracks.getXMax(i));
+            float bottom = transform.mapY(tracks.getYMax(i));
+            int color = palette.getColor(tracks.getLabel(i));
+            boxPaint.setColor(color);
+            canvas.drawRect(left, top, right, bottom, boxPaint);
+
+            String label = tracks.getLabel(i);
+            if (label != null) {
+                float textWidth = textPaint.measureText(label);
+                float textBottom = top - textPaint.descent();
+                labelBackgroundPaint.setColor(color);
+                canvas.drawRect(left, top - textPaint.getTextSize() - labelPadding,
+                        left + textWidth + 2 * labelPadding, top, labelBackgroundPaint);
+                canvas.drawText(label, left + labelPadding, textBottom, textPaint);
+            }
+        }
+        drawnCount = count;
+    }
+}
@@ -0,0 +1,368 @@
+package com.objectdetection.example.live;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.objectdetection.example.trace.DetectionTrace;
+import com.objectdetection.example.trace.TraceStage;
+import com.objectdetection.example.util.DetectionBuffer;
+import com.objectdetection.example.util.DetectionBufferListener;
+import com.objectdetection.example.util.DetectionJsonParser;
+import com.objectdetection.sdk.listener.ImageDetectionListener;
+import com.objectdetection.sdk.model.DetectionResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import okio.ByteString;
+
+/**
+ * Streams live frames over one persistent WebSocket to {@code /api/detect/stream}.
+ * <p>
+ * Frames and results are {@link LiveFrameCodec} messages; results carry the timestamp of
+ * their frame, so they may arrive in any order. This avoids the per-request headers,
+ * multipart encoding and request setup of the HTTP path at high frame rates.
+ * <p>
+ * While the socket is not open (connecting, not supported by the server, or dropped)
+ * frames go through the fallback transport instead, so no frame waits on the socket.
+ * After a failure the stream is retried at most every {@link #RECONNECT_INTERVAL_MS}.
+ */
+public class WebSocketLiveTransport implements LiveTransport {
+    private static final String TAG = "WebSocketLiveTransport";
+
+    public static final String STREAM_PATH = "/api/detect/stream";
+    public static final long RECONNECT_INTERVAL_MS = 30_000;
+    // Frames without a result after this long are failed, so they don't hold a scheduler slot
+    public static final long RESULT_TIMEOUT_MS = 5_000;
+    // A socket that misses a pong by the next ping is failed, so a connection dropped
+    // without a close (e.g. by a NAT or a network switch) falls back instead of going quiet
+    public static final long PING_INTERVAL_MS = 10_000;
+
+    private static final int NORMAL_CLOSURE = 1000;
+
+    private enum State { CLOSED, CONNECTING, OPEN, FAILED }
+
+    private final OkHttpClient httpClient;
+    private final String streamUrl;
+    private final LiveTransport fallback;
+    private final Gson gson = new Gson();
+
+    // Frames sent over the socket, by timestamp, in send order
+    private final LinkedHashMap<Long, Pending> pending = new LinkedHashMap<>();
+    private State state = State.CLOSED;
+    private WebSocket socket;
+    private long reconnectAtMs;
+    private ScheduledExecutorService timeoutExecutor;
+
+    /**
+     * @param httpClient Client to open the socket with, normally the shared one; the socket
+     *                   uses a derived client that also pings every {@link #PING_INTERVAL_MS}
+     * @param apiUrl     Base URL of the detection API
+     * @param fallback   Transport used while the stream is unavailable
+     */
+    public WebSocketLiveTransport(OkHttpClient httpClient, String apiUrl, LiveTransport fallback) {
+        this.httpClient = httpClient.newBuilder()
+                .pingInterval(PING_INTERVAL_MS, TimeUnit.MILLISECONDS)
+                .build();
+        this.streamUrl = (apiUrl.endsWith("/") ? apiUrl.substring(0, apiUrl.length() - 1) : apiUrl) + STREAM_PATH;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public synchronized void open() {
+        fallback.open();
+        if (state == State.CLOSED) {
+            connect();
+            timeoutExecutor = Executors.newSingleThreadScheduledExecutor();
+            timeoutExecutor.scheduleWithFixedDelay(this::failExpired,
+                    RESULT_TIMEOUT_MS, RESULT_TIMEOUT_MS / 5, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void send(long frameTimestamp, byte[] jpeg, ImageDetectionListener listener) {
+        send(frameTimestamp, jpeg, null, listener);
+    }
+
+    /**
+     * Streamed frames are sent when queued on the socket, reach their first byte when the
+     * whole result message is in and are parsed once it is decoded.
+     */
+    @Override
+    public void send(long frameTimestamp, byte[] jpeg, DetectionTrace trace, ImageDetectionListener listener) {
+        boolean streamed = false;
+        synchronized (this) {
+            if (state == State.OPEN) {
+                byte[] message = LiveFrameCodec.encode(LiveFrameCodec.FRAME_MAGIC, frameTimestamp,
+                        jpeg, 0, jpeg.length);
+                pending.put(frameTimestamp, new Pending(listener, trace, System.currentTimeMillis()));
+                streamed = socket.send(ByteString.of(message));
+                if (!streamed) {
+                    // Socket is closing, the failure callback follows
+                    pending.remove(frameTimestamp);
+                } else if (trace != null) {
+                    // Still under the lock, so the result can't be handled before this
+                    trace.mark(TraceStage.REQUEST_SENT);
+                }
+            } else if (state == State.FAILED && System.currentTimeMillis() >= reconnectAtMs) {
+                connect();
+            }
+        }
+        if (!streamed) {
+            fallback.send(frameTimestamp, jpeg, trace, listener);
+        }
+    }
+
+    @Override
+    public void close() {
+        List<Pending> dropped;
+        synchronized (this) {
+            state = State.CLOSED;
+            if (timeoutExecutor != null) {
+                timeoutExecutor.shutdownNow();
+                timeoutExecutor = null;
+            }
+            if (socket != null) {
+                socket.close(NORMAL_CLOSURE, null);
+                socket = null;
+            }
+            dropped = drainPending();
+        }
+        failAll(dropped, new IOException("Live stream closed"));
+        fallback.close();
+    }
+
+    /**
+     * Whether frames currently go over the socket rather than the fallback.
+     */
+    public synchronized boolean isStreaming() {
+        return state == State.OPEN;
+    }
+
+    /**
+     * Whether the stream failed and frames use the fallback until the next retry.
+     */
+    synchronized boolean isWaitingToReconnect() {
+        return state == State.FAILED;
+    }
+
+    private void connect() {
+        state = State.CONNECTING;
+        Request request = new Request.Builder().url(streamUrl).build();
+        socket = httpClient.newWebSocket(request, new StreamListener());
+    }
+
+    private void onResultMessage(ByteString bytes) {
+        long receivedAtNanos = System.nanoTime();
+        LiveFrameCodec.Message message;
+        try {
+            message = LiveFrameCodec.decode(bytes.asByteBuffer(), LiveFrameCodec.RESULT_MAGIC);
+        } catch (IOException e) {
+            Log.w(TAG, "Ignoring malformed live result", e);
+            return;
+        }
+        Pending frame;
+        synchronized (this) {
+            frame = pending.remove(message.getTimestamp());
+        }
+        if (frame == null) {
+            // Already timed out or failed
+            return;
+        }
+        if (frame.trace != null) {
+            frame.trace.markAt(TraceStage.FIRST_BYTE, receivedAtNanos);
+        }
+
+        ByteBuffer payload = message.getPayload();
+        if (frame.listener instanceof DetectionBufferListener) {
+            deliverDetections(payload, frame);
+            return;
+        }
+        DetectionResult result;
+        try (Reader reader = new InputStreamReader(
+                new ByteBufferInputStream(payload), StandardCharsets.UTF_8)) {
+            result = gson.fromJson(reader, DetectionResult.class);
+        } catch (IOException | JsonParseException e) {
+            frame.listener.onError(e instanceof IOException ? (IOException) e : new IOException(e));
+            return;
+        }
+        if (result == null) {
+            frame.listener.onError(new IOException("Empty live result"));
+        } else {
+            markParsed(frame);
+            frame.listener.onResult(result);
+        }
+    }
+
+    private static void deliverDetections(ByteBuffer payload, Pending frame) {
+        DetectionBuffer detections = DetectionJsonParser.getThreadBuffer();
+        boolean parsed;
+        try {
+            parsed = DetectionJsonParser.forCurrentThread().read(payload, detections);
+        } catch (IOException | JsonParseException e) {
+            frame.listener.onError(e instanceof IOException ? (IOException) e : new IOException(e));
+            return;
+        }
+        if (!parsed) {
+            frame.listener.onError(new IOException("Empty live result"));
+        } else {
+            markParsed(frame);
+            ((DetectionBufferListener) frame.listener).onDetections(detections);
+        }
+    }
+
+    private static void markParsed(Pending frame) {
+        if (frame.trace != null) {
+            frame.trace.mark(TraceStage.PARSED);
+        }
+    }
+
+    private void onSocketFailed(WebSocket webSocket, IOException error) {
+        List<Pending> failed;
+        synchronized (this) {
+            if (webSocket != socket) {
+                return;
+            }
+            if (state != State.CLOSED) {
+                state = State.FAILED;
+                reconnectAtMs = System.currentTimeMillis() + RECONNECT_INTERVAL_MS;
+            }
+            socket = null;
+            failed = drainPending();
+        }
+        failAll(failed, error);
+    }
+
+    private void failExpired() {
+        List<Pending> expired;
+        synchronized (this) {
+            expired = removeExpired(System.currentTimeMillis());
+        }
+        failAll(expired, new IOException("No live result within " + RESULT_TIMEOUT_MS + " ms"));
+    }
+
+    private List<Pending> removeExpired(long nowMs) {
+        List<Pending> expired = null;
+        Iterator<Pending> iterator = pending.values().iterator();
+        while (iterator.hasNext()) {
+            Pending frame = iterator.next();
+            // Send order, so the first one that is recent enough ends the scan
+            if (nowMs - frame.sentAtMs < RESULT_TIMEOUT_MS) {
+                break;
+            }
+            if (expired == null) {
+                expired = new ArrayList<>();
+            }
+            expired.add(frame);
+            iterator.remove();
+        }
+        return expired;
+    }
+
+    private List<Pending> drainPending() {
+        List<Pending> drained = new ArrayList<>(pending.values());
+        pending.clear();
+        return drained;
+    }
+
+    private static void failAll(List<Pending> frames, IOException error) {
+        if (frames == null) {
+            return;
+        }
+        for (Pending frame : frames) {
+            frame.listener.onError(error);
+        }
+    }
+
+    private static final class Pending {
+        final ImageDetectionListener listener;
+        final DetectionTrace trace;
+        final long sentAtMs;
+
+        Pending(ImageDetectionListener listener, DetectionTrace trace, long sentAtMs) {
+            this.listener = listener;
+            this.trace = trace;
+            this.sentAtMs = sentAtMs;
+        }
+    }
+
+    private final class StreamListener extends WebSocketListener {
+
+        @Override
+        public void onOpen(@NonNull WebSocket webSocket, @NonNull Response response) {
+            synchronized (WebSocketLiveTransport.this) {
+                if (webSocket == socket && state == State.CONNECTING) {
+                    state = State.OPEN;
+                    Log.d(TAG, "Live stream open");
+                }
+            }
+        }
+
+        @Override
+        public void onMessage(@NonNull WebSocket webSocket, @NonNull ByteString bytes) {
+            onResultMessage(bytes);
+        }
+
+        @Override
+        public void onClosing(@NonNull WebSocket webSocket, int code, @NonNull String reason) {
+            webSocket.close(NORMAL_CLOSURE, null);
+            onSocketFailed(webSocket, new IOException("Live stream closed by server: " + code + " " + reason));
+        }
+
+        @Override
+        public void onFailure(@NonNull WebSocket webSocket, @NonNull Throwable t, @Nullable Response response) {
+            if (response != null) {
+                Log.i(TAG, "Live stream unavailable (HTTP " + response.code() + "), using per-frame requests");
+            } else {
+                Log.w(TAG, "Live stream failed, using per-frame requests", t);
+            }
+            onSocketFailed(webSocket, t instanceof IOException ? (IOException) t : new IOException(t));
+        }
+    }
+
+    /**
+     * Reads a byte buffer without copying it into an array first.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(@NonNull byte[] target, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(target, offset, count);
+            return count;
+        }
+    }
+}
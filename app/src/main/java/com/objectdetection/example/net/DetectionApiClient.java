@@ -0,0 +1,394 @@
+package com.objectdetection.example.net;
+
+import androidx.annotation.NonNull;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.objectdetection.example.preprocess.EncodedImage;
+import com.objectdetection.example.trace.DetectionTrace;
+import com.objectdetection.example.trace.TraceStage;
+import com.objectdetection.example.util.BinaryDetectionCodec;
+import com.objectdetection.example.util.DetectionBuffer;
+import com.objectdetection.example.util.DetectionBufferListener;
+import com.objectdetection.example.util.DetectionJsonParser;
+import com.objectdetection.example.util.DetectionResults;
+import com.objectdetection.sdk.listener.ImageDetectionListener;
+import com.objectdetection.sdk.model.DetectionResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSink;
+
+/**
+ * Minimal client for the detection API used by the app-owned pipelines.
+ * Uploads already encoded JPEG bytes to {@code /api/detect} (or image URLs to
+ * {@code /api/detect/url}) and parses the response into the SDK's
+ * {@link DetectionResult} model. Responses for a {@link DetectionBufferListener} are
+ * streamed into a reused {@link DetectionBuffer} instead.
+ * <p>
+ * With {@link WireFormat#BINARY}, images are sent as a small header and the raw JPEG and
+ * the server is asked for packed results, see {@link BinaryDetectionCodec}. Responses are
+ * parsed by their content type, so a server may still answer in JSON. If the server
+ * rejects a binary request, it is sent again as multipart and the client stays with
+ * multipart from then on. URL detection is always JSON.
+ * <p>
+ * Clients created from just an API URL use the process-wide {@link HttpClients#getShared()}
+ * client, so all of them share one connection pool.
+ */
+public class DetectionApiClient {
+
+    /**
+     * Largest remote image downloaded for {@link #fetchImage(String)}; the server fetches
+     * larger ones itself.
+     */
+    public static final int MAX_IMAGE_DOWNLOAD_BYTES = 25 * 1024 * 1024;
+
+    private static final String DETECT_PATH = "/api/detect";
+    private static final String DETECT_URL_PATH = "/api/detect/url";
+    private static final MediaType MEDIA_TYPE_JPEG = MediaType.get("image/jpeg");
+    private static final MediaType MEDIA_TYPE_JSON = MediaType.get("application/json; charset=utf-8");
+    private static final MediaType MEDIA_TYPE_BINARY_REQUEST = MediaType.get(BinaryDetectionCodec.REQUEST_CONTENT_TYPE);
+    private static final MediaType MEDIA_TYPE_BINARY_RESULT = MediaType.get(BinaryDetectionCodec.RESULT_CONTENT_TYPE);
+    private static final String ACCEPT_BINARY = BinaryDetectionCodec.RESULT_CONTENT_TYPE + ", application/json;q=0.5";
+
+    private final OkHttpClient httpClient;
+    private final String detectUrl;
+    private final String detectRemoteUrl;
+    private final long callTimeoutMs;
+    private final WireFormat wireFormat;
+    private final Gson gson = new Gson();
+    // Set once the server has turned down a binary request
+    private volatile boolean binaryRejected;
+
+    public DetectionApiClient(String apiUrl) {
+        this(HttpClients.getShared(), apiUrl);
+    }
+
+    public DetectionApiClient(OkHttpClient httpClient, String apiUrl) {
+        this(httpClient, apiUrl, 0);
+    }
+
+    /**
+     * @param callTimeoutMs Timeout of each detection call from start to parsed response,
+     *                      or 0 to use the client's call timeout
+     */
+    public DetectionApiClient(OkHttpClient httpClient, String apiUrl, long callTimeoutMs) {
+        this(httpClient, apiUrl, callTimeoutMs, WireFormat.JSON);
+    }
+
+    /**
+     * @param callTimeoutMs Timeout of each detection call from start to parsed response,
+     *                      or 0 to use the client's call timeout
+     * @param wireFormat    Format of image uploads and results
+     */
+    public DetectionApiClient(OkHttpClient httpClient, String apiUrl, long callTimeoutMs, WireFormat wireFormat) {
+        // The derived client shares the connection pool and dispatcher
+        this.httpClient = wireFormat == WireFormat.BINARY
+                ? httpClient.newBuilder().addInterceptor(new BinaryFallbackInterceptor()).build()
+                : httpClient;
+        this.callTimeoutMs = callTimeoutMs;
+        this.wireFormat = wireFormat;
+        this.detectUrl = stripTrailingSlash(apiUrl) + DETECT_PATH;
+        this.detectRemoteUrl = stripTrailingSlash(apiUrl) + DETECT_URL_PATH;
+    }
+
+    /**
+     * Sends a JPEG image for detection. The listener is called on an OkHttp worker thread.
+     *
+     * @param jpeg     Encoded image bytes
+     * @param listener Receives the parsed result or the failure
+     * @return The call, which can be cancelled
+     */
+    public Call detectJpeg(byte[] jpeg, ImageDetectionListener listener) {
+        return detectJpeg(jpeg, 0, jpeg.length, listener);
+    }
+
+    /**
+     * Sends part of a byte array as a JPEG image for detection, without copying it.
+     * The array must not be modified until the listener has been called.
+     *
+     * @param data     Array holding the encoded image
+     * @param offset   Start of the image in the array
+     * @param length   Number of bytes of the image
+     * @param listener Receives the parsed result or the failure
+     * @return The call, which can be cancelled
+     */
+    public Call detectJpeg(byte[] data, int offset, int length, ImageDetectionListener listener) {
+        return detectJpeg(data, offset, length, null, listener);
+    }
+
+    /**
+     * Like {@link #detectJpeg(byte[], int, int, ImageDetectionListener)}, stamping the
+     * network stages and the parse of the response on a trace.
+     *
+     * @param trace Trace of the detection, or null
+     */
+    public Call detectJpeg(byte[] data, int offset, int length, DetectionTrace trace,
+                           ImageDetectionListener listener) {
+        if (wireFormat == WireFormat.BINARY && !binaryRejected) {
+            Request request = new Request.Builder()
+                    .url(detectUrl)
+                    .header("Accept", ACCEPT_BINARY)
+                    .post(new BinaryImageBody(data, offset, length))
+                    .tag(DetectionTrace.class, trace)
+                    .tag(JpegUpload.class, new JpegUpload(data, offset, length, trace))
+                    .build();
+            return enqueue(request, listener);
+        }
+        return enqueue(multipartRequest(data, offset, length, trace), listener);
+    }
+
+    private Request multipartRequest(byte[] data, int offset, int length, DetectionTrace trace) {
+        RequestBody body = new MultipartBody.Builder()
+                .setType(MultipartBody.FORM)
+                .addFormDataPart("image", "image.jpg",
+                        RequestBody.create(data, MEDIA_TYPE_JPEG, offset, length))
+                .build();
+        return new Request.Builder()
+                .url(detectUrl)
+                .post(body)
+                .tag(DetectionTrace.class, trace)
+                .build();
+    }
+
+    /**
+     * Asks the server to download and detect a remote image.
+     *
+     * @param imageUrl URL of the image
+     * @param listener Receives the parsed result or the failure
+     * @return The call, which can be cancelled
+     */
+    public Call detectUrl(String imageUrl, ImageDetectionListener listener) {
+        JsonObject json = new JsonObject();
+        json.addProperty("url", imageUrl);
+        Request request = new Request.Builder()
+                .url(detectRemoteUrl)
+                .post(RequestBody.create(json.toString(), MEDIA_TYPE_JSON))
+                .build();
+        return enqueue(request, listener);
+    }
+
+    private Call enqueue(Request request, ImageDetectionListener listener) {
+        Call call = httpClient.newCall(request);
+        if (callTimeoutMs > 0) {
+            call.timeout().timeout(callTimeoutMs, TimeUnit.MILLISECONDS);
+        }
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(@NonNull Call call, @NonNull IOException e) {
+                listener.onError(e);
+            }
+
+            @Override
+            public void onResponse(@NonNull Call call, @NonNull Response response) {
+                if (listener instanceof DetectionBufferListener) {
+                    onDetectionsResponse(call, response, (DetectionBufferListener) listener);
+                    return;
+                }
+                DetectionResult result;
+                try (ResponseBody responseBody = response.body()) {
+                    result = parseResult(response, responseBody);
+                } catch (IOException | JsonParseException e) {
+                    listener.onError(response.isSuccessful() ? e : serverError(response, e));
+                    return;
+                }
+                markParsed(call);
+                // The body is closed first, so the connection is back in the pool for the next call
+                listener.onResult(result);
+            }
+        });
+        return call;
+    }
+
+    private static void onDetectionsResponse(Call call, Response response, DetectionBufferListener listener) {
+        DetectionBuffer detections = DetectionJsonParser.getThreadBuffer();
+        try (ResponseBody responseBody = response.body()) {
+            parseDetections(response, responseBody, detections);
+        } catch (IOException | JsonParseException e) {
+            listener.onError(response.isSuccessful() ? e : serverError(response, e));
+            return;
+        }
+        markParsed(call);
+        listener.onDetections(detections);
+    }
+
+    /**
+     * The failure of an unsuccessful response without a result in its body, such as a
+     * proxy's error page. An IOException, so it is retried like other transient failures.
+     */
+    private static IOException serverError(Response response, Exception cause) {
+        return new IOException("Detection failed on the server (HTTP " + response.code() + ")", cause);
+    }
+
+    private static void markParsed(Call call) {
+        DetectionTrace trace = call.request().tag(DetectionTrace.class);
+        if (trace != null) {
+            trace.mark(TraceStage.PARSED);
+        }
+    }
+
+    /**
+     * Downloads a remote image in full, so it can be displayed and uploaded without a
+     * second download. Blocks, so it must be called off the main thread. Images over
+     * {@link #MAX_IMAGE_DOWNLOAD_BYTES} are refused, by their Content-Length if they declare
+     * one and otherwise once that many bytes were read.
+     *
+     * @param imageUrl URL of the image
+     * @return The image's bytes
+     * @throws IOException If the request fails, the server doesn't return the image or the
+     *                     image is too large
+     */
+    public EncodedImage fetchImage(String imageUrl) throws IOException {
+        Request request = new Request.Builder()
+                .url(imageUrl)
+                .build();
+        try (Response response = httpClient.newCall(request).execute()) {
+            ResponseBody body = response.body();
+            if (!response.isSuccessful() || body == null) {
+                throw new IOException("Unable to download image (HTTP " + response.code() + ")");
+            }
+            try (InputStream input = body.byteStream()) {
+                return EncodedImage.read(input, body.contentLength(), MAX_IMAGE_DOWNLOAD_BYTES);
+            }
+        }
+    }
+
+    private DetectionResult parseResult(Response response, ResponseBody body) throws IOException {
+        if (body != null && isBinaryResult(body)) {
+            DetectionBuffer detections = DetectionJsonParser.getThreadBuffer();
+            BinaryDetectionCodec.forCurrentThread().read(body.byteStream(), detections);
+            return DetectionResults.fromBuffer(detections);
+        }
+        DetectionResult result = body != null ? gson.fromJson(body.charStream(), DetectionResult.class) : null;
+        if (result == null) {
+            throw new IOException("Empty response from server (HTTP " + response.code() + ")");
+        }
+        return result;
+    }
+
+    private static void parseDetections(Response response, ResponseBody body, DetectionBuffer out)
+            throws IOException {
+        if (body != null && isBinaryResult(body)) {
+            BinaryDetectionCodec.forCurrentThread().read(body.byteStream(), out);
+            return;
+        }
+        if (body == null || !DetectionJsonParser.forCurrentThread().read(body.byteStream(), out)) {
+            throw new IOException("Empty response from server (HTTP " + response.code() + ")");
+        }
+    }
+
+    private static boolean isBinaryResult(ResponseBody body) {
+        MediaType type = body.contentType();
+        return type != null
+                && MEDIA_TYPE_BINARY_RESULT.type().equals(type.type())
+                && MEDIA_TYPE_BINARY_RESULT.subtype().equals(type.subtype());
+    }
+
+    /**
+     * Whether a response to a binary request says the server doesn't take them, as opposed
+     * to failing the detection. Only statuses about the endpoint, method or media type
+     * count; a 400 may just be a bad image, and resending it as multipart would double
+     * every invalid upload.
+     */
+    private static boolean isBinaryRejection(Response response) {
+        ResponseBody body = response.body();
+        if (body != null && isBinaryResult(body)) {
+            return false;
+        }
+        switch (response.code()) {
+            case 404:
+            case 405:
+            case 406:
+            case 415:
+            case 501:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    static String stripTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
+    /**
+     * Resends a rejected binary request as multipart within the same call, so the
+     * listener, cancellation and the call timeout cover both.
+     */
+    private final class BinaryFallbackInterceptor implements Interceptor {
+        @NonNull
+        @Override
+        public Response intercept(@NonNull Chain chain) throws IOException {
+            Request request = chain.request();
+            JpegUpload upload = request.tag(JpegUpload.class);
+            Response response = chain.proceed(request);
+            if (upload == null || !isBinaryRejection(response)) {
+                return response;
+            }
+            binaryRejected = true;
+            response.close();
+            return chain.proceed(multipartRequest(upload.data, upload.offset, upload.length, upload.trace));
+        }
+    }
+
+    /**
+     * The image of a binary request, kept for sending it again as multipart.
+     */
+    private static final class JpegUpload {
+        final byte[] data;
+        final int offset;
+        final int length;
+        final DetectionTrace trace;
+
+        JpegUpload(byte[] data, int offset, int length, DetectionTrace trace) {
+            this.data = data;
+            this.offset = offset;
+            this.length = length;
+            this.trace = trace;
+        }
+    }
+
+    /**
+     * Binary request body, writing the header and then the image without copying it.
+     */
+    private static final class BinaryImageBody extends RequestBody {
+        private final byte[] data;
+        private final int offset;
+        private final int length;
+
+        BinaryImageBody(byte[] data, int offset, int length) {
+            this.data = data;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return MEDIA_TYPE_BINARY_REQUEST;
+        }
+
+        @Override
+        public long contentLength() {
+            return BinaryDetectionCodec.REQUEST_HEADER_SIZE + length;
+        }
+
+        @Override
+        public void writeTo(@NonNull BufferedSink sink) throws IOException {
+            sink.write(BinaryDetectionCodec.encodeRequestHeader(length));
+            sink.write(data, offset, length);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.objectdetection.example.net;
+
+import android.content.Context;
+
+import androidx.preference.PreferenceManager;
+
+/**
+ * Creates API clients using the wire format selected in the settings.
+ */
+public final class DetectionApiClients {
+
+    private DetectionApiClients() {
+    }
+
+    /**
+     * Returns the wire format selected in the settings.
+     */
+    public static WireFormat getWireFormat(Context context) {
+        return WireFormat.fromPreferenceValue(PreferenceManager.getDefaultSharedPreferences(context)
+                .getString(WireFormat.PREF_KEY, null));
+    }
+
+    /**
+     * Creates a client on the shared HTTP client.
+     *
+     * @param context Any context
+     * @param apiUrl  Base URL of the API
+     */
+    public static DetectionApiClient create(Context context, String apiUrl) {
+        return create(context, apiUrl, 0);
+    }
+
+    /**
+     * Creates a client on the shared HTTP client.
+     *
+     * @param context       Any context
+     * @param apiUrl        Base URL of the API
+     * @param callTimeoutMs Timeout of each detection call, or 0 to use the client's call timeout
+     */
+    public static DetectionApiClient create(Context context, String apiUrl, long callTimeoutMs) {
+        return new DetectionApiClient(HttpClients.getShared(), apiUrl, callTimeoutMs, getWireFormat(context));
+    }
+}
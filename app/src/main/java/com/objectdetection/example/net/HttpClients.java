@@ -0,0 +1,69 @@
+package com.objectdetection.example.net;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+/**
+ * Owner of the process-wide HTTP client.
+ * <p>
+ * Every detection request of the app (live frames, single images, batches and the offline
+ * queue) goes through the same {@link OkHttpClient}, so TCP connections and TLS sessions
+ * are set up once and reused. The pool keeps idle connections alive for a few minutes,
+ * HTTP/2 is negotiated when the server supports it (multiplexing concurrent uploads over
+ * one connection) and gzip response compression is requested and decoded transparently.
+ * Clients that need different settings should derive from the shared one with
+ * {@link OkHttpClient#newBuilder()}, which keeps the pool and dispatcher.
+ * Requests tagged with a {@link com.objectdetection.example.trace.DetectionTrace} get
+ * their network stages stamped on it.
+ */
+public final class HttpClients {
+
+    public static final int MAX_IDLE_CONNECTIONS = 8;
+    public static final long KEEP_ALIVE_MINUTES = 5;
+    // Live frames, a batch and the offline queue may all be talking to the API at once
+    public static final int MAX_REQUESTS_PER_HOST = 8;
+
+    public static final long CONNECT_TIMEOUT_MS = 10_000;
+    public static final long READ_TIMEOUT_MS = 30_000;
+    public static final long WRITE_TIMEOUT_MS = 30_000;
+    public static final long CALL_TIMEOUT_MS = 60_000;
+
+    private static OkHttpClient shared;
+
+    private HttpClients() {
+    }
+
+    /**
+     * Returns the process-wide client.
+     */
+    public static synchronized OkHttpClient getShared() {
+        if (shared == null) {
+            shared = newBuilder().build();
+        }
+        return shared;
+    }
+
+    /**
+     * Returns a builder with the app's pool, protocol and timeout settings and its own
+     * connection pool. Only for tests and tools; the app uses {@link #getShared()}.
+     */
+    public static OkHttpClient.Builder newBuilder() {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
+        return new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .connectTimeout(CONNECT_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                .readTimeout(READ_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                .writeTimeout(WRITE_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                .callTimeout(CALL_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                .retryOnConnectionFailure(true)
+                .eventListenerFactory(TraceEventListener.FACTORY);
+    }
+}
@@ -0,0 +1,39 @@
+package com.objectdetection.example.net;
+
+import androidx.annotation.NonNull;
+
+import com.objectdetection.example.trace.DetectionTrace;
+import com.objectdetection.example.trace.TraceStage;
+
+import okhttp3.Call;
+import okhttp3.EventListener;
+
+/**
+ * Stamps the network stages on the {@link DetectionTrace} a request is tagged with:
+ * {@link TraceStage#REQUEST_SENT} when the request headers start going out, so connecting
+ * counts towards sending, and {@link TraceStage#FIRST_BYTE} when the response headers
+ * start coming in. Untagged calls get {@link EventListener#NONE} and cost nothing.
+ */
+final class TraceEventListener extends EventListener {
+
+    static final EventListener.Factory FACTORY = call -> {
+        DetectionTrace trace = call.request().tag(DetectionTrace.class);
+        return trace != null ? new TraceEventListener(trace) : EventListener.NONE;
+    };
+
+    private final DetectionTrace trace;
+
+    private TraceEventListener(DetectionTrace trace) {
+        this.trace = trace;
+    }
+
+    @Override
+    public void requestHeadersStart(@NonNull Call call) {
+        trace.mark(TraceStage.REQUEST_SENT);
+    }
+
+    @Override
+    public void responseHeadersStart(@NonNull Call call) {
+        trace.mark(TraceStage.FIRST_BYTE);
+    }
+}
@@ -0,0 +1,38 @@
+package com.objectdetection.example.net;
+
+import com.objectdetection.example.util.BinaryDetectionCodec;
+
+/**
+ * How images and results travel between the app and the detection API, as chosen in the
+ * settings.
+ */
+public enum WireFormat {
+    /** Multipart uploads and JSON results, which every API version takes. */
+    JSON("json"),
+    /** Headed JPEG uploads and packed results, see {@link BinaryDetectionCodec}; JSON if the server doesn't take them. */
+    BINARY("binary");
+
+    public static final String PREF_KEY = "wire_format";
+
+    private final String preferenceValue;
+
+    WireFormat(String preferenceValue) {
+        this.preferenceValue = preferenceValue;
+    }
+
+    public String getPreferenceValue() {
+        return preferenceValue;
+    }
+
+    /**
+     * Returns the format stored under the value, or {@link #JSON} if there is none.
+     */
+    public static WireFormat fromPreferenceValue(String value) {
+        for (WireFormat format : values()) {
+            if (format.preferenceValue.equals(value)) {
+                return format;
+            }
+        }
+        return JSON;
+    }
+}
@@ -0,0 +1,240 @@
+package com.objectdetection.example.postprocess;
+
+import com.objectdetection.example.util.DetectionBuffer;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Filters, de-duplicates and ranks detections on their primitive arrays.
+ * <p>
+ * Detections below the minimum confidence or outside the label allowlist are dropped
+ * first. The rest go into a max-heap by confidence that is popped only until
+ * {@code maxResults} detections are kept, so picking the top K of n boxes costs
+ * O(n + K log n) instead of a full sort. A popped detection is suppressed if it overlaps an
+ * already kept detection of the same label by more than the IoU threshold (per-class
+ * non-maximum suppression).
+ * <p>
+ * The output is ordered by falling confidence. Scratch arrays are kept between calls, so
+ * processing stops allocating once it has seen its largest input. Not thread-safe; use one
+ * instance per thread.
+ */
+public class DetectionPostProcessor {
+
+    public static final float DEFAULT_IOU_THRESHOLD = 0.5f;
+    public static final int NO_LIMIT = Integer.MAX_VALUE;
+
+    private final float iouThreshold;
+    private final int maxResults;
+    private final float minConfidence;
+    private final Set<String> allowedLabels;
+
+    private int[] heap = new int[16];
+    // Label hash per kept detection, so other labels are skipped without touching the strings
+    private int[] keptHashes = new int[16];
+
+    private DetectionPostProcessor(Builder builder) {
+        this.iouThreshold = builder.iouThreshold;
+        this.maxResults = builder.maxResults;
+        this.minConfidence = builder.minConfidence;
+        this.allowedLabels = builder.allowedLabels != null
+                ? Collections.unmodifiableSet(new HashSet<>(builder.allowedLabels))
+                : null;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public float getIouThreshold() {
+        return iouThreshold;
+    }
+
+    public int getMaxResults() {
+        return maxResults;
+    }
+
+    public float getMinConfidence() {
+        return minConfidence;
+    }
+
+    /**
+     * Labels that are kept, or null to keep every label.
+     */
+    public Set<String> getAllowedLabels() {
+        return allowedLabels;
+    }
+
+    /**
+     * Replaces the contents of {@code out} with the processed detections of {@code in}.
+     * Metadata (processing time, error, image size) and track ids are carried over.
+     *
+     * @param in  The detections to process
+     * @param out Receives the kept detections; must not be {@code in}
+     * @return The number of detections kept
+     */
+    public int process(DetectionBuffer in, DetectionBuffer out) {
+        if (in == out) {
+            throw new IllegalArgumentException("Input and output must be different buffers");
+        }
+        out.clear();
+        out.setProcessingTimeMs(in.getProcessingTimeMs());
+        out.setError(in.getError());
+        out.setImageSize(in.getImageWidth(), in.getImageHeight());
+
+        float[] confidences = in.getConfidences();
+        int size = collectCandidates(in, confidences);
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(i, size, confidences);
+        }
+
+        while (size > 0 && out.size() < maxResults) {
+            int candidate = heap[0];
+            heap[0] = heap[--size];
+            siftDown(0, size, confidences);
+            String label = in.getLabel(candidate);
+            int labelHash = label != null ? label.hashCode() : 0;
+            if (!isSuppressed(in, candidate, label, labelHash, out)) {
+                int index = out.add(in.getLabel(candidate), confidences[candidate],
+                        in.getXMin(candidate), in.getYMin(candidate),
+                        in.getXMax(candidate), in.getYMax(candidate));
+                out.setTrackId(index, in.getTrackId(candidate));
+                keptHashes[index] = labelHash;
+            }
+        }
+        return out.size();
+    }
+
+    private int collectCandidates(DetectionBuffer in, float[] confidences) {
+        if (heap.length < in.size()) {
+            heap = new int[Math.max(in.size(), heap.length * 2)];
+            keptHashes = new int[heap.length];
+        }
+        int size = 0;
+        for (int i = 0; i < in.size(); i++) {
+            if (confidences[i] >= minConfidence
+                    && (allowedLabels == null || allowedLabels.contains(in.getLabel(i)))) {
+                heap[size++] = i;
+            }
+        }
+        return size;
+    }
+
+    private boolean isSuppressed(DetectionBuffer in, int candidate, String label, int labelHash,
+                                 DetectionBuffer kept) {
+        if (iouThreshold >= 1f) {
+            return false;
+        }
+        float[] boxes = in.getBoxes();
+        float[] keptBoxes = kept.getBoxes();
+        int offset = candidate * 4;
+        for (int k = 0; k < kept.size(); k++) {
+            if (keptHashes[k] != labelHash) {
+                continue;
+            }
+            String keptLabel = kept.getLabel(k);
+            if (keptLabel != label && (label == null || !label.equals(keptLabel))) {
+                continue;
+            }
+            if (iou(boxes, offset, keptBoxes, k * 4) > iouThreshold) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void siftDown(int position, int size, float[] confidences) {
+        int item = heap[position];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && ranksBefore(heap[child + 1], heap[child], confidences)) {
+                child++;
+            }
+            if (!ranksBefore(heap[child], item, confidences)) {
+                break;
+            }
+            heap[position] = heap[child];
+            position = child;
+        }
+        heap[position] = item;
+    }
+
+    /**
+     * Higher confidence first; ties keep the input order, so results are deterministic.
+     */
+    private static boolean ranksBefore(int a, int b, float[] confidences) {
+        return confidences[a] > confidences[b] || (confidences[a] == confidences[b] && a < b);
+    }
+
+    /**
+     * Intersection over union of two {@code xMin, yMin, xMax, yMax} boxes.
+     */
+    public static float iou(float[] a, int aOffset, float[] b, int bOffset) {
+        float width = Math.min(a[aOffset + 2], b[bOffset + 2]) - Math.max(a[aOffset], b[bOffset]);
+        float height = Math.min(a[aOffset + 3], b[bOffset + 3]) - Math.max(a[aOffset + 1], b[bOffset + 1]);
+        if (width <= 0f || height <= 0f) {
+            return 0f;
+        }
+        float intersection = width * height;
+        float union = (a[aOffset + 2] - a[aOffset]) * (a[aOffset + 3] - a[aOffset + 1])
+                + (b[bOffset + 2] - b[bOffset]) * (b[bOffset + 3] - b[bOffset + 1]) - intersection;
+        return union > 0f ? intersection / union : 0f;
+    }
+
+    public static final class Builder {
+        private float iouThreshold = DEFAULT_IOU_THRESHOLD;
+        private int maxResults = NO_LIMIT;
+        private float minConfidence;
+        private Set<String> allowedLabels;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the overlap above which the less confident of two same-label boxes is dropped.
+         * 1 turns suppression off.
+         */
+        public Builder setIouThreshold(float iouThreshold) {
+            if (iouThreshold <= 0f || iouThreshold > 1f) {
+                throw new IllegalArgumentException("IoU threshold must be in (0, 1]");
+            }
+            this.iouThreshold = iouThreshold;
+            return this;
+        }
+
+        /**
+         * Keeps at most this many detections, the most confident ones.
+         */
+        public Builder setMaxResults(int maxResults) {
+            if (maxResults < 1) {
+                throw new IllegalArgumentException("maxResults must be positive");
+            }
+            this.maxResults = maxResults;
+            return this;
+        }
+
+        /**
+         * @param minConfidence Lowest confidence to keep, from 0 to 1
+         */
+        public Builder setMinConfidence(float minConfidence) {
+            this.minConfidence = minConfidence;
+            return this;
+        }
+
+        /**
+         * Only keeps detections with these labels, or every label if null.
+         */
+        public Builder setAllowedLabels(Set<String> allowedLabels) {
+            this.allowedLabels = allowedLabels;
+            return this;
+        }
+
+        public DetectionPostProcessor build() {
+            return new DetectionPostProcessor(this);
+        }
+    }
+}
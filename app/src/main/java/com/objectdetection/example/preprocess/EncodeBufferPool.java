@@ -0,0 +1,67 @@
+package com.objectdetection.example.preprocess;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayDeque;
+
+/**
+ * Small pool of growable byte buffers used as JPEG encode targets, so repeated
+ * uploads don't allocate a new multi-megabyte array each time.
+ */
+public class EncodeBufferPool {
+
+    private static final int DEFAULT_MAX_POOLED = 2;
+    private static final int INITIAL_CAPACITY = 256 * 1024;
+
+    private final ArrayDeque<Buffer> pool = new ArrayDeque<>();
+    private final int maxPooled;
+
+    public EncodeBufferPool() {
+        this(DEFAULT_MAX_POOLED);
+    }
+
+    public EncodeBufferPool(int maxPooled) {
+        this.maxPooled = maxPooled;
+    }
+
+    /**
+     * Returns an empty buffer, reusing a pooled one when available.
+     */
+    public synchronized Buffer acquire() {
+        Buffer buffer = pool.poll();
+        if (buffer == null) {
+            return new Buffer();
+        }
+        buffer.reset();
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer to the pool. The caller must not use it afterwards.
+     */
+    public synchronized void release(Buffer buffer) {
+        if (buffer != null && pool.size() < maxPooled && !pool.contains(buffer)) {
+            pool.push(buffer);
+        }
+    }
+
+    synchronized int pooledCount() {
+        return pool.size();
+    }
+
+    /**
+     * Output stream that exposes its backing array to avoid a copy on upload.
+     */
+    public static class Buffer extends ByteArrayOutputStream {
+
+        Buffer() {
+            super(INITIAL_CAPACITY);
+        }
+
+        /**
+         * Returns the backing array. Only the first {@link #size()} bytes are valid.
+         */
+        public byte[] array() {
+            return buf;
+        }
+    }
+}
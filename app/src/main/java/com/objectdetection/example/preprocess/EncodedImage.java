@@ -0,0 +1,101 @@
+package com.objectdetection.example.preprocess;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * The encoded bytes of an image, read once and then shared by everything that needs
+ * them: hashing, decoding and uploading all read the same array without copying it.
+ * The bytes must not be modified after reading.
+ */
+public class EncodedImage {
+
+    public static final int DEFAULT_INITIAL_CAPACITY = 256 * 1024;
+
+    private final byte[] data;
+    private final int length;
+
+    public EncodedImage(byte[] data, int length) {
+        if (length < 0 || length > data.length) {
+            throw new IllegalArgumentException("Invalid length " + length);
+        }
+        this.data = data;
+        this.length = length;
+    }
+
+    /**
+     * Reads the stream to the end, without closing it.
+     *
+     * @param sizeHint Expected size in bytes, e.g. the Content-Length, or -1 if unknown
+     * @throws IOException If reading fails
+     */
+    public static EncodedImage read(InputStream input, long sizeHint) throws IOException {
+        return read(input, sizeHint, Integer.MAX_VALUE - 8);
+    }
+
+    /**
+     * Reads the stream to the end, without closing it, giving up once it is longer than
+     * {@code maxBytes}.
+     *
+     * @param sizeHint Expected size in bytes, e.g. the Content-Length, or -1 if unknown
+     * @param maxBytes Largest image accepted
+     * @throws IOException If reading fails, or the size hint or the stream exceed the limit
+     */
+    public static EncodedImage read(InputStream input, long sizeHint, int maxBytes) throws IOException {
+        if (sizeHint > maxBytes) {
+            throw tooLarge(sizeHint, maxBytes);
+        }
+        int capacity = sizeHint > 0 ? (int) sizeHint + 1 : Math.min(DEFAULT_INITIAL_CAPACITY, maxBytes + 1);
+        byte[] data = new byte[capacity];
+        int length = 0;
+        while (true) {
+            if (length == data.length) {
+                if (length > maxBytes) {
+                    throw tooLarge(length, maxBytes);
+                }
+                // One byte past the limit is enough to tell the stream is too long
+                data = Arrays.copyOf(data, (int) Math.min((long) maxBytes + 1, data.length * 2L));
+            }
+            int read = input.read(data, length, data.length - length);
+            if (read < 0) {
+                break;
+            }
+            length += read;
+        }
+        if (length > maxBytes) {
+            throw tooLarge(length, maxBytes);
+        }
+        return new EncodedImage(data, length);
+    }
+
+    private static IOException tooLarge(long size, int maxBytes) {
+        return new IOException("Image of " + size + " bytes exceeds the limit of " + maxBytes);
+    }
+
+    /**
+     * The backing array; only the first {@link #getLength()} bytes are valid.
+     */
+    public byte[] getData() {
+        return data;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Returns a new stream over the bytes, sharing the array.
+     */
+    public InputStream newInputStream() {
+        return new ByteArrayInputStream(data, 0, length);
+    }
+
+    /**
+     * Whether the bytes start with a JPEG start-of-image marker.
+     */
+    public boolean isJpeg() {
+        return length >= 3 && (data[0] & 0xFF) == 0xFF && (data[1] & 0xFF) == 0xD8 && (data[2] & 0xFF) == 0xFF;
+    }
+}
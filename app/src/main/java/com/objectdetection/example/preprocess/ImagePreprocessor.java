@@ -0,0 +1,252 @@
+package com.objectdetection.example.preprocess;
+
+import android.content.ContentResolver;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.media.ExifInterface;
+import android.net.Uri;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Prepares gallery and camera images for upload.
+ * <p>
+ * The image is decoded with a power-of-two sample size, rotated according to its
+ * EXIF orientation, resized so its long edge is at most {@code maxLongEdge} and
+ * re-encoded as JPEG into a pooled buffer. Full resolution photos are therefore
+ * never sent over the network; the server model works at roughly 800 px anyway.
+ * <p>
+ * Images that are also displayed are read once into an {@link EncodedImage}, decoded
+ * once by {@link #decode(EncodedImage, int)} and prepared from that decoded bitmap.
+ */
+public class ImagePreprocessor {
+
+    public static final int DEFAULT_MAX_LONG_EDGE = 800;
+    public static final int DEFAULT_JPEG_QUALITY = 85;
+
+    private final ContentResolver contentResolver;
+    private final EncodeBufferPool bufferPool;
+    private final int maxLongEdge;
+    private final int jpegQuality;
+
+    public ImagePreprocessor(ContentResolver contentResolver, EncodeBufferPool bufferPool) {
+        this(contentResolver, bufferPool, DEFAULT_MAX_LONG_EDGE, DEFAULT_JPEG_QUALITY);
+    }
+
+    public ImagePreprocessor(ContentResolver contentResolver, EncodeBufferPool bufferPool,
+                             int maxLongEdge, int jpegQuality) {
+        this.contentResolver = contentResolver;
+        this.bufferPool = bufferPool;
+        this.maxLongEdge = maxLongEdge;
+        this.jpegQuality = jpegQuality;
+    }
+
+    /**
+     * Decodes, downscales and re-encodes the image. Must be called off the main thread.
+     * The returned image's buffer should be given back to the pool once uploaded.
+     *
+     * @param uri Content or file URI of the image
+     * @return The prepared image
+     * @throws IOException If the image can't be read or decoded
+     */
+    public PreparedImage prepare(Uri uri) throws IOException {
+        // Read the bounds first so the full resolution bitmap is never allocated
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        try (InputStream input = open(uri)) {
+            BitmapFactory.decodeStream(input, null, options);
+        }
+        int sourceWidth = options.outWidth;
+        int sourceHeight = options.outHeight;
+        if (sourceWidth <= 0 || sourceHeight <= 0) {
+            throw new IOException("Unable to decode image bounds");
+        }
+
+        int rotationDegrees = readRotationDegrees(uri);
+
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = ImageSizing.calculateInSampleSize(sourceWidth, sourceHeight, maxLongEdge);
+        Bitmap sampled;
+        try (InputStream input = open(uri)) {
+            sampled = BitmapFactory.decodeStream(input, null, options);
+        }
+        if (sampled == null) {
+            throw new IOException("Unable to decode image");
+        }
+
+        Bitmap upright = scaleAndRotate(sampled, maxLongEdge, rotationDegrees);
+        boolean swapped = rotationDegrees == 90 || rotationDegrees == 270;
+        try {
+            return encode(upright, swapped ? sourceHeight : sourceWidth, swapped ? sourceWidth : sourceHeight);
+        } finally {
+            upright.recycle();
+        }
+    }
+
+    /**
+     * Reads the bytes of a local image. Must be called off the main thread.
+     *
+     * @param uri Content or file URI of the image
+     * @throws IOException If the image can't be read
+     */
+    public EncodedImage read(Uri uri) throws IOException {
+        try (InputStream input = open(uri)) {
+            return EncodedImage.read(input, -1);
+        }
+    }
+
+    /**
+     * Decodes an image once for display and upload. Must be called off the main thread.
+     *
+     * @param encoded            The image's bytes
+     * @param maxDisplayLongEdge Long edge the bitmap is downsampled to
+     * @return The image with an upright bitmap of at most the display size
+     * @throws IOException If the image can't be decoded
+     */
+    public SourceImage decode(EncodedImage encoded, int maxDisplayLongEdge) throws IOException {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(encoded.getData(), 0, encoded.getLength(), options);
+        int sourceWidth = options.outWidth;
+        int sourceHeight = options.outHeight;
+        if (sourceWidth <= 0 || sourceHeight <= 0) {
+            throw new IOException("Unable to decode image bounds");
+        }
+
+        int rotationDegrees;
+        try (InputStream input = encoded.newInputStream()) {
+            rotationDegrees = readRotationDegrees(input);
+        }
+
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = ImageSizing.calculateInSampleSize(sourceWidth, sourceHeight, maxDisplayLongEdge);
+        Bitmap sampled = BitmapFactory.decodeByteArray(encoded.getData(), 0, encoded.getLength(), options);
+        if (sampled == null) {
+            throw new IOException("Unable to decode image");
+        }
+
+        Bitmap upright = scaleAndRotate(sampled, maxDisplayLongEdge, rotationDegrees);
+        boolean swapped = rotationDegrees == 90 || rotationDegrees == 270;
+        return new SourceImage(encoded, upright,
+                swapped ? sourceHeight : sourceWidth,
+                swapped ? sourceWidth : sourceHeight,
+                rotationDegrees);
+    }
+
+    /**
+     * Prepares a decoded image for upload. Small upright JPEGs are uploaded without
+     * re-encoding, sharing the source's bytes unless metadata has to be stripped, see
+     * {@link JpegMetadata}; everything else is downscaled from the decoded bitmap and
+     * re-encoded, which drops the metadata as well. The source's bitmap is left untouched, so it can still be displayed.
+     * Must be called off the main thread.
+     *
+     * @throws IOException If the image can't be encoded
+     */
+    public PreparedImage prepare(SourceImage source) throws IOException {
+        EncodedImage encoded = source.getEncoded();
+        if (encoded.isJpeg() && source.getRotationDegrees() == 0
+                && Math.max(source.getWidth(), source.getHeight()) <= maxLongEdge) {
+            // Re-encoded below if the metadata can't be found
+            EncodedImage stripped = JpegMetadata.strip(encoded);
+            if (stripped != null) {
+                return new PreparedImage(stripped.getData(), stripped.getLength(), source.getWidth(), source.getHeight());
+            }
+        }
+
+        Bitmap bitmap = source.getBitmap();
+        float scale = ImageSizing.scaleToFit(bitmap.getWidth(), bitmap.getHeight(), maxLongEdge);
+        if (scale == 1f) {
+            return encode(bitmap, source.getWidth(), source.getHeight());
+        }
+        Bitmap scaled = Bitmap.createScaledBitmap(bitmap,
+                ImageSizing.scaleDimension(bitmap.getWidth(), scale),
+                ImageSizing.scaleDimension(bitmap.getHeight(), scale), true);
+        try {
+            return encode(scaled, source.getWidth(), source.getHeight());
+        } finally {
+            scaled.recycle();
+        }
+    }
+
+    /**
+     * Scales the bitmap so its long edge is at most the given size and rotates it upright.
+     * Recycles the input if a new bitmap was created.
+     */
+    private static Bitmap scaleAndRotate(Bitmap sampled, int maxEdge, int rotationDegrees) {
+        float scale = ImageSizing.scaleToFit(sampled.getWidth(), sampled.getHeight(), maxEdge);
+        if (scale == 1f && rotationDegrees == 0) {
+            return sampled;
+        }
+        Matrix matrix = new Matrix();
+        matrix.postScale(scale, scale);
+        matrix.postRotate(rotationDegrees);
+        Bitmap upright = Bitmap.createBitmap(sampled, 0, 0, sampled.getWidth(), sampled.getHeight(), matrix, true);
+        if (upright != sampled) {
+            sampled.recycle();
+        }
+        return upright;
+    }
+
+    private PreparedImage encode(Bitmap upright, int originalWidth, int originalHeight) throws IOException {
+        EncodeBufferPool.Buffer buffer = bufferPool.acquire();
+        try {
+            if (!upright.compress(Bitmap.CompressFormat.JPEG, jpegQuality, buffer)) {
+                throw new IOException("Unable to encode image");
+            }
+        } catch (IOException | RuntimeException e) {
+            bufferPool.release(buffer);
+            throw e;
+        }
+        return new PreparedImage(buffer, originalWidth, originalHeight, upright.getWidth(), upright.getHeight());
+    }
+
+    /**
+     * Gives the image's buffer back to the pool once it has been uploaded.
+     */
+    public void release(PreparedImage image) {
+        if (image != null) {
+            bufferPool.release(image.getBuffer());
+        }
+    }
+
+    private int readRotationDegrees(Uri uri) {
+        try (InputStream input = open(uri)) {
+            return readRotationDegrees(input);
+        } catch (IOException e) {
+            // No readable EXIF data, treat the image as upright
+            return 0;
+        }
+    }
+
+    private static int readRotationDegrees(InputStream input) {
+        try {
+            ExifInterface exif = new ExifInterface(input);
+            int orientation = exif.getAttributeInt(ExifInterface.TAG_ORIENTATION,
+                    ExifInterface.ORIENTATION_NORMAL);
+            switch (orientation) {
+                case ExifInterface.ORIENTATION_ROTATE_90:
+                    return 90;
+                case ExifInterface.ORIENTATION_ROTATE_180:
+                    return 180;
+                case ExifInterface.ORIENTATION_ROTATE_270:
+                    return 270;
+                default:
+                    return 0;
+            }
+        } catch (IOException e) {
+            // No readable EXIF data, treat the image as upright
+            return 0;
+        }
+    }
+
+    private InputStream open(Uri uri) throws IOException {
+        InputStream input = contentResolver.openInputStream(uri);
+        if (input == null) {
+            throw new FileNotFoundException("Unable to open " + uri);
+        }
+        return input;
+    }
+}
@@ -0,0 +1,48 @@
+package com.objectdetection.example.preprocess;
+
+/**
+ * Size calculations for downscaling images before upload.
+ */
+public final class ImageSizing {
+
+    private ImageSizing() {
+    }
+
+    /**
+     * Returns the largest power-of-two sample size that keeps the long edge of the
+     * decoded image at or above {@code maxLongEdge}, so the final resize only ever
+     * scales down a little.
+     *
+     * @param width       Source width in pixels
+     * @param height      Source height in pixels
+     * @param maxLongEdge Target long edge in pixels
+     * @return A sample size suitable for {@code BitmapFactory.Options.inSampleSize}
+     */
+    public static int calculateInSampleSize(int width, int height, int maxLongEdge) {
+        int longEdge = Math.max(width, height);
+        int sampleSize = 1;
+        while (longEdge / (sampleSize * 2) >= maxLongEdge) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    /**
+     * Returns the factor that brings the long edge down to {@code maxLongEdge}.
+     * Images that are already small enough are never upscaled.
+     */
+    public static float scaleToFit(int width, int height, int maxLongEdge) {
+        int longEdge = Math.max(width, height);
+        if (longEdge <= maxLongEdge || longEdge == 0) {
+            return 1f;
+        }
+        return (float) maxLongEdge / longEdge;
+    }
+
+    /**
+     * Scales a dimension, never returning less than one pixel.
+     */
+    public static int scaleDimension(int size, float scale) {
+        return Math.max(1, Math.round(size * scale));
+    }
+}
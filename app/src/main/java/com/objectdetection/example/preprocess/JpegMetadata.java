@@ -0,0 +1,83 @@
+package com.objectdetection.example.preprocess;
+
+/**
+ * Removes metadata from JPEGs uploaded without re-encoding.
+ * <p>
+ * Camera photos carry EXIF and XMP data in APP1 segments and IPTC data in APP13 segments:
+ * the device, the capture time and often the GPS location. The server doesn't need any of
+ * it. Segments that affect how the image decodes, such as JFIF (APP0), ICC profiles (APP2)
+ * and Adobe color transforms (APP14), are kept, and the entropy-coded data is copied as is.
+ */
+public final class JpegMetadata {
+
+    private static final int MARKER_TEM = 0x01;
+    private static final int MARKER_RST0 = 0xD0;
+    private static final int MARKER_RST7 = 0xD7;
+    private static final int MARKER_EOI = 0xD9;
+    private static final int MARKER_SOS = 0xDA;
+    private static final int MARKER_APP1 = 0xE1;
+    private static final int MARKER_APP13 = 0xED;
+
+    private JpegMetadata() {
+    }
+
+    /**
+     * Returns the JPEG without its APP1 and APP13 segments.
+     *
+     * @return The image itself if it has none, a stripped copy, or null if the segments
+     * before the image data are malformed
+     */
+    public static EncodedImage strip(EncodedImage jpeg) {
+        if (!jpeg.isJpeg()) {
+            return null;
+        }
+        byte[] data = jpeg.getData();
+        int length = jpeg.getLength();
+        byte[] stripped = null;
+        int strippedLength = 0;
+        int copiedUpTo = 0;
+        int pos = 2;
+        while (true) {
+            if (pos + 2 > length || (data[pos] & 0xFF) != 0xFF) {
+                return null;
+            }
+            int marker = data[pos + 1] & 0xFF;
+            if (marker == 0xFF) {
+                // Fill byte before a marker
+                pos++;
+                continue;
+            }
+            if (marker == MARKER_SOS || marker == MARKER_EOI) {
+                break;
+            }
+            if (marker == MARKER_TEM || (marker >= MARKER_RST0 && marker <= MARKER_RST7)) {
+                // No length or payload
+                pos += 2;
+                continue;
+            }
+            if (pos + 4 > length) {
+                return null;
+            }
+            int segmentLength = (data[pos + 2] & 0xFF) << 8 | (data[pos + 3] & 0xFF);
+            int end = pos + 2 + segmentLength;
+            if (segmentLength < 2 || end > length) {
+                return null;
+            }
+            if (marker == MARKER_APP1 || marker == MARKER_APP13) {
+                if (stripped == null) {
+                    stripped = new byte[length];
+                }
+                System.arraycopy(data, copiedUpTo, stripped, strippedLength, pos - copiedUpTo);
+                strippedLength += pos - copiedUpTo;
+                copiedUpTo = end;
+            }
+            pos = end;
+        }
+        if (stripped == null) {
+            return jpeg;
+        }
+        System.arraycopy(data, copiedUpTo, stripped, strippedLength, length - copiedUpTo);
+        strippedLength += length - copiedUpTo;
+        return new EncodedImage(stripped, strippedLength);
+    }
+}
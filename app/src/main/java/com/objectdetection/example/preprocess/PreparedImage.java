@@ -0,0 +1,101 @@
+package com.objectdetection.example.preprocess;
+
+/**
+ * An image that was downscaled and re-encoded for upload, along with the
+ * dimensions needed to map detection boxes back to the original image. Images that
+ * needed no changes wrap their original bytes instead of a pooled buffer.
+ */
+public class PreparedImage {
+
+    private final EncodeBufferPool.Buffer buffer;
+    private final byte[] jpegData;
+    private final int jpegSize;
+    private final int originalWidth;
+    private final int originalHeight;
+    private final int width;
+    private final int height;
+
+    public PreparedImage(EncodeBufferPool.Buffer jpeg, int originalWidth, int originalHeight,
+                         int width, int height) {
+        this(jpeg, jpeg.array(), jpeg.size(), originalWidth, originalHeight, width, height);
+    }
+
+    /**
+     * Wraps JPEG bytes that are uploaded as they are, e.g. an original image that is small
+     * and upright already.
+     */
+    public PreparedImage(byte[] jpegData, int jpegSize, int width, int height) {
+        this(null, jpegData, jpegSize, width, height, width, height);
+    }
+
+    private PreparedImage(EncodeBufferPool.Buffer buffer, byte[] jpegData, int jpegSize,
+                          int originalWidth, int originalHeight, int width, int height) {
+        this.buffer = buffer;
+        this.jpegData = jpegData;
+        this.jpegSize = jpegSize;
+        this.originalWidth = originalWidth;
+        this.originalHeight = originalHeight;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Encoded JPEG data; only the first {@link #getJpegSize()} bytes of the array are valid.
+     */
+    public byte[] getJpegData() {
+        return jpegData;
+    }
+
+    public int getJpegSize() {
+        return jpegSize;
+    }
+
+    /**
+     * The pooled buffer holding the JPEG, or null if it wraps the original bytes.
+     */
+    public EncodeBufferPool.Buffer getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Width of the upright original image.
+     */
+    public int getOriginalWidth() {
+        return originalWidth;
+    }
+
+    /**
+     * Height of the upright original image.
+     */
+    public int getOriginalHeight() {
+        return originalHeight;
+    }
+
+    /**
+     * Width of the uploaded image.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Height of the uploaded image.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Factor from uploaded x coordinates to original x coordinates.
+     */
+    public float getScaleX() {
+        return (float) originalWidth / width;
+    }
+
+    /**
+     * Factor from uploaded y coordinates to original y coordinates.
+     */
+    public float getScaleY() {
+        return (float) originalHeight / height;
+    }
+}
@@ -0,0 +1,56 @@
+package com.objectdetection.example.preprocess;
+
+import android.graphics.Bitmap;
+
+/**
+ * An image decoded once for both display and upload: its encoded bytes, and an upright
+ * bitmap of at most the display size.
+ */
+public class SourceImage {
+
+    private final EncodedImage encoded;
+    private final Bitmap bitmap;
+    private final int width;
+    private final int height;
+    private final int rotationDegrees;
+
+    public SourceImage(EncodedImage encoded, Bitmap bitmap, int width, int height, int rotationDegrees) {
+        this.encoded = encoded;
+        this.bitmap = bitmap;
+        this.width = width;
+        this.height = height;
+        this.rotationDegrees = rotationDegrees;
+    }
+
+    public EncodedImage getEncoded() {
+        return encoded;
+    }
+
+    /**
+     * The upright image, downsampled to fit the display size.
+     */
+    public Bitmap getBitmap() {
+        return bitmap;
+    }
+
+    /**
+     * Width of the upright original image.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Height of the upright original image.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Clockwise rotation from the encoded image to the upright one, from its EXIF data.
+     */
+    public int getRotationDegrees() {
+        return rotationDegrees;
+    }
+}
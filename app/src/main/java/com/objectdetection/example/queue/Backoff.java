@@ -0,0 +1,59 @@
+package com.objectdetection.example.queue;
+
+import java.util.Random;
+
+/**
+ * Exponential backoff with jitter for retrying queued detections.
+ * <p>
+ * The delay doubles with every failed attempt up to a cap. Half of it is randomized
+ * ("equal jitter") so that many devices coming back online at once don't retry in
+ * lockstep.
+ */
+public class Backoff {
+
+    public static final long DEFAULT_BASE_DELAY_MS = 5_000;
+    public static final long DEFAULT_MAX_DELAY_MS = 30 * 60 * 1000;
+
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final Random random;
+
+    public Backoff() {
+        this(DEFAULT_BASE_DELAY_MS, DEFAULT_MAX_DELAY_MS, new Random());
+    }
+
+    public Backoff(long baseDelayMs, long maxDelayMs, Random random) {
+        if (baseDelayMs <= 0 || maxDelayMs < baseDelayMs) {
+            throw new IllegalArgumentException("Invalid backoff delays");
+        }
+        this.baseDelayMs = baseDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.random = random;
+    }
+
+    /**
+     * Returns the upper bound of the delay after the given number of failed attempts.
+     */
+    public long maxDelayMs(int attempts) {
+        if (attempts < 1) {
+            return 0;
+        }
+        int shift = Math.min(attempts - 1, 30);
+        long delay = baseDelayMs << shift;
+        return delay > maxDelayMs || delay < 0 ? maxDelayMs : delay;
+    }
+
+    /**
+     * Returns the delay before the next attempt, between half of and the full
+     * {@link #maxDelayMs(int)}.
+     *
+     * @param attempts Number of failed attempts so far
+     */
+    public long delayMs(int attempts) {
+        long max = maxDelayMs(attempts);
+        long half = max / 2;
+        synchronized (random) {
+            return half + (long) (random.nextDouble() * (max - half));
+        }
+    }
+}
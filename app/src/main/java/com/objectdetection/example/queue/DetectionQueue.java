@@ -0,0 +1,296 @@
+package com.objectdetection.example.queue;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.Uri;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.objectdetection.example.cache.DetectionCache;
+import com.objectdetection.example.history.DetectionHistoryStore;
+import com.objectdetection.example.net.DetectionApiClient;
+import com.objectdetection.example.net.DetectionApiClients;
+import com.objectdetection.example.net.WireFormat;
+import com.objectdetection.example.preprocess.PreparedImage;
+import com.objectdetection.example.util.DetectionResults;
+import com.objectdetection.sdk.ImageDetector;
+import com.objectdetection.sdk.listener.ImageDetectionListener;
+import com.objectdetection.sdk.model.DetectionResult;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deferred detections for images that could not be sent, e.g. without signal.
+ * <p>
+ * Jobs are kept in a durable {@link JobQueue} and drained by a single background worker
+ * with up to {@link #BATCH_SIZE} concurrent requests. The worker claims due jobs and
+ * returns without waiting for them; each finished request frees its slot and wakes the
+ * worker again, and a job in flight is never sent a second time. The worker only runs
+ * while the device has a network; it is woken when a network becomes available and
+ * otherwise sleeps until the next job is due. Failed attempts are retried with exponential
+ * {@link Backoff}, so repeated failures don't hammer the API. Results go to the
+ * {@link DetectionHistoryStore} and the {@link DetectionCache}, so opening the image again
+ * shows the result without another request.
+ */
+public class DetectionQueue {
+    private static final String TAG = "DetectionQueue";
+
+    public static final int BATCH_SIZE = 4;
+    // Attempts before a job is given up, roughly a week at the maximum backoff
+    public static final int MAX_ATTEMPTS = 40;
+
+    private static final String DIRECTORY_NAME = "detection-queue";
+
+    private static DetectionQueue instance;
+
+    private final Context appContext;
+    private final JobQueue jobQueue;
+    private final Backoff backoff = new Backoff();
+    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor();
+    private final ConnectivityManager connectivityManager;
+
+    private boolean started;
+    private volatile boolean online;
+    private ScheduledFuture<?> scheduledDrain;
+    private long scheduledDrainAtMs = Long.MAX_VALUE;
+    // Only used on the worker thread
+    private DetectionApiClient apiClient;
+    private String apiClientUrl;
+    private WireFormat apiClientFormat;
+
+    /**
+     * Returns the process-wide queue, stored in the app's files directory.
+     *
+     * @throws IOException If the queue can't be opened
+     */
+    public static synchronized DetectionQueue getInstance(Context context) throws IOException {
+        if (instance == null) {
+            Context appContext = context.getApplicationContext();
+            instance = new DetectionQueue(appContext,
+                    new JobQueue(new File(appContext.getFilesDir(), DIRECTORY_NAME)));
+        }
+        return instance;
+    }
+
+    private DetectionQueue(Context appContext, JobQueue jobQueue) {
+        this.appContext = appContext;
+        this.jobQueue = jobQueue;
+        this.connectivityManager = appContext.getSystemService(ConnectivityManager.class);
+    }
+
+    /**
+     * Starts watching connectivity and draining jobs left from earlier runs. Safe to call
+     * more than once.
+     */
+    public synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        online = connectivityManager.getActiveNetwork() != null;
+        connectivityManager.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+            @Override
+            public void onAvailable(@NonNull Network network) {
+                online = true;
+                scheduleDrain(0);
+            }
+
+            @Override
+            public void onLost(@NonNull Network network) {
+                online = false;
+            }
+        });
+        scheduleDrain(0);
+    }
+
+    /**
+     * Queues a prepared image whose upload failed. Copies the JPEG to disk, so the image
+     * can be released afterwards. Must be called off the main thread.
+     *
+     * @param source   URI of the original image
+     * @param cacheKey Detection cache key of the image, or null
+     * @param prepared The prepared image
+     * @return true if the image was queued
+     */
+    public boolean enqueueImage(Uri source, String cacheKey, PreparedImage prepared) {
+        try {
+            jobQueue.addImage(source.toString(), cacheKey, prepared.getJpegData(), 0, prepared.getJpegSize(),
+                    prepared.getScaleX(), prepared.getScaleY(),
+                    prepared.getOriginalWidth(), prepared.getOriginalHeight(), System.currentTimeMillis());
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to queue image", e);
+            return false;
+        }
+        start();
+        scheduleDrain(backoff.delayMs(1));
+        return true;
+    }
+
+    /**
+     * Queues a remote image whose detection failed. Must be called off the main thread.
+     *
+     * @param url      URL of the image
+     * @param cacheKey Detection cache key of the image, or null
+     * @return true if the URL was queued
+     */
+    public boolean enqueueUrl(String url, String cacheKey) {
+        try {
+            jobQueue.addUrl(url, cacheKey, System.currentTimeMillis());
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to queue URL", e);
+            return false;
+        }
+        start();
+        scheduleDrain(backoff.delayMs(1));
+        return true;
+    }
+
+    /**
+     * Makes the worker drain after the delay, unless a drain is already scheduled sooner.
+     */
+    private synchronized void scheduleDrain(long delayMs) {
+        long atMs = System.currentTimeMillis() + Math.max(delayMs, 0);
+        if (scheduledDrain != null && !scheduledDrain.isDone() && scheduledDrainAtMs <= atMs) {
+            return;
+        }
+        if (scheduledDrain != null) {
+            scheduledDrain.cancel(false);
+        }
+        scheduledDrainAtMs = atMs;
+        scheduledDrain = worker.schedule(this::drain, Math.max(delayMs, 0), TimeUnit.MILLISECONDS);
+    }
+
+    private void drain() {
+        synchronized (this) {
+            scheduledDrainAtMs = Long.MAX_VALUE;
+        }
+        if (!online) {
+            // Woken again by the network callback
+            return;
+        }
+        if (!ImageDetector.isInitialized()) {
+            scheduleDrain(Backoff.DEFAULT_MAX_DELAY_MS);
+            return;
+        }
+
+        int slots = BATCH_SIZE - jobQueue.getInFlightCount();
+        if (slots <= 0) {
+            // Woken again as requests finish
+            return;
+        }
+        long nowMs = System.currentTimeMillis();
+        List<PendingJob> due = jobQueue.claimDueJobs(nowMs, slots);
+        if (due.isEmpty()) {
+            long nextAtMs = jobQueue.getNextAttemptAtMs();
+            if (nextAtMs != Long.MAX_VALUE) {
+                scheduleDrain(nextAtMs - nowMs);
+            }
+            return;
+        }
+
+        DetectionApiClient client = getApiClient();
+        for (PendingJob job : due) {
+            submit(client, job);
+        }
+    }
+
+    private void submit(DetectionApiClient client, final PendingJob job) {
+        ImageDetectionListener listener = new ImageDetectionListener() {
+            @Override
+            public void onResult(DetectionResult result) {
+                try {
+                    deliver(job, result);
+                } finally {
+                    // Frees a slot; more jobs may be due already, otherwise this schedules the next wake-up
+                    scheduleDrain(0);
+                }
+            }
+
+            @Override
+            public void onError(Exception e) {
+                try {
+                    retryOrDrop(job, e);
+                } finally {
+                    scheduleDrain(0);
+                }
+            }
+        };
+
+        if (job.getType() == PendingJob.TYPE_URL) {
+            client.detectUrl(job.getSource(), listener);
+            return;
+        }
+        byte[] jpeg;
+        try {
+            jpeg = jobQueue.readPayload(job);
+        } catch (IOException e) {
+            Log.e(TAG, "Queued image " + job.getId() + " is unreadable, dropping it", e);
+            remove(job);
+            scheduleDrain(0);
+            return;
+        }
+        client.detectJpeg(jpeg, listener);
+    }
+
+    private void deliver(PendingJob job, DetectionResult result) {
+        // A response from the server is final, only transport failures are retried
+        remove(job);
+        if (!result.isSuccess()) {
+            Log.w(TAG, "Queued detection " + job.getId() + " failed: " + result.getError());
+            return;
+        }
+        DetectionResult mapped = DetectionResults.scaleBoxes(result, job.getScaleX(), job.getScaleY());
+        DetectionHistoryStore.getInstance(appContext).record(job.getSource(), mapped,
+                job.getImageWidth(), job.getImageHeight(), System.currentTimeMillis());
+        if (job.getCacheKey() != null) {
+            try {
+                DetectionCache.getInstance(appContext.getCacheDir())
+                        .put(job.getCacheKey(), mapped, job.getImageWidth(), job.getImageHeight());
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to write detection cache", e);
+            }
+        }
+    }
+
+    private void retryOrDrop(PendingJob job, Exception e) {
+        int attempts = job.getAttempts() + 1;
+        if (attempts >= MAX_ATTEMPTS) {
+            Log.w(TAG, "Giving up on queued detection " + job.getId() + " after " + attempts + " attempts", e);
+            remove(job);
+            return;
+        }
+        try {
+            jobQueue.retryLater(job, System.currentTimeMillis() + backoff.delayMs(attempts));
+        } catch (IOException ioe) {
+            Log.e(TAG, "Failed to record retry of " + job.getId(), ioe);
+        }
+    }
+
+    private void remove(PendingJob job) {
+        try {
+            jobQueue.remove(job);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to remove queued detection " + job.getId(), e);
+        }
+    }
+
+    private DetectionApiClient getApiClient() {
+        // The API URL and wire format can be changed in the settings while jobs are pending
+        String apiUrl = ImageDetector.getApiUrl();
+        WireFormat format = DetectionApiClients.getWireFormat(appContext);
+        if (apiClient == null || !apiUrl.equals(apiClientUrl) || format != apiClientFormat) {
+            apiClient = DetectionApiClients.create(appContext, apiUrl);
+            apiClientUrl = apiUrl;
+            apiClientFormat = format;
+        }
+        return apiClient;
+    }
+}
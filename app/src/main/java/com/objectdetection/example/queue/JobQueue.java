@@ -0,0 +1,409 @@
+package com.objectdetection.example.queue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Durable queue of pending detections, backed by an append-only log.
+ * <p>
+ * Every change (job added, attempt failed, job removed) is appended to the log as a
+ * length-prefixed, checksummed record and synced to disk before the call returns, so
+ * queued work survives process death. Opening the queue replays the log; a torn record
+ * at the end, left by a crash mid-write, is cut off. Image payloads are stored next to the
+ * log, one file per job. Once most records are obsolete the log is compacted by rewriting
+ * the live jobs into a new file.
+ */
+public class JobQueue {
+
+    private static final String LOG_NAME = "jobs.log";
+    private static final String PAYLOAD_SUFFIX = ".jpg";
+
+    private static final byte OP_ADD = 1;
+    private static final byte OP_RETRY = 2;
+    private static final byte OP_REMOVE = 3;
+
+    // Compact once the log holds this many records and is mostly obsolete
+    private static final int COMPACT_MIN_RECORDS = 64;
+    private static final int HEADER_SIZE = 8;
+
+    private final File directory;
+    private final File logFile;
+    // Insertion ordered, so jobs are retried in the order they were queued
+    private final LinkedHashMap<Long, PendingJob> jobs = new LinkedHashMap<>();
+    private final ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+    private final CRC32 crc = new CRC32();
+    // Ids of jobs claimed for an attempt that hasn't finished; not persisted, so jobs in
+    // flight when the process dies are due again when the queue is reopened
+    private final Set<Long> inFlight = new HashSet<>();
+
+    private FileOutputStream log;
+    private long nextId = 1;
+    private int logRecords;
+
+    /**
+     * Opens the queue stored in the given directory, creating it if needed.
+     *
+     * @throws IOException If the directory or log can't be created
+     */
+    public JobQueue(File directory) throws IOException {
+        this.directory = directory;
+        this.logFile = new File(directory, LOG_NAME);
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create " + directory);
+        }
+        replay();
+        deleteOrphanPayloads();
+        log = new FileOutputStream(logFile, true);
+    }
+
+    /**
+     * Queues an already prepared image.
+     *
+     * @param source      URI of the original image, kept for the history
+     * @param cacheKey    Detection cache key of the image, or null
+     * @param jpeg        Array holding the encoded image, copied to disk
+     * @param offset      Start of the image in the array
+     * @param length      Number of bytes of the image
+     * @param scaleX      Factor mapping uploaded boxes back to the original width
+     * @param scaleY      Factor mapping uploaded boxes back to the original height
+     * @param imageWidth  Width of the original image
+     * @param imageHeight Height of the original image
+     * @param nowMs       Wall clock time
+     * @return The queued job
+     * @throws IOException If the job could not be stored
+     */
+    public synchronized PendingJob addImage(String source, String cacheKey, byte[] jpeg, int offset, int length,
+                                            float scaleX, float scaleY, int imageWidth, int imageHeight,
+                                            long nowMs) throws IOException {
+        PendingJob job = new PendingJob(nextId, PendingJob.TYPE_IMAGE, source, cacheKey, nowMs,
+                scaleX, scaleY, imageWidth, imageHeight);
+        // The payload goes first; a payload without an ADD record is cleaned up on the next open
+        writePayload(job, jpeg, offset, length);
+        try {
+            append(encodeAdd(job));
+        } catch (IOException e) {
+            deletePayload(job);
+            throw e;
+        }
+        nextId++;
+        jobs.put(job.getId(), job);
+        return job;
+    }
+
+    /**
+     * Queues a remote image URL.
+     *
+     * @param url      URL of the image
+     * @param cacheKey Detection cache key of the image, or null
+     * @param nowMs    Wall clock time
+     * @return The queued job
+     * @throws IOException If the job could not be stored
+     */
+    public synchronized PendingJob addUrl(String url, String cacheKey, long nowMs) throws IOException {
+        PendingJob job = new PendingJob(nextId, PendingJob.TYPE_URL, url, cacheKey, nowMs, 1f, 1f, 0, 0);
+        append(encodeAdd(job));
+        nextId++;
+        jobs.put(job.getId(), job);
+        return job;
+    }
+
+    /**
+     * Returns up to {@code max} due jobs that are not in flight, oldest first, and marks
+     * them in flight until they are retried or removed.
+     */
+    public synchronized List<PendingJob> claimDueJobs(long nowMs, int max) {
+        List<PendingJob> due = new ArrayList<>(Math.min(max, jobs.size()));
+        for (PendingJob job : jobs.values()) {
+            if (due.size() >= max) {
+                break;
+            }
+            if (job.getNextAttemptAtMs() <= nowMs && !inFlight.contains(job.getId())) {
+                due.add(job);
+            }
+        }
+        for (PendingJob job : due) {
+            inFlight.add(job.getId());
+        }
+        return due;
+    }
+
+    /**
+     * Returns the number of claimed jobs not retried or removed yet.
+     */
+    public synchronized int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * Returns the earliest time a job not in flight is due, or {@link Long#MAX_VALUE} if
+     * there is none.
+     */
+    public synchronized long getNextAttemptAtMs() {
+        long next = Long.MAX_VALUE;
+        for (PendingJob job : jobs.values()) {
+            if (!inFlight.contains(job.getId())) {
+                next = Math.min(next, job.getNextAttemptAtMs());
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Records a failed attempt and when to try again, ending the attempt in flight.
+     */
+    public synchronized void retryLater(PendingJob job, long nextAttemptAtMs) throws IOException {
+        inFlight.remove(job.getId());
+        if (!jobs.containsKey(job.getId())) {
+            return;
+        }
+        int attempts = job.getAttempts() + 1;
+        append(encodeRetry(job.getId(), attempts, nextAttemptAtMs));
+        job.setRetry(attempts, nextAttemptAtMs);
+    }
+
+    /**
+     * Removes a finished or abandoned job and its payload.
+     */
+    public synchronized void remove(PendingJob job) throws IOException {
+        inFlight.remove(job.getId());
+        if (jobs.remove(job.getId()) == null) {
+            return;
+        }
+        append(encodeRemove(job.getId()));
+        deletePayload(job);
+        compactIfNeeded();
+    }
+
+    /**
+     * Reads the JPEG payload of an image job.
+     */
+    public byte[] readPayload(PendingJob job) throws IOException {
+        File file = payloadFile(job.getId());
+        byte[] data = new byte[(int) file.length()];
+        try (DataInputStream input = new DataInputStream(new FileInputStream(file))) {
+            input.readFully(data);
+        }
+        return data;
+    }
+
+    public synchronized int size() {
+        return jobs.size();
+    }
+
+    /**
+     * Closes the log. The queue must not be used afterwards.
+     */
+    public synchronized void close() throws IOException {
+        log.close();
+    }
+
+    private void replay() throws IOException {
+        if (!logFile.isFile()) {
+            return;
+        }
+        long validLength = 0;
+        try (DataInputStream input = new DataInputStream(new FileInputStream(logFile))) {
+            while (true) {
+                int length;
+                try {
+                    length = input.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                int checksum = input.readInt();
+                if (length <= 0 || length > logFile.length()) {
+                    break;
+                }
+                byte[] record = new byte[length];
+                input.readFully(record);
+                crc.reset();
+                crc.update(record, 0, length);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                apply(record);
+                validLength += HEADER_SIZE + length;
+                logRecords++;
+            }
+        } catch (EOFException e) {
+            // Torn record at the end, handled below
+        }
+
+        if (validLength < logFile.length()) {
+            try (RandomAccessFile file = new RandomAccessFile(logFile, "rw")) {
+                file.setLength(validLength);
+            }
+        }
+    }
+
+    private void apply(byte[] record) throws IOException {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(record));
+        byte op = input.readByte();
+        long id = input.readLong();
+        nextId = Math.max(nextId, id + 1);
+        switch (op) {
+            case OP_ADD: {
+                int type = input.readByte();
+                long createdAtMs = input.readLong();
+                String source = input.readUTF();
+                String cacheKey = input.readBoolean() ? input.readUTF() : null;
+                PendingJob job = new PendingJob(id, type, source, cacheKey, createdAtMs,
+                        input.readFloat(), input.readFloat(), input.readInt(), input.readInt());
+                if (type != PendingJob.TYPE_IMAGE || payloadFile(id).isFile()) {
+                    jobs.put(id, job);
+                }
+                break;
+            }
+            case OP_RETRY: {
+                PendingJob job = jobs.get(id);
+                int attempts = input.readInt();
+                long nextAttemptAtMs = input.readLong();
+                if (job != null) {
+                    job.setRetry(attempts, nextAttemptAtMs);
+                }
+                break;
+            }
+            case OP_REMOVE:
+                jobs.remove(id);
+                break;
+            default:
+                throw new IOException("Unknown record type " + op);
+        }
+    }
+
+    private void deleteOrphanPayloads() {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        Set<String> live = new HashSet<>();
+        for (PendingJob job : jobs.values()) {
+            live.add(payloadFile(job.getId()).getName());
+        }
+        for (File file : files) {
+            if (file.getName().endsWith(PAYLOAD_SUFFIX) && !live.contains(file.getName())) {
+                file.delete();
+            }
+        }
+    }
+
+    private void compactIfNeeded() throws IOException {
+        if (logRecords < COMPACT_MIN_RECORDS || logRecords < jobs.size() * 4) {
+            return;
+        }
+        File temp = new File(directory, LOG_NAME + ".tmp");
+        int records = 0;
+        try (FileOutputStream output = new FileOutputStream(temp)) {
+            for (PendingJob job : jobs.values()) {
+                output.write(encodeAdd(job));
+                records++;
+                if (job.getAttempts() > 0) {
+                    output.write(encodeRetry(job.getId(), job.getAttempts(), job.getNextAttemptAtMs()));
+                    records++;
+                }
+            }
+            output.getFD().sync();
+        }
+        log.close();
+        if (!temp.renameTo(logFile)) {
+            temp.delete();
+            log = new FileOutputStream(logFile, true);
+            throw new IOException("Unable to compact " + logFile);
+        }
+        log = new FileOutputStream(logFile, true);
+        logRecords = records;
+    }
+
+    private void append(byte[] record) throws IOException {
+        log.write(record);
+        log.getFD().sync();
+        logRecords++;
+    }
+
+    private byte[] encodeAdd(PendingJob job) throws IOException {
+        DataOutputStream output = beginRecord(OP_ADD, job.getId());
+        output.writeByte(job.getType());
+        output.writeLong(job.getCreatedAtMs());
+        output.writeUTF(job.getSource());
+        output.writeBoolean(job.getCacheKey() != null);
+        if (job.getCacheKey() != null) {
+            output.writeUTF(job.getCacheKey());
+        }
+        output.writeFloat(job.getScaleX());
+        output.writeFloat(job.getScaleY());
+        output.writeInt(job.getImageWidth());
+        output.writeInt(job.getImageHeight());
+        return endRecord();
+    }
+
+    private byte[] encodeRetry(long id, int attempts, long nextAttemptAtMs) throws IOException {
+        DataOutputStream output = beginRecord(OP_RETRY, id);
+        output.writeInt(attempts);
+        output.writeLong(nextAttemptAtMs);
+        return endRecord();
+    }
+
+    private byte[] encodeRemove(long id) throws IOException {
+        beginRecord(OP_REMOVE, id);
+        return endRecord();
+    }
+
+    private DataOutputStream beginRecord(byte op, long id) throws IOException {
+        recordBytes.reset();
+        // Room for the length and checksum, filled in by endRecord
+        recordBytes.write(new byte[HEADER_SIZE]);
+        DataOutputStream output = new DataOutputStream(recordBytes);
+        output.writeByte(op);
+        output.writeLong(id);
+        return output;
+    }
+
+    private byte[] endRecord() {
+        byte[] record = recordBytes.toByteArray();
+        int length = record.length - HEADER_SIZE;
+        crc.reset();
+        crc.update(record, HEADER_SIZE, length);
+        writeInt(record, 0, length);
+        writeInt(record, 4, (int) crc.getValue());
+        return record;
+    }
+
+    private static void writeInt(byte[] target, int offset, int value) {
+        target[offset] = (byte) (value >>> 24);
+        target[offset + 1] = (byte) (value >>> 16);
+        target[offset + 2] = (byte) (value >>> 8);
+        target[offset + 3] = (byte) value;
+    }
+
+    private void writePayload(PendingJob job, byte[] data, int offset, int length) throws IOException {
+        File file = payloadFile(job.getId());
+        try (FileOutputStream output = new FileOutputStream(file)) {
+            output.write(data, offset, length);
+            output.getFD().sync();
+        }
+    }
+
+    private void deletePayload(PendingJob job) {
+        if (job.getType() == PendingJob.TYPE_IMAGE) {
+            payloadFile(job.getId()).delete();
+        }
+    }
+
+    private File payloadFile(long id) {
+        return new File(directory, id + PAYLOAD_SUFFIX);
+    }
+}
@@ -0,0 +1,120 @@
+package com.objectdetection.example.queue;
+
+/**
+ * A detection waiting in the {@link JobQueue}.
+ * <p>
+ * Image jobs carry the already prepared (downscaled) JPEG as a payload file, so they
+ * don't depend on a content URI grant that may be gone after a restart. URL jobs only
+ * carry the URL.
+ */
+public class PendingJob {
+
+    public static final int TYPE_IMAGE = 1;
+    public static final int TYPE_URL = 2;
+
+    private final long id;
+    private final int type;
+    private final String source;
+    private final String cacheKey;
+    private final long createdAtMs;
+    private final float scaleX;
+    private final float scaleY;
+    private final int imageWidth;
+    private final int imageHeight;
+
+    private int attempts;
+    private long nextAttemptAtMs;
+
+    PendingJob(long id, int type, String source, String cacheKey, long createdAtMs,
+               float scaleX, float scaleY, int imageWidth, int imageHeight) {
+        this.id = id;
+        this.type = type;
+        this.source = source;
+        this.cacheKey = cacheKey;
+        this.createdAtMs = createdAtMs;
+        this.scaleX = scaleX;
+        this.scaleY = scaleY;
+        this.imageWidth = imageWidth;
+        this.imageHeight = imageHeight;
+        this.nextAttemptAtMs = createdAtMs;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Either {@link #TYPE_IMAGE} or {@link #TYPE_URL}.
+     */
+    public int getType() {
+        return type;
+    }
+
+    /**
+     * The image URI the job was created from, or the image URL for URL jobs.
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Detection cache key to store the result under, or null.
+     */
+    public String getCacheKey() {
+        return cacheKey;
+    }
+
+    /**
+     * Wall clock time the job was queued.
+     */
+    public long getCreatedAtMs() {
+        return createdAtMs;
+    }
+
+    /**
+     * Factor mapping boxes of the uploaded image back to the original image horizontally.
+     */
+    public float getScaleX() {
+        return scaleX;
+    }
+
+    /**
+     * Factor mapping boxes of the uploaded image back to the original image vertically.
+     */
+    public float getScaleY() {
+        return scaleY;
+    }
+
+    /**
+     * Width of the original image, 0 if unknown.
+     */
+    public int getImageWidth() {
+        return imageWidth;
+    }
+
+    /**
+     * Height of the original image, 0 if unknown.
+     */
+    public int getImageHeight() {
+        return imageHeight;
+    }
+
+    /**
+     * Number of failed attempts so far.
+     */
+    public synchronized int getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * Wall clock time before which the job should not be retried.
+     */
+    public synchronized long getNextAttemptAtMs() {
+        return nextAttemptAtMs;
+    }
+
+    synchronized void setRetry(int attempts, long nextAttemptAtMs) {
+        this.attempts = attempts;
+        this.nextAttemptAtMs = nextAttemptAtMs;
+    }
+}
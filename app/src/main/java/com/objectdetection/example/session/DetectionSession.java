@@ -0,0 +1,225 @@
+package com.objectdetection.example.session;
+
+import com.objectdetection.sdk.model.DetectionResult;
+
+/**
+ * The detection of one image, kept while the screen showing it is recreated, e.g. on
+ * rotation.
+ * <p>
+ * {@link #start(String)} only lets the first request for a source through, so a recreated
+ * screen joins the detection still in flight instead of starting another one. The
+ * outcome is kept: a screen attaching after success gets the result again from memory,
+ * and a failure is reported to every screen that attaches until one of them has shown it
+ * and called {@link #acknowledgeFailure(Exception)}, so it isn't lost when the screen it
+ * was sent to goes away before showing it. The image loaded for the detection is
+ * kept as well, so it is displayed again without another load. Callbacks may arrive on
+ * any thread and are delivered on it.
+ *
+ * @param <I> Type of the displayed image
+ */
+public class DetectionSession<I> {
+
+    public enum State { IDLE, RUNNING, SUCCEEDED, FAILED }
+
+    /**
+     * Receives the image and the outcome of the detection.
+     */
+    public interface Observer<I> {
+        /**
+         * Called once the image is loaded, before the outcome.
+         */
+        void onImage(I image);
+
+        /**
+         * @param imageWidth  Width of the image the boxes refer to, 0 if unknown
+         * @param imageHeight Height of the image the boxes refer to, 0 if unknown
+         */
+        void onResult(DetectionResult result, int imageWidth, int imageHeight);
+
+        /**
+         * @param queued Whether the image was queued to be detected later
+         */
+        void onFailure(Exception error, boolean queued);
+    }
+
+    private State state = State.IDLE;
+    private String source;
+    private I image;
+    private DetectionResult result;
+    private int imageWidth;
+    private int imageHeight;
+    private Exception error;
+    private boolean queued;
+    private boolean failureDelivered;
+    private Observer<I> observer;
+    private boolean closed;
+    private int startedCount;
+    private int joinedCount;
+
+    /**
+     * Claims the detection of a source.
+     *
+     * @param source Identifies the image, e.g. its URI
+     * @return true if the caller must run the detection, false if it is already running
+     * or finished for this source
+     */
+    public synchronized boolean start(String source) {
+        if (closed) {
+            return false;
+        }
+        if (state != State.IDLE && source.equals(this.source)) {
+            joinedCount++;
+            return false;
+        }
+        this.source = source;
+        state = State.RUNNING;
+        image = null;
+        result = null;
+        error = null;
+        failureDelivered = false;
+        startedCount++;
+        return true;
+    }
+
+    /**
+     * Publishes the image loaded for the running detection. Ignored once closed.
+     */
+    public void publishImage(I image) {
+        Observer<I> target;
+        synchronized (this) {
+            if (closed || state != State.RUNNING) {
+                return;
+            }
+            this.image = image;
+            target = observer;
+        }
+        if (target != null) {
+            target.onImage(image);
+        }
+    }
+
+    /**
+     * Finishes the running detection with a result. Ignored once closed.
+     */
+    public void complete(DetectionResult result, int imageWidth, int imageHeight) {
+        Observer<I> target;
+        synchronized (this) {
+            if (closed || state != State.RUNNING) {
+                return;
+            }
+            state = State.SUCCEEDED;
+            this.result = result;
+            this.imageWidth = imageWidth;
+            this.imageHeight = imageHeight;
+            target = observer;
+        }
+        if (target != null) {
+            target.onResult(result, imageWidth, imageHeight);
+        }
+    }
+
+    /**
+     * Finishes the running detection with an error. Ignored once closed.
+     */
+    public void fail(Exception error, boolean queued) {
+        Observer<I> target;
+        synchronized (this) {
+            if (closed || state != State.RUNNING) {
+                return;
+            }
+            state = State.FAILED;
+            this.error = error;
+            this.queued = queued;
+            target = observer;
+        }
+        if (target != null) {
+            target.onFailure(error, queued);
+        }
+    }
+
+    /**
+     * Marks the failure as shown, so observers attaching later don't get it again. Call
+     * once the failure was shown to the user.
+     *
+     * @param error The error that was shown; ignored unless it is the current failure
+     */
+    public synchronized void acknowledgeFailure(Exception error) {
+        if (state == State.FAILED && error == this.error) {
+            failureDelivered = true;
+        }
+    }
+
+    /**
+     * Sets the observer, replacing the previous one. A loaded image and a finished result
+     * are delivered to it right away, as is a failure not acknowledged yet.
+     *
+     * @return The state at the time of attaching
+     */
+    public State attach(Observer<I> observer) {
+        State current;
+        I loaded;
+        boolean deliverFailure;
+        DetectionResult finished;
+        int width;
+        int height;
+        Exception failure;
+        boolean failureQueued;
+        synchronized (this) {
+            this.observer = observer;
+            current = state;
+            loaded = image;
+            deliverFailure = state == State.FAILED && !failureDelivered;
+            finished = result;
+            width = imageWidth;
+            height = imageHeight;
+            failure = error;
+            failureQueued = queued;
+        }
+        if (loaded != null) {
+            observer.onImage(loaded);
+        }
+        if (current == State.SUCCEEDED) {
+            observer.onResult(finished, width, height);
+        } else if (deliverFailure) {
+            observer.onFailure(failure, failureQueued);
+        }
+        return current;
+    }
+
+    /**
+     * Removes the observer, unless another one has replaced it already.
+     */
+    public synchronized void detach(Observer<I> observer) {
+        if (this.observer == observer) {
+            this.observer = null;
+        }
+    }
+
+    /**
+     * Drops the observer and the image, and ignores the outcome of running detections.
+     */
+    public synchronized void close() {
+        closed = true;
+        observer = null;
+        image = null;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Returns the number of detections started.
+     */
+    public synchronized int getStartedCount() {
+        return startedCount;
+    }
+
+    /**
+     * Returns the number of requests that joined a running or finished detection instead
+     * of starting one.
+     */
+    public synchronized int getJoinedCount() {
+        return joinedCount;
+    }
+}
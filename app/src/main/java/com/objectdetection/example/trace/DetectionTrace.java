@@ -0,0 +1,97 @@
+package com.objectdetection.example.trace;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Timestamps of one detection at each {@link TraceStage}, on the {@link System#nanoTime()}
+ * clock.
+ * <p>
+ * Stages are stamped by whichever thread reaches them. The stages of one detection are
+ * reached one after another, each handing the detection to the next thread through an
+ * executor, callback or lock, so plain fields are enough. A stage keeps its first stamp.
+ */
+public class DetectionTrace {
+
+    private final String pipeline;
+    private final long[] stampsNanos = new long[TraceStage.COUNT];
+    private final AtomicBoolean finished = new AtomicBoolean();
+
+    /**
+     * Starts a trace captured now.
+     *
+     * @param pipeline Name of the pipeline the detection belongs to, e.g. "live"
+     */
+    public DetectionTrace(String pipeline) {
+        this(pipeline, System.nanoTime());
+    }
+
+    public DetectionTrace(String pipeline, long capturedAtNanos) {
+        this.pipeline = pipeline;
+        stampsNanos[TraceStage.CAPTURED.ordinal()] = capturedAtNanos;
+    }
+
+    public String getPipeline() {
+        return pipeline;
+    }
+
+    /**
+     * Stamps the stage now, unless it was stamped before.
+     */
+    public void mark(TraceStage stage) {
+        markAt(stage, System.nanoTime());
+    }
+
+    public void markAt(TraceStage stage, long nanos) {
+        int index = stage.ordinal();
+        if (stampsNanos[index] == 0) {
+            stampsNanos[index] = nanos;
+        }
+    }
+
+    public boolean hasReached(TraceStage stage) {
+        return stampsNanos[stage.ordinal()] != 0;
+    }
+
+    /**
+     * Returns the time from the previous stage reached to this one.
+     *
+     * @return The duration in nanoseconds, or -1 if the stage wasn't reached
+     */
+    public long getStageNanos(TraceStage stage) {
+        int index = stage.ordinal();
+        if (index == 0 || stampsNanos[index] == 0) {
+            return -1;
+        }
+        for (int previous = index - 1; previous >= 0; previous--) {
+            if (stampsNanos[previous] != 0) {
+                return Math.max(0, stampsNanos[index] - stampsNanos[previous]);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the time from capture to the last stage reached.
+     */
+    public long getTotalNanos() {
+        for (int index = TraceStage.COUNT - 1; index > 0; index--) {
+            if (stampsNanos[index] != 0) {
+                return Math.max(0, stampsNanos[index] - stampsNanos[0]);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Marks the trace finished.
+     *
+     * @return true the first time, so a trace is recorded once
+     */
+    boolean finish() {
+        return finished.compareAndSet(false, true);
+    }
+
+    public boolean isFinished() {
+        return finished.get();
+    }
+}
@@ -0,0 +1,139 @@
+package com.objectdetection.example.trace;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log-linear histogram of latencies in microseconds, in the style of HdrHistogram.
+ * <p>
+ * Values below {@link #SUB_BUCKET_COUNT} are counted exactly. Above that, every power of
+ * two is split into {@code SUB_BUCKET_COUNT / 2} equal buckets, so any value is reported
+ * within about 3% however large it is, in a fixed {@value #BUCKET_COUNT} counters.
+ * Values above {@link #MAX_VALUE_MICROS} are clamped to it.
+ * <p>
+ * One thread records, any thread reads: counters are updated with ordered plain writes,
+ * never locks or compare-and-set loops. Readers see a consistent-enough view for
+ * percentiles; {@link #addTo(LatencyHistogram)} into a private histogram to query a
+ * stable copy.
+ */
+public class LatencyHistogram {
+
+    static final int SUB_BUCKET_BITS = 6;
+    static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT / 2;
+    // About 19 hours; anything longer is a stuck detection, not a latency
+    private static final int MAX_MSB = 35;
+    public static final long MAX_VALUE_MICROS = (1L << (MAX_MSB + 1)) - 1;
+    public static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (MAX_MSB - SUB_BUCKET_BITS + 1) * SUB_BUCKET_HALF;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    /**
+     * Records a latency. Must only be called by the owning thread.
+     */
+    public void recordMicros(long micros) {
+        long value = Math.min(Math.max(micros, 0), MAX_VALUE_MICROS);
+        int index = bucketIndex(value);
+        counts.lazySet(index, counts.get(index) + 1);
+        totalMicros.lazySet(totalMicros.get() + value);
+        if (value > maxMicros.get()) {
+            maxMicros.lazySet(value);
+        }
+        // Last, so a reader that sees the count also sees the value
+        count.set(count.get() + 1);
+    }
+
+    /**
+     * Adds this histogram's counts to another one, which must not be recorded into
+     * concurrently.
+     */
+    public void addTo(LatencyHistogram target) {
+        long added = count.get();
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long bucket = counts.get(i);
+            if (bucket != 0) {
+                target.counts.lazySet(i, target.counts.get(i) + bucket);
+            }
+        }
+        target.totalMicros.lazySet(target.totalMicros.get() + totalMicros.get());
+        target.maxMicros.lazySet(Math.max(target.maxMicros.get(), maxMicros.get()));
+        target.count.set(target.count.get() + added);
+    }
+
+    /**
+     * Clears all counts. Must only be called by the owning thread.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.lazySet(i, 0);
+        }
+        totalMicros.lazySet(0);
+        maxMicros.lazySet(0);
+        count.set(0);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMaxMicros() {
+        return maxMicros.get();
+    }
+
+    public double getMeanMicros() {
+        long n = count.get();
+        return n > 0 ? (double) totalMicros.get() / n : 0;
+    }
+
+    /**
+     * Returns the latency at or below which the given share of the values lie, as the
+     * highest value of its bucket but never above the maximum recorded.
+     *
+     * @param percentile Percentile between 0 and 100
+     * @return The latency in microseconds, or 0 if nothing was recorded
+     */
+    public long getPercentileMicros(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100");
+        }
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += counts.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(i), maxMicros.get());
+            }
+        }
+        return maxMicros.get();
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        int shift = msb - (SUB_BUCKET_BITS - 1);
+        int subBucket = (int) (value >>> shift);
+        return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF + (subBucket - SUB_BUCKET_HALF);
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int offset = index - SUB_BUCKET_COUNT;
+        int shift = offset / SUB_BUCKET_HALF + 1;
+        long subBucket = offset % SUB_BUCKET_HALF + SUB_BUCKET_HALF;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
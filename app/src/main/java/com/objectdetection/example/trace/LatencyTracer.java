@@ -0,0 +1,136 @@
+package com.objectdetection.example.trace;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Collects finished {@link DetectionTrace}s into per-stage {@link LatencyHistogram}s, per
+ * pipeline.
+ * <p>
+ * Every thread that finishes traces records into its own histograms, so recording never
+ * waits for another thread or for a reader. {@link #snapshot()} merges the histograms of
+ * all threads into a {@link TraceReport}. {@link #reset()} is lock-free as well: each
+ * thread clears its own histograms the next time it records.
+ */
+public final class LatencyTracer {
+
+    public static final String PIPELINE_LIVE = "live";
+    public static final String PIPELINE_STILL = "still";
+
+    // Histogram of the whole detection, after the per-stage ones
+    static final int TOTAL_INDEX = TraceStage.COUNT;
+    private static final TraceStage[] STAGES = TraceStage.values();
+
+    private static LatencyTracer instance;
+
+    private final CopyOnWriteArrayList<Recorder> recorders = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<Recorder> localRecorder = new ThreadLocal<Recorder>() {
+        @Override
+        protected Recorder initialValue() {
+            Recorder recorder = new Recorder(epoch);
+            recorders.add(recorder);
+            return recorder;
+        }
+    };
+    private volatile int epoch;
+
+    public static synchronized LatencyTracer getInstance() {
+        if (instance == null) {
+            instance = new LatencyTracer();
+        }
+        return instance;
+    }
+
+    /**
+     * Starts a trace captured now.
+     */
+    public DetectionTrace start(String pipeline) {
+        return new DetectionTrace(pipeline);
+    }
+
+    /**
+     * Records the stage times of a trace. Later calls for the same trace are ignored, as
+     * are null traces.
+     */
+    public void finish(DetectionTrace trace) {
+        if (trace == null || !trace.finish()) {
+            return;
+        }
+        localRecorder.get().record(trace, epoch);
+    }
+
+    /**
+     * Merges the histograms of all threads.
+     */
+    public TraceReport snapshot() {
+        int current = epoch;
+        Map<String, LatencyHistogram[]> merged = new TreeMap<>();
+        for (Recorder recorder : recorders) {
+            if (recorder.epoch != current) {
+                // Reset since it last recorded
+                continue;
+            }
+            for (Map.Entry<String, LatencyHistogram[]> entry : recorder.pipelines.entrySet()) {
+                LatencyHistogram[] target = merged.get(entry.getKey());
+                if (target == null) {
+                    target = newHistograms();
+                    merged.put(entry.getKey(), target);
+                }
+                LatencyHistogram[] source = entry.getValue();
+                for (int i = 0; i < source.length; i++) {
+                    source[i].addTo(target[i]);
+                }
+            }
+        }
+        return new TraceReport(merged, System.currentTimeMillis());
+    }
+
+    /**
+     * Drops everything recorded so far.
+     */
+    public synchronized void reset() {
+        epoch++;
+    }
+
+    private static LatencyHistogram[] newHistograms() {
+        LatencyHistogram[] histograms = new LatencyHistogram[TraceStage.COUNT + 1];
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+        return histograms;
+    }
+
+    /**
+     * The histograms one thread records into.
+     */
+    private static final class Recorder {
+        final ConcurrentHashMap<String, LatencyHistogram[]> pipelines = new ConcurrentHashMap<>();
+        volatile int epoch;
+
+        Recorder(int epoch) {
+            this.epoch = epoch;
+        }
+
+        void record(DetectionTrace trace, int currentEpoch) {
+            if (epoch != currentEpoch) {
+                // Pipelines not traced since the reset must not show up either
+                pipelines.clear();
+                epoch = currentEpoch;
+            }
+            LatencyHistogram[] histograms = pipelines.get(trace.getPipeline());
+            if (histograms == null) {
+                histograms = newHistograms();
+                pipelines.put(trace.getPipeline(), histograms);
+            }
+            for (TraceStage stage : STAGES) {
+                long nanos = trace.getStageNanos(stage);
+                if (nanos >= 0) {
+                    histograms[stage.ordinal()].recordMicros(nanos / 1000);
+                }
+            }
+            histograms[TOTAL_INDEX].recordMicros(trace.getTotalNanos() / 1000);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.objectdetection.example.trace;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A snapshot of the stage latencies of every pipeline, as a readable table for the debug
+ * screen or CSV for export.
+ */
+public class TraceReport {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final Map<String, LatencyHistogram[]> pipelines;
+    private final long createdAtMs;
+
+    TraceReport(Map<String, LatencyHistogram[]> pipelines, long createdAtMs) {
+        this.pipelines = pipelines;
+        this.createdAtMs = createdAtMs;
+    }
+
+    /**
+     * Names of the pipelines that recorded traces, sorted.
+     */
+    public List<String> getPipelines() {
+        return Collections.unmodifiableList(new ArrayList<>(pipelines.keySet()));
+    }
+
+    /**
+     * Returns the time spent reaching a stage, or null if the pipeline recorded nothing.
+     */
+    public LatencyHistogram getStage(String pipeline, TraceStage stage) {
+        LatencyHistogram[] histograms = pipelines.get(pipeline);
+        return histograms != null ? histograms[stage.ordinal()] : null;
+    }
+
+    /**
+     * Returns the time from capture to the last stage, or null if the pipeline recorded
+     * nothing.
+     */
+    public LatencyHistogram getTotal(String pipeline) {
+        LatencyHistogram[] histograms = pipelines.get(pipeline);
+        return histograms != null ? histograms[LatencyTracer.TOTAL_INDEX] : null;
+    }
+
+    /**
+     * Wall clock time the snapshot was taken.
+     */
+    public long getCreatedAtMs() {
+        return createdAtMs;
+    }
+
+    /**
+     * Formats the report as a fixed-width table per pipeline, in milliseconds.
+     */
+    public String toText() {
+        if (pipelines.isEmpty()) {
+            return "No detections traced yet";
+        }
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, LatencyHistogram[]> entry : pipelines.entrySet()) {
+            LatencyHistogram[] histograms = entry.getValue();
+            if (builder.length() > 0) {
+                builder.append('\n');
+            }
+            builder.append(entry.getKey()).append(": ")
+                    .append(histograms[LatencyTracer.TOTAL_INDEX].getCount()).append(" detections\n");
+            builder.append(String.format(Locale.US, "%-13s%7s%8s%8s%8s%8s%8s%n",
+                    "stage (ms)", "count", "p50", "p90", "p99", "p99.9", "max"));
+            for (TraceStage stage : TraceStage.values()) {
+                if (stage != TraceStage.CAPTURED) {
+                    appendRow(builder, stage.getLabel(), histograms[stage.ordinal()]);
+                }
+            }
+            appendRow(builder, "total", histograms[LatencyTracer.TOTAL_INDEX]);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Formats the report as CSV with one row per pipeline and stage, in milliseconds.
+     */
+    public String toCsv() {
+        StringBuilder builder = new StringBuilder("pipeline,stage,count,mean_ms,p50_ms,p90_ms,p99_ms,p99_9_ms,max_ms\n");
+        for (Map.Entry<String, LatencyHistogram[]> entry : pipelines.entrySet()) {
+            LatencyHistogram[] histograms = entry.getValue();
+            for (TraceStage stage : TraceStage.values()) {
+                if (stage != TraceStage.CAPTURED) {
+                    appendCsvRow(builder, entry.getKey(), stage.getLabel(), histograms[stage.ordinal()]);
+                }
+            }
+            appendCsvRow(builder, entry.getKey(), "total", histograms[LatencyTracer.TOTAL_INDEX]);
+        }
+        return builder.toString();
+    }
+
+    private static void appendRow(StringBuilder builder, String label, LatencyHistogram histogram) {
+        builder.append(String.format(Locale.US, "%-13s%7d", label, histogram.getCount()));
+        for (double percentile : PERCENTILES) {
+            builder.append(String.format(Locale.US, "%8.1f", histogram.getPercentileMicros(percentile) / 1000.0));
+        }
+        builder.append(String.format(Locale.US, "%8.1f%n", histogram.getMaxMicros() / 1000.0));
+    }
+
+    private static void appendCsvRow(StringBuilder builder, String pipeline, String label,
+                                     LatencyHistogram histogram) {
+        builder.append(pipeline).append(',').append(label).append(',').append(histogram.getCount())
+                .append(String.format(Locale.US, ",%.3f", histogram.getMeanMicros() / 1000.0));
+        for (double percentile : PERCENTILES) {
+            builder.append(String.format(Locale.US, ",%.3f", histogram.getPercentileMicros(percentile) / 1000.0));
+        }
+        builder.append(String.format(Locale.US, ",%.3f%n", histogram.getMaxMicros() / 1000.0));
+    }
+}
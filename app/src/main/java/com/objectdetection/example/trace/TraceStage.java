@@ -0,0 +1,39 @@
+package com.objectdetection.example.trace;
+
+/**
+ * The points a detection passes on its way from the camera or gallery to the screen,
+ * in order. The time of a stage is measured from the previous stage that was reached,
+ * so a stage a path doesn't have (e.g. the network on a local detection) is folded into
+ * the next one.
+ */
+public enum TraceStage {
+    /** The frame was captured, or the still image was requested. Starts the trace. */
+    CAPTURED("capture"),
+    /** The image was converted, scaled and encoded for upload. */
+    PREPROCESSED("preprocess"),
+    /** The request started going out. Includes waiting for a connection. */
+    REQUEST_SENT("send"),
+    /** The first byte of the response arrived: upload, server inference and network. */
+    FIRST_BYTE("first byte"),
+    /** The response was read and parsed into a result, or the on-device detector finished. */
+    PARSED("parse"),
+    /** Duplicates were suppressed and objects tracked or filtered. */
+    POST_PROCESSED("post-process"),
+    /** The overlay was drawn with the result. Ends the trace. */
+    DRAWN("draw");
+
+    public static final int COUNT = values().length;
+
+    private final String label;
+
+    TraceStage(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Short name for reports.
+     */
+    public String getLabel() {
+        return label;
+    }
+}
@@ -0,0 +1,296 @@
+package com.objectdetection.example.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compact binary wire format of detection requests and results, negotiated with the API
+ * in place of multipart uploads and JSON results.
+ * <p>
+ * A request body is a 12 byte header followed by the JPEG:
+ * <pre>
+ *   int32 magic    "ODQ1"
+ *   int32 flags    reserved, 0
+ *   int32 length   JPEG length in bytes
+ * </pre>
+ * A result is a 16 byte header, the table of labels it uses and the detections as packed
+ * arrays:
+ * <pre>
+ *   int32  magic             "ODR1"
+ *   int32  processingTimeMs
+ *   int32  count             number of detections
+ *   uint16 labelCount
+ *   uint8  flags             bit 0: an error message follows the label table
+ *   uint8  reserved
+ *   labelCount x (uint8 length, UTF-8 label)
+ *   [uint16 length, UTF-8 error]
+ *   count x float32          confidences
+ *   count x 4 x float32      boxes as xMin, yMin, xMax, yMax
+ *   count x uint16           label ids, indexes into the label table or 0xFFFF for none
+ * </pre>
+ * All values are big-endian, as in the live stream's frames. A detection takes 22 bytes
+ * where its JSON takes over 100, and once the decoder's input array has grown to the
+ * largest result, results decode into a {@link DetectionBuffer} without allocating.
+ * Decoders are not thread-safe; use {@link #forCurrentThread()} or one per thread.
+ */
+public final class BinaryDetectionCodec {
+
+    public static final String REQUEST_CONTENT_TYPE = "application/vnd.objectdetection.frame";
+    public static final String RESULT_CONTENT_TYPE = "application/vnd.objectdetection.result";
+    public static final int REQUEST_MAGIC = 0x4F445131; // "ODQ1"
+    public static final int RESULT_MAGIC = 0x4F445231;  // "ODR1"
+    public static final int REQUEST_HEADER_SIZE = 12;
+    public static final int RESULT_HEADER_SIZE = 16;
+
+    static final int NO_LABEL = 0xFFFF;
+    private static final int FLAG_ERROR = 1;
+    private static final int BYTES_PER_DETECTION = 4 + 16 + 2;
+    private static final int MAX_LABEL_BYTES = 0xFF;
+    private static final int MAX_ERROR_BYTES = 0xFFFF;
+    private static final int INITIAL_INPUT_SIZE = 4 * 1024;
+
+    private static final ThreadLocal<BinaryDetectionCodec> THREAD_CODEC = new ThreadLocal<BinaryDetectionCodec>() {
+        @Override
+        protected BinaryDetectionCodec initialValue() {
+            return new BinaryDetectionCodec();
+        }
+    };
+
+    private byte[] input = new byte[INITIAL_INPUT_SIZE];
+    private String[] labelTable = new String[16];
+    private final LabelCache labelCache = new LabelCache();
+
+    /**
+     * Returns the decoder of the calling thread.
+     */
+    public static BinaryDetectionCodec forCurrentThread() {
+        return THREAD_CODEC.get();
+    }
+
+    /**
+     * Encodes the header sent in front of a JPEG.
+     *
+     * @param jpegLength Length of the JPEG that follows
+     */
+    public static byte[] encodeRequestHeader(int jpegLength) {
+        byte[] header = new byte[REQUEST_HEADER_SIZE];
+        ByteBuffer.wrap(header)
+                .putInt(REQUEST_MAGIC)
+                .putInt(0)
+                .putInt(jpegLength);
+        return header;
+    }
+
+    /**
+     * Validates a request body.
+     *
+     * @param body   Array holding the body
+     * @param offset Start of the body in the array
+     * @param length Length of the body
+     * @return The JPEG's offset in the array
+     * @throws IOException If the body is not a request or its length doesn't match the header
+     */
+    public static int decodeRequest(byte[] body, int offset, int length) throws IOException {
+        if (length < REQUEST_HEADER_SIZE) {
+            throw new IOException("Truncated detection request header");
+        }
+        int magic = getInt(body, offset);
+        if (magic != REQUEST_MAGIC) {
+            throw new IOException("Unexpected detection request type 0x" + Integer.toHexString(magic));
+        }
+        int jpegLength = getInt(body, offset + 8);
+        if (jpegLength < 0 || jpegLength != length - REQUEST_HEADER_SIZE) {
+            throw new IOException("Detection request length " + jpegLength + " does not match "
+                    + (length - REQUEST_HEADER_SIZE) + " image bytes");
+        }
+        return offset + REQUEST_HEADER_SIZE;
+    }
+
+    /**
+     * Encodes a result. Labels are stored once each, in order of first use.
+     *
+     * @throws IllegalArgumentException If a label is longer than 255 bytes or the error
+     *                                  longer than 65535 bytes in UTF-8
+     */
+    public static byte[] encodeResult(DetectionBuffer result) {
+        int count = result.size();
+        Map<String, Integer> labelIds = new LinkedHashMap<>();
+        int labelBytes = 0;
+        for (int i = 0; i < count; i++) {
+            String label = result.getLabel(i);
+            if (label != null && !labelIds.containsKey(label)) {
+                int length = label.getBytes(StandardCharsets.UTF_8).length;
+                if (length > MAX_LABEL_BYTES) {
+                    throw new IllegalArgumentException("Label of " + length + " bytes: " + label);
+                }
+                if (labelIds.size() == NO_LABEL) {
+                    throw new IllegalArgumentException("More than " + NO_LABEL + " labels");
+                }
+                labelIds.put(label, labelIds.size());
+                labelBytes += 1 + length;
+            }
+        }
+        byte[] error = result.getError() != null ? result.getError().getBytes(StandardCharsets.UTF_8) : null;
+        if (error != null && error.length > MAX_ERROR_BYTES) {
+            throw new IllegalArgumentException("Error of " + error.length + " bytes");
+        }
+
+        int size = RESULT_HEADER_SIZE + labelBytes + (error != null ? 2 + error.length : 0)
+                + count * BYTES_PER_DETECTION;
+        ByteBuffer out = ByteBuffer.allocate(size)
+                .putInt(RESULT_MAGIC)
+                .putInt((int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, result.getProcessingTimeMs())))
+                .putInt(count)
+                .putShort((short) labelIds.size())
+                .put((byte) (error != null ? FLAG_ERROR : 0))
+                .put((byte) 0);
+        for (String label : labelIds.keySet()) {
+            byte[] bytes = label.getBytes(StandardCharsets.UTF_8);
+            out.put((byte) bytes.length).put(bytes);
+        }
+        if (error != null) {
+            out.putShort((short) error.length).put(error);
+        }
+        for (int i = 0; i < count; i++) {
+            out.putFloat(result.getConfidence(i));
+        }
+        for (int i = 0; i < count; i++) {
+            out.putFloat(result.getXMin(i))
+                    .putFloat(result.getYMin(i))
+                    .putFloat(result.getXMax(i))
+                    .putFloat(result.getYMax(i));
+        }
+        for (int i = 0; i < count; i++) {
+            String label = result.getLabel(i);
+            out.putShort((short) (label != null ? labelIds.get(label) : NO_LABEL));
+        }
+        return out.array();
+    }
+
+    /**
+     * Reads a result from a stream to its end, replacing the buffer's contents. The stream
+     * is not closed.
+     *
+     * @see #read(byte[], int, int, DetectionBuffer)
+     */
+    public void read(InputStream in, DetectionBuffer out) throws IOException {
+        int length = 0;
+        while (true) {
+            if (length == input.length) {
+                input = Arrays.copyOf(input, input.length * 2);
+            }
+            int count = in.read(input, length, input.length - length);
+            if (count < 0) {
+                break;
+            }
+            length += count;
+        }
+        read(input, 0, length, out);
+    }
+
+    /**
+     * Decodes a result, replacing the buffer's contents. Repeated labels are the same
+     * instances across results.
+     *
+     * @param data   Array holding the result
+     * @param offset Start of the result in the array
+     * @param length Length of the result
+     * @param out    Receives the result; its contents are undefined if decoding fails
+     * @throws IOException If the input is not a well-formed result
+     */
+    public void read(byte[] data, int offset, int length, DetectionBuffer out) throws IOException {
+        int end = offset + length;
+        if (length < RESULT_HEADER_SIZE) {
+            throw truncated();
+        }
+        int magic = getInt(data, offset);
+        if (magic != RESULT_MAGIC) {
+            throw new IOException("Unexpected detection result type 0x" + Integer.toHexString(magic));
+        }
+        int processingTimeMs = getInt(data, offset + 4);
+        int count = getInt(data, offset + 8);
+        int labelCount = getUnsignedShort(data, offset + 12);
+        int flags = data[offset + 14] & 0xFF;
+        if (count < 0) {
+            throw new IOException("Negative detection count " + count);
+        }
+
+        int pos = offset + RESULT_HEADER_SIZE;
+        if (labelCount > labelTable.length) {
+            labelTable = new String[Math.max(labelCount, labelTable.length * 2)];
+        }
+        for (int i = 0; i < labelCount; i++) {
+            if (pos == end) {
+                throw truncated();
+            }
+            int labelLength = data[pos++] & 0xFF;
+            if (labelLength > end - pos) {
+                throw truncated();
+            }
+            labelTable[i] = labelCache.get(data, pos, pos + labelLength);
+            pos += labelLength;
+        }
+        String error = null;
+        if ((flags & FLAG_ERROR) != 0) {
+            if (end - pos < 2) {
+                throw truncated();
+            }
+            int errorLength = getUnsignedShort(data, pos);
+            pos += 2;
+            if (errorLength > end - pos) {
+                throw truncated();
+            }
+            error = new String(data, pos, errorLength, StandardCharsets.UTF_8);
+            pos += errorLength;
+        }
+        if ((long) count * BYTES_PER_DETECTION != end - pos) {
+            throw new IOException("Detection result of " + count + " detections has "
+                    + (end - pos) + " bytes of detections");
+        }
+
+        out.clear();
+        out.setProcessingTimeMs(processingTimeMs);
+        out.setError(error);
+        out.ensureCapacity(count);
+        int boxes = pos + count * 4;
+        int labelIds = boxes + count * 16;
+        for (int i = 0; i < count; i++) {
+            int labelId = getUnsignedShort(data, labelIds + i * 2);
+            String label = null;
+            if (labelId != NO_LABEL) {
+                if (labelId >= labelCount) {
+                    throw new IOException("Label id " + labelId + " outside the table of " + labelCount);
+                }
+                label = labelTable[labelId];
+            }
+            int box = boxes + i * 16;
+            out.add(label, getFloat(data, pos + i * 4),
+                    getFloat(data, box), getFloat(data, box + 4),
+                    getFloat(data, box + 8), getFloat(data, box + 12));
+        }
+    }
+
+    private static IOException truncated() {
+        return new IOException("Truncated detection result");
+    }
+
+    private static int getInt(byte[] data, int pos) {
+        return (data[pos] & 0xFF) << 24
+                | (data[pos + 1] & 0xFF) << 16
+                | (data[pos + 2] & 0xFF) << 8
+                | (data[pos + 3] & 0xFF);
+    }
+
+    private static int getUnsignedShort(byte[] data, int pos) {
+        return (data[pos] & 0xFF) << 8 | (data[pos + 1] & 0xFF);
+    }
+
+    private static float getFloat(byte[] data, int pos) {
+        return Float.intBitsToFloat(getInt(data, pos));
+    }
+}
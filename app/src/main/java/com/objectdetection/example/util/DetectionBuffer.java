@@ -0,0 +1,196 @@
+package com.objectdetection.example.util;
+
+import java.util.Arrays;
+
+/**
+ * Growable, reusable store of detections in primitive arrays.
+ * <p>
+ * Boxes are kept as {@code xMin, yMin, xMax, yMax} quadruples in a single float array.
+ * Clearing the buffer keeps its capacity, so a buffer that is reused for every result
+ * stops allocating once it has grown to the largest result seen.
+ */
+public class DetectionBuffer {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Track id of a detection that does not belong to a track.
+     */
+    public static final long NO_TRACK = -1;
+
+    private int count;
+    private String[] labels;
+    private float[] confidences;
+    private float[] boxes;
+    private long[] trackIds;
+
+    private long processingTimeMs;
+    private String error;
+    private int imageWidth;
+    private int imageHeight;
+
+    public DetectionBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public DetectionBuffer(int capacity) {
+        labels = new String[capacity];
+        confidences = new float[capacity];
+        boxes = new float[capacity * 4];
+        trackIds = new long[capacity];
+    }
+
+    /**
+     * Removes all detections and metadata, keeping the allocated capacity.
+     */
+    public void clear() {
+        Arrays.fill(labels, 0, count, null);
+        count = 0;
+        processingTimeMs = 0;
+        error = null;
+        imageWidth = 0;
+        imageHeight = 0;
+    }
+
+    /**
+     * Appends a detection, growing the arrays if needed.
+     *
+     * @return The index of the new detection
+     */
+    public int add(String label, float confidence, float xMin, float yMin, float xMax, float yMax) {
+        ensureCapacity(count + 1);
+        int index = count++;
+        labels[index] = label;
+        confidences[index] = confidence;
+        int offset = index * 4;
+        boxes[offset] = xMin;
+        boxes[offset + 1] = yMin;
+        boxes[offset + 2] = xMax;
+        boxes[offset + 3] = yMax;
+        trackIds[index] = NO_TRACK;
+        return index;
+    }
+
+    /**
+     * Copies all detections and metadata from another buffer.
+     */
+    public void copyFrom(DetectionBuffer other) {
+        clear();
+        ensureCapacity(other.count);
+        System.arraycopy(other.labels, 0, labels, 0, other.count);
+        System.arraycopy(other.confidences, 0, confidences, 0, other.count);
+        System.arraycopy(other.boxes, 0, boxes, 0, other.count * 4);
+        System.arraycopy(other.trackIds, 0, trackIds, 0, other.count);
+        count = other.count;
+        processingTimeMs = other.processingTimeMs;
+        error = other.error;
+        imageWidth = other.imageWidth;
+        imageHeight = other.imageHeight;
+    }
+
+    public void ensureCapacity(int capacity) {
+        if (capacity <= labels.length) return;
+        int newCapacity = Math.max(capacity, labels.length * 2);
+        labels = Arrays.copyOf(labels, newCapacity);
+        confidences = Arrays.copyOf(confidences, newCapacity);
+        boxes = Arrays.copyOf(boxes, newCapacity * 4);
+        trackIds = Arrays.copyOf(trackIds, newCapacity);
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public String getLabel(int index) {
+        return labels[index];
+    }
+
+    public void setLabel(int index, String label) {
+        labels[index] = label;
+    }
+
+    public float getConfidence(int index) {
+        return confidences[index];
+    }
+
+    public void setConfidence(int index, float confidence) {
+        confidences[index] = confidence;
+    }
+
+    public float getXMin(int index) {
+        return boxes[index * 4];
+    }
+
+    public float getYMin(int index) {
+        return boxes[index * 4 + 1];
+    }
+
+    public float getXMax(int index) {
+        return boxes[index * 4 + 2];
+    }
+
+    public float getYMax(int index) {
+        return boxes[index * 4 + 3];
+    }
+
+    /**
+     * Id of the track the detection belongs to, or {@link #NO_TRACK}.
+     */
+    public long getTrackId(int index) {
+        return trackIds[index];
+    }
+
+    public void setTrackId(int index, long trackId) {
+        trackIds[index] = trackId;
+    }
+
+    /**
+     * Returns the backing box array ({@code xMin, yMin, xMax, yMax} per detection).
+     * Only the first {@code size() * 4} values are valid.
+     */
+    public float[] getBoxes() {
+        return boxes;
+    }
+
+    /**
+     * Returns the backing confidence array. Only the first {@code size()} values are valid.
+     */
+    public float[] getConfidences() {
+        return confidences;
+    }
+
+    public long getProcessingTimeMs() {
+        return processingTimeMs;
+    }
+
+    public void setProcessingTimeMs(long processingTimeMs) {
+        this.processingTimeMs = processingTimeMs;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    /**
+     * Width of the image the boxes refer to, or 0 if unknown.
+     */
+    public int getImageWidth() {
+        return imageWidth;
+    }
+
+    /**
+     * Height of the image the boxes refer to, or 0 if unknown.
+     */
+    public int getImageHeight() {
+        return imageHeight;
+    }
+
+    public void setImageSize(int width, int height) {
+        this.imageWidth = width;
+        this.imageHeight = height;
+    }
+}
@@ -0,0 +1,21 @@
+package com.objectdetection.example.util;
+
+import com.objectdetection.sdk.listener.ImageDetectionListener;
+
+/**
+ * An {@link ImageDetectionListener} that takes results as a {@link DetectionBuffer}.
+ * <p>
+ * Clients that parse responses themselves stream them into a buffer with
+ * {@link DetectionJsonParser} and call {@link #onDetections} instead of
+ * {@link #onResult}, so no model objects are built for the result. Everything else may
+ * still call {@link #onResult}.
+ */
+public interface DetectionBufferListener extends ImageDetectionListener {
+
+    /**
+     * Called with a successful or failed result instead of {@link #onResult}.
+     *
+     * @param detections The result; only valid during the call, copy what must be kept
+     */
+    void onDetections(DetectionBuffer detections);
+}
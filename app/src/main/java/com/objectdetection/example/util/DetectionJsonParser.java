@@ -0,0 +1,588 @@
+package com.objectdetection.example.util;
+
+import com.google.gson.Gson;
+import com.objectdetection.sdk.model.DetectionResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads detection results from the API's UTF-8 JSON straight into a {@link DetectionBuffer}.
+ * <p>
+ * The parser walks the bytes of a response token by token and writes labels, confidences
+ * and boxes into the buffer as they are read. Field names are matched on the bytes,
+ * numbers are converted without going through strings, repeated labels come from a
+ * small cache and fields the app doesn't use are skipped. Once its input array has grown
+ * to the largest response, a result with hundreds of boxes parses without allocating,
+ * where mapping it onto the SDK's {@link DetectionResult} model builds several objects
+ * per box.
+ * <p>
+ * Input the streaming reader doesn't take (escaped strings, numbers as strings, lenient
+ * JSON, wrong types or malformed input) is read again through the model classes, so
+ * results and errors are the same as before. Not thread-safe; use
+ * {@link #forCurrentThread()} or one parser per thread.
+ */
+public final class DetectionJsonParser {
+
+    private static final Gson GSON = new Gson();
+    private static final ThreadLocal<DetectionJsonParser> THREAD_PARSER = new ThreadLocal<DetectionJsonParser>() {
+        @Override
+        protected DetectionJsonParser initialValue() {
+            return new DetectionJsonParser();
+        }
+    };
+    private static final ThreadLocal<DetectionBuffer> THREAD_BUFFER = new ThreadLocal<DetectionBuffer>() {
+        @Override
+        protected DetectionBuffer initialValue() {
+            return new DetectionBuffer();
+        }
+    };
+
+    private static final int INITIAL_INPUT_SIZE = 16 * 1024;
+    private static final int MAX_SKIP_DEPTH = 32;
+    // A mantissa of up to 15 digits times or over an exact power of ten is correctly rounded
+    private static final int MAX_FAST_DIGITS = 15;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    private static final byte[] NAME_DETECTED_OBJECTS = ascii(DetectionResults.FIELD_DETECTED_OBJECTS);
+    private static final byte[] NAME_PROCESSING_TIME = ascii(DetectionResults.FIELD_PROCESSING_TIME);
+    private static final byte[] NAME_ERROR = ascii(DetectionResults.FIELD_ERROR);
+    private static final byte[] NAME_LABEL = ascii(DetectionResults.FIELD_LABEL);
+    private static final byte[] NAME_CONFIDENCE = ascii(DetectionResults.FIELD_CONFIDENCE);
+    private static final byte[] NAME_BOX = ascii(DetectionResults.FIELD_BOX);
+    private static final byte[] NAME_X_MIN = ascii(DetectionResults.X_FIELDS[0]);
+    private static final byte[] NAME_Y_MIN = ascii(DetectionResults.Y_FIELDS[0]);
+    private static final byte[] NAME_X_MAX = ascii(DetectionResults.X_FIELDS[1]);
+    private static final byte[] NAME_Y_MAX = ascii(DetectionResults.Y_FIELDS[1]);
+    private static final byte[] LITERAL_NULL = ascii("null");
+    private static final byte[] LITERAL_TRUE = ascii("true");
+    private static final byte[] LITERAL_FALSE = ascii("false");
+
+    // Preallocated, the model classes report what is wrong with the input
+    private static final UnsupportedInputException UNSUPPORTED = new UnsupportedInputException();
+
+    private byte[] input = new byte[INITIAL_INPUT_SIZE];
+    private final LabelCache labelCache = new LabelCache();
+    private int modelFallbacks;
+
+    // The input being parsed
+    private byte[] json;
+    private int pos;
+    private int end;
+    // The last string token, without quotes
+    private int tokenStart;
+    private int tokenEnd;
+
+    /**
+     * Returns the parser of the calling thread.
+     */
+    public static DetectionJsonParser forCurrentThread() {
+        return THREAD_PARSER.get();
+    }
+
+    /**
+     * Returns the buffer reused by every result handled on the calling thread. Its contents
+     * are only valid until the thread handles the next result.
+     */
+    public static DetectionBuffer getThreadBuffer() {
+        return THREAD_BUFFER.get();
+    }
+
+    /**
+     * Reads a result from a stream to its end, replacing the buffer's contents. The stream
+     * is not closed.
+     *
+     * @see #read(byte[], int, int, DetectionBuffer)
+     */
+    public boolean read(InputStream in, DetectionBuffer out) throws IOException {
+        int length = 0;
+        while (true) {
+            if (length == input.length) {
+                input = Arrays.copyOf(input, input.length * 2);
+            }
+            int count = in.read(input, length, input.length - length);
+            if (count < 0) {
+                break;
+            }
+            length += count;
+        }
+        return read(input, 0, length, out);
+    }
+
+    /**
+     * Reads a result from the remaining bytes of a byte buffer, replacing the buffer's
+     * contents.
+     *
+     * @see #read(byte[], int, int, DetectionBuffer)
+     */
+    public boolean read(ByteBuffer in, DetectionBuffer out) throws IOException {
+        int length = in.remaining();
+        if (length > input.length) {
+            input = new byte[Math.max(length, input.length * 2)];
+        }
+        in.get(input, 0, length);
+        return read(input, 0, length, out);
+    }
+
+    /**
+     * Reads a result, replacing the buffer's contents. The image size of the buffer is left
+     * unknown.
+     *
+     * @param json   Array holding the UTF-8 JSON of one result
+     * @param offset Start of the JSON in the array
+     * @param length Number of bytes of the JSON
+     * @param out    The buffer to fill
+     * @return true if a result was read, false if the input is empty or {@code null}, in
+     * which case the buffer's contents are undefined
+     * @throws IOException                        If the input is not JSON
+     * @throws com.google.gson.JsonParseException If the input is JSON but not a result
+     */
+    public boolean read(byte[] json, int offset, int length, DetectionBuffer out) throws IOException {
+        if (stream(json, offset, length, out)) {
+            return true;
+        }
+        modelFallbacks++;
+        return readModel(new InputStreamReader(new ByteArrayInputStream(json, offset, length),
+                StandardCharsets.UTF_8), out);
+    }
+
+    /**
+     * Number of inputs this parser left to the model classes.
+     */
+    public int getModelFallbacks() {
+        return modelFallbacks;
+    }
+
+    /**
+     * Reads a result through the SDK model classes into a buffer, replacing the buffer's
+     * contents.
+     *
+     * @param reader The JSON of one result
+     * @param out    The buffer to fill
+     * @return true if a result was read, false if the input is empty
+     * @throws IOException                        If the input can't be read or is not JSON
+     * @throws com.google.gson.JsonParseException If the input is JSON but not a result
+     */
+    public static boolean readModel(Reader reader, DetectionBuffer out) throws IOException {
+        DetectionResult result = GSON.fromJson(reader, DetectionResult.class);
+        if (result == null) {
+            return false;
+        }
+        DetectionResults.toBuffer(result, out);
+        return true;
+    }
+
+    /**
+     * Streams a result into the buffer.
+     *
+     * @return true if read, false if the input must go through the model classes
+     */
+    boolean stream(byte[] json, int offset, int length, DetectionBuffer out) {
+        this.json = json;
+        pos = offset;
+        end = offset + length;
+        try {
+            skipByteOrderMark();
+            skipWhitespace();
+            if (pos == end) {
+                // Empty, up to the model classes to say so
+                return false;
+            }
+            out.clear();
+            readResult(out);
+            return true;
+        } catch (UnsupportedInputException e) {
+            return false;
+        } finally {
+            this.json = null;
+        }
+    }
+
+    private void readResult(DetectionBuffer out) throws UnsupportedInputException {
+        expect('{');
+        boolean first = true;
+        while (nextMember(first)) {
+            first = false;
+            if (nameIs(NAME_DETECTED_OBJECTS)) {
+                readObjects(out);
+            } else if (nameIs(NAME_PROCESSING_TIME)) {
+                out.setProcessingTimeMs(readLong());
+            } else if (nameIs(NAME_ERROR)) {
+                out.setError(readString());
+            } else {
+                skipValue(0);
+            }
+        }
+        skipWhitespace();
+        if (pos != end) {
+            throw UNSUPPORTED;
+        }
+    }
+
+    private void readObjects(DetectionBuffer out) throws UnsupportedInputException {
+        skipWhitespace();
+        if (consume(LITERAL_NULL)) {
+            return;
+        }
+        expect('[');
+        boolean first = true;
+        while (nextElement(first)) {
+            first = false;
+            if (!consume(LITERAL_NULL)) {
+                readObject(out);
+            }
+        }
+    }
+
+    private void readObject(DetectionBuffer out) throws UnsupportedInputException {
+        int index = out.add(null, 0f, 0f, 0f, 0f, 0f);
+        expect('{');
+        boolean first = true;
+        while (nextMember(first)) {
+            first = false;
+            if (nameIs(NAME_LABEL)) {
+                out.setLabel(index, readLabel());
+            } else if (nameIs(NAME_CONFIDENCE)) {
+                out.setConfidence(index, readFloat());
+            } else if (nameIs(NAME_BOX)) {
+                readBox(out.getBoxes(), index * 4);
+            } else {
+                skipValue(0);
+            }
+        }
+    }
+
+    private void readBox(float[] boxes, int offset) throws UnsupportedInputException {
+        skipWhitespace();
+        if (consume(LITERAL_NULL)) {
+            return;
+        }
+        expect('{');
+        boolean first = true;
+        while (nextMember(first)) {
+            first = false;
+            if (nameIs(NAME_X_MIN)) {
+                boxes[offset] = readFloat();
+            } else if (nameIs(NAME_Y_MIN)) {
+                boxes[offset + 1] = readFloat();
+            } else if (nameIs(NAME_X_MAX)) {
+                boxes[offset + 2] = readFloat();
+            } else if (nameIs(NAME_Y_MAX)) {
+                boxes[offset + 3] = readFloat();
+            } else {
+                skipValue(0);
+            }
+        }
+    }
+
+    /**
+     * Moves to the value of the next member of the current object, with its name as the
+     * last string token.
+     *
+     * @return false at the end of the object
+     */
+    private boolean nextMember(boolean first) throws UnsupportedInputException {
+        skipWhitespace();
+        if (consume('}')) {
+            return false;
+        }
+        if (!first) {
+            expect(',');
+            skipWhitespace();
+        }
+        readStringToken();
+        expect(':');
+        return true;
+    }
+
+    /**
+     * Moves to the next element of the current array.
+     *
+     * @return false at the end of the array
+     */
+    private boolean nextElement(boolean first) throws UnsupportedInputException {
+        skipWhitespace();
+        if (consume(']')) {
+            return false;
+        }
+        if (!first) {
+            expect(',');
+            skipWhitespace();
+        }
+        return true;
+    }
+
+    private boolean nameIs(byte[] name) {
+        if (tokenEnd - tokenStart != name.length) {
+            return false;
+        }
+        for (int i = 0; i < name.length; i++) {
+            if (json[tokenStart + i] != name[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String readString() throws UnsupportedInputException {
+        skipWhitespace();
+        if (consume(LITERAL_NULL)) {
+            return null;
+        }
+        readStringToken();
+        return new String(json, tokenStart, tokenEnd - tokenStart, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads a string, reusing the instance of an earlier result with the same bytes.
+     */
+    private String readLabel() throws UnsupportedInputException {
+        skipWhitespace();
+        if (consume(LITERAL_NULL)) {
+            return null;
+        }
+        readStringToken();
+        return labelCache.get(json, tokenStart, tokenEnd);
+    }
+
+    /**
+     * Reads a string without escapes as the last string token.
+     */
+    private void readStringToken() throws UnsupportedInputException {
+        expect('"');
+        int start = pos;
+        while (true) {
+            if (pos == end) {
+                throw UNSUPPORTED;
+            }
+            byte b = json[pos];
+            if (b == '"') {
+                break;
+            }
+            if (b == '\\' || (b >= 0 && b < 0x20)) {
+                throw UNSUPPORTED;
+            }
+            pos++;
+        }
+        tokenStart = start;
+        tokenEnd = pos++;
+    }
+
+    private long readLong() throws UnsupportedInputException {
+        skipWhitespace();
+        if (consume(LITERAL_NULL)) {
+            return 0L;
+        }
+        boolean negative = consume('-');
+        int start = pos;
+        long value = 0;
+        while (pos < end && isDigit(json[pos])) {
+            value = value * 10 + (json[pos++] - '0');
+        }
+        // Fractions and exponents are left to the model classes, as are overflows
+        if (pos == start || pos - start > 18 || (pos < end && isNumberPart(json[pos]))) {
+            throw UNSUPPORTED;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Reads a number like {@code (float) Double.parseDouble(...)} does, the way the model
+     * classes convert floats.
+     */
+    private float readFloat() throws UnsupportedInputException {
+        skipWhitespace();
+        if (consume(LITERAL_NULL)) {
+            return 0f;
+        }
+        int start = pos;
+        boolean negative = consume('-');
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean exact = true;
+
+        int integerStart = pos;
+        while (pos < end && isDigit(json[pos])) {
+            int digit = json[pos++] - '0';
+            if (digits < MAX_FAST_DIGITS) {
+                mantissa = mantissa * 10 + digit;
+                if (mantissa != 0) {
+                    digits++;
+                }
+            } else {
+                exact = false;
+            }
+        }
+        if (pos == integerStart) {
+            throw UNSUPPORTED;
+        }
+        if (consume('.')) {
+            int fractionStart = pos;
+            while (pos < end && isDigit(json[pos])) {
+                int digit = json[pos++] - '0';
+                if (digits < MAX_FAST_DIGITS) {
+                    mantissa = mantissa * 10 + digit;
+                    exponent--;
+                    if (mantissa != 0) {
+                        digits++;
+                    }
+                } else {
+                    exact = false;
+                }
+            }
+            if (pos == fractionStart) {
+                throw UNSUPPORTED;
+            }
+        }
+        if (pos < end && (json[pos] == 'e' || json[pos] == 'E')) {
+            pos++;
+            boolean negativeExponent = consume('-');
+            if (!negativeExponent) {
+                consume('+');
+            }
+            int exponentStart = pos;
+            int value = 0;
+            while (pos < end && isDigit(json[pos])) {
+                value = Math.min(value * 10 + (json[pos++] - '0'), 10_000);
+            }
+            if (pos == exponentStart) {
+                throw UNSUPPORTED;
+            }
+            exponent += negativeExponent ? -value : value;
+        }
+
+        if (exact && exponent >= -22 && exponent <= 22) {
+            double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+            return (float) (negative ? -value : value);
+        }
+        // Long or huge numbers are rare enough for the allocating path
+        return (float) Double.parseDouble(new String(json, start, pos - start, StandardCharsets.US_ASCII));
+    }
+
+    private void skipValue(int depth) throws UnsupportedInputException {
+        if (depth > MAX_SKIP_DEPTH) {
+            throw UNSUPPORTED;
+        }
+        skipWhitespace();
+        if (pos == end) {
+            throw UNSUPPORTED;
+        }
+        byte b = json[pos];
+        if (b == '"') {
+            skipString();
+        } else if (b == '{') {
+            pos++;
+            boolean first = true;
+            while (nextMember(first)) {
+                first = false;
+                skipValue(depth + 1);
+            }
+        } else if (b == '[') {
+            pos++;
+            boolean first = true;
+            while (nextElement(first)) {
+                first = false;
+                skipValue(depth + 1);
+            }
+        } else if (b == '-' || isDigit(b)) {
+            pos++;
+            while (pos < end && isNumberPart(json[pos])) {
+                pos++;
+            }
+        } else if (!consume(LITERAL_NULL) && !consume(LITERAL_TRUE) && !consume(LITERAL_FALSE)) {
+            throw UNSUPPORTED;
+        }
+    }
+
+    /**
+     * Skips a string that may contain escapes.
+     */
+    private void skipString() throws UnsupportedInputException {
+        pos++;
+        while (pos < end) {
+            byte b = json[pos++];
+            if (b == '"') {
+                return;
+            }
+            if (b == '\\') {
+                pos++;
+            }
+        }
+        throw UNSUPPORTED;
+    }
+
+    private void skipWhitespace() {
+        while (pos < end) {
+            byte b = json[pos];
+            if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                return;
+            }
+            pos++;
+        }
+    }
+
+    private void skipByteOrderMark() {
+        if (end - pos >= 3 && json[pos] == (byte) 0xEF && json[pos + 1] == (byte) 0xBB
+                && json[pos + 2] == (byte) 0xBF) {
+            pos += 3;
+        }
+    }
+
+    private void expect(char c) throws UnsupportedInputException {
+        skipWhitespace();
+        if (!consume(c)) {
+            throw UNSUPPORTED;
+        }
+    }
+
+    private boolean consume(char c) {
+        if (pos < end && json[pos] == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean consume(byte[] literal) {
+        if (end - pos < literal.length) {
+            return false;
+        }
+        for (int i = 0; i < literal.length; i++) {
+            if (json[pos + i] != literal[i]) {
+                return false;
+            }
+        }
+        pos += literal.length;
+        return true;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static boolean isNumberPart(byte b) {
+        return isDigit(b) || b == '.' || b == 'e' || b == 'E' || b == '+' || b == '-';
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Input for the model classes to read.
+     */
+    private static final class UnsupportedInputException extends Exception {
+        UnsupportedInputException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.objectdetection.example.util;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.objectdetection.sdk.listener.ImageDetectionListener;
+import com.objectdetection.sdk.model.DetectionResult;
+
+/**
+ * Helpers for working with the SDK's {@link DetectionResult} model.
+ * <p>
+ * The SDK models are plain Gson types that mirror the API's JSON, so derived results
+ * are built through the JSON tree rather than by depending on SDK constructors.
+ */
+public final class DetectionResults {
+
+    static final String FIELD_DETECTED_OBJECTS = "detectedObjects";
+    static final String FIELD_LABEL = "label";
+    static final String FIELD_CONFIDENCE = "confidence";
+    static final String FIELD_BOX = "box";
+    static final String FIELD_PROCESSING_TIME = "processingTimeMs";
+    static final String FIELD_ERROR = "error";
+    static final String[] X_FIELDS = {"xMin", "xMax"};
+    static final String[] Y_FIELDS = {"yMin", "yMax"};
+
+    private static final Gson GSON = new Gson();
+
+    private DetectionResults() {
+    }
+
+    /**
+     * Returns a copy of the result with every box scaled by the given factors.
+     * Results whose boxes are already normalized to [0, 1] don't depend on the image
+     * size and are returned unchanged.
+     *
+     * @param result The result to scale
+     * @param scaleX Factor applied to x coordinates
+     * @param scaleY Factor applied to y coordinates
+     * @return The scaled result
+     */
+    public static DetectionResult scaleBoxes(DetectionResult result, float scaleX, float scaleY) {
+        if (result == null || (scaleX == 1f && scaleY == 1f)) {
+            return result;
+        }
+
+        JsonObject tree = GSON.toJsonTree(result).getAsJsonObject();
+        JsonArray objects = tree.has(FIELD_DETECTED_OBJECTS) && tree.get(FIELD_DETECTED_OBJECTS).isJsonArray()
+                ? tree.getAsJsonArray(FIELD_DETECTED_OBJECTS)
+                : null;
+        if (objects == null || isNormalized(objects)) {
+            return result;
+        }
+
+        for (JsonElement element : objects) {
+            JsonObject box = boxOf(element);
+            if (box == null) continue;
+            scaleFields(box, X_FIELDS, scaleX);
+            scaleFields(box, Y_FIELDS, scaleY);
+        }
+        return GSON.fromJson(tree, DetectionResult.class);
+    }
+
+    /**
+     * Copies a result into a primitive buffer, replacing the buffer's contents.
+     * The image size of the buffer is left unknown.
+     *
+     * @param result The result to copy
+     * @param out    The buffer to fill
+     */
+    public static void toBuffer(DetectionResult result, DetectionBuffer out) {
+        out.clear();
+        JsonObject tree = GSON.toJsonTree(result).getAsJsonObject();
+        out.setProcessingTimeMs(getLong(tree, FIELD_PROCESSING_TIME));
+        out.setError(getString(tree, FIELD_ERROR));
+
+        JsonElement objects = tree.get(FIELD_DETECTED_OBJECTS);
+        if (objects == null || !objects.isJsonArray()) return;
+        for (JsonElement element : objects.getAsJsonArray()) {
+            if (!element.isJsonObject()) continue;
+            JsonObject object = element.getAsJsonObject();
+            JsonObject box = boxOf(object);
+            out.add(getString(object, FIELD_LABEL),
+                    getFloat(object, FIELD_CONFIDENCE),
+                    getFloat(box, X_FIELDS[0]),
+                    getFloat(box, Y_FIELDS[0]),
+                    getFloat(box, X_FIELDS[1]),
+                    getFloat(box, Y_FIELDS[1]));
+        }
+    }
+
+    /**
+     * Builds an SDK result from a primitive buffer.
+     *
+     * @param buffer The detections to convert
+     * @return A new result holding the buffer's detections
+     */
+    public static DetectionResult fromBuffer(DetectionBuffer buffer) {
+        JsonObject tree = new JsonObject();
+        JsonArray objects = new JsonArray();
+        for (int i = 0; i < buffer.size(); i++) {
+            JsonObject box = new JsonObject();
+            box.addProperty(X_FIELDS[0], buffer.getXMin(i));
+            box.addProperty(Y_FIELDS[0], buffer.getYMin(i));
+            box.addProperty(X_FIELDS[1], buffer.getXMax(i));
+            box.addProperty(Y_FIELDS[1], buffer.getYMax(i));
+
+            JsonObject object = new JsonObject();
+            object.addProperty(FIELD_LABEL, buffer.getLabel(i));
+            object.addProperty(FIELD_CONFIDENCE, buffer.getConfidence(i));
+            object.add(FIELD_BOX, box);
+            objects.add(object);
+        }
+        tree.add(FIELD_DETECTED_OBJECTS, objects);
+        tree.addProperty(FIELD_PROCESSING_TIME, buffer.getProcessingTimeMs());
+        if (buffer.getError() != null) {
+            tree.addProperty(FIELD_ERROR, buffer.getError());
+        }
+        return GSON.fromJson(tree, DetectionResult.class);
+    }
+
+    /**
+     * Hands detections to a listener: the buffer itself to a {@link DetectionBufferListener},
+     * a result built from it to any other.
+     *
+     * @param detections The detections to deliver
+     * @param listener   The listener to call
+     */
+    public static void deliver(DetectionBuffer detections, ImageDetectionListener listener) {
+        if (listener instanceof DetectionBufferListener) {
+            ((DetectionBufferListener) listener).onDetections(detections);
+        } else {
+            listener.onResult(fromBuffer(detections));
+        }
+    }
+
+    private static String getString(JsonObject object, String field) {
+        JsonElement value = object != null ? object.get(field) : null;
+        return value != null && !value.isJsonNull() ? value.getAsString() : null;
+    }
+
+    private static float getFloat(JsonObject object, String field) {
+        JsonElement value = object != null ? object.get(field) : null;
+        return value != null && !value.isJsonNull() ? value.getAsFloat() : 0f;
+    }
+
+    private static long getLong(JsonObject object, String field) {
+        JsonElement value = object != null ? object.get(field) : null;
+        return value != null && !value.isJsonNull() ? value.getAsLong() : 0L;
+    }
+
+    private static boolean isNormalized(JsonArray objects) {
+        for (JsonElement element : objects) {
+            JsonObject box = boxOf(element);
+            if (box == null) continue;
+            if (exceedsOne(box, X_FIELDS) || exceedsOne(box, Y_FIELDS)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean exceedsOne(JsonObject box, String[] fields) {
+        for (String field : fields) {
+            if (box.has(field) && box.get(field).getAsFloat() > 1f) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void scaleFields(JsonObject box, String[] fields, float scale) {
+        for (String field : fields) {
+            if (box.has(field)) {
+                box.addProperty(field, box.get(field).getAsFloat() * scale);
+            }
+        }
+    }
+
+    static JsonObject boxOf(JsonElement element) {
+        if (!element.isJsonObject()) return null;
+        JsonElement box = element.getAsJsonObject().get(FIELD_BOX);
+        return box != null && box.isJsonObject() ? box.getAsJsonObject() : null;
+    }
+}
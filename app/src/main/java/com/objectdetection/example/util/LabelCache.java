@@ -0,0 +1,60 @@
+package com.objectdetection.example.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Small bounded cache of labels by their UTF-8 bytes, so result decoders return the same
+ * instance for a label every time instead of decoding it again. Not thread-safe.
+ */
+final class LabelCache {
+
+    // Power of two; far more than the labels of a model, and a bound for servers that invent them
+    private static final int SIZE = 256;
+    private static final int PROBES = 8;
+
+    private final String[] labels = new String[SIZE];
+    private final byte[][] labelBytes = new byte[SIZE][];
+
+    /**
+     * Returns the label encoded in {@code bytes[start, end)}.
+     */
+    String get(byte[] bytes, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + bytes[i];
+        }
+        int home = (hash ^ (hash >>> 16)) & (SIZE - 1);
+        int slot = home;
+        for (int probe = 0; probe < PROBES; probe++) {
+            byte[] cached = labelBytes[slot];
+            if (cached == null) {
+                break;
+            }
+            if (matches(cached, bytes, start, end)) {
+                return labels[slot];
+            }
+            slot = (slot + 1) & (SIZE - 1);
+        }
+        if (labelBytes[slot] != null) {
+            // Neighbourhood full, replace the label at home
+            slot = home;
+        }
+        String label = new String(bytes, start, end - start, StandardCharsets.UTF_8);
+        labelBytes[slot] = Arrays.copyOfRange(bytes, start, end);
+        labels[slot] = label;
+        return label;
+    }
+
+    private static boolean matches(byte[] cached, byte[] bytes, int start, int end) {
+        if (cached.length != end - start) {
+            return false;
+        }
+        for (int i = 0; i < cached.length; i++) {
+            if (cached[i] != bytes[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,104 @@
+package com.objectdetection.example.util;
+
+/**
+ * Shared label-to-color mapping, so a label has the same color in every list and overlay.
+ * <p>
+ * Colors for the 80 COCO labels emitted by the detection model are computed once, with
+ * hues spread by the golden ratio so that labels next to each other in the table look
+ * different. Other labels get a color derived from their hash code. Lookups go through
+ * an {@link IntIntMap} keyed by the label's (cached) hash code and don't allocate.
+ */
+public final class LabelPalette {
+
+    /**
+     * The COCO 2017 object categories, in category id order.
+     */
+    public static final String[] COCO_LABELS = {
+            "person", "bicycle", "car", "motorcycle", "airplane", "bus", "train", "truck", "boat",
+            "traffic light", "fire hydrant", "stop sign", "parking meter", "bench", "bird", "cat",
+            "dog", "horse", "sheep", "cow", "elephant", "bear", "zebra", "giraffe", "backpack",
+            "umbrella", "handbag", "tie", "suitcase", "frisbee", "skis", "snowboard", "sports ball",
+            "kite", "baseball bat", "baseball glove", "skateboard", "surfboard", "tennis racket",
+            "bottle", "wine glass", "cup", "fork", "knife", "spoon", "bowl", "banana", "apple",
+            "sandwich", "orange", "broccoli", "carrot", "hot dog", "pizza", "donut", "cake", "chair",
+            "couch", "potted plant", "bed", "dining table", "toilet", "tv", "laptop", "mouse",
+            "remote", "keyboard", "cell phone", "microwave", "oven", "toaster", "sink",
+            "refrigerator", "book", "clock", "vase", "scissors", "teddy bear", "hair drier",
+            "toothbrush"
+    };
+
+    private static final float GOLDEN_RATIO_CONJUGATE = 0.618034f;
+    private static final float SATURATION = 0.85f;
+    private static final float VALUE = 0.95f;
+
+    private static final LabelPalette INSTANCE = new LabelPalette();
+
+    private final IntIntMap colors;
+
+    public static LabelPalette getInstance() {
+        return INSTANCE;
+    }
+
+    private LabelPalette() {
+        colors = new IntIntMap(COCO_LABELS.length);
+        float hue = 0f;
+        for (String label : COCO_LABELS) {
+            colors.put(label.hashCode(), hsvToColor(hue * 360f, SATURATION, VALUE));
+            hue = (hue + GOLDEN_RATIO_CONJUGATE) % 1f;
+        }
+    }
+
+    /**
+     * Returns the opaque ARGB color of the label.
+     *
+     * @param label The object label, may be null
+     */
+    public int getColor(String label) {
+        int hash = label != null ? label.hashCode() : 0;
+        int color = colors.get(hash, 0);
+        // Table colors are opaque, so 0 means the label is not in the table
+        return color != 0 ? color : colorForHash(hash);
+    }
+
+    /**
+     * Bright, saturated color from a hash code, for labels outside the COCO set.
+     */
+    static int colorForHash(int hash) {
+        int mixed = hash * 0x9E3779B9;
+        float hue = (mixed >>> 8) / (float) (1 << 24) * 360f;
+        float saturation = 0.8f + (mixed & 0xF) / 15f * 0.2f;
+        float value = 0.8f + ((mixed >>> 4) & 0xF) / 15f * 0.2f;
+        return hsvToColor(hue, saturation, value);
+    }
+
+    /**
+     * Converts HSV to an opaque ARGB color, like {@code android.graphics.Color.HSVToColor}.
+     *
+     * @param hue        Hue in degrees, [0, 360)
+     * @param saturation Saturation, [0, 1]
+     * @param value      Value, [0, 1]
+     */
+    static int hsvToColor(float hue, float saturation, float value) {
+        float h = (hue % 360f) / 60f;
+        int sector = (int) h;
+        float fraction = h - sector;
+        float p = value * (1f - saturation);
+        float q = value * (1f - saturation * fraction);
+        float t = value * (1f - saturation * (1f - fraction));
+        float r;
+        float g;
+        float b;
+        switch (sector) {
+            case 0: r = value; g = t; b = p; break;
+            case 1: r = q; g = value; b = p; break;
+            case 2: r = p; g = value; b = t; break;
+            case 3: r = p; g = q; b = value; break;
+            case 4: r = t; g = p; b = value; break;
+            default: r = value; g = p; b = q; break;
+        }
+        return 0xFF000000
+                | (Math.round(r * 255f) << 16)
+                | (Math.round(g * 255f) << 8)
+                | Math.round(b * 255f);
+    }
+}
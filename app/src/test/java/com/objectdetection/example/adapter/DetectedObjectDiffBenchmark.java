@@ -0,0 +1,171 @@
+package com.objectdetection.example.adapter;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListUpdateCallback;
+
+import com.objectdetection.example.bench.Microbenchmark;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * JVM benchmark for updating the detected object list.
+ * <p>
+ * Feeds a stream of live-like updates (most confidences drift, a few objects come and go)
+ * through the adapter's diff callback. With {@code notifyDataSetChanged()} every update
+ * rebinds every row on the main thread; with the differ the diff runs in the background
+ * and the main thread only dispatches it and rebinds the rows that changed. Row binds are
+ * counted, as their cost depends on the device, and the diff and dispatch times are
+ * measured.
+ */
+public class DetectedObjectDiffBenchmark {
+
+    private static final String[] LABELS = {"person", "car", "bicycle", "dog", "chair", "bottle", "cup", "book"};
+    private static final int[] LIST_SIZES = {100, 250, 500};
+    private static final int UPDATES = 200;
+
+    @Test
+    public void reportsMainThreadWorkPerUpdate() {
+        for (int size : LIST_SIZES) {
+            Random random = new Random(size);
+            // The stream of lists, and the diffs between them to dispatch
+            List<List<DetectedObjectItem>> lists = new ArrayList<>(UPDATES + 1);
+            lists.add(initialList(size, random));
+            DiffUtil.DiffResult[] diffs = new DiffUtil.DiffResult[UPDATES];
+            CountingCallback counter = new CountingCallback();
+            for (int i = 0; i < UPDATES; i++) {
+                lists.add(nextList(lists.get(i), random));
+                diffs[i] = DiffUtil.calculateDiff(new ListCallback(lists.get(i), lists.get(i + 1)));
+                diffs[i].dispatchUpdatesTo(counter);
+            }
+            CountingCallback dispatched = new CountingCallback();
+            int[] next = {0};
+
+            Microbenchmark bench = new Microbenchmark(UPDATES);
+            Microbenchmark.Result diff = bench.measure("diff in background, " + size + " rows", () -> {
+                int i = next[0]++ % UPDATES;
+                DiffUtil.calculateDiff(new ListCallback(lists.get(i), lists.get(i + 1)));
+            });
+            Microbenchmark.Result dispatch = bench.measure("dispatch on main, " + size + " rows",
+                    () -> diffs[next[0]++ % UPDATES].dispatchUpdatesTo(dispatched));
+
+            double fullRebinds = size;
+            double rowsPerUpdate = (counter.partialBinds + counter.fullBinds) / (double) UPDATES;
+            Microbenchmark.report(String.format(Locale.US,
+                    "Detected object list updates, %d rows: notifyDataSetChanged rebinds %.0f rows;"
+                            + " differ rebinds %.1f rows (%.1f confidence only)",
+                    size, fullRebinds, rowsPerUpdate, counter.partialBinds / (double) UPDATES), diff, dispatch);
+
+            assertTrue("Differ should rebind far fewer rows", rowsPerUpdate < fullRebinds / 2);
+        }
+    }
+
+    private static List<DetectedObjectItem> initialList(int size, Random random) {
+        List<DetectedObjectItem> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            items.add(item(i, 0.5f + random.nextFloat() * 0.5f));
+        }
+        return items;
+    }
+
+    /**
+     * About a third of the confidences move by more than the shown precision, and one
+     * object in fifty leaves or enters.
+     */
+    private static List<DetectedObjectItem> nextList(List<DetectedObjectItem> current, Random random) {
+        List<DetectedObjectItem> next = new ArrayList<>(current.size() + 4);
+        long nextId = 0;
+        for (DetectedObjectItem item : current) {
+            nextId = Math.max(nextId, item.getId() + 1);
+            if (random.nextInt(50) == 0) {
+                continue;
+            }
+            float confidence = item.getConfidence();
+            if (random.nextInt(3) == 0) {
+                confidence = Math.max(0.5f, Math.min(1f, confidence + (random.nextFloat() - 0.5f) * 0.05f));
+            }
+            next.add(item(item.getId(), confidence));
+        }
+        while (next.size() < current.size()) {
+            next.add(random.nextInt(next.size() + 1), item(nextId++, 0.5f + random.nextFloat() * 0.5f));
+        }
+        return next;
+    }
+
+    private static DetectedObjectItem item(long id, float confidence) {
+        return new DetectedObjectItem(id, LABELS[(int) (id % LABELS.length)], confidence,
+                String.format(Locale.US, "%.1f%%", confidence * 100));
+    }
+
+    private static final class ListCallback extends DiffUtil.Callback {
+        private final List<DetectedObjectItem> oldList;
+        private final List<DetectedObjectItem> newList;
+
+        ListCallback(List<DetectedObjectItem> oldList, List<DetectedObjectItem> newList) {
+            this.oldList = oldList;
+            this.newList = newList;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return oldList.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return newList.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldPosition, int newPosition) {
+            return DetectedObjectAdapter.DIFF_CALLBACK.areItemsTheSame(oldList.get(oldPosition), newList.get(newPosition));
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldPosition, int newPosition) {
+            return DetectedObjectAdapter.DIFF_CALLBACK.areContentsTheSame(oldList.get(oldPosition), newList.get(newPosition));
+        }
+
+        @Override
+        public Object getChangePayload(int oldPosition, int newPosition) {
+            return DetectedObjectAdapter.DIFF_CALLBACK.getChangePayload(oldList.get(oldPosition), newList.get(newPosition));
+        }
+    }
+
+    /**
+     * Counts the rows the adapter would rebind for the dispatched changes.
+     */
+    private static final class CountingCallback implements ListUpdateCallback {
+        long fullBinds;
+        long partialBinds;
+
+        @Override
+        public void onInserted(int position, int count) {
+            fullBinds += count;
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            if (payload == DetectedObjectItem.PAYLOAD_CONFIDENCE) {
+                partialBinds += count;
+            } else {
+                fullBinds += count;
+            }
+        }
+    }
+}
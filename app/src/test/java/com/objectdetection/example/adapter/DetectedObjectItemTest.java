@@ -0,0 +1,61 @@
+package com.objectdetection.example.adapter;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class DetectedObjectItemTest {
+
+    @Test
+    public void idsDependOnLabelAndRank() {
+        ObjectRowIds ids = new ObjectRowIds();
+
+        assertEquals(ids.get("person", 0), ids.get("person", 0));
+        assertNotEquals(ids.get("person", 0), ids.get("person", 1));
+        assertNotEquals(ids.get("person", 0), ids.get("dog", 0));
+        // Unlabelled objects still get ids
+        assertNotEquals(ids.get(null, 0), ids.get(null, 1));
+    }
+
+    @Test
+    public void idsAreUniqueAcrossLabels() {
+        ObjectRowIds ids = new ObjectRowIds();
+        // Same hash code
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+
+        long aa = ids.get("Aa", 0);
+        long bb = ids.get("BB", 0);
+        long later = ids.get("Aa", 3);
+
+        assertNotEquals(aa, bb);
+        assertEquals(aa, ids.get("Aa", 0));
+        assertEquals(later, ids.get("Aa", 3));
+        assertNotEquals(ids.get("Aa", 1), ids.get("BB", 1));
+    }
+
+    @Test
+    public void confidenceChangeIsAPartialUpdate() {
+        DetectedObjectItem old = new DetectedObjectItem(1, "person", 0.91f, "91.0%");
+        DetectedObjectItem updated = new DetectedObjectItem(1, "person", 0.93f, "93.0%");
+
+        assertFalse(updated.hasSameContents(old));
+        assertSame(DetectedObjectItem.PAYLOAD_CONFIDENCE, updated.getChangePayload(old));
+    }
+
+    @Test
+    public void changesBelowTheShownPrecisionAreNotUpdates() {
+        DetectedObjectItem old = new DetectedObjectItem(1, "person", 0.9101f, "91.0%");
+        DetectedObjectItem updated = new DetectedObjectItem(1, "person", 0.9102f, "91.0%");
+
+        assertTrue(updated.hasSameContents(old));
+    }
+
+    @Test
+    public void labelChangeNeedsAFullBind() {
+        DetectedObjectItem old = new DetectedObjectItem(1, "cat", 0.9f, "90.0%");
+        DetectedObjectItem updated = new DetectedObjectItem(1, "dog", 0.9f, "90.0%");
+
+        assertFalse(updated.hasSameContents(old));
+        assertNull(updated.getChangePayload(old));
+    }
+}
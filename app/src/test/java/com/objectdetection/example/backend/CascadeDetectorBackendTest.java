@@ -0,0 +1,273 @@
+package com.objectdetection.example.backend;
+
+import com.google.gson.Gson;
+import com.objectdetection.example.util.DetectionBuffer;
+import com.objectdetection.example.util.DetectionBufferListener;
+import com.objectdetection.example.util.DetectionResults;
+import com.objectdetection.sdk.listener.ImageDetectionListener;
+import com.objectdetection.sdk.model.DetectionResult;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CascadeDetectorBackendTest {
+
+    private static final String CONFIDENT_JSON = "{\"detectedObjects\":["
+            + "{\"label\":\"person\",\"confidence\":0.9,\"box\":{\"xMin\":10,\"yMin\":10,\"xMax\":50,\"yMax\":90}}]}";
+    private static final String UNSURE_JSON = "{\"detectedObjects\":["
+            + "{\"label\":\"dog\",\"confidence\":0.4,\"box\":{\"xMin\":100,\"yMin\":100,\"xMax\":150,\"yMax\":150}}]}";
+    private static final String SERVER_JSON = "{\"detectedObjects\":["
+            + "{\"label\":\"dog\",\"confidence\":0.8,\"box\":{\"xMin\":102,\"yMin\":101,\"xMax\":151,\"yMax\":149}},"
+            + "{\"label\":\"cat\",\"confidence\":0.7,\"box\":{\"xMin\":200,\"yMin\":10,\"xMax\":260,\"yMax\":60}}],"
+            + "\"processingTimeMs\":420}";
+    private static final String EMPTY_JSON = "{\"detectedObjects\":[]}";
+    private static final String ERROR_JSON = "{\"detectedObjects\":[],\"error\":\"model unavailable\"}";
+
+    private final Gson gson = new Gson();
+
+    @Test
+    public void keepsConfidentLocalResult() {
+        StubBackend local = new StubBackend(result(CONFIDENT_JSON));
+        StubBackend remote = new StubBackend(result(SERVER_JSON));
+        CascadeDetectorBackend cascade = cascade(local, remote, CascadePolicy.forStillImages());
+        RecordingListener listener = new RecordingListener();
+
+        cascade.detectJpeg(new byte[4], 0, 4, listener);
+
+        assertEquals(0, remote.calls);
+        assertSameDetections(local.result, listener.results.get(0));
+        assertEquals(1, cascade.getMetrics().getImages());
+        assertEquals(0, cascade.getMetrics().getEscalated());
+    }
+
+    @Test
+    public void mergesServerResultOfUnsureImages() {
+        StubBackend local = new StubBackend(result(UNSURE_JSON));
+        StubBackend remote = new StubBackend(result(SERVER_JSON));
+        CascadeDetectorBackend cascade = cascade(local, remote, CascadePolicy.forStillImages());
+        RecordingListener listener = new RecordingListener();
+
+        cascade.detectJpeg(new byte[4], 0, 4, listener);
+
+        assertEquals(1, remote.calls);
+        DetectionResult merged = listener.results.get(0);
+        // The local dog is the server's dog, only the more confident box is kept
+        assertEquals(2, merged.getDetectedObjects().size());
+        assertEquals("dog", merged.getDetectedObjects().get(0).getLabel());
+        assertEquals(0.8f, merged.getDetectedObjects().get(0).getConfidence(), 1e-6f);
+        assertEquals("cat", merged.getDetectedObjects().get(1).getLabel());
+        assertEquals(420, merged.getProcessingTimeMs());
+        assertEquals(1f, cascade.getMetrics().getEscalationRate(), 1e-6f);
+    }
+
+    @Test
+    public void escalatesImagesWithoutDetections() {
+        StubBackend local = new StubBackend(result(EMPTY_JSON));
+        StubBackend remote = new StubBackend(result(SERVER_JSON));
+        RecordingListener listener = new RecordingListener();
+
+        cascade(local, remote, CascadePolicy.forStillImages()).detectJpeg(new byte[4], 0, 4, listener);
+
+        assertEquals(1, remote.calls);
+        assertEquals(2, listener.results.get(0).getDetectedObjects().size());
+    }
+
+    @Test
+    public void policyDecidesPerUseCase() {
+        StubBackend local = new StubBackend(result(UNSURE_JSON));
+        StubBackend remote = new StubBackend(result(SERVER_JSON));
+        RecordingListener listener = new RecordingListener();
+
+        // 0.4 is good enough for live frames
+        cascade(local, remote, CascadePolicy.forLive()).detectJpeg(new byte[4], 0, 4, listener);
+
+        assertEquals(0, remote.calls);
+        assertSameDetections(local.result, listener.results.get(0));
+    }
+
+    @Test
+    public void usesServerResultWhenLocalFails() {
+        StubBackend local = new StubBackend(new IllegalStateException("no model"));
+        StubBackend remote = new StubBackend(result(SERVER_JSON));
+        RecordingListener listener = new RecordingListener();
+
+        cascade(local, remote, CascadePolicy.forStillImages()).detectJpeg(new byte[4], 0, 4, listener);
+
+        assertSameDetections(remote.result, listener.results.get(0));
+        assertTrue(listener.errors.isEmpty());
+    }
+
+    @Test
+    public void usesServerResultWhenLocalResultIsAnError() {
+        StubBackend local = new StubBackend(result(ERROR_JSON));
+        StubBackend remote = new StubBackend(result(SERVER_JSON));
+        RecordingListener listener = new RecordingListener();
+
+        cascade(local, remote, CascadePolicy.forStillImages()).detectJpeg(new byte[4], 0, 4, listener);
+
+        assertSameDetections(remote.result, listener.results.get(0));
+    }
+
+    @Test
+    public void keepsLocalResultWhenServerFails() {
+        StubBackend local = new StubBackend(result(UNSURE_JSON));
+        StubBackend remote = new StubBackend(new IOException("offline"));
+        CascadeDetectorBackend cascade = cascade(local, remote, CascadePolicy.forStillImages());
+        RecordingListener listener = new RecordingListener();
+
+        cascade.detectJpeg(new byte[4], 0, 4, listener);
+
+        assertSameDetections(local.result, listener.results.get(0));
+        assertEquals(1, cascade.getMetrics().getEscalationFailures());
+    }
+
+    @Test
+    public void reportsServerFailureWhenBothFail() {
+        StubBackend local = new StubBackend(new IllegalStateException("no model"));
+        StubBackend remote = new StubBackend(new IOException("offline"));
+        RecordingListener listener = new RecordingListener();
+
+        cascade(local, remote, CascadePolicy.forStillImages()).detectJpeg(new byte[4], 0, 4, listener);
+
+        assertTrue(listener.results.isEmpty());
+        assertTrue(listener.errors.get(0) instanceof IOException);
+    }
+
+    @Test
+    public void bufferListenersGetBuffers() {
+        StubBackend local = new StubBackend(result(UNSURE_JSON));
+        StubBackend remote = new StubBackend(result(SERVER_JSON));
+        CascadeDetectorBackend cascade = cascade(local, remote, CascadePolicy.forStillImages());
+        RecordingBufferListener listener = new RecordingBufferListener();
+
+        cascade.detectJpeg(new byte[4], 0, 4, listener);
+        cascade.detectJpeg(new byte[4], 0, 4, listener);
+
+        assertEquals(2, listener.detections.size());
+        for (DetectionBuffer merged : listener.detections) {
+            assertEquals(2, merged.size());
+            assertEquals("dog", merged.getLabel(0));
+            assertEquals("cat", merged.getLabel(1));
+            assertEquals(420, merged.getProcessingTimeMs());
+        }
+        assertEquals(2, cascade.getMetrics().getEscalated());
+    }
+
+    @Test
+    public void bufferListenersGetLocalBuffersWhenServerFails() {
+        StubBackend local = new StubBackend(result(UNSURE_JSON));
+        StubBackend remote = new StubBackend(new IOException("offline"));
+        RecordingBufferListener listener = new RecordingBufferListener();
+
+        cascade(local, remote, CascadePolicy.forStillImages()).detectJpeg(new byte[4], 0, 4, listener);
+
+        assertEquals(1, listener.detections.size());
+        assertEquals("dog", listener.detections.get(0).getLabel(0));
+        assertEquals(0.4f, listener.detections.get(0).getConfidence(0), 1e-6f);
+    }
+
+    @Test
+    public void metricsEstimateSavedLatency() {
+        CascadeMetrics metrics = new CascadeMetrics();
+        metrics.recordLocal(20);
+        metrics.recordLocal(20);
+        metrics.recordLocal(20);
+        assertEquals(0, metrics.getEstimatedSavedMs());
+
+        metrics.recordEscalated(20, 500);
+
+        assertEquals(0.25f, metrics.getEscalationRate(), 1e-6f);
+        assertEquals(500f, metrics.getMeanRemoteMs(), 1e-3f);
+        // Three round-trips saved, four local runs paid
+        assertEquals(3 * 500 - 4 * 20, metrics.getEstimatedSavedMs());
+    }
+
+    private static CascadeDetectorBackend cascade(DetectorBackend local, DetectorBackend remote,
+                                                  CascadePolicy policy) {
+        return new CascadeDetectorBackend(local, remote, policy);
+    }
+
+    private DetectionResult result(String json) {
+        return gson.fromJson(json, DetectionResult.class);
+    }
+
+    private void assertSameDetections(DetectionResult expected, DetectionResult actual) {
+        assertEquals(gson.toJson(expected), gson.toJson(actual));
+    }
+
+    static final class StubBackend implements DetectorBackend {
+        final DetectionResult result;
+        final Exception error;
+        int calls;
+
+        StubBackend(DetectionResult result) {
+            this.result = result;
+            this.error = null;
+        }
+
+        StubBackend(Exception error) {
+            this.result = null;
+            this.error = error;
+        }
+
+        @Override
+        public void detectJpeg(byte[] data, int offset, int length, ImageDetectionListener listener) {
+            calls++;
+            if (error != null) {
+                listener.onError(error);
+            } else if (listener instanceof DetectionBufferListener) {
+                // Like the real backends, which have their detections in a buffer
+                DetectionBuffer detections = new DetectionBuffer();
+                DetectionResults.toBuffer(result, detections);
+                ((DetectionBufferListener) listener).onDetections(detections);
+            } else {
+                listener.onResult(result);
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    static final class RecordingListener implements ImageDetectionListener {
+        final List<DetectionResult> results = new ArrayList<>();
+        final List<Exception> errors = new ArrayList<>();
+
+        @Override
+        public void onResult(DetectionResult result) {
+            results.add(result);
+        }
+
+        @Override
+        public void onError(Exception e) {
+            errors.add(e);
+        }
+    }
+
+    static final class RecordingBufferListener implements DetectionBufferListener {
+        final List<DetectionBuffer> detections = new ArrayList<>();
+
+        @Override
+        public void onDetections(DetectionBuffer buffer) {
+            DetectionBuffer copy = new DetectionBuffer();
+            copy.copyFrom(buffer);
+            detections.add(copy);
+        }
+
+        @Override
+        public void onResult(DetectionResult result) {
+            fail("Expected a buffer");
+        }
+
+        @Override
+        public void onError(Exception e) {
+            fail("Unexpected error " + e);
+        }
+    }
+}
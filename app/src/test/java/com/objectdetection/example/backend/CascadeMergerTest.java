@@ -0,0 +1,52 @@
+package com.objectdetection.example.backend;
+
+import com.objectdetection.example.util.DetectionBuffer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CascadeMergerTest {
+
+    @Test
+    public void mergeKeepsMoreConfidentOfOverlappingBoxes() {
+        DetectionBuffer local = new DetectionBuffer();
+        local.add("dog", 0.9f, 0, 0, 100, 100);
+        local.add("cat", 0.5f, 200, 200, 250, 250);
+        DetectionBuffer remote = new DetectionBuffer();
+        remote.add("dog", 0.7f, 5, 5, 100, 100);
+        // Same place, other label: both kept
+        remote.add("fox", 0.6f, 0, 0, 100, 100);
+        remote.setProcessingTimeMs(300);
+        remote.setImageSize(640, 480);
+        DetectionBuffer out = new DetectionBuffer();
+
+        new CascadeMerger(0.5f).merge(local, remote, out);
+
+        assertEquals(3, out.size());
+        assertEquals("dog", out.getLabel(0));
+        assertEquals(0.9f, out.getConfidence(0), 1e-6f);
+        assertEquals("fox", out.getLabel(1));
+        assertEquals("cat", out.getLabel(2));
+        assertEquals(300, out.getProcessingTimeMs());
+        assertEquals(640, out.getImageWidth());
+    }
+
+    @Test
+    public void mergeKeepsObjectsOnlyOneDetectorFound() {
+        DetectionBuffer local = new DetectionBuffer();
+        local.add("person", 0.4f, 0, 0, 50, 50);
+        local.setImageSize(320, 240);
+        DetectionBuffer remote = new DetectionBuffer();
+        remote.add("person", 0.8f, 100, 100, 150, 150);
+        DetectionBuffer out = new DetectionBuffer();
+
+        new CascadeMerger(0.5f).merge(local, remote, out);
+
+        assertEquals(2, out.size());
+        assertEquals(0.8f, out.getConfidence(0), 1e-6f);
+        assertEquals(0.4f, out.getConfidence(1), 1e-6f);
+        // The server result has no image size, the local one does
+        assertEquals(320, out.getImageWidth());
+    }
+}
@@ -0,0 +1,67 @@
+package com.objectdetection.example.backend;
+
+import com.objectdetection.example.util.DetectionBuffer;
+
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class CascadePolicyTest {
+
+    @Test
+    public void escalatesBelowMinConfidence() {
+        CascadePolicy policy = CascadePolicy.builder().setMinConfidence(0.6f).build();
+        DetectionBuffer detections = new DetectionBuffer();
+        detections.add("person", 0.5f, 0, 0, 10, 10);
+        assertTrue(policy.shouldEscalate(detections));
+
+        detections.add("car", 0.7f, 20, 20, 30, 30);
+        assertFalse(policy.shouldEscalate(detections));
+    }
+
+    @Test
+    public void escalatesEmptyAndFailedResults() {
+        CascadePolicy policy = CascadePolicy.forStillImages();
+        DetectionBuffer detections = new DetectionBuffer();
+        assertTrue(policy.shouldEscalate(detections));
+
+        detections.add("person", 0.9f, 0, 0, 10, 10);
+        detections.setError("failed");
+        assertTrue(policy.shouldEscalate(detections));
+    }
+
+    @Test
+    public void escalatesUnknownLabels() {
+        CascadePolicy policy = CascadePolicy.forStillImages();
+        DetectionBuffer detections = new DetectionBuffer();
+        detections.add("person", 0.9f, 0, 0, 10, 10);
+        detections.add(DetectionOutputDecoder.UNKNOWN_LABEL, 0.9f, 20, 20, 30, 30);
+
+        assertTrue(policy.shouldEscalate(detections));
+    }
+
+    @Test
+    public void escalatesUntrustedLabels() {
+        CascadePolicy policy = CascadePolicy.builder()
+                .setTrustedLabels(Collections.singleton("person"))
+                .build();
+        DetectionBuffer detections = new DetectionBuffer();
+        detections.add("person", 0.9f, 0, 0, 10, 10);
+        assertFalse(policy.shouldEscalate(detections));
+
+        detections.add("giraffe", 0.9f, 20, 20, 30, 30);
+        assertTrue(policy.shouldEscalate(detections));
+    }
+
+    @Test
+    public void liveIsMoreLenientThanStills() {
+        assertTrue(CascadePolicy.forLive().getMinConfidence() < CascadePolicy.forStillImages().getMinConfidence());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvalidIouThreshold() {
+        CascadePolicy.builder().setMergeIouThreshold(0f);
+    }
+}
@@ -0,0 +1,116 @@
+package com.objectdetection.example.backend;
+
+import com.objectdetection.example.bench.Microbenchmark;
+import com.objectdetection.example.util.DetectionBuffer;
+import com.objectdetection.example.util.LabelPalette;
+
+import org.junit.Test;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+import static org.junit.Assert.*;
+
+/**
+ * JVM benchmark for the app's side of on-device detection.
+ * <p>
+ * TensorFlow Lite has no desktop runtime, so the interpreter is replaced by a runner that
+ * replays recorded SSD outputs (100 candidates, as the common COCO models return). What is
+ * measured is everything around it for a 300x300 quantized model: decoding a 640x480 JPEG
+ * and resizing it to the input (ImageIO standing in for BitmapFactory), writing the
+ * quantized input and decoding the outputs. Reports the time per frame of each; add the
+ * interpreter time measured on the device to get the full frame cost.
+ */
+public class LocalDetectorBenchmark {
+
+    private static final int IMAGE_WIDTH = 640;
+    private static final int IMAGE_HEIGHT = 480;
+    private static final int INPUT_SIZE = 300;
+    private static final int MAX_DETECTIONS = 100;
+    private static final int FRAMES_PER_ITERATION = 30;
+
+    @Test
+    public void reportsPerFrameLatency() throws IOException {
+        byte[] jpeg = encodeTestImage();
+        LocalDetectorTest.FixedModelRunner runner = recordedRunner();
+        LocalDetector detector = new LocalDetector(runner, LabelPalette.COCO_LABELS,
+                LocalDetector.DEFAULT_MIN_SCORE);
+        int[] pixels = new int[INPUT_SIZE * INPUT_SIZE];
+        BufferedImage resized = new BufferedImage(INPUT_SIZE, INPUT_SIZE, BufferedImage.TYPE_INT_RGB);
+        DetectionBuffer out = new DetectionBuffer();
+
+        int[] size = new int[2];
+
+        Microbenchmark bench = new Microbenchmark(FRAMES_PER_ITERATION);
+        Microbenchmark.Result decode = bench.measure("decode + resize", () -> {
+            BufferedImage image;
+            try {
+                image = ImageIO.read(new ByteArrayInputStream(jpeg));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            Graphics2D graphics = resized.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(image, 0, 0, INPUT_SIZE, INPUT_SIZE, null);
+            graphics.dispose();
+            resized.getRGB(0, 0, INPUT_SIZE, INPUT_SIZE, pixels, 0, INPUT_SIZE);
+            size[0] = image.getWidth();
+            size[1] = image.getHeight();
+        });
+        Microbenchmark.Result detect = bench.measure("quantize + decode outputs",
+                () -> detector.detect(pixels, size[0], size[1], out));
+
+        Microbenchmark.report(String.format(Locale.US,
+                "Local detection without the interpreter (%dx%d JPEG, %dx%d uint8 input, %d candidates)",
+                IMAGE_WIDTH, IMAGE_HEIGHT, INPUT_SIZE, INPUT_SIZE, MAX_DETECTIONS), decode, detect);
+        assertEquals(INPUT_SIZE * INPUT_SIZE * 3, runner.lastInputSize);
+        assertTrue(out.size() > 0);
+        assertEquals(IMAGE_WIDTH, out.getImageWidth());
+        // The app's own work must not dominate a frame next to the interpreter
+        assertTrue("Took " + detect.getMeanNanos() / 1e6 + " ms", detect.getMeanNanos() < 5_000_000);
+    }
+
+    private static LocalDetectorTest.FixedModelRunner recordedRunner() {
+        Random random = new Random(42);
+        float[] boxes = new float[MAX_DETECTIONS * 4];
+        float[] classes = new float[MAX_DETECTIONS];
+        float[] scores = new float[MAX_DETECTIONS];
+        for (int i = 0; i < MAX_DETECTIONS; i++) {
+            float y = random.nextFloat() * 0.8f;
+            float x = random.nextFloat() * 0.8f;
+            boxes[i * 4] = y;
+            boxes[i * 4 + 1] = x;
+            boxes[i * 4 + 2] = y + 0.05f + random.nextFloat() * 0.15f;
+            boxes[i * 4 + 3] = x + 0.05f + random.nextFloat() * 0.15f;
+            classes[i] = random.nextInt(LabelPalette.COCO_LABELS.length);
+            // Sorted by score like the model's post-processing, few above the threshold
+            scores[i] = 0.95f * (float) Math.exp(-i / 4.0);
+        }
+        return new LocalDetectorTest.FixedModelRunner(INPUT_SIZE, INPUT_SIZE, boxes, classes, scores);
+    }
+
+    private static byte[] encodeTestImage() throws IOException {
+        BufferedImage image = new BufferedImage(IMAGE_WIDTH, IMAGE_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        Random random = new Random(7);
+        for (int i = 0; i < 40; i++) {
+            graphics.setColor(new Color(random.nextInt(0xFFFFFF)));
+            graphics.fillRect(random.nextInt(IMAGE_WIDTH), random.nextInt(IMAGE_HEIGHT),
+                    20 + random.nextInt(200), 20 + random.nextInt(200));
+        }
+        graphics.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,152 @@
+package com.objectdetection.example.backend;
+
+import com.objectdetection.example.util.DetectionBuffer;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class LocalDetectorTest {
+
+    private static final String[] LABELS = {"person", "bicycle", "car"};
+
+    @Test
+    public void quantizedInputIsRgbBytes() {
+        ModelInput input = new ModelInput(2, 1, true);
+        ByteBuffer buffer = input.write(new int[]{0xFF102030, 0x80FF0001});
+
+        assertEquals(6, buffer.remaining());
+        byte[] bytes = new byte[6];
+        buffer.get(bytes);
+        assertArrayEquals(new byte[]{0x10, 0x20, 0x30, (byte) 0xFF, 0x00, 0x01}, bytes);
+    }
+
+    @Test
+    public void floatInputIsNormalized() {
+        ModelInput input = new ModelInput(1, 1, false);
+        ByteBuffer buffer = input.write(new int[]{0xFF00FF80});
+
+        assertEquals(-1f, buffer.getFloat(), 1e-6f);
+        assertEquals(1f, buffer.getFloat(), 1e-6f);
+        assertEquals(0.5f / 127.5f, buffer.getFloat(), 1e-6f);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void inputRejectsTooFewPixels() {
+        new ModelInput(2, 2, true).write(new int[3]);
+    }
+
+    @Test
+    public void decoderScalesBoxesToImagePixels() {
+        DetectionBuffer out = new DetectionBuffer();
+        float[] boxes = {0.1f, 0.2f, 0.5f, 0.6f};
+        int added = DetectionOutputDecoder.decode(boxes, new float[]{2}, new float[]{0.9f}, 1,
+                LABELS, 0.5f, 1000, 500, out);
+
+        assertEquals(1, added);
+        assertEquals("car", out.getLabel(0));
+        assertEquals(0.9f, out.getConfidence(0), 1e-6f);
+        assertEquals(200f, out.getXMin(0), 1e-3f);
+        assertEquals(50f, out.getYMin(0), 1e-3f);
+        assertEquals(600f, out.getXMax(0), 1e-3f);
+        assertEquals(250f, out.getYMax(0), 1e-3f);
+    }
+
+    @Test
+    public void decoderDropsLowScoresAndEmptyBoxes() {
+        DetectionBuffer out = new DetectionBuffer();
+        float[] boxes = {
+                0.1f, 0.1f, 0.2f, 0.2f,
+                0.3f, 0.3f, 0.3f, 0.6f,
+                -0.5f, -0.5f, 1.5f, 0.5f,
+        };
+        int added = DetectionOutputDecoder.decode(boxes, new float[]{0, 1, 0},
+                new float[]{0.2f, 0.9f, 0.8f}, 3, LABELS, 0.5f, 100, 100, out);
+
+        assertEquals(1, added);
+        // Clamped to the image
+        assertEquals(0f, out.getXMin(0), 1e-3f);
+        assertEquals(0f, out.getYMin(0), 1e-3f);
+        assertEquals(50f, out.getXMax(0), 1e-3f);
+        assertEquals(100f, out.getYMax(0), 1e-3f);
+    }
+
+    @Test
+    public void decoderNamesUnknownClasses() {
+        DetectionBuffer out = new DetectionBuffer();
+        DetectionOutputDecoder.decode(new float[]{0, 0, 1, 1}, new float[]{7}, new float[]{1f}, 1,
+                LABELS, 0.5f, 10, 10, out);
+
+        assertEquals(DetectionOutputDecoder.UNKNOWN_LABEL, out.getLabel(0));
+    }
+
+    @Test
+    public void detectorReplacesBufferContents() {
+        FixedModelRunner runner = new FixedModelRunner(4, 4,
+                new float[]{0f, 0f, 0.5f, 0.5f}, new float[]{0}, new float[]{0.8f});
+        LocalDetector detector = new LocalDetector(runner, LABELS, LocalDetector.DEFAULT_MIN_SCORE);
+        DetectionBuffer out = new DetectionBuffer();
+        out.add("stale", 1f, 0, 0, 1, 1);
+
+        detector.detect(new int[16], 640, 480, out);
+
+        assertEquals(1, out.size());
+        assertEquals("person", out.getLabel(0));
+        assertEquals(320f, out.getXMax(0), 1e-3f);
+        assertEquals(240f, out.getYMax(0), 1e-3f);
+        assertEquals(640, out.getImageWidth());
+        assertEquals(480, out.getImageHeight());
+        assertEquals(48, runner.lastInputSize);
+    }
+
+    /**
+     * Returns the same outputs for every input.
+     */
+    static final class FixedModelRunner implements ModelRunner {
+        private final int width;
+        private final int height;
+        private final float[] boxes;
+        private final float[] classes;
+        private final float[] scores;
+        int lastInputSize;
+
+        FixedModelRunner(int width, int height, float[] boxes, float[] classes, float[] scores) {
+            this.width = width;
+            this.height = height;
+            this.boxes = boxes;
+            this.classes = classes;
+            this.scores = scores;
+        }
+
+        @Override
+        public int getInputWidth() {
+            return width;
+        }
+
+        @Override
+        public int getInputHeight() {
+            return height;
+        }
+
+        @Override
+        public boolean isQuantized() {
+            return true;
+        }
+
+        @Override
+        public int getMaxDetections() {
+            return scores.length;
+        }
+
+        @Override
+        public int run(ByteBuffer input, float[] boxes, float[] classes, float[] scores) {
+            lastInputSize = input.remaining();
+            System.arraycopy(this.boxes, 0, boxes, 0, this.boxes.length);
+            System.arraycopy(this.classes, 0, classes, 0, this.classes.length);
+            System.arraycopy(this.scores, 0, scores, 0, this.scores.length);
+            return this.scores.length;
+        }
+    }
+}
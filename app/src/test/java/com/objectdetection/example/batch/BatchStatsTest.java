@@ -0,0 +1,69 @@
+package com.objectdetection.example.batch;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BatchStatsTest {
+
+    @Test
+    public void computesNearestRankPercentiles() {
+        BatchStats stats = new BatchStats();
+        stats.start(0);
+        // Recorded in completion order, not sorted
+        for (long latency : new long[]{500, 100, 900, 300, 700, 200, 1000, 400, 800, 600}) {
+            stats.record(latency, true);
+        }
+
+        assertEquals(500, stats.getLatencyPercentileMs(50));
+        assertEquals(1000, stats.getLatencyPercentileMs(95));
+        assertEquals(900, stats.getLatencyPercentileMs(90));
+        assertEquals(100, stats.getLatencyPercentileMs(0));
+        assertEquals(1000, stats.getLatencyPercentileMs(100));
+    }
+
+    @Test
+    public void computesThroughputOverElapsedTime() {
+        BatchStats stats = new BatchStats();
+        stats.start(1000);
+        for (int i = 0; i < 10; i++) {
+            stats.record(250, i != 3);
+        }
+
+        // Still running: measured up to now
+        assertEquals(5.0, stats.getImagesPerSecond(3000), 0.001);
+
+        stats.finish(5000);
+        assertEquals(4000, stats.getElapsedMs(9000));
+        assertEquals(2.5, stats.getImagesPerSecond(9000), 0.001);
+        assertEquals(10, stats.getCompleted());
+        assertEquals(1, stats.getFailed());
+    }
+
+    @Test
+    public void growsBeyondInitialCapacity() {
+        BatchStats stats = new BatchStats();
+        stats.start(0);
+        for (int i = 1; i <= 500; i++) {
+            stats.record(i, true);
+        }
+
+        assertEquals(500, stats.getCompleted());
+        assertEquals(250, stats.getLatencyPercentileMs(50));
+        assertEquals(475, stats.getLatencyPercentileMs(95));
+    }
+
+    @Test
+    public void emptyRunReportsZero() {
+        BatchStats stats = new BatchStats();
+
+        assertEquals(0, stats.getLatencyPercentileMs(95));
+        assertEquals(0.0, stats.getImagesPerSecond(1000), 0.0);
+        assertEquals(0, stats.getElapsedMs(1000));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvalidPercentile() {
+        new BatchStats().getLatencyPercentileMs(101);
+    }
+}
@@ -0,0 +1,294 @@
+package com.objectdetection.example.bench;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.objectdetection.example.cache.CacheKeys;
+import com.objectdetection.example.live.Nv21Transform;
+import com.objectdetection.example.live.OverlayTransform;
+import com.objectdetection.example.postprocess.DetectionPostProcessor;
+import com.objectdetection.example.preprocess.EncodedImage;
+import com.objectdetection.example.util.BinaryDetectionCodec;
+import com.objectdetection.example.util.DetectionBuffer;
+import com.objectdetection.example.util.DetectionJsonParser;
+import com.objectdetection.example.util.DetectionResults;
+import com.objectdetection.example.util.LabelPalette;
+import com.objectdetection.sdk.model.DetectedObject;
+import com.objectdetection.sdk.model.DetectionResult;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * JVM benchmarks of the code that runs for every frame or result: mapping boxes to the
+ * view, ordering by confidence, coloring by label, parsing the API's JSON and preparing
+ * images. Each prints throughput and bytes allocated per operation; the paths meant to be
+ * allocation-free fail the test when they start allocating.
+ */
+public class HotPathBenchmark {
+
+    // A busy live result and a crowded still image
+    private static final int LIVE_OBJECTS = 20;
+    private static final int STILL_OBJECTS = 100;
+    // A response the streaming parser is meant for
+    private static final int CROWDED_OBJECTS = 500;
+    private static final int FRAME_WIDTH = 640;
+    private static final int FRAME_HEIGHT = 480;
+    // About a 12 MP camera JPEG
+    private static final int PHOTO_BYTES = 3 * 1024 * 1024;
+
+    private static final Comparator<DetectedObject> BY_CONFIDENCE = new Comparator<DetectedObject>() {
+        @Override
+        public int compare(DetectedObject o1, DetectedObject o2) {
+            return Float.compare(o2.getConfidence(), o1.getConfidence());
+        }
+    };
+
+    private final Gson gson = new Gson();
+    private long checksum;
+
+    @Test
+    public void overlayTransform() {
+        DetectionBuffer boxes = boxes(new Random(1), LIVE_OBJECTS, FRAME_WIDTH, FRAME_HEIGHT);
+        OverlayTransform fit = new OverlayTransform(OverlayTransform.ScaleMode.FIT_CENTER);
+        OverlayTransform fill = new OverlayTransform(OverlayTransform.ScaleMode.FILL_CENTER);
+        float[] mapped = new float[4];
+        int[] frame = {0};
+
+        Microbenchmark bench = new Microbenchmark(200_000);
+        // The frame size alternates, so the transform is recomputed for every result
+        Microbenchmark.Result fitResult = bench.measure("fit center, " + LIVE_OBJECTS + " boxes",
+                () -> checksum += mapAll(fit, boxes, 1080, 1920 + (frame[0]++ & 1), mapped));
+        Microbenchmark.Result fillResult = bench.measure("fill center, " + LIVE_OBJECTS + " boxes",
+                () -> checksum += mapAll(fill, boxes, 1080, 1920 + (frame[0]++ & 1), mapped));
+
+        Microbenchmark.report("Box to view transform", fitResult, fillResult);
+        assertTrue(checksum != 0);
+        Microbenchmark.assertAllocationFree(fitResult);
+        Microbenchmark.assertAllocationFree(fillResult);
+    }
+
+    @Test
+    public void confidenceSort() {
+        DetectionBuffer in = boxes(new Random(2), STILL_OBJECTS, 1920, 1080);
+        List<DetectedObject> objects = DetectionResults.fromBuffer(in).getDetectedObjects();
+        List<DetectedObject> sorted = new ArrayList<>(STILL_OBJECTS);
+        DetectionBuffer out = new DetectionBuffer(STILL_OBJECTS);
+        // An IoU threshold of 1 suppresses nothing, leaving the ordering
+        DetectionPostProcessor ordering = DetectionPostProcessor.builder().setIouThreshold(1f).build();
+
+        Microbenchmark bench = new Microbenchmark(20_000);
+        Microbenchmark.Result listSort = bench.measure("Collections.sort, " + STILL_OBJECTS + " objects", () -> {
+            sorted.clear();
+            sorted.addAll(objects);
+            Collections.sort(sorted, BY_CONFIDENCE);
+            checksum += sorted.size();
+        });
+        Microbenchmark.Result bufferSort = bench.measure("post-processor, " + STILL_OBJECTS + " boxes",
+                () -> checksum += ordering.process(in, out));
+
+        Microbenchmark.report("Confidence ordering", listSort, bufferSort);
+        assertTrue(checksum != 0);
+        Microbenchmark.assertAllocationFree(bufferSort);
+    }
+
+    @Test
+    public void labelColor() {
+        LabelPalette palette = LabelPalette.getInstance();
+        String[] labels = LabelPalette.COCO_LABELS;
+        int[] next = {0};
+
+        Microbenchmark.Result result = new Microbenchmark(1_000_000).measure("palette lookup",
+                () -> checksum += palette.getColor(labels[next[0]++ % labels.length]));
+
+        Microbenchmark.report("Label colors", result);
+        assertTrue(checksum != 0);
+        Microbenchmark.assertAllocationFree(result);
+    }
+
+    @Test
+    public void resultParse() {
+        byte[] live = responseJson(new Random(3), LIVE_OBJECTS);
+        byte[] still = responseJson(new Random(4), STILL_OBJECTS);
+        byte[] crowded = responseJson(new Random(7), CROWDED_OBJECTS);
+        DetectionBuffer buffer = new DetectionBuffer(CROWDED_OBJECTS);
+        DetectionBuffer streamed = new DetectionBuffer(CROWDED_OBJECTS);
+        DetectionBuffer decoded = new DetectionBuffer(CROWDED_OBJECTS);
+        DetectionJsonParser parser = new DetectionJsonParser();
+        BinaryDetectionCodec codec = new BinaryDetectionCodec();
+
+        Microbenchmark bench = new Microbenchmark(5_000);
+        Microbenchmark.Result[] model = new Microbenchmark.Result[3];
+        Microbenchmark.Result[] streaming = new Microbenchmark.Result[3];
+        Microbenchmark.Result[] binary = new Microbenchmark.Result[3];
+        byte[][] responses = {live, still, crowded};
+        int[] counts = {LIVE_OBJECTS, STILL_OBJECTS, CROWDED_OBJECTS};
+        for (int i = 0; i < responses.length; i++) {
+            byte[] json = responses[i];
+            parseModel(json, buffer);
+            byte[] packed = BinaryDetectionCodec.encodeResult(buffer);
+            // Rewound for every parse, like a response body the parser reads to its end
+            ByteArrayInputStream body = new ByteArrayInputStream(json);
+            ByteArrayInputStream packedBody = new ByteArrayInputStream(packed);
+            String size = counts[i] + " objects (" + json.length + " B)";
+            model[i] = bench.measure("Gson model, " + size, () -> checksum += parseModel(json, buffer));
+            streaming[i] = bench.measure("streaming, " + size,
+                    () -> checksum += parseStreaming(parser, body, streamed));
+            binary[i] = bench.measure("binary, " + counts[i] + " objects (" + packed.length + " B)",
+                    () -> checksum += parseBinary(codec, packedBody, decoded));
+        }
+
+        Microbenchmark.report("Result parsing into a buffer", model[0], streaming[0], binary[0],
+                model[1], streaming[1], binary[1], model[2], streaming[2], binary[2]);
+        assertEquals(CROWDED_OBJECTS, streamed.size());
+        assertEquals(CROWDED_OBJECTS, decoded.size());
+        for (int i = 0; i < CROWDED_OBJECTS; i++) {
+            assertEquals(buffer.getLabel(i), streamed.getLabel(i));
+            assertEquals(buffer.getXMax(i), streamed.getXMax(i), 0f);
+            assertEquals(buffer.getLabel(i), decoded.getLabel(i));
+            assertEquals(buffer.getXMax(i), decoded.getXMax(i), 0f);
+        }
+        for (int i = 0; i < streaming.length; i++) {
+            Microbenchmark.assertAllocationFree(streaming[i]);
+            Microbenchmark.assertAllocationFree(binary[i]);
+        }
+        assertEquals(0, parser.getModelFallbacks());
+    }
+
+    @Test
+    public void preprocessing() {
+        byte[] frame = new byte[FRAME_WIDTH * FRAME_HEIGHT * 3 / 2];
+        new Random(5).nextBytes(frame);
+        byte[] rotated = new byte[frame.length];
+        byte[] photo = new byte[PHOTO_BYTES];
+        new Random(6).nextBytes(photo);
+
+        Microbenchmark.Result rotate = new Microbenchmark(50).measure(
+                "NV21 rotate 90, " + FRAME_WIDTH + "x" + FRAME_HEIGHT,
+                () -> {
+                    Nv21Transform.transform(frame, rotated, FRAME_WIDTH, FRAME_HEIGHT, 90, false);
+                    checksum += rotated[rotated.length / 2];
+                });
+        Microbenchmark.Result read = new Microbenchmark(3, 5, 20).measure("read 3 MB photo", () -> {
+            try {
+                checksum += EncodedImage.read(new ByteArrayInputStream(photo), photo.length).getLength();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        Microbenchmark.Result hash = new Microbenchmark(2, 5, 5).measure("cache key of 3 MB photo", () -> {
+            try {
+                checksum += CacheKeys.forContent(new ByteArrayInputStream(photo), "remote").length();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        Microbenchmark.report("Image preprocessing", rotate, read, hash);
+        assertTrue(checksum != 0);
+        Microbenchmark.assertAllocationFree(rotate);
+        // Read into one array of the hinted size, without growing it
+        assertTrue(read.getBytesPerOp() < PHOTO_BYTES * 1.1);
+    }
+
+    private static float mapAll(OverlayTransform transform, DetectionBuffer boxes, int viewWidth, int viewHeight,
+                                float[] mapped) {
+        transform.update(viewWidth, viewHeight, FRAME_WIDTH, FRAME_HEIGHT);
+        float sum = 0;
+        for (int i = 0; i < boxes.size(); i++) {
+            mapped[0] = transform.mapX(boxes.getXMin(i));
+            mapped[1] = transform.mapY(boxes.getYMin(i));
+            mapped[2] = transform.mapX(boxes.getXMax(i));
+            mapped[3] = transform.mapY(boxes.getYMax(i));
+            sum += mapped[2] - mapped[0] + mapped[3] - mapped[1];
+        }
+        return sum;
+    }
+
+    /**
+     * Parses a response through the SDK model classes, from a UTF-8 stream.
+     */
+    private int parseModel(byte[] json, DetectionBuffer out) {
+        try (Reader reader = new InputStreamReader(new ByteArrayInputStream(json), StandardCharsets.UTF_8)) {
+            DetectionResults.toBuffer(gson.fromJson(reader, DetectionResult.class), out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.size();
+    }
+
+    /**
+     * Parses a response the way the API client does for buffer listeners.
+     */
+    private static int parseStreaming(DetectionJsonParser parser, ByteArrayInputStream body, DetectionBuffer out) {
+        body.reset();
+        try {
+            parser.read(body, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.size();
+    }
+
+    private static int parseBinary(BinaryDetectionCodec codec, ByteArrayInputStream body, DetectionBuffer out) {
+        body.reset();
+        try {
+            codec.read(body, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.size();
+    }
+
+    private static DetectionBuffer boxes(Random random, int count, int width, int height) {
+        DetectionBuffer buffer = new DetectionBuffer(count);
+        String[] labels = LabelPalette.COCO_LABELS;
+        for (int i = 0; i < count; i++) {
+            float x = random.nextFloat() * width * 0.8f;
+            float y = random.nextFloat() * height * 0.8f;
+            float size = 20 + random.nextFloat() * width * 0.2f;
+            buffer.add(labels[random.nextInt(labels.length)], random.nextFloat(), x, y, x + size, y + size);
+        }
+        return buffer;
+    }
+
+    /**
+     * A response body as the API sends it.
+     */
+    private static byte[] responseJson(Random random, int count) {
+        JsonArray objects = new JsonArray();
+        String[] labels = LabelPalette.COCO_LABELS;
+        for (int i = 0; i < count; i++) {
+            float x = random.nextFloat() * 1500;
+            float y = random.nextFloat() * 800;
+            JsonObject box = new JsonObject();
+            box.addProperty("xMin", x);
+            box.addProperty("yMin", y);
+            box.addProperty("xMax", x + 20 + random.nextFloat() * 400);
+            box.addProperty("yMax", y + 20 + random.nextFloat() * 300);
+            JsonObject object = new JsonObject();
+            object.addProperty("label", labels[random.nextInt(labels.length)]);
+            object.addProperty("confidence", random.nextFloat());
+            object.add("box", box);
+            objects.add(object);
+        }
+        JsonObject response = new JsonObject();
+        response.addProperty("success", true);
+        response.add("detectedObjects", objects);
+        response.addProperty("processingTimeMs", 42);
+        return response.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,164 @@
+package com.objectdetection.example.bench;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+/**
+ * Minimal JMH-style harness for the JVM benchmarks.
+ * <p>
+ * An operation is warmed up, then timed over several measurement iterations on the
+ * calling thread. Reports the mean and standard deviation per operation, the throughput
+ * and the bytes the thread allocated per operation, so regressions in either show up in
+ * review. Operations should fold their output into a checksum the caller asserts on, so
+ * the JIT can't drop them.
+ * <p>
+ * Benchmarks are left out of the default unit test run; run them with
+ * {@code ./gradlew :app:testDebugUnitTest -Pbenchmarks}.
+ */
+public final class Microbenchmark {
+
+    public static final int DEFAULT_WARMUP_ITERATIONS = 5;
+    public static final int DEFAULT_MEASUREMENT_ITERATIONS = 10;
+    // Below one allocation per operation; the rest is the measurement itself
+    private static final double MAX_BYTES_PER_OP = 1;
+
+    private final int warmupIterations;
+    private final int measurementIterations;
+    private final int opsPerIteration;
+
+    /**
+     * @param opsPerIteration Operations per timed iteration; enough for an iteration to
+     *                        take a few milliseconds
+     */
+    public Microbenchmark(int opsPerIteration) {
+        this(DEFAULT_WARMUP_ITERATIONS, DEFAULT_MEASUREMENT_ITERATIONS, opsPerIteration);
+    }
+
+    public Microbenchmark(int warmupIterations, int measurementIterations, int opsPerIteration) {
+        if (measurementIterations <= 0 || opsPerIteration <= 0) {
+            throw new IllegalArgumentException("Must measure at least one operation");
+        }
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.opsPerIteration = opsPerIteration;
+    }
+
+    public Result measure(String name, Runnable operation) {
+        for (int i = 0; i < warmupIterations; i++) {
+            run(operation);
+        }
+        long overhead = measurementOverhead();
+        double[] nanosPerOp = new double[measurementIterations];
+        long allocated = 0;
+        for (int i = 0; i < measurementIterations; i++) {
+            long bytes = allocatedBytes();
+            long nanos = run(operation);
+            // The least an iteration allocated, so a stray allocation of the harness doesn't count
+            long iterationBytes = Math.max(0, allocatedBytes() - bytes - overhead);
+            allocated = i == 0 ? iterationBytes : Math.min(allocated, iterationBytes);
+            nanosPerOp[i] = nanos / (double) opsPerIteration;
+        }
+        return new Result(name, nanosPerOp, allocated / (double) opsPerIteration);
+    }
+
+    private long run(Runnable operation) {
+        long start = System.nanoTime();
+        for (int op = 0; op < opsPerIteration; op++) {
+            operation.run();
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Bytes that reading the allocation counter allocates itself.
+     */
+    private static long measurementOverhead() {
+        long overhead = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long bytes = allocatedBytes();
+            overhead = Math.min(overhead, allocatedBytes() - bytes);
+        }
+        return overhead;
+    }
+
+    /**
+     * Prints the results under a title, one line each.
+     */
+    public static void report(String title, Result... results) {
+        StringBuilder builder = new StringBuilder(title);
+        for (Result result : results) {
+            builder.append('\n').append(result);
+        }
+        System.out.println(builder);
+    }
+
+    /**
+     * Fails if the operation allocated, for the paths meant to be allocation-free.
+     */
+    public static void assertAllocationFree(Result result) {
+        assertTrue(result.getName() + " allocated " + result.getBytesPerOp() + " B/op",
+                result.getBytesPerOp() < MAX_BYTES_PER_OP);
+    }
+
+    /**
+     * Bytes allocated by the calling thread so far.
+     */
+    public static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Time and allocations of one operation.
+     */
+    public static final class Result {
+        private final String name;
+        private final double meanNanos;
+        private final double stdDevNanos;
+        private final double bytesPerOp;
+
+        Result(String name, double[] nanosPerOp, double bytesPerOp) {
+            this.name = name;
+            double sum = 0;
+            for (double sample : nanosPerOp) {
+                sum += sample;
+            }
+            meanNanos = sum / nanosPerOp.length;
+            double squares = 0;
+            for (double sample : nanosPerOp) {
+                squares += (sample - meanNanos) * (sample - meanNanos);
+            }
+            stdDevNanos = Math.sqrt(squares / nanosPerOp.length);
+            this.bytesPerOp = bytesPerOp;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public double getMeanNanos() {
+            return meanNanos;
+        }
+
+        public double getStdDevNanos() {
+            return stdDevNanos;
+        }
+
+        public double getOpsPerSecond() {
+            return meanNanos > 0 ? 1e9 / meanNanos : Double.POSITIVE_INFINITY;
+        }
+
+        public double getBytesPerOp() {
+            return bytesPerOp;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "  %-34s %11.1f +- %8.1f ns/op %14.0f ops/s %11.1f B/op",
+                    name, meanNanos, stdDevNanos, getOpsPerSecond(), bytesPerOp);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.objectdetection.example.cache;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ContentHasherTest {
+
+    @Test
+    public void sameBytesGiveSameHash() throws IOException {
+        byte[] data = randomBytes(200_003);
+
+        String first = ContentHasher.hash(new ByteArrayInputStream(data));
+        String second = ContentHasher.hash(new ByteArrayInputStream(data.clone()));
+
+        assertEquals(first, second);
+        assertEquals(16, first.length());
+    }
+
+    @Test
+    public void hashDoesNotDependOnReadSizes() throws IOException {
+        byte[] data = randomBytes(100_000);
+        // Stream that returns odd-sized chunks
+        InputStream chunked = new ByteArrayInputStream(data) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 1237));
+            }
+        };
+
+        assertEquals(ContentHasher.hash(new ByteArrayInputStream(data)), ContentHasher.hash(chunked));
+    }
+
+    @Test
+    public void singleByteChangeChangesHash() throws IOException {
+        byte[] data = randomBytes(4096);
+        String original = ContentHasher.hash(new ByteArrayInputStream(data));
+        data[2000] ^= 1;
+
+        assertNotEquals(original, ContentHasher.hash(new ByteArrayInputStream(data)));
+    }
+
+    @Test
+    public void lengthIsPartOfHash() throws IOException {
+        assertNotEquals(ContentHasher.hash(new ByteArrayInputStream(new byte[8])),
+                ContentHasher.hash(new ByteArrayInputStream(new byte[16])));
+    }
+
+    @Test
+    public void contentKeysDependOnTheDetector() throws IOException {
+        byte[] data = randomBytes(4096);
+        String remote = CacheKeys.forContent(new ByteArrayInputStream(data), "remote https://a.example.com");
+
+        assertEquals(remote, CacheKeys.forContent(new ByteArrayInputStream(data), "remote https://a.example.com"));
+        assertNotEquals(remote, CacheKeys.forContent(new ByteArrayInputStream(data), "local https://a.example.com"));
+        assertNotEquals(remote, CacheKeys.forContent(new ByteArrayInputStream(data), "remote https://b.example.com"));
+        assertTrue(remote.matches("c[0-9a-f]+"));
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] data = new byte[size];
+        new Random(7).nextBytes(data);
+        return data;
+    }
+}
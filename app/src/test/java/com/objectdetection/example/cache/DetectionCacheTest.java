@@ -0,0 +1,117 @@
+package com.objectdetection.example.cache;
+
+import com.google.gson.Gson;
+import com.objectdetection.sdk.model.DetectionResult;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class DetectionCacheTest {
+
+    private static final String RESULT_JSON = "{\"detectedObjects\":["
+            + "{\"label\":\"person\",\"confidence\":0.97,\"box\":{\"xMin\":10,\"yMin\":20,\"xMax\":110,\"yMax\":220}},"
+            + "{\"label\":\"dog\",\"confidence\":0.64,\"box\":{\"xMin\":300,\"yMin\":40,\"xMax\":380,\"yMax\":90}}],"
+            + "\"processingTimeMs\":850}";
+
+    private final Gson gson = new Gson();
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("detection-cache").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void missThenMemoryHit() throws IOException {
+        DetectionCache cache = new DetectionCache(4, new DiskResultStore(directory, 1 << 20));
+        DetectionResult result = gson.fromJson(RESULT_JSON, DetectionResult.class);
+
+        assertNull(cache.get("ckey"));
+        cache.put("ckey", result, 4032, 3024);
+        DetectionCache.Entry entry = cache.get("ckey");
+
+        assertSame(result, entry.getResult());
+        assertEquals(4032, entry.getImageWidth());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getMemoryHitCount());
+    }
+
+    @Test
+    public void diskTierSurvivesNewCacheInstance() throws IOException {
+        new DetectionCache(4, new DiskResultStore(directory, 1 << 20))
+                .put("ckey", gson.fromJson(RESULT_JSON, DetectionResult.class), 800, 600);
+
+        DetectionCache reopened = new DetectionCache(4, new DiskResultStore(directory, 1 << 20));
+        DetectionCache.Entry entry = reopened.get("ckey");
+
+        assertNotNull(entry);
+        assertEquals(1, reopened.getDiskHitCount());
+        assertEquals(800, entry.getImageWidth());
+        assertEquals(850, entry.getResult().getProcessingTimeMs());
+        assertEquals(2, entry.getResult().getDetectedObjects().size());
+        assertEquals("dog", entry.getResult().getDetectedObjects().get(1).getLabel());
+        assertEquals(0.64f, entry.getResult().getDetectedObjects().get(1).getConfidence(), 1e-6f);
+        String json = gson.toJson(entry.getResult());
+        assertTrue(json, json.contains("\"xMax\":380.0"));
+
+        // Promoted to memory
+        reopened.get("ckey");
+        assertEquals(1, reopened.getMemoryHitCount());
+    }
+
+    @Test
+    public void memoryTierIsLeastRecentlyUsed() throws IOException {
+        DetectionCache cache = new DetectionCache(2, null);
+        DetectionResult result = gson.fromJson(RESULT_JSON, DetectionResult.class);
+
+        cache.put("a", result, 0, 0);
+        cache.put("b", result, 0, 0);
+        cache.get("a");
+        cache.put("c", result, 0, 0);
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    public void diskTierEvictsOldestRecords() throws IOException {
+        DiskResultStore store = new DiskResultStore(directory, 200);
+        DetectionCache cache = new DetectionCache(1, store);
+        DetectionResult result = gson.fromJson(RESULT_JSON, DetectionResult.class);
+
+        for (int i = 0; i < 5; i++) {
+            cache.put("k" + i, result, 0, 0);
+        }
+
+        assertTrue(store.sizeBytes() <= 200);
+        assertTrue(cache.getEvictionCount() > 0);
+        assertNotNull(cache.get("k4"));
+    }
+
+    @Test
+    public void failedResultsAreNotCached() throws IOException {
+        DetectionCache cache = new DetectionCache(4, new DiskResultStore(directory, 1 << 20));
+        cache.put("ckey", gson.fromJson("{\"error\":\"Invalid image\"}", DetectionResult.class), 0, 0);
+
+        assertNull(cache.get("ckey"));
+    }
+}
@@ -0,0 +1,78 @@
+package com.objectdetection.example.exec;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class InstrumentedExecutorTest {
+
+    @Test
+    public void reportsEveryTaskToMetrics() throws InterruptedException {
+        ExecutionStats stats = new ExecutionStats();
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            InstrumentedExecutor executor = new InstrumentedExecutor("cpu", pool, stats);
+            CountDownLatch done = new CountDownLatch(3);
+            for (int i = 0; i < 3; i++) {
+                executor.execute(done::countDown);
+            }
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+        }
+
+        ExecutionStats.Stat stat = stats.getTaskStat("cpu");
+        assertEquals(3, stat.getCount());
+        assertTrue(stat.getMaxMs() >= stat.getMeanMs());
+        assertNull(stats.getTaskStat("io"));
+    }
+
+    @Test
+    public void reportsFailingTask() {
+        List<String> pools = new ArrayList<>();
+        ExecutionMetrics metrics = new ExecutionMetrics() {
+            @Override
+            public void onTaskFinished(String pool, long queuedNanos, long runNanos) {
+                pools.add(pool);
+            }
+
+            @Override
+            public void onMainThreadUpdate(String name, long runNanos, int coalesced) {
+            }
+        };
+        InstrumentedExecutor executor = new InstrumentedExecutor("io", Runnable::run, metrics);
+
+        try {
+            executor.execute(() -> {
+                throw new IllegalStateException("boom");
+            });
+            fail("Task exception was swallowed");
+        } catch (IllegalStateException expected) {
+            // Thrown by the task
+        }
+        assertEquals(List.of("io"), pools);
+    }
+
+    @Test
+    public void statsAggregatePerKey() {
+        ExecutionStats stats = new ExecutionStats();
+        stats.onMainThreadUpdate("status", 2_000_000, 1);
+        stats.onMainThreadUpdate("status", 4_000_000, 3);
+
+        ExecutionStats.Stat stat = stats.getMainThreadStat("status");
+        assertEquals(2, stat.getCount());
+        assertEquals(3.0, stat.getMeanMs(), 1e-9);
+        assertEquals(4.0, stat.getMaxMs(), 1e-9);
+        assertEquals(6.0, stat.getTotalMs(), 1e-9);
+        assertEquals(4, stat.getExtra());
+        assertTrue(stats.toString().contains("main status: 2 runs"));
+    }
+}
@@ -0,0 +1,129 @@
+package com.objectdetection.example.exec;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+public class UiDispatcherTest {
+
+    /** Stands in for the main thread; tasks run when the test says so. */
+    private static final class ManualExecutor implements Executor {
+        final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        void runAll() {
+            while (!tasks.isEmpty()) {
+                tasks.poll().run();
+            }
+        }
+    }
+
+    @Test
+    public void runsOnlyLatestUpdatePerKey() {
+        ManualExecutor main = new ManualExecutor();
+        ExecutionStats stats = new ExecutionStats();
+        UiDispatcher dispatcher = new UiDispatcher(main, stats);
+        List<String> ran = new ArrayList<>();
+
+        dispatcher.post("status", () -> ran.add("status 1"));
+        dispatcher.post("overlay", () -> ran.add("overlay 1"));
+        dispatcher.post("status", () -> ran.add("status 2"));
+        dispatcher.post("status", () -> ran.add("status 3"));
+
+        // One main-thread message for the whole burst
+        assertEquals(1, main.tasks.size());
+        main.runAll();
+
+        assertEquals(List.of("status 3", "overlay 1"), ran);
+        assertEquals(1, stats.getMainThreadStat("status").getCount());
+        assertEquals(2, stats.getMainThreadStat("status").getExtra());
+        assertEquals(0, stats.getMainThreadStat("overlay").getExtra());
+    }
+
+    @Test
+    public void schedulesAgainAfterDrain() {
+        ManualExecutor main = new ManualExecutor();
+        UiDispatcher dispatcher = new UiDispatcher(main, new ExecutionStats());
+        int[] runs = new int[1];
+
+        dispatcher.post("status", () -> runs[0]++);
+        main.runAll();
+        dispatcher.post("status", () -> runs[0]++);
+        main.runAll();
+
+        assertEquals(2, runs[0]);
+    }
+
+    @Test
+    public void updatePostedWhileDrainingRunsLater() {
+        ManualExecutor main = new ManualExecutor();
+        UiDispatcher dispatcher = new UiDispatcher(main, new ExecutionStats());
+        List<String> ran = new ArrayList<>();
+
+        dispatcher.post("status", () -> {
+            ran.add("first");
+            dispatcher.post("status", () -> ran.add("second"));
+        });
+        main.runAll();
+
+        assertEquals(List.of("first", "second"), ran);
+    }
+
+    @Test
+    public void growsPastInitialKeys() {
+        ManualExecutor main = new ManualExecutor();
+        UiDispatcher dispatcher = new UiDispatcher(main, new ExecutionStats());
+        List<String> ran = new ArrayList<>();
+
+        for (int i = 0; i < 10; i++) {
+            final String key = "key" + i;
+            dispatcher.post(key, () -> ran.add(key));
+        }
+        main.runAll();
+
+        assertEquals(10, ran.size());
+        assertEquals("key0", ran.get(0));
+        assertEquals("key9", ran.get(9));
+    }
+
+    @Test
+    public void closeDropsPendingAndLaterUpdates() {
+        ManualExecutor main = new ManualExecutor();
+        ExecutionStats stats = new ExecutionStats();
+        UiDispatcher dispatcher = new UiDispatcher(main, stats);
+        int[] runs = new int[1];
+
+        dispatcher.post("status", () -> runs[0]++);
+        dispatcher.close();
+        dispatcher.post("status", () -> runs[0]++);
+        main.runAll();
+
+        assertEquals(0, runs[0]);
+        assertNull(stats.getMainThreadStat("status"));
+    }
+
+    @Test
+    public void closeDuringDrainSkipsRemainingUpdates() {
+        ManualExecutor main = new ManualExecutor();
+        UiDispatcher dispatcher = new UiDispatcher(main, new ExecutionStats());
+        List<String> ran = new ArrayList<>();
+
+        dispatcher.post("first", () -> {
+            ran.add("first");
+            dispatcher.close();
+        });
+        dispatcher.post("second", () -> ran.add("second"));
+        main.runAll();
+
+        assertEquals(List.of("first"), ran);
+    }
+}
@@ -0,0 +1,76 @@
+package com.objectdetection.example.history;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HistoryQueryTest {
+
+    @Test
+    public void emptyQueryMatchesEverything() {
+        HistoryQuery query = HistoryQuery.builder().build();
+
+        assertNull(query.getSelection());
+        assertEquals(0, query.getSelectionArgs().length);
+        assertEquals(HistoryQuery.DEFAULT_PAGE_SIZE, query.getPageSize());
+        assertFalse(query.isContinuation());
+    }
+
+    @Test
+    public void labelConfidenceAndTimeFilters() {
+        HistoryQuery query = HistoryQuery.builder()
+                .setLabel("person")
+                .setMinConfidence(0.8f)
+                .setSinceMs(1_000L)
+                .setUntilMs(2_000L)
+                .build();
+
+        assertEquals("label = ? AND confidence >= ? AND timestamp >= ? AND timestamp < ?",
+                query.getSelection());
+        assertArrayEquals(new String[]{"person", Double.toString((double) 0.8f), "1000", "2000"},
+                query.getSelectionArgs());
+    }
+
+    @Test
+    public void confidenceAtTheThresholdMatches() {
+        HistoryQuery query = HistoryQuery.builder().setMinConfidence(0.7f).build();
+
+        // The row's REAL, as bound from the float confidence, against the bound as SQLite reads it
+        double stored = 0.7f;
+        double bound = Double.parseDouble(query.getSelectionArgs()[0]);
+        assertTrue(stored + " < " + bound, stored >= bound);
+        // A decimal bound would be above the widened float and drop the row
+        assertTrue(stored < Double.parseDouble(Float.toString(0.7f)));
+    }
+
+    @Test
+    public void continuationStartsAfterTheLastRow() {
+        HistoryQuery first = HistoryQuery.builder().setLabel("dog").setPageSize(20).build();
+        HistoryQuery next = first.after(5_000L, 42L);
+
+        assertTrue(next.isContinuation());
+        assertEquals(20, next.getPageSize());
+        assertEquals("dog", next.getLabel());
+        assertEquals("label = ? AND timestamp <= ? AND (timestamp < ? OR _id < ?)", next.getSelection());
+        assertArrayEquals(new String[]{"dog", "5000", "5000", "42"}, next.getSelectionArgs());
+        // The first query is unchanged
+        assertFalse(first.isContinuation());
+    }
+
+    @Test
+    public void placeholdersMatchArguments() {
+        HistoryQuery query = HistoryQuery.builder()
+                .setMinConfidence(0.5f)
+                .setSinceMs(0)
+                .build()
+                .after(9L, 3L);
+
+        int placeholders = query.getSelection().replaceAll("[^?]", "").length();
+        assertEquals(placeholders, query.getSelectionArgs().length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsEmptyPages() {
+        HistoryQuery.builder().setPageSize(0);
+    }
+}
@@ -0,0 +1,84 @@
+package com.objectdetection.example.live;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FrameSchedulerTest {
+
+    @Test
+    public void limitsFramesInFlight() {
+        FrameScheduler scheduler = new FrameScheduler(2, 0, 1000);
+
+        assertTrue(scheduler.tryAcquire(0));
+        assertTrue(scheduler.tryAcquire(1));
+        assertFalse(scheduler.tryAcquire(2));
+        assertEquals(2, scheduler.getInFlight());
+        assertEquals(1, scheduler.getDroppedFrames());
+
+        scheduler.onResult(0, 100);
+        assertTrue(scheduler.tryAcquire(100));
+    }
+
+    @Test
+    public void submitIntervalFollowsProcessingTime() {
+        FrameScheduler scheduler = new FrameScheduler(2, 10, 1000);
+        assertEquals(10, scheduler.getSubmitIntervalMs());
+
+        assertTrue(scheduler.tryAcquire(0));
+        scheduler.onResult(0, 400);
+        // 400 ms spread over two slots
+        assertEquals(200, scheduler.getSubmitIntervalMs());
+
+        assertFalse(scheduler.tryAcquire(100));
+        assertTrue(scheduler.tryAcquire(200));
+    }
+
+    @Test
+    public void movingAverageIsSmoothedAndClamped() {
+        FrameScheduler scheduler = new FrameScheduler(1, 50, 300);
+
+        scheduler.tryAcquire(0);
+        scheduler.onResult(0, 100);
+        scheduler.tryAcquire(1000);
+        scheduler.onResult(1000, 200);
+        assertEquals(120f, scheduler.getAverageProcessingMs(), 0.001f);
+
+        for (int i = 0; i < 50; i++) {
+            scheduler.tryAcquire(10_000L * (i + 2));
+            scheduler.onResult(10_000L * (i + 2), 5000);
+        }
+        assertEquals(300, scheduler.getSubmitIntervalMs());
+    }
+
+    @Test
+    public void dropsResultsOlderThanLastDelivered() {
+        FrameScheduler scheduler = new FrameScheduler(2, 0, 1000);
+        scheduler.tryAcquire(0);
+        scheduler.tryAcquire(1);
+
+        // The newer frame comes back first
+        assertTrue(scheduler.onResult(200, 50));
+        assertFalse(scheduler.onResult(100, 50));
+        assertFalse(scheduler.onError(150));
+        assertEquals(2, scheduler.getStaleResults());
+        assertEquals(0, scheduler.getInFlight());
+    }
+
+    @Test
+    public void resetClearsState() {
+        FrameScheduler scheduler = new FrameScheduler(1, 0, 1000);
+        scheduler.tryAcquire(0);
+        scheduler.onResult(500, 300);
+        scheduler.reset();
+
+        assertEquals(0, scheduler.getInFlight());
+        assertEquals(0, scheduler.getSubmittedFrames());
+        assertTrue(scheduler.onResult(100, 0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsZeroInFlight() {
+        new FrameScheduler(0, 0, 100);
+    }
+}
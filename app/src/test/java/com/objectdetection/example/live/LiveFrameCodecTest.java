@@ -0,0 +1,70 @@
+package com.objectdetection.example.live;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class LiveFrameCodecTest {
+
+    @Test
+    public void roundTripsTimestampAndPayload() throws IOException {
+        byte[] jpeg = {(byte) 0xFF, (byte) 0xD8, 1, 2, 3, (byte) 0xFF, (byte) 0xD9};
+        byte[] message = LiveFrameCodec.encode(LiveFrameCodec.FRAME_MAGIC, 123_456_789_012L, jpeg, 0, jpeg.length);
+
+        assertEquals(LiveFrameCodec.HEADER_SIZE + jpeg.length, message.length);
+        LiveFrameCodec.Message decoded = LiveFrameCodec.decode(ByteBuffer.wrap(message), LiveFrameCodec.FRAME_MAGIC);
+        assertEquals(123_456_789_012L, decoded.getTimestamp());
+        byte[] payload = new byte[decoded.getPayload().remaining()];
+        decoded.getPayload().get(payload);
+        assertArrayEquals(jpeg, payload);
+    }
+
+    @Test
+    public void encodesOnlyTheGivenRange() throws IOException {
+        byte[] buffer = {9, 9, 1, 2, 3, 9};
+        byte[] message = LiveFrameCodec.encode(LiveFrameCodec.RESULT_MAGIC, 7, buffer, 2, 3);
+
+        ByteBuffer payload = LiveFrameCodec.decode(ByteBuffer.wrap(message), LiveFrameCodec.RESULT_MAGIC).getPayload();
+        assertEquals(3, payload.remaining());
+        assertEquals(1, payload.get());
+        assertEquals(2, payload.get());
+        assertEquals(3, payload.get());
+    }
+
+    @Test
+    public void decodingLeavesTheMessagePositionAlone() throws IOException {
+        ByteBuffer message = ByteBuffer.wrap(LiveFrameCodec.encode(LiveFrameCodec.FRAME_MAGIC, 1, new byte[4], 0, 4));
+
+        LiveFrameCodec.decode(message, LiveFrameCodec.FRAME_MAGIC);
+        assertEquals(0, message.position());
+    }
+
+    @Test
+    public void emptyPayloadIsAllowed() throws IOException {
+        byte[] message = LiveFrameCodec.encode(LiveFrameCodec.RESULT_MAGIC, 5, new byte[0], 0, 0);
+
+        assertEquals(0, LiveFrameCodec.decode(ByteBuffer.wrap(message), LiveFrameCodec.RESULT_MAGIC)
+                .getPayload().remaining());
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsWrongMessageType() throws IOException {
+        byte[] message = LiveFrameCodec.encode(LiveFrameCodec.FRAME_MAGIC, 1, new byte[2], 0, 2);
+        LiveFrameCodec.decode(ByteBuffer.wrap(message), LiveFrameCodec.RESULT_MAGIC);
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsTruncatedHeader() throws IOException {
+        LiveFrameCodec.decode(ByteBuffer.wrap(new byte[LiveFrameCodec.HEADER_SIZE - 1]), LiveFrameCodec.FRAME_MAGIC);
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsTruncatedPayload() throws IOException {
+        byte[] message = LiveFrameCodec.encode(LiveFrameCodec.FRAME_MAGIC, 1, new byte[8], 0, 8);
+        ByteBuffer truncated = ByteBuffer.wrap(message, 0, message.length - 1);
+        LiveFrameCodec.decode(truncated, LiveFrameCodec.FRAME_MAGIC);
+    }
+}
@@ -0,0 +1,51 @@
+package com.objectdetection.example.live;
+
+import com.objectdetection.example.bench.Microbenchmark;
+import com.objectdetection.example.util.DetectionBuffer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * JVM benchmark for the per-frame UI update path of live detection: handing the result
+ * over, recomputing the transform and formatting the status text. The path runs on the
+ * main thread for every result, so it must not allocate.
+ */
+public class LiveRenderPathBenchmark {
+
+    private static final int RESULTS = 10_000;
+
+    private final LiveResultSlot slot = new LiveResultSlot();
+    private final OverlayTransform transform = new OverlayTransform();
+    private final DetectionStatusText statusText = new DetectionStatusText();
+    private long checksum;
+
+    @Test
+    public void updatePathAllocatesNothingOver10kResults() {
+        DetectionBuffer[] results = LiveResultSlotTest.syntheticResults(32);
+        int[] frame = {0};
+
+        Microbenchmark.Result result = new Microbenchmark(RESULTS).measure("publish, take, transform, text",
+                () -> runFrame(results, frame[0]++));
+
+        Microbenchmark.report("Live render path", result);
+        Microbenchmark.assertAllocationFree(result);
+        assertTrue(checksum != 0);
+    }
+
+    private void runFrame(DetectionBuffer[] results, int i) {
+        DetectionBuffer result = results[i % results.length];
+        // Frame size changes every 1000 frames, like a camera switch
+        int frameWidth = (i / 1000) % 2 == 0 ? 640 : 480;
+        int frameHeight = (i / 1000) % 2 == 0 ? 480 : 640;
+        slot.publish(result, i, frameWidth, frameHeight);
+
+        LiveResultSlot.Frame frame = slot.take();
+        transform.update(1080, 1920, frame.getWidth(), frame.getHeight());
+        if (statusText.update(frame.getObjectCount(), frame.getProcessingTimeMs())) {
+            checksum += statusText.length();
+        }
+        checksum += transform.getOffsetY() + transform.getDisplayedWidth();
+    }
+}
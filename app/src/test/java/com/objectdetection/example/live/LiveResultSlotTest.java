@@ -0,0 +1,44 @@
+package com.objectdetection.example.live;
+
+import com.objectdetection.example.util.DetectionBuffer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LiveResultSlotTest {
+
+    private final LiveResultSlot slot = new LiveResultSlot();
+
+    @Test
+    public void slotDeliversOnlyTheNewestResult() {
+        DetectionBuffer[] results = syntheticResults(3);
+
+        assertTrue(slot.publish(results[0], 1, 640, 480));
+        assertFalse(slot.publish(results[1], 2, 640, 480));
+        assertFalse(slot.publish(results[2], 3, 640, 480));
+
+        LiveResultSlot.Frame frame = slot.take();
+        assertEquals(results[2].getProcessingTimeMs(), frame.getProcessingTimeMs());
+        assertEquals(3, frame.getObjectCount());
+        assertTrue(frame.isSuccess());
+        assertEquals(3, frame.getTimestamp());
+        assertNull(slot.take());
+
+        // After a take the next publish schedules a new update
+        assertTrue(slot.publish(results[0], 4, 480, 640));
+        assertEquals(480, slot.take().getWidth());
+    }
+
+    static DetectionBuffer[] syntheticResults(int count) {
+        DetectionBuffer[] results = new DetectionBuffer[count];
+        for (int i = 0; i < count; i++) {
+            results[i] = new DetectionBuffer();
+            results[i].setProcessingTimeMs(300 + i * 7);
+            for (int j = 0; j <= i % 5; j++) {
+                results[i].add("person", 0.9f, j * 10, 5, j * 10 + 50, 80);
+            }
+        }
+        return results;
+    }
+}
@@ -0,0 +1,86 @@
+package com.objectdetection.example.live;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class Nv21TransformTest {
+
+    // 4x2 frame: luma 0..7, one row of two V,U chroma pairs
+    private static final byte[] FRAME = {
+            0, 1, 2, 3,
+            4, 5, 6, 7,
+            10, 11, 20, 21
+    };
+
+    @Test
+    public void swapsDimensionsForQuarterTurns() {
+        assertEquals(480, Nv21Transform.outputWidth(640, 480, 90));
+        assertEquals(640, Nv21Transform.outputHeight(640, 480, 270));
+        assertEquals(640, Nv21Transform.outputWidth(640, 480, 180));
+    }
+
+    @Test
+    public void rotatesClockwise90() {
+        byte[] out = transform(90, false);
+
+        // 2x4 result, the former bottom row becomes the left column
+        assertArrayEquals(new byte[]{
+                4, 0,
+                5, 1,
+                6, 2,
+                7, 3,
+                10, 11, 20, 21
+        }, out);
+    }
+
+    @Test
+    public void rotates180() {
+        byte[] out = transform(180, false);
+
+        assertArrayEquals(new byte[]{
+                7, 6, 5, 4,
+                3, 2, 1, 0,
+                20, 21, 10, 11
+        }, out);
+    }
+
+    @Test
+    public void rotatesClockwise270() {
+        byte[] out = transform(270, false);
+
+        assertArrayEquals(new byte[]{
+                3, 7,
+                2, 6,
+                1, 5,
+                0, 4,
+                20, 21, 10, 11
+        }, out);
+    }
+
+    @Test
+    public void mirrorsAfterRotation() {
+        byte[] out = transform(0, true);
+        assertArrayEquals(new byte[]{
+                3, 2, 1, 0,
+                7, 6, 5, 4,
+                20, 21, 10, 11
+        }, out);
+
+        // Front camera in portrait: rotate by 270, then mirror
+        out = transform(270, true);
+        assertArrayEquals(new byte[]{
+                7, 3,
+                6, 2,
+                5, 1,
+                4, 0,
+                20, 21, 10, 11
+        }, out);
+    }
+
+    private static byte[] transform(int degrees, boolean mirror) {
+        byte[] out = new byte[FRAME.length];
+        Nv21Transform.transform(FRAME, out, 4, 2, degrees, mirror);
+        return out;
+    }
+}
@@ -0,0 +1,47 @@
+package com.objectdetection.example.live;
+
+import com.objectdetection.example.bench.Microbenchmark;
+import com.objectdetection.example.util.DetectionBuffer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * JVM benchmark for the live object tracker.
+ * <p>
+ * Feeds 20 objects of two labels and predicts their tracks in between, one result every
+ * 20 ms. Prediction runs for every frame drawn, so update and predict must not allocate
+ * once the tracker has grown to the number of objects.
+ */
+public class ObjectTrackerBenchmark {
+
+    private static final String[] LABELS = {"person", "car"};
+    private static final int OBJECTS = 20;
+    private static final int RESULTS = 10_000;
+
+    @Test
+    public void updateAndPredictDoNotAllocate() {
+        ObjectTracker tracker = new ObjectTracker();
+        DetectionBuffer detections = new DetectionBuffer();
+        DetectionBuffer tracks = new DetectionBuffer();
+        for (int i = 0; i < OBJECTS; i++) {
+            detections.add(LABELS[i % 2], 0.9f, i * 30, 0, i * 30 + 25, 50);
+        }
+        long[] time = {0};
+        long[] checksum = {0};
+
+        Microbenchmark.Result result = new Microbenchmark(RESULTS).measure(OBJECTS + " objects, update + predict",
+                () -> {
+                    long now = time[0];
+                    time[0] += 20;
+                    tracker.update(detections, now);
+                    tracker.predict(now + 10, tracks);
+                    checksum[0] += tracks.size();
+                });
+
+        Microbenchmark.report("Object tracker", result);
+        Microbenchmark.assertAllocationFree(result);
+        assertTrue(checksum[0] > 0);
+    }
+}
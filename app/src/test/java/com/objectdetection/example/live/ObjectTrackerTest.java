@@ -0,0 +1,194 @@
+package com.objectdetection.example.live;
+
+import com.objectdetection.example.util.DetectionBuffer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ObjectTrackerTest {
+
+    /**
+     * A person walking right at 0.2 px/ms past a parked car, one server result every
+     * 200 ms: {time ms, label index, xMin, yMin, xMax, yMax}.
+     */
+    private static final String[] LABELS = {"person", "car"};
+    private static final float[][] WALK_PAST_CAR = {
+            {0, 0, 100, 100, 160, 260}, {0, 1, 300, 150, 500, 260},
+            {200, 0, 140, 100, 200, 260}, {200, 1, 301, 151, 501, 261},
+            {400, 0, 180, 101, 240, 261}, {400, 1, 300, 150, 500, 260},
+            {600, 0, 220, 100, 280, 260}, {600, 1, 299, 150, 499, 260},
+            {800, 0, 260, 100, 320, 260}, {800, 1, 300, 149, 500, 259},
+    };
+
+    private final ObjectTracker tracker = new ObjectTracker();
+    private final DetectionBuffer detections = new DetectionBuffer();
+    private final DetectionBuffer tracks = new DetectionBuffer();
+
+    @Test
+    public void keepsTrackIdsAcrossASequence() {
+        long personId = -1;
+        long carId = -1;
+        for (int start = 0; start < WALK_PAST_CAR.length; start += 2) {
+            long time = feed(WALK_PAST_CAR, start, 2);
+            tracker.predict(time, tracks);
+            assertEquals(2, tracks.size());
+            int person = indexOf(tracks, "person");
+            int car = indexOf(tracks, "car");
+            if (start == 0) {
+                personId = tracks.getTrackId(person);
+                carId = tracks.getTrackId(car);
+                assertNotEquals(personId, carId);
+            }
+            assertEquals(personId, tracks.getTrackId(person));
+            assertEquals(carId, tracks.getTrackId(car));
+        }
+    }
+
+    @Test
+    public void extrapolatesBoxesBetweenResults() {
+        feed(WALK_PAST_CAR, 0, WALK_PAST_CAR.length);
+
+        // 100 ms after the last result the person has moved on by about 20 px
+        tracker.predict(900, tracks);
+        int person = indexOf(tracks, "person");
+        assertEquals(280f, tracks.getXMin(person), 3f);
+        assertEquals(340f, tracks.getXMax(person), 3f);
+        // The parked car stays put
+        int car = indexOf(tracks, "car");
+        assertEquals(300f, tracks.getXMin(car), 2f);
+    }
+
+    @Test
+    public void stopsExtrapolatingWhenResultsStop() {
+        feed(WALK_PAST_CAR, 0, WALK_PAST_CAR.length);
+
+        tracker.predict(800 + ObjectTracker.MAX_EXTRAPOLATION_MS, tracks);
+        float limit = tracks.getXMin(indexOf(tracks, "person"));
+        tracker.predict(10_000, tracks);
+        assertEquals(limit, tracks.getXMin(indexOf(tracks, "person")), 0.001f);
+    }
+
+    @Test
+    public void matchesFastMotionByCenterDistance() {
+        add("dog", 0, 0, 40, 40);
+        tracker.update(detections, 0);
+        tracker.predict(0, tracks);
+        long id = tracks.getTrackId(0);
+
+        // Moved by most of its size: no overlap, but the center is still close
+        detections.clear();
+        add("dog", 15, 10, 55, 50);
+        tracker.update(detections, 100);
+        tracker.predict(100, tracks);
+        assertEquals(1, tracks.size());
+        assertEquals(id, tracks.getTrackId(0));
+    }
+
+    @Test
+    public void doesNotMatchAcrossLabels() {
+        add("cat", 0, 0, 100, 100);
+        tracker.update(detections, 0);
+        tracker.predict(0, tracks);
+        long catId = tracks.getTrackId(0);
+
+        detections.clear();
+        add("dog", 0, 0, 100, 100);
+        tracker.update(detections, 200);
+        tracker.predict(200, tracks);
+        assertEquals(2, tracks.size());
+        assertNotEquals(catId, tracks.getTrackId(indexOf(tracks, "dog")));
+    }
+
+    @Test
+    public void dropsTracksAfterRepeatedMisses() {
+        add("person", 0, 0, 50, 100);
+        tracker.update(detections, 0);
+        detections.clear();
+
+        for (int i = 1; i <= ObjectTracker.MAX_MISSES; i++) {
+            tracker.update(detections, i * 200L);
+            assertEquals(1, tracker.getTrackCount());
+        }
+        tracker.update(detections, 1_000);
+        assertEquals(0, tracker.getTrackCount());
+    }
+
+    @Test
+    public void onlyAsksForDetectionsWhenNeeded() {
+        // Nothing to track yet
+        assertTrue(tracker.shouldDetect(0));
+
+        feed(WALK_PAST_CAR, 0, 2);
+        // New tracks: confirm them with the next result
+        assertTrue(tracker.shouldDetect(10));
+
+        feed(WALK_PAST_CAR, 2, 2);
+        assertFalse(tracker.shouldDetect(250));
+        assertFalse(tracker.shouldDetect(200 + ObjectTracker.REFRESH_INTERVAL_MS - 1));
+        assertTrue(tracker.shouldDetect(200 + ObjectTracker.REFRESH_INTERVAL_MS));
+
+        tracker.invalidate();
+        assertTrue(tracker.shouldDetect(250));
+    }
+
+    @Test
+    public void trackingCutsServerRequests() {
+        // A static scene for 60 s of camera frames at 30 fps, with results 150 ms after their frame
+        long requests = 0;
+        long resultDueMs = -1;
+        long frameOfResult = 0;
+        for (long now = 0; now < 60_000; now += 33) {
+            if (resultDueMs >= 0 && now >= resultDueMs) {
+                detections.clear();
+                add("person", 100, 100, 200, 300);
+                tracker.update(detections, frameOfResult);
+                resultDueMs = -1;
+            }
+            if (resultDueMs < 0 && tracker.shouldDetect(now)) {
+                requests++;
+                frameOfResult = now;
+                resultDueMs = now + 150;
+            }
+        }
+        // Without the tracker every frame would be a candidate, limited only by the round-trip
+        long untracked = 60_000 / 165;
+        assertTrue("requests: " + requests, requests < untracked / 2);
+    }
+
+    @Test
+    public void intersectionOverUnion() {
+        assertEquals(1f, ObjectTracker.iou(0, 0, 10, 10, 0, 0, 10, 10), 1e-6f);
+        assertEquals(0f, ObjectTracker.iou(0, 0, 10, 10, 10, 0, 20, 10), 1e-6f);
+        assertEquals(25f / 175f, ObjectTracker.iou(0, 0, 10, 10, 5, 5, 15, 15), 1e-6f);
+    }
+
+    private long feed(float[][] rows, int start, int count) {
+        long time = 0;
+        int row = start;
+        while (row < start + count) {
+            time = (long) rows[row][0];
+            detections.clear();
+            while (row < start + count && rows[row][0] == time) {
+                float[] r = rows[row++];
+                add(LABELS[(int) r[1]], r[2], r[3], r[4], r[5]);
+            }
+            tracker.update(detections, time);
+        }
+        return time;
+    }
+
+    private void add(String label, float xMin, float yMin, float xMax, float yMax) {
+        detections.add(label, 0.9f, xMin, yMin, xMax, yMax);
+    }
+
+    private static int indexOf(DetectionBuffer buffer, String label) {
+        for (int i = 0; i < buffer.size(); i++) {
+            if (label.equals(buffer.getLabel(i))) {
+                return i;
+            }
+        }
+        fail("No " + label);
+        return -1;
+    }
+}
@@ -0,0 +1,86 @@
+package com.objectdetection.example.live;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class OverlayTransformTest {
+
+    @Test
+    public void fitsWideFrameToWidth() {
+        OverlayTransform transform = new OverlayTransform();
+        transform.update(1080, 1920, 1920, 1080);
+
+        assertEquals(1080, transform.getDisplayedWidth());
+        assertEquals(607, transform.getDisplayedHeight());
+        assertEquals(0, transform.getOffsetX());
+        assertEquals(656, transform.getOffsetY());
+    }
+
+    @Test
+    public void fitsTallFrameToHeight() {
+        OverlayTransform transform = new OverlayTransform();
+        transform.update(1080, 1200, 480, 640);
+
+        assertEquals(900, transform.getDisplayedWidth());
+        assertEquals(1200, transform.getDisplayedHeight());
+        assertEquals(90, transform.getOffsetX());
+        assertEquals(0, transform.getOffsetY());
+    }
+
+    @Test
+    public void fillsViewAndCropsOverflow() {
+        OverlayTransform transform = new OverlayTransform(OverlayTransform.ScaleMode.FILL_CENTER);
+        transform.update(1080, 1920, 480, 640);
+
+        // 3:4 frame in a 9:16 view is matched by height and cropped left and right
+        assertEquals(1440, transform.getDisplayedWidth());
+        assertEquals(1920, transform.getDisplayedHeight());
+        assertEquals(-180, transform.getOffsetX());
+        assertEquals(0, transform.getOffsetY());
+        assertEquals(540f, transform.mapX(240), 0.001f);
+    }
+
+    @Test
+    public void mapsFrameCoordinatesIntoView() {
+        OverlayTransform transform = new OverlayTransform();
+        transform.update(1000, 1000, 400, 200);
+
+        // Displayed at 1000x500, centered vertically
+        assertEquals(0f, transform.mapX(0), 0.001f);
+        assertEquals(1000f, transform.mapX(400), 0.001f);
+        assertEquals(250f, transform.mapY(0), 0.001f);
+        assertEquals(750f, transform.mapY(200), 0.001f);
+    }
+
+    @Test
+    public void recomputesOnlyWhenDimensionsChange() {
+        OverlayTransform transform = new OverlayTransform();
+
+        assertTrue(transform.update(1080, 1920, 640, 480));
+        assertFalse(transform.update(1080, 1920, 640, 480));
+        assertTrue(transform.update(1080, 1920, 480, 640));
+    }
+
+    @Test
+    public void handlesUnmeasuredView() {
+        OverlayTransform transform = new OverlayTransform();
+        transform.update(0, 0, 640, 480);
+
+        assertEquals(0, transform.getDisplayedWidth());
+        assertEquals(0, transform.getDisplayedHeight());
+    }
+
+    @Test
+    public void statusTextMatchesPreviousFormat() {
+        DetectionStatusText text = new DetectionStatusText();
+
+        assertTrue(text.update(3, 850));
+        assertEquals(String.format(java.util.Locale.US, "Detected %d objects (%.0f ms)", 3, 850f), text.toString());
+        assertFalse(text.update(3, 850));
+        assertTrue(text.update(12, 1043));
+        assertEquals("Detected 12 objects (1043 ms)", text.toString());
+        assertTrue(text.update(0, 0));
+        assertEquals("Detected 0 objects (0 ms)", text.toString());
+    }
+}
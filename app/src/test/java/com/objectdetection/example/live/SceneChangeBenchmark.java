@@ -0,0 +1,56 @@
+package com.objectdetection.example.live;
+
+import com.objectdetection.example.bench.Microbenchmark;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+/**
+ * JVM benchmark for the live scene change check.
+ * <p>
+ * Runs the check on 640x480 Y planes, alternating between two frames so the thumbnail
+ * and comparison do real work, and reports the time per frame. The check runs for every
+ * analysis frame, so it has to stay far below the frame interval.
+ */
+public class SceneChangeBenchmark {
+
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 480;
+    private static final int FRAMES = 2_000;
+
+    @Test
+    public void checksA640x480FrameWellUnderAMillisecond() {
+        ByteBuffer[] planes = {
+                ByteBuffer.allocateDirect(WIDTH * HEIGHT).put(SceneChangeDetectorTest.scene(0, 0)),
+                ByteBuffer.allocateDirect(WIDTH * HEIGHT).put(SceneChangeDetectorTest.scene(8, 3)),
+        };
+        for (ByteBuffer plane : planes) {
+            plane.rewind();
+        }
+        SceneChangeDetector detector = new SceneChangeDetector();
+        int[] frame = {0};
+        int[] changed = {0};
+        String name = String.format(Locale.US, "%dx%d, %dx%d grid, every %dth pixel", WIDTH, HEIGHT,
+                SceneChangeDetector.GRID_WIDTH, SceneChangeDetector.GRID_HEIGHT,
+                SceneChangeDetector.SAMPLE_STEP * SceneChangeDetector.SAMPLE_STEP);
+
+        Microbenchmark.Result result = new Microbenchmark(FRAMES).measure(name, () -> {
+            int i = frame[0]++;
+            if (detector.hasChanged(planes[i & 1], WIDTH, HEIGHT, WIDTH, 1)) {
+                changed[0]++;
+            }
+            if (i % 30 == 0) {
+                detector.markSubmitted();
+            }
+        });
+
+        Microbenchmark.report("Scene change check", result);
+        double microsPerFrame = result.getMeanNanos() / 1e3;
+        assertTrue(changed[0] > 0);
+        assertTrue("Took " + microsPerFrame + " us per frame", microsPerFrame < 500);
+    }
+}
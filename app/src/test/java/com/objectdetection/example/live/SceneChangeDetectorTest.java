@@ -0,0 +1,147 @@
+package com.objectdetection.example.live;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class SceneChangeDetectorTest {
+
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 480;
+
+    private final SceneChangeDetector detector = new SceneChangeDetector();
+
+    @Test
+    public void firstFrameAlwaysChanged() {
+        assertTrue(changed(scene(0, 0)));
+    }
+
+    @Test
+    public void identicalAndNoisyFramesAreUnchanged() {
+        assertTrue(changed(scene(0, 0)));
+        detector.markSubmitted();
+
+        assertFalse(changed(scene(0, 0)));
+        assertFalse(changed(withNoise(scene(0, 0), 6, 1)));
+    }
+
+    @Test
+    public void exposureDriftIsUnchanged() {
+        changed(scene(0, 0));
+        detector.markSubmitted();
+
+        assertFalse(changed(scene(0, 12)));
+    }
+
+    @Test
+    public void movedContentIsChanged() {
+        changed(scene(0, 0));
+        detector.markSubmitted();
+
+        assertTrue(changed(scene(120, 0)));
+    }
+
+    @Test
+    public void comparesWithTheLastSubmittedFrame() {
+        changed(scene(0, 0));
+        detector.markSubmitted();
+
+        // Small steps add up against the reference until they count as a change
+        boolean changed = false;
+        int shift = 0;
+        while (!changed && shift < WIDTH) {
+            shift += 4;
+            changed = changed(scene(shift, 0));
+        }
+        assertTrue(changed);
+        assertTrue("Changed only after " + shift + " px", shift > 4);
+    }
+
+    @Test
+    public void sizeChangeIsChanged() {
+        changed(scene(0, 0));
+        detector.markSubmitted();
+
+        ByteBuffer rotated = ByteBuffer.wrap(new byte[WIDTH * HEIGHT]);
+        assertTrue(detector.hasChanged(rotated, HEIGHT, WIDTH, HEIGHT, 1));
+    }
+
+    @Test
+    public void honorsRowAndPixelStrides() {
+        byte[] plane = scene(0, 0);
+        // Same image with padded rows and interleaved pixels
+        int rowStride = WIDTH * 2 + 64;
+        byte[] strided = new byte[rowStride * HEIGHT];
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                strided[y * rowStride + x * 2] = plane[y * WIDTH + x];
+            }
+        }
+        changed(plane);
+        detector.markSubmitted();
+
+        assertEquals(0f, detector.computeDifference(ByteBuffer.wrap(strided), WIDTH, HEIGHT, rowStride, 2), 0f);
+    }
+
+    @Test
+    public void thresholdControlsSensitivity() {
+        changed(scene(0, 0));
+        detector.markSubmitted();
+        float difference = detector.computeDifference(ByteBuffer.wrap(scene(40, 0)), WIDTH, HEIGHT, WIDTH, 1);
+
+        detector.setThreshold(difference + 1);
+        assertFalse(changed(scene(40, 0)));
+        detector.setThreshold(difference - 1);
+        assertTrue(changed(scene(40, 0)));
+    }
+
+    @Test
+    public void countsSavedFramesUntilReset() {
+        detector.countSavedFrame();
+        detector.countSavedFrame();
+        assertEquals(2, detector.getSavedFrames());
+
+        detector.reset();
+        assertEquals(0, detector.getSavedFrames());
+        assertTrue(changed(scene(0, 0)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNegativeThreshold() {
+        detector.setThreshold(-1f);
+    }
+
+    private boolean changed(byte[] plane) {
+        return detector.hasChanged(ByteBuffer.wrap(plane), WIDTH, HEIGHT, WIDTH, 1);
+    }
+
+    /**
+     * A textured background with a bright object, shifted right and brightened.
+     */
+    static byte[] scene(int shift, int brightness) {
+        byte[] plane = new byte[WIDTH * HEIGHT];
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                int value = 60 + ((x / 40 + y / 40) % 2) * 40;
+                int objectX = x - shift;
+                if (objectX >= 200 && objectX < 320 && y >= 150 && y < 350) {
+                    value = 220;
+                }
+                plane[y * WIDTH + x] = (byte) Math.min(255, value + brightness);
+            }
+        }
+        return plane;
+    }
+
+    private static byte[] withNoise(byte[] plane, int amplitude, long seed) {
+        java.util.Random random = new java.util.Random(seed);
+        byte[] noisy = new byte[plane.length];
+        for (int i = 0; i < plane.length; i++) {
+            int value = (plane[i] & 0xFF) + random.nextInt(2 * amplitude + 1) - amplitude;
+            noisy[i] = (byte) Math.max(0, Math.min(255, value));
+        }
+        return noisy;
+    }
+}
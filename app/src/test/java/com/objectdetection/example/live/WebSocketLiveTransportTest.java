@@ -0,0 +1,262 @@
+package com.objectdetection.example.live;
+
+import com.objectdetection.example.net.HttpClients;
+import com.objectdetection.example.util.DetectionBuffer;
+import com.objectdetection.example.util.DetectionBufferListener;
+import com.objectdetection.sdk.listener.ImageDetectionListener;
+import com.objectdetection.sdk.model.DetectionResult;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.OkHttpClient;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.ByteString;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the transport against a stand-in server that answers every frame on the stream
+ * with a result for the same timestamp.
+ */
+public class WebSocketLiveTransportTest {
+
+    private static final String RESULT_JSON = "{\"detectedObjects\":["
+            + "{\"label\":\"person\",\"confidence\":0.97,\"box\":{\"xMin\":10,\"yMin\":20,\"xMax\":110,\"yMax\":220}}],"
+            + "\"processingTimeMs\":42}";
+    private static final byte[] JPEG = {(byte) 0xFF, (byte) 0xD8, 1, 2, 3, (byte) 0xFF, (byte) 0xD9};
+    private static final int FRAMES = 30;
+
+    private final OkHttpClient client = HttpClients.newBuilder().build();
+    private final RecordingTransport fallback = new RecordingTransport();
+    private MockWebServer server;
+    private WebSocketLiveTransport transport;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (transport != null) {
+            transport.close();
+        }
+        server.shutdown();
+    }
+
+    @Test
+    public void streamsAllFramesOverOneSocket() throws Exception {
+        server.setDispatcher(new StreamDispatcher(true));
+        server.start();
+        transport = new WebSocketLiveTransport(client, server.url("/").toString(), fallback);
+        transport.open();
+        awaitStreaming();
+
+        CountDownLatch done = new CountDownLatch(FRAMES);
+        List<DetectionResult> results = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < FRAMES; i++) {
+            transport.send(1_000L + i, JPEG, new ImageDetectionListener() {
+                @Override
+                public void onResult(DetectionResult result) {
+                    results.add(result);
+                    done.countDown();
+                }
+
+                @Override
+                public void onError(Exception e) {
+                    done.countDown();
+                }
+            });
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(FRAMES, results.size());
+        assertEquals(42, results.get(0).getProcessingTimeMs());
+        assertEquals(0, fallback.sent.size());
+        // One upgrade request for the whole session
+        assertEquals(1, server.getRequestCount());
+        assertEquals(WebSocketLiveTransport.STREAM_PATH, server.takeRequest().getPath());
+    }
+
+    @Test
+    public void streamsResultsIntoBuffersForBufferListeners() throws Exception {
+        server.setDispatcher(new StreamDispatcher(true));
+        server.start();
+        transport = new WebSocketLiveTransport(client, server.url("/").toString(), fallback);
+        transport.open();
+        awaitStreaming();
+
+        CountDownLatch done = new CountDownLatch(1);
+        DetectionBuffer received = new DetectionBuffer();
+        AtomicReference<Object> delivered = new AtomicReference<>();
+        transport.send(5L, JPEG, new DetectionBufferListener() {
+            @Override
+            public void onDetections(DetectionBuffer detections) {
+                // Only valid during the call
+                received.copyFrom(detections);
+                delivered.set(detections);
+                done.countDown();
+            }
+
+            @Override
+            public void onResult(DetectionResult result) {
+                delivered.set(result);
+                done.countDown();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                delivered.set(e);
+                done.countDown();
+            }
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(String.valueOf(delivered.get()), delivered.get() instanceof DetectionBuffer);
+        assertEquals(1, received.size());
+        assertEquals("person", received.getLabel(0));
+        assertEquals(220f, received.getYMax(0), 0f);
+        assertEquals(42, received.getProcessingTimeMs());
+    }
+
+    @Test
+    public void fallsBackWhenTheServerHasNoStream() throws Exception {
+        server.setDispatcher(new StreamDispatcher(false));
+        server.start();
+        transport = new WebSocketLiveTransport(client, server.url("/").toString(), fallback);
+        transport.open();
+
+        // The upgrade is refused
+        awaitReconnectWait();
+        assertFalse(transport.isStreaming());
+
+        transport.send(7L, JPEG, new ImageDetectionListener() {
+            @Override
+            public void onResult(DetectionResult result) {
+            }
+
+            @Override
+            public void onError(Exception e) {
+            }
+        });
+        assertEquals(1, fallback.sent.size());
+        assertEquals(Long.valueOf(7L), fallback.sent.get(0));
+        // Reconnecting waits for the retry interval, not the next frame
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void closeFailsFramesWaitingForResults() throws Exception {
+        // Accepts the stream but never answers
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return new MockResponse().withWebSocketUpgrade(new WebSocketListener() {
+                });
+            }
+        });
+        server.start();
+        transport = new WebSocketLiveTransport(client, server.url("/").toString(), fallback);
+        transport.open();
+        awaitStreaming();
+
+        CountDownLatch failed = new CountDownLatch(1);
+        AtomicReference<Exception> error = new AtomicReference<>();
+        transport.send(1L, JPEG, new ImageDetectionListener() {
+            @Override
+            public void onResult(DetectionResult result) {
+            }
+
+            @Override
+            public void onError(Exception e) {
+                error.set(e);
+                failed.countDown();
+            }
+        });
+        transport.close();
+
+        assertTrue(failed.await(1, TimeUnit.SECONDS));
+        assertTrue(error.get() instanceof IOException);
+    }
+
+    private void awaitStreaming() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!transport.isStreaming()) {
+            assertTrue("Stream did not open", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private void awaitReconnectWait() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!transport.isWaitingToReconnect()) {
+            assertTrue("Stream did not fail", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Answers the stream path with a WebSocket that echoes a result for every frame, or
+     * with 404 when the stream is disabled.
+     */
+    private static final class StreamDispatcher extends Dispatcher {
+        private final boolean streamEnabled;
+
+        StreamDispatcher(boolean streamEnabled) {
+            this.streamEnabled = streamEnabled;
+        }
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            if (!streamEnabled || !WebSocketLiveTransport.STREAM_PATH.equals(request.getPath())) {
+                return new MockResponse().setResponseCode(404);
+            }
+            return new MockResponse().withWebSocketUpgrade(new WebSocketListener() {
+                @Override
+                public void onMessage(WebSocket webSocket, ByteString bytes) {
+                    try {
+                        LiveFrameCodec.Message frame = LiveFrameCodec.decode(
+                                bytes.asByteBuffer(), LiveFrameCodec.FRAME_MAGIC);
+                        byte[] json = RESULT_JSON.getBytes(StandardCharsets.UTF_8);
+                        webSocket.send(ByteString.of(LiveFrameCodec.encode(LiveFrameCodec.RESULT_MAGIC,
+                                frame.getTimestamp(), json, 0, json.length)));
+                    } catch (IOException e) {
+                        webSocket.close(1003, "Bad frame");
+                    }
+                }
+            });
+        }
+    }
+
+    private static final class RecordingTransport implements LiveTransport {
+        final List<Long> sent = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void open() {
+        }
+
+        @Override
+        public void send(long frameTimestamp, byte[] jpeg, ImageDetectionListener listener) {
+            sent.add(frameTimestamp);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.objectdetection.example.loadtest;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.objectdetection.example.util.BinaryDetectionCodec;
+import com.objectdetection.example.util.DetectionBuffer;
+import com.objectdetection.example.util.LabelPalette;
+
+import java.util.Random;
+
+/**
+ * Results of the stand-in server, and their bodies in either wire format, shaped like the
+ * detection API's.
+ */
+public final class CannedResults {
+
+    private static final int IMAGE_WIDTH = 1920;
+    private static final int IMAGE_HEIGHT = 1080;
+
+    private CannedResults() {
+    }
+
+    /**
+     * A successful detection of random COCO objects in a 1920x1080 image.
+     */
+    public static DetectionBuffer success(int objects, long processingTimeMs, Random random) {
+        DetectionBuffer result = new DetectionBuffer(objects);
+        String[] labels = LabelPalette.COCO_LABELS;
+        for (int i = 0; i < objects; i++) {
+            float x = random.nextFloat() * IMAGE_WIDTH * 0.8f;
+            float y = random.nextFloat() * IMAGE_HEIGHT * 0.8f;
+            result.add(labels[random.nextInt(labels.length)],
+                    0.3f + random.nextFloat() * 0.7f,
+                    x, y,
+                    Math.min(IMAGE_WIDTH, x + 40 + random.nextFloat() * 400),
+                    Math.min(IMAGE_HEIGHT, y + 40 + random.nextFloat() * 300));
+        }
+        result.setProcessingTimeMs(processingTimeMs);
+        return result;
+    }
+
+    /**
+     * A failed detection, as the API reports it in the body.
+     */
+    public static DetectionBuffer failure(String error) {
+        DetectionBuffer result = new DetectionBuffer(0);
+        result.setError(error);
+        return result;
+    }
+
+    /**
+     * The result as the API's JSON.
+     */
+    public static String toJson(DetectionBuffer result) {
+        JsonArray detected = new JsonArray();
+        for (int i = 0; i < result.size(); i++) {
+            JsonObject box = new JsonObject();
+            box.addProperty("xMin", result.getXMin(i));
+            box.addProperty("yMin", result.getYMin(i));
+            box.addProperty("xMax", result.getXMax(i));
+            box.addProperty("yMax", result.getYMax(i));
+            JsonObject object = new JsonObject();
+            object.addProperty("label", result.getLabel(i));
+            object.addProperty("confidence", result.getConfidence(i));
+            object.add("box", box);
+            detected.add(object);
+        }
+        JsonObject json = new JsonObject();
+        if (result.getError() != null) {
+            json.addProperty("error", result.getError());
+        }
+        json.add("detectedObjects", detected);
+        if (result.getError() == null) {
+            json.addProperty("processingTimeMs", result.getProcessingTimeMs());
+        }
+        return json.toString();
+    }
+
+    /**
+     * The result in the binary wire format.
+     */
+    public static byte[] toBinary(DetectionBuffer result) {
+        return BinaryDetectionCodec.encodeResult(result);
+    }
+}
@@ -0,0 +1,106 @@
+package com.objectdetection.example.loadtest;
+
+import com.objectdetection.example.batch.BatchDetector;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Throughput of the client-side pipeline against the local stand-in server, for the
+ * single image, batch and live request patterns. Short runs, to spot regressions in the
+ * client; run {@link LoadDriver} for longer against {@link StandInDetectionServer#main}
+ * for soak tests.
+ */
+public class DetectionLoadBenchmark {
+
+    // About a live frame or a downscaled still image
+    private static final int JPEG_BYTES = 60 * 1024;
+    private static final long SCENARIO_MS = 2_000;
+    private static final int LIVE_FPS = 30;
+    private static final int BATCH_IMAGES = 60;
+
+    private StandInDetectionServer server;
+    private LoadDriver driver;
+
+    @Before
+    public void setUp() throws IOException {
+        start(StandInConfig.builder()
+                .setLatency(LatencyModel.logNormal(40, 200))
+                .setErrorRate(0.01)
+                .build());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        driver.close();
+        server.close();
+    }
+
+    @Test
+    public void singleImages() throws InterruptedException {
+        LoadReport report = driver.runSingle(SCENARIO_MS);
+        print(report);
+
+        assertTrue(report.getSucceeded() > 0);
+        assertEquals(report.getSucceeded() + report.getFailed(), report.getSent());
+        // One request at a time never waits for a slot behind another one
+        assertEquals(1, server.getBehavior().getPeakInFlight());
+    }
+
+    @Test
+    public void batch() throws InterruptedException {
+        LoadReport report = driver.runBatch(BATCH_IMAGES, BatchDetector.DEFAULT_MAX_IN_FLIGHT);
+        print(report);
+
+        assertEquals(BATCH_IMAGES, report.getSucceeded() + report.getFailed());
+        assertTrue(server.getBehavior().getPeakInFlight() <= BatchDetector.DEFAULT_MAX_IN_FLIGHT);
+        assertTrue(report.getThroughputPerSecond() > 0);
+    }
+
+    @Test
+    public void liveFrames() throws InterruptedException {
+        LoadReport report = driver.runLive(LIVE_FPS, SCENARIO_MS);
+        print(report);
+
+        assertTrue(report.getSent() > 0);
+        // The scheduler sends at most as fast as results come back, so frames are dropped
+        assertTrue(report.getDropped() > 0);
+        assertEquals(report.getSent(), report.getSucceeded() + report.getFailed());
+    }
+
+    @Test
+    public void throttledBatch() throws IOException, InterruptedException {
+        tearDown();
+        start(StandInConfig.builder()
+                .setLatency(LatencyModel.fixed(50))
+                .setMaxConcurrent(2)
+                .build());
+
+        LoadReport report = driver.runBatch(BATCH_IMAGES, BatchDetector.DEFAULT_MAX_IN_FLIGHT);
+        print(report);
+
+        assertTrue(server.getBehavior().getThrottled() > 0);
+        assertEquals(server.getBehavior().getThrottled(), report.getFailed());
+    }
+
+    private void start(StandInConfig config) throws IOException {
+        server = new StandInDetectionServer(config);
+        server.start();
+        byte[] jpeg = new byte[JPEG_BYTES];
+        new Random(1).nextBytes(jpeg);
+        jpeg[0] = (byte) 0xFF;
+        jpeg[1] = (byte) 0xD8;
+        driver = new LoadDriver(server.getUrl(), jpeg);
+    }
+
+    private void print(LoadReport report) {
+        System.out.print(report);
+        System.out.println("  server: " + server.getBehavior() + " (" + server.getBehavior().getConfig() + ")");
+    }
+}
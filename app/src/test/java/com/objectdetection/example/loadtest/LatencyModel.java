@@ -0,0 +1,75 @@
+package com.objectdetection.example.loadtest;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Distribution of the time the stand-in server takes to answer a detection.
+ */
+public final class LatencyModel {
+
+    // Standard normal quantile of the 99th percentile
+    private static final double Z_99 = 2.3263;
+
+    private interface Sampler {
+        double sample(Random random);
+    }
+
+    private final String description;
+    private final Sampler sampler;
+
+    private LatencyModel(String description, Sampler sampler) {
+        this.description = description;
+        this.sampler = sampler;
+    }
+
+    /**
+     * Every detection takes the same time.
+     */
+    public static LatencyModel fixed(long ms) {
+        if (ms < 0) {
+            throw new IllegalArgumentException("Latency must not be negative");
+        }
+        return new LatencyModel(ms + " ms", random -> ms);
+    }
+
+    /**
+     * Detections take between the two times, all equally likely.
+     */
+    public static LatencyModel uniform(long minMs, long maxMs) {
+        if (minMs < 0 || maxMs < minMs) {
+            throw new IllegalArgumentException("Invalid latency range " + minMs + "-" + maxMs);
+        }
+        return new LatencyModel(minMs + "-" + maxMs + " ms",
+                random -> minMs + random.nextDouble() * (maxMs - minMs));
+    }
+
+    /**
+     * Detections take a log-normally distributed time, the usual shape of server latency:
+     * most answers near the median and a long tail.
+     *
+     * @param medianMs Median latency
+     * @param p99Ms    99th percentile latency, at least the median
+     */
+    public static LatencyModel logNormal(double medianMs, double p99Ms) {
+        if (medianMs <= 0 || p99Ms < medianMs) {
+            throw new IllegalArgumentException("Invalid latency percentiles " + medianMs + "/" + p99Ms);
+        }
+        double mu = Math.log(medianMs);
+        double sigma = Math.log(p99Ms / medianMs) / Z_99;
+        return new LatencyModel(String.format(Locale.US, "log-normal, p50 %.0f ms, p99 %.0f ms", medianMs, p99Ms),
+                random -> Math.exp(mu + sigma * random.nextGaussian()));
+    }
+
+    /**
+     * Draws the latency of one detection.
+     */
+    public long sampleMs(Random random) {
+        return Math.round(sampler.sample(random));
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+}
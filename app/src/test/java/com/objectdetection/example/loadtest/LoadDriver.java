@@ -0,0 +1,212 @@
+package com.objectdetection.example.loadtest;
+
+import com.objectdetection.example.live.FrameScheduler;
+import com.objectdetection.example.net.DetectionApiClient;
+import com.objectdetection.example.net.HttpClients;
+import com.objectdetection.example.net.WireFormat;
+import com.objectdetection.example.trace.DetectionTrace;
+import com.objectdetection.example.trace.LatencyHistogram;
+import com.objectdetection.example.trace.TraceStage;
+import com.objectdetection.sdk.listener.ImageDetectionListener;
+import com.objectdetection.sdk.model.DetectionResult;
+
+import java.io.Closeable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+
+/**
+ * Headless client that replays the app's request patterns against a detection server and
+ * reports what the client side sees.
+ * <p>
+ * Requests go through the app's own {@link DetectionApiClient} on a client built like the
+ * shared one, so the dispatcher limits, connection pool and tracing are the ones in
+ * production. Live frames are gated by the app's {@link FrameScheduler}.
+ */
+public final class LoadDriver implements Closeable {
+
+    // Longest a scenario waits for its last answers once it stopped sending
+    private static final long DRAIN_TIMEOUT_MS = HttpClients.CALL_TIMEOUT_MS;
+
+    private final OkHttpClient httpClient;
+    private final DetectionApiClient apiClient;
+    private final byte[] jpeg;
+
+    /**
+     * @param apiUrl Base URL of the server
+     * @param jpeg   Image uploaded by every request
+     */
+    public LoadDriver(String apiUrl, byte[] jpeg) {
+        this(apiUrl, jpeg, WireFormat.JSON);
+    }
+
+    /**
+     * @param apiUrl     Base URL of the server
+     * @param jpeg       Image uploaded by every request
+     * @param wireFormat Format of uploads and results
+     */
+    public LoadDriver(String apiUrl, byte[] jpeg, WireFormat wireFormat) {
+        this.httpClient = HttpClients.newBuilder().build();
+        this.apiClient = new DetectionApiClient(httpClient, apiUrl, 0, wireFormat);
+        this.jpeg = jpeg;
+    }
+
+    /**
+     * One image at a time, each sent once the previous one is answered, like the result
+     * screen used over and over.
+     */
+    public LoadReport runSingle(long durationMs) throws InterruptedException {
+        Recorder recorder = new Recorder();
+        long start = System.nanoTime();
+        long end = start + TimeUnit.MILLISECONDS.toNanos(durationMs);
+        long offered = 0;
+        while (System.nanoTime() < end) {
+            CountDownLatch done = new CountDownLatch(1);
+            send(recorder, whenDone(done::countDown));
+            offered++;
+            if (!done.await(DRAIN_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                break;
+            }
+        }
+        return recorder.report("single", System.nanoTime() - start, offered, offered);
+    }
+
+    /**
+     * A batch of images with a fixed number in flight, like {@code BatchDetector}.
+     */
+    public LoadReport runBatch(int images, int maxInFlight) throws InterruptedException {
+        Recorder recorder = new Recorder();
+        Semaphore slots = new Semaphore(maxInFlight);
+        CountDownLatch done = new CountDownLatch(images);
+        long start = System.nanoTime();
+        for (int i = 0; i < images; i++) {
+            slots.acquire();
+            send(recorder, whenDone(() -> {
+                slots.release();
+                done.countDown();
+            }));
+        }
+        done.await(DRAIN_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        return recorder.report("batch of " + images + ", " + maxInFlight + " in flight",
+                System.nanoTime() - start, images, images);
+    }
+
+    /**
+     * Camera frames at a fixed rate, each sent only if the {@link FrameScheduler} lets
+     * it, as in live detection.
+     */
+    public LoadReport runLive(int fps, long durationMs) throws InterruptedException {
+        Recorder recorder = new Recorder();
+        FrameScheduler scheduler = new FrameScheduler();
+        ScheduledExecutorService camera = Executors.newSingleThreadScheduledExecutor();
+        long start = System.nanoTime();
+        long[] frames = {0};
+        ScheduledFuture<?> ticks = camera.scheduleAtFixedRate(() -> {
+            long frameTimestamp = frames[0]++;
+            if (!scheduler.tryAcquire(TimeUnit.NANOSECONDS.toMillis(System.nanoTime()))) {
+                return;
+            }
+            send(recorder, new ImageDetectionListener() {
+                @Override
+                public void onResult(DetectionResult result) {
+                    scheduler.onResult(frameTimestamp, result.getProcessingTimeMs());
+                }
+
+                @Override
+                public void onError(Exception e) {
+                    scheduler.onError(frameTimestamp);
+                }
+            });
+        }, 0, TimeUnit.SECONDS.toNanos(1) / fps, TimeUnit.NANOSECONDS);
+        Thread.sleep(durationMs);
+        ticks.cancel(false);
+        camera.shutdown();
+        camera.awaitTermination(DRAIN_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+
+        long drainUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DRAIN_TIMEOUT_MS);
+        while (scheduler.getInFlight() > 0 && System.nanoTime() < drainUntil) {
+            Thread.sleep(5);
+        }
+        return recorder.report("live at " + fps + " fps", System.nanoTime() - start,
+                frames[0], scheduler.getSubmittedFrames());
+    }
+
+    @Override
+    public void close() {
+        httpClient.dispatcher().executorService().shutdown();
+        httpClient.connectionPool().evictAll();
+    }
+
+    /**
+     * Sends the image, records the answer and then passes it on.
+     */
+    private void send(Recorder recorder, ImageDetectionListener then) {
+        long startNanos = System.nanoTime();
+        DetectionTrace trace = new DetectionTrace("load", startNanos);
+        apiClient.detectJpeg(jpeg, 0, jpeg.length, trace, new ImageDetectionListener() {
+            @Override
+            public void onResult(DetectionResult result) {
+                recorder.record(trace, startNanos, result.isSuccess());
+                then.onResult(result);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                recorder.record(trace, startNanos, false);
+                then.onError(e);
+            }
+        });
+    }
+
+    private static ImageDetectionListener whenDone(Runnable done) {
+        return new ImageDetectionListener() {
+            @Override
+            public void onResult(DetectionResult result) {
+                done.run();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                done.run();
+            }
+        };
+    }
+
+    /**
+     * Collects the answers of one scenario from the client's threads.
+     */
+    private static final class Recorder {
+        private final LatencyHistogram queueing = new LatencyHistogram();
+        private final LatencyHistogram parsing = new LatencyHistogram();
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private long succeeded;
+        private long failed;
+
+        synchronized void record(DetectionTrace trace, long startNanos, boolean success) {
+            latency.recordMicros((System.nanoTime() - startNanos) / 1000);
+            long queuedNanos = trace.getStageNanos(TraceStage.REQUEST_SENT);
+            if (queuedNanos >= 0) {
+                queueing.recordMicros(queuedNanos / 1000);
+            }
+            long parsedNanos = trace.getStageNanos(TraceStage.PARSED);
+            if (parsedNanos >= 0) {
+                parsing.recordMicros(parsedNanos / 1000);
+            }
+            if (success) {
+                succeeded++;
+            } else {
+                failed++;
+            }
+        }
+
+        synchronized LoadReport report(String scenario, long elapsedNanos, long offered, long sent) {
+            return new LoadReport(scenario, elapsedNanos, offered, sent, succeeded, failed,
+                    queueing, parsing, latency);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.objectdetection.example.loadtest;
+
+import com.objectdetection.example.trace.LatencyHistogram;
+
+import java.util.Locale;
+
+/**
+ * Outcome of one load scenario, as seen by the client.
+ * <p>
+ * Queueing delay is the time from handing a request to the client until its headers
+ * start going out, i.e. waiting for a dispatcher slot and a connection. Parsing is the
+ * time from the first byte of the response until it was read and parsed. Latency is the
+ * time until the parsed result or the failure reached the caller.
+ */
+public final class LoadReport {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final String scenario;
+    private final long elapsedNanos;
+    private final long offered;
+    private final long sent;
+    private final long succeeded;
+    private final long failed;
+    private final LatencyHistogram queueing;
+    private final LatencyHistogram parsing;
+    private final LatencyHistogram latency;
+
+    LoadReport(String scenario, long elapsedNanos, long offered, long sent, long succeeded, long failed,
+               LatencyHistogram queueing, LatencyHistogram parsing, LatencyHistogram latency) {
+        this.scenario = scenario;
+        this.elapsedNanos = elapsedNanos;
+        this.offered = offered;
+        this.sent = sent;
+        this.succeeded = succeeded;
+        this.failed = failed;
+        this.queueing = queueing;
+        this.parsing = parsing;
+        this.latency = latency;
+    }
+
+    public String getScenario() {
+        return scenario;
+    }
+
+    public double getElapsedSeconds() {
+        return elapsedNanos / 1e9;
+    }
+
+    /**
+     * Images or frames the scenario produced, sent or not.
+     */
+    public long getOffered() {
+        return offered;
+    }
+
+    public long getSent() {
+        return sent;
+    }
+
+    /**
+     * Offered frames the client chose not to send, e.g. because enough were in flight.
+     */
+    public long getDropped() {
+        return offered - sent;
+    }
+
+    public long getSucceeded() {
+        return succeeded;
+    }
+
+    /**
+     * Requests that failed in transport or came back with an error, throttling included.
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * Successful detections per second over the whole scenario.
+     */
+    public double getThroughputPerSecond() {
+        return elapsedNanos > 0 ? succeeded / (elapsedNanos / 1e9) : 0;
+    }
+
+    public LatencyHistogram getQueueing() {
+        return queueing;
+    }
+
+    public LatencyHistogram getParsing() {
+        return parsing;
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format(Locale.US,
+                "%s: %.1f s, %d offered, %d sent, %d dropped, %d ok, %d failed, %.1f detections/s%n",
+                scenario, getElapsedSeconds(), offered, sent, getDropped(), succeeded, failed,
+                getThroughputPerSecond()));
+        builder.append(String.format(Locale.US, "  %-10s%8s%8s%8s%8s%8s%n", "ms", "p50", "p90", "p99", "p99.9", "max"));
+        appendRow(builder, "queueing", queueing);
+        appendRow(builder, "parse", parsing);
+        appendRow(builder, "latency", latency);
+        return builder.toString();
+    }
+
+    private static void appendRow(StringBuilder builder, String label, LatencyHistogram histogram) {
+        builder.append(String.format(Locale.US, "  %-10s", label));
+        for (double percentile : PERCENTILES) {
+            builder.append(String.format(Locale.US, "%8.1f", histogram.getPercentileMicros(percentile) / 1000.0));
+        }
+        builder.append(String.format(Locale.US, "%8.1f%n", histogram.getMaxMicros() / 1000.0));
+    }
+}
@@ -0,0 +1,130 @@
+package com.objectdetection.example.loadtest;
+
+import java.util.Random;
+
+/**
+ * Decides how the stand-in server answers each request, independent of HTTP.
+ * <p>
+ * Requests beyond the concurrency limit or the request rate (a token bucket holding one
+ * second of requests) are throttled right away. Admitted requests hold a slot until
+ * {@link #release()} and take a latency drawn from the model; a share of them fail.
+ */
+public final class StandInBehavior {
+
+    public enum Outcome { OK, ERROR, THROTTLED }
+
+    /**
+     * How one request is answered.
+     */
+    public static final class Decision {
+        private final Outcome outcome;
+        private final long delayMs;
+
+        Decision(Outcome outcome, long delayMs) {
+            this.outcome = outcome;
+            this.delayMs = delayMs;
+        }
+
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        /**
+         * Time to wait before answering; 0 for throttled requests.
+         */
+        public long getDelayMs() {
+            return delayMs;
+        }
+    }
+
+    private static final Decision THROTTLED = new Decision(Outcome.THROTTLED, 0);
+
+    private final StandInConfig config;
+    private final Random random;
+    private final double bucketCapacity;
+    private double tokens;
+    private long refilledAtNanos;
+    private int inFlight;
+    private int peakInFlight;
+    private long admitted;
+    private long errors;
+    private long throttled;
+
+    public StandInBehavior(StandInConfig config, long nowNanos) {
+        this.config = config;
+        this.random = new Random(config.getSeed());
+        this.bucketCapacity = Math.max(1, config.getMaxRequestsPerSecond());
+        this.tokens = bucketCapacity;
+        this.refilledAtNanos = nowNanos;
+    }
+
+    /**
+     * Decides the answer to a request arriving now. Unless it is throttled, the request
+     * must be released once answered.
+     */
+    public synchronized Decision admit(long nowNanos) {
+        if (config.getMaxConcurrent() > 0 && inFlight >= config.getMaxConcurrent()) {
+            throttled++;
+            return THROTTLED;
+        }
+        if (config.getMaxRequestsPerSecond() > 0) {
+            tokens = Math.min(bucketCapacity,
+                    tokens + (nowNanos - refilledAtNanos) / 1e9 * config.getMaxRequestsPerSecond());
+            refilledAtNanos = nowNanos;
+            if (tokens < 1) {
+                throttled++;
+                return THROTTLED;
+            }
+            tokens--;
+        }
+        inFlight++;
+        peakInFlight = Math.max(peakInFlight, inFlight);
+        admitted++;
+        long delayMs = config.getLatency().sampleMs(random);
+        if (random.nextDouble() < config.getErrorRate()) {
+            errors++;
+            return new Decision(Outcome.ERROR, delayMs);
+        }
+        return new Decision(Outcome.OK, delayMs);
+    }
+
+    /**
+     * Frees the slot of an answered request.
+     */
+    public synchronized void release() {
+        if (inFlight == 0) {
+            throw new IllegalStateException("No request in flight");
+        }
+        inFlight--;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getPeakInFlight() {
+        return peakInFlight;
+    }
+
+    public synchronized long getAdmitted() {
+        return admitted;
+    }
+
+    public synchronized long getErrors() {
+        return errors;
+    }
+
+    public synchronized long getThrottled() {
+        return throttled;
+    }
+
+    public StandInConfig getConfig() {
+        return config;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "admitted " + admitted + ", errors " + errors + ", throttled " + throttled
+                + ", peak " + peakInFlight + " concurrent";
+    }
+}
@@ -0,0 +1,101 @@
+package com.objectdetection.example.loadtest;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class StandInBehaviorTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    public void throttlesBeyondConcurrencyLimit() {
+        StandInBehavior behavior = new StandInBehavior(StandInConfig.builder()
+                .setLatency(LatencyModel.fixed(10))
+                .setMaxConcurrent(2)
+                .build(), 0);
+
+        assertEquals(StandInBehavior.Outcome.OK, behavior.admit(0).getOutcome());
+        assertEquals(StandInBehavior.Outcome.OK, behavior.admit(0).getOutcome());
+        StandInBehavior.Decision third = behavior.admit(0);
+        assertEquals(StandInBehavior.Outcome.THROTTLED, third.getOutcome());
+        assertEquals(0, third.getDelayMs());
+
+        behavior.release();
+        assertEquals(StandInBehavior.Outcome.OK, behavior.admit(0).getOutcome());
+        assertEquals(3, behavior.getAdmitted());
+        assertEquals(1, behavior.getThrottled());
+        assertEquals(2, behavior.getPeakInFlight());
+    }
+
+    @Test
+    public void throttlesBeyondRequestRate() {
+        StandInBehavior behavior = new StandInBehavior(StandInConfig.builder()
+                .setLatency(LatencyModel.fixed(0))
+                .setMaxRequestsPerSecond(10)
+                .build(), 0);
+
+        // A second's worth may come in a burst
+        for (int i = 0; i < 10; i++) {
+            assertEquals(StandInBehavior.Outcome.OK, behavior.admit(0).getOutcome());
+            behavior.release();
+        }
+        assertEquals(StandInBehavior.Outcome.THROTTLED, behavior.admit(0).getOutcome());
+        // Refilled at 10 per second
+        assertEquals(StandInBehavior.Outcome.THROTTLED, behavior.admit(SECOND / 20).getOutcome());
+        assertEquals(StandInBehavior.Outcome.OK, behavior.admit(SECOND / 10).getOutcome());
+    }
+
+    @Test
+    public void failsTheConfiguredShare() {
+        StandInBehavior behavior = new StandInBehavior(StandInConfig.builder()
+                .setLatency(LatencyModel.fixed(0))
+                .setErrorRate(0.2)
+                .build(), 0);
+
+        for (int i = 0; i < 10_000; i++) {
+            behavior.admit(0);
+            behavior.release();
+        }
+
+        assertEquals(2_000, behavior.getErrors(), 200);
+        assertEquals(0, behavior.getInFlight());
+    }
+
+    @Test
+    public void logNormalLatencyMatchesPercentiles() {
+        LatencyModel model = LatencyModel.logNormal(80, 400);
+        Random random = new Random(1);
+        long[] samples = new long[20_000];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = model.sampleMs(random);
+        }
+        Arrays.sort(samples);
+
+        assertEquals(80, samples[samples.length / 2], 5);
+        assertEquals(400, samples[samples.length * 99 / 100], 40);
+    }
+
+    @Test
+    public void uniformLatencyStaysInRange() {
+        LatencyModel model = LatencyModel.uniform(20, 30);
+        Random random = new Random(2);
+        for (int i = 0; i < 1_000; i++) {
+            long ms = model.sampleMs(random);
+            assertTrue(ms >= 20 && ms <= 30);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void releaseWithoutAdmitFails() {
+        new StandInBehavior(StandInConfig.builder().build(), 0).release();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvalidErrorRate() {
+        StandInConfig.builder().setErrorRate(1.5);
+    }
+}
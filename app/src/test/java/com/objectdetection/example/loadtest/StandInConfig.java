@@ -0,0 +1,149 @@
+package com.objectdetection.example.loadtest;
+
+/**
+ * How the stand-in detection server behaves: how long it takes, how often it fails and
+ * how much load it accepts before answering 429.
+ */
+public final class StandInConfig {
+
+    private final LatencyModel latency;
+    private final double errorRate;
+    private final int maxConcurrent;
+    private final double maxRequestsPerSecond;
+    private final int objectsPerResult;
+    private final long seed;
+    private final boolean binaryEnabled;
+
+    private StandInConfig(Builder builder) {
+        this.latency = builder.latency;
+        this.errorRate = builder.errorRate;
+        this.maxConcurrent = builder.maxConcurrent;
+        this.maxRequestsPerSecond = builder.maxRequestsPerSecond;
+        this.objectsPerResult = builder.objectsPerResult;
+        this.seed = builder.seed;
+        this.binaryEnabled = builder.binaryEnabled;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public LatencyModel getLatency() {
+        return latency;
+    }
+
+    public double getErrorRate() {
+        return errorRate;
+    }
+
+    /**
+     * Detections the server runs at once before throttling, 0 for no limit.
+     */
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    /**
+     * Sustained request rate the server accepts before throttling, 0 for no limit.
+     */
+    public double getMaxRequestsPerSecond() {
+        return maxRequestsPerSecond;
+    }
+
+    public int getObjectsPerResult() {
+        return objectsPerResult;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Whether the server takes binary requests and answers in binary when asked.
+     */
+    public boolean isBinaryEnabled() {
+        return binaryEnabled;
+    }
+
+    @Override
+    public String toString() {
+        return "latency " + latency + ", errors " + Math.round(errorRate * 1000) / 10.0 + "%"
+                + (maxConcurrent > 0 ? ", max " + maxConcurrent + " concurrent" : "")
+                + (maxRequestsPerSecond > 0 ? ", max " + maxRequestsPerSecond + " req/s" : "")
+                + (binaryEnabled ? "" : ", JSON only");
+    }
+
+    public static final class Builder {
+        private LatencyModel latency = LatencyModel.logNormal(80, 400);
+        private double errorRate;
+        private int maxConcurrent;
+        private double maxRequestsPerSecond;
+        private int objectsPerResult = 5;
+        private long seed = 1;
+        private boolean binaryEnabled = true;
+
+        private Builder() {
+        }
+
+        public Builder setLatency(LatencyModel latency) {
+            this.latency = latency;
+            return this;
+        }
+
+        /**
+         * Share of admitted detections answered with HTTP 500, between 0 and 1.
+         */
+        public Builder setErrorRate(double errorRate) {
+            if (errorRate < 0 || errorRate > 1) {
+                throw new IllegalArgumentException("Error rate must be between 0 and 1");
+            }
+            this.errorRate = errorRate;
+            return this;
+        }
+
+        public Builder setMaxConcurrent(int maxConcurrent) {
+            if (maxConcurrent < 0) {
+                throw new IllegalArgumentException("Max concurrent must not be negative");
+            }
+            this.maxConcurrent = maxConcurrent;
+            return this;
+        }
+
+        public Builder setMaxRequestsPerSecond(double maxRequestsPerSecond) {
+            if (maxRequestsPerSecond < 0) {
+                throw new IllegalArgumentException("Max request rate must not be negative");
+            }
+            this.maxRequestsPerSecond = maxRequestsPerSecond;
+            return this;
+        }
+
+        public Builder setObjectsPerResult(int objectsPerResult) {
+            if (objectsPerResult < 0) {
+                throw new IllegalArgumentException("Objects per result must not be negative");
+            }
+            this.objectsPerResult = objectsPerResult;
+            return this;
+        }
+
+        public Builder setSeed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * Off to stand in for API versions that only take multipart requests and answer
+         * in JSON; binary requests are then answered with HTTP 415.
+         */
+        public Builder setBinaryEnabled(boolean binaryEnabled) {
+            this.binaryEnabled = binaryEnabled;
+            return this;
+        }
+
+        public StandInConfig build() {
+            if (latency == null) {
+                throw new IllegalStateException("Latency model is required");
+            }
+            return new StandInConfig(this);
+        }
+    }
+}
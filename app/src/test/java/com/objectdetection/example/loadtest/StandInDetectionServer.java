@@ -0,0 +1,180 @@
+package com.objectdetection.example.loadtest;
+
+import androidx.annotation.NonNull;
+
+import com.objectdetection.example.util.BinaryDetectionCodec;
+import com.objectdetection.example.util.DetectionBuffer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+
+/**
+ * Local stand-in for the detection API's {@code /api/detect} and {@code /api/detect/url}
+ * endpoints, for load tests that must not hit the real service.
+ * <p>
+ * Every POST to either endpoint is answered after a latency drawn from the
+ * {@link StandInConfig}, with canned objects, an HTTP 500 or, beyond the configured
+ * load, an HTTP 429. Images come as multipart or in the binary wire format, and results
+ * go back in binary if the request accepts it, JSON otherwise. Each connection is served
+ * on its own thread, so slow answers only hold up their own connection, as on a real
+ * server.
+ * <p>
+ * {@link #main(String[])} runs it standalone, so the app on a device can be pointed at it
+ * through the API URL setting.
+ */
+public final class StandInDetectionServer implements Closeable {
+
+    public static final String DETECT_PATH = "/api/detect";
+    public static final String DETECT_URL_PATH = "/api/detect/url";
+    public static final int DEFAULT_PORT = 8080;
+
+    private static final String CONTENT_TYPE_JSON = "application/json; charset=utf-8";
+
+    private final MockWebServer server = new MockWebServer();
+    private final StandInBehavior behavior;
+    private final AtomicLong requestBytes = new AtomicLong();
+    private final AtomicLong responseBytes = new AtomicLong();
+
+    public StandInDetectionServer(StandInConfig config) {
+        behavior = new StandInBehavior(config, System.nanoTime());
+        server.setDispatcher(new DetectionDispatcher());
+    }
+
+    /**
+     * Starts on a free port.
+     */
+    public void start() throws IOException {
+        server.start();
+    }
+
+    public void start(int port) throws IOException {
+        server.start(port);
+    }
+
+    /**
+     * Base URL to configure as the API URL.
+     */
+    public String getUrl() {
+        return server.url("/").toString();
+    }
+
+    public StandInBehavior getBehavior() {
+        return behavior;
+    }
+
+    public int getRequestCount() {
+        return server.getRequestCount();
+    }
+
+    /**
+     * Bytes of all request bodies received, without headers.
+     */
+    public long getRequestBytes() {
+        return requestBytes.get();
+    }
+
+    /**
+     * Bytes of all response bodies sent, without headers and uncompressed.
+     */
+    public long getResponseBytes() {
+        return responseBytes.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.shutdown();
+    }
+
+    private final class DetectionDispatcher extends Dispatcher {
+
+        @NonNull
+        @Override
+        public MockResponse dispatch(@NonNull RecordedRequest request) throws InterruptedException {
+            requestBytes.addAndGet(request.getBodySize());
+            String path = request.getPath();
+            if (path != null && path.indexOf('?') >= 0) {
+                path = path.substring(0, path.indexOf('?'));
+            }
+            if (!"POST".equals(request.getMethod())
+                    || !(DETECT_PATH.equals(path) || DETECT_URL_PATH.equals(path))) {
+                return respond(404, CannedResults.failure("Not found"), false);
+            }
+
+            boolean binaryEnabled = behavior.getConfig().isBinaryEnabled();
+            String accept = request.getHeader("Accept");
+            boolean binaryResult = binaryEnabled && accept != null
+                    && accept.contains(BinaryDetectionCodec.RESULT_CONTENT_TYPE);
+            String contentType = request.getHeader("Content-Type");
+            if (contentType != null && contentType.startsWith(BinaryDetectionCodec.REQUEST_CONTENT_TYPE)) {
+                if (!binaryEnabled) {
+                    return respond(415, CannedResults.failure("Unsupported media type"), false);
+                }
+                byte[] body = request.getBody().readByteArray();
+                try {
+                    BinaryDetectionCodec.decodeRequest(body, 0, body.length);
+                } catch (IOException e) {
+                    return respond(400, CannedResults.failure(e.getMessage()), binaryResult);
+                }
+            }
+
+            StandInBehavior.Decision decision = behavior.admit(System.nanoTime());
+            if (decision.getOutcome() == StandInBehavior.Outcome.THROTTLED) {
+                return respond(429, CannedResults.failure("Too many requests"), binaryResult)
+                        .setHeader("Retry-After", "1");
+            }
+            try {
+                // The connection's own thread, so only this request waits
+                Thread.sleep(decision.getDelayMs());
+            } finally {
+                behavior.release();
+            }
+            if (decision.getOutcome() == StandInBehavior.Outcome.ERROR) {
+                return respond(500, CannedResults.failure("Detection failed"), binaryResult);
+            }
+            return respond(200, CannedResults.success(behavior.getConfig().getObjectsPerResult(),
+                    decision.getDelayMs(), ThreadLocalRandom.current()), binaryResult);
+        }
+
+        private MockResponse respond(int code, DetectionBuffer result, boolean binary) {
+            byte[] body = binary
+                    ? CannedResults.toBinary(result)
+                    : CannedResults.toJson(result).getBytes(StandardCharsets.UTF_8);
+            responseBytes.addAndGet(body.length);
+            return new MockResponse()
+                    .setResponseCode(code)
+                    .setHeader("Content-Type", binary ? BinaryDetectionCodec.RESULT_CONTENT_TYPE : CONTENT_TYPE_JSON)
+                    .setBody(new Buffer().write(body));
+        }
+    }
+
+    /**
+     * Serves until killed.
+     *
+     * @param args Optional port, then optional median and 99th percentile latency in ms
+     *             and error rate, e.g. {@code 8080 80 400 0.01}
+     */
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        StandInConfig.Builder config = StandInConfig.builder();
+        if (args.length > 2) {
+            config.setLatency(LatencyModel.logNormal(Double.parseDouble(args[1]), Double.parseDouble(args[2])));
+        }
+        if (args.length > 3) {
+            config.setErrorRate(Double.parseDouble(args[3]));
+        }
+        StandInDetectionServer server = new StandInDetectionServer(config.build());
+        server.start(port);
+        System.out.println("Stand-in detection server at " + server.getUrl()
+                + " (" + server.getBehavior().getConfig() + ")");
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,117 @@
+package com.objectdetection.example.loadtest;
+
+import com.objectdetection.example.net.WireFormat;
+import com.objectdetection.example.util.DetectionBuffer;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Bytes on the wire and client parse time of the JSON and binary wire formats, as a batch
+ * against the local stand-in server sees them, and the fallback to JSON against a server
+ * that only speaks JSON.
+ */
+public class WireFormatBenchmark {
+
+    private static final int JPEG_BYTES = 60 * 1024;
+    private static final int IMAGES = 200;
+    private static final int MAX_IN_FLIGHT = 4;
+    private static final int[] OBJECTS_PER_RESULT = {20, 100};
+
+    @Test
+    public void binaryCutsResultBytes() throws Exception {
+        for (int objects : OBJECTS_PER_RESULT) {
+            Run json = run(objects, WireFormat.JSON, true);
+            Run binary = run(objects, WireFormat.BINARY, true);
+            DetectionBuffer sample = CannedResults.success(objects, 50, new Random(1));
+            System.out.printf(Locale.US, "%d objects: gzipped result %d B json, %d B binary%n", objects,
+                    gzippedSize(CannedResults.toJson(sample).getBytes(StandardCharsets.UTF_8)),
+                    gzippedSize(CannedResults.toBinary(sample)));
+
+            assertEquals(IMAGES, json.succeeded);
+            assertEquals(IMAGES, binary.succeeded);
+            // The multipart envelope against a 12 byte header
+            assertTrue(binary.requestBytes < json.requestBytes);
+            // Typically 4-5 times smaller; the stand-in's results are random, so leave headroom
+            assertTrue(binary.responseBytes * 3 < json.responseBytes);
+        }
+    }
+
+    @Test
+    public void fallsBackToJsonOnJsonOnlyServers() throws Exception {
+        Run fallback = run(20, WireFormat.BINARY, false);
+
+        assertEquals(IMAGES, fallback.succeeded);
+        // Warm-up and measured batch; only images sent before the first rejection came back go out twice
+        assertTrue(fallback.requests > 2 * IMAGES);
+        assertTrue(fallback.requests <= 2 * IMAGES + MAX_IN_FLIGHT);
+    }
+
+    private static Run run(int objects, WireFormat format, boolean binaryEnabled)
+            throws IOException, InterruptedException {
+        byte[] jpeg = new byte[JPEG_BYTES];
+        new Random(1).nextBytes(jpeg);
+        jpeg[0] = (byte) 0xFF;
+        jpeg[1] = (byte) 0xD8;
+        StandInConfig config = StandInConfig.builder()
+                .setLatency(LatencyModel.fixed(2))
+                .setObjectsPerResult(objects)
+                .setBinaryEnabled(binaryEnabled)
+                .build();
+        try (StandInDetectionServer server = new StandInDetectionServer(config);
+             LoadDriver driver = startDriver(server, jpeg, format)) {
+            // Warm up the connection, parsers and JIT
+            driver.runBatch(IMAGES, MAX_IN_FLIGHT);
+            long warmupRequestBytes = server.getRequestBytes();
+            long warmupResponseBytes = server.getResponseBytes();
+
+            LoadReport report = driver.runBatch(IMAGES, MAX_IN_FLIGHT);
+            Run run = new Run(report.getSucceeded(), server.getRequestCount(),
+                    (server.getRequestBytes() - warmupRequestBytes) / IMAGES,
+                    (server.getResponseBytes() - warmupResponseBytes) / IMAGES);
+            System.out.printf(Locale.US, "%-6s %3d objects%s: %6d B/request %6d B/result, parse p50 %4d us,"
+                            + " mean %6.1f us, latency p50 %5.1f ms%n",
+                    format, objects, binaryEnabled ? "" : " (JSON-only server)",
+                    run.requestBytes, run.responseBytes,
+                    report.getParsing().getPercentileMicros(50), report.getParsing().getMeanMicros(),
+                    report.getLatency().getPercentileMicros(50) / 1000.0);
+            return run;
+        }
+    }
+
+    private static LoadDriver startDriver(StandInDetectionServer server, byte[] jpeg, WireFormat format)
+            throws IOException {
+        server.start();
+        return new LoadDriver(server.getUrl(), jpeg, format);
+    }
+
+    private static int gzippedSize(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.size();
+    }
+
+    private static final class Run {
+        final long succeeded;
+        final int requests;
+        final long requestBytes;
+        final long responseBytes;
+
+        Run(long succeeded, int requests, long requestBytes, long responseBytes) {
+            this.succeeded = succeeded;
+            this.requests = requests;
+            this.requestBytes = requestBytes;
+            this.responseBytes = responseBytes;
+        }
+    }
+}
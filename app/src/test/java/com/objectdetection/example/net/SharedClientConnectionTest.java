@@ -0,0 +1,141 @@
+package com.objectdetection.example.net;
+
+import com.objectdetection.sdk.listener.ImageDetectionListener;
+import com.objectdetection.sdk.model.DetectionResult;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.*;
+
+public class SharedClientConnectionTest {
+
+    private static final String RESULT_JSON = "{\"detectedObjects\":["
+            + "{\"label\":\"person\",\"confidence\":0.97,\"box\":{\"xMin\":10,\"yMin\":20,\"xMax\":110,\"yMax\":220}}],"
+            + "\"processingTimeMs\":120}";
+    private static final byte[] JPEG = {(byte) 0xFF, (byte) 0xD8, 1, 2, 3, (byte) 0xFF, (byte) 0xD9};
+    private static final int REQUESTS = 20;
+
+    private final AtomicInteger connectionsOpened = new AtomicInteger();
+    private MockWebServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void sharedClientReusesOneConnection() throws Exception {
+        OkHttpClient client = HttpClients.newBuilder()
+                .eventListener(new ConnectionCounter())
+                .build();
+        DetectionApiClient apiClient = new DetectionApiClient(client, server.url("/").toString());
+
+        for (int i = 0; i < REQUESTS; i++) {
+            server.enqueue(new MockResponse().setBody(RESULT_JSON));
+            DetectionResult result = detect(apiClient);
+            assertEquals(120, result.getProcessingTimeMs());
+        }
+
+        assertEquals(1, connectionsOpened.get());
+        for (int i = 0; i < REQUESTS; i++) {
+            RecordedRequest request = server.takeRequest();
+            assertEquals("/api/detect", request.getPath());
+            // Each request rides the same connection, one after the other
+            assertEquals(i, request.getSequenceNumber());
+            // Response compression is negotiated without extra setup
+            assertEquals("gzip", request.getHeader("Accept-Encoding"));
+        }
+    }
+
+    @Test
+    public void clientPerRequestOpensAConnectionEachTime() throws Exception {
+        for (int i = 0; i < REQUESTS; i++) {
+            server.enqueue(new MockResponse().setBody(RESULT_JSON));
+            OkHttpClient client = HttpClients.newBuilder()
+                    .eventListener(new ConnectionCounter())
+                    .build();
+            detect(new DetectionApiClient(client, server.url("/").toString()));
+        }
+
+        assertEquals(REQUESTS, connectionsOpened.get());
+    }
+
+    @Test
+    public void perCallTimeoutFailsSlowResponses() throws Exception {
+        server.enqueue(new MockResponse().setBody(RESULT_JSON).setHeadersDelay(2, TimeUnit.SECONDS));
+        DetectionApiClient apiClient = new DetectionApiClient(HttpClients.newBuilder().build(),
+                server.url("/").toString(), 200);
+
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<Exception> error = new AtomicReference<>();
+        apiClient.detectJpeg(JPEG, new ImageDetectionListener() {
+            @Override
+            public void onResult(DetectionResult result) {
+                done.countDown();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                error.set(e);
+                done.countDown();
+            }
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(error.get() instanceof IOException);
+    }
+
+    private static DetectionResult detect(DetectionApiClient apiClient) throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<DetectionResult> result = new AtomicReference<>();
+        AtomicReference<Exception> error = new AtomicReference<>();
+        apiClient.detectJpeg(JPEG, new ImageDetectionListener() {
+            @Override
+            public void onResult(DetectionResult detectionResult) {
+                result.set(detectionResult);
+                done.countDown();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                error.set(e);
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        if (error.get() != null) {
+            throw error.get();
+        }
+        return result.get();
+    }
+
+    private class ConnectionCounter extends EventListener {
+        @Override
+        public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+            connectionsOpened.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.objectdetection.example.net;
+
+import com.objectdetection.example.util.BinaryDetectionCodec;
+import com.objectdetection.example.util.DetectionBuffer;
+import com.objectdetection.example.util.DetectionBufferListener;
+import com.objectdetection.sdk.listener.ImageDetectionListener;
+import com.objectdetection.sdk.model.DetectionResult;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+
+import static org.junit.Assert.*;
+
+public class WireFormatNegotiationTest {
+
+    private static final String RESULT_JSON = "{\"detectedObjects\":["
+            + "{\"label\":\"person\",\"confidence\":0.97,\"box\":{\"xMin\":10,\"yMin\":20,\"xMax\":110,\"yMax\":220}}],"
+            + "\"processingTimeMs\":120}";
+    private static final byte[] JPEG = {(byte) 0xFF, (byte) 0xD8, 1, 2, 3, (byte) 0xFF, (byte) 0xD9};
+
+    private MockWebServer server;
+    private DetectionApiClient apiClient;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        apiClient = new DetectionApiClient(HttpClients.newBuilder().build(), server.url("/").toString(), 0,
+                WireFormat.BINARY);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void sendsHeadedJpegsAndReadsPackedResults() throws Exception {
+        DetectionBuffer expected = new DetectionBuffer();
+        expected.add("person", 0.97f, 10f, 20f, 110f, 220f);
+        expected.add("dog", 0.5f, 1f, 2f, 3f, 4f);
+        expected.setProcessingTimeMs(120);
+        server.enqueue(binary(200, expected));
+        server.enqueue(binary(200, expected));
+
+        DetectionResult result = detect();
+        DetectionBuffer detections = detectIntoBuffer();
+
+        assertEquals(2, result.getDetectedObjects().size());
+        assertEquals("dog", result.getDetectedObjects().get(1).getLabel());
+        assertEquals(120, result.getProcessingTimeMs());
+        assertEquals(2, detections.size());
+        assertEquals(220f, detections.getYMax(0), 0f);
+
+        RecordedRequest request = server.takeRequest();
+        assertEquals("/api/detect", request.getPath());
+        assertEquals(BinaryDetectionCodec.REQUEST_CONTENT_TYPE, request.getHeader("Content-Type"));
+        assertTrue(request.getHeader("Accept").startsWith(BinaryDetectionCodec.RESULT_CONTENT_TYPE));
+        byte[] body = request.getBody().readByteArray();
+        assertEquals(BinaryDetectionCodec.REQUEST_HEADER_SIZE + JPEG.length, body.length);
+        int offset = BinaryDetectionCodec.decodeRequest(body, 0, body.length);
+        assertArrayEquals(JPEG, Arrays.copyOfRange(body, offset, body.length));
+    }
+
+    @Test
+    public void readsJsonAnswersToBinaryRequests() throws Exception {
+        server.enqueue(json(200, RESULT_JSON));
+        server.enqueue(json(200, RESULT_JSON));
+
+        assertEquals(120, detect().getProcessingTimeMs());
+        assertEquals("person", detectIntoBuffer().getLabel(0));
+        // Answering in JSON is not a rejection
+        server.takeRequest();
+        assertEquals(BinaryDetectionCodec.REQUEST_CONTENT_TYPE, server.takeRequest().getHeader("Content-Type"));
+    }
+
+    @Test
+    public void fallsBackToMultipartWhenTheServerRejectsBinary() throws Exception {
+        server.enqueue(json(415, "{\"error\":\"Unsupported media type\"}"));
+        server.enqueue(json(200, RESULT_JSON));
+        server.enqueue(json(200, RESULT_JSON));
+
+        // The rejected request is sent again within the same call
+        assertEquals(120, detect().getProcessingTimeMs());
+        assertEquals(120, detect().getProcessingTimeMs());
+
+        assertEquals(3, server.getRequestCount());
+        assertEquals(BinaryDetectionCodec.REQUEST_CONTENT_TYPE, server.takeRequest().getHeader("Content-Type"));
+        assertTrue(server.takeRequest().getHeader("Content-Type").startsWith("multipart/form-data"));
+        assertTrue(server.takeRequest().getHeader("Content-Type").startsWith("multipart/form-data"));
+    }
+
+    @Test
+    public void badRequestsAreNotRejections() throws Exception {
+        server.enqueue(json(400, "{\"error\":\"Invalid image\",\"detectedObjects\":[]}"));
+        server.enqueue(json(200, RESULT_JSON));
+
+        assertEquals("Invalid image", detect().getError());
+        assertTrue(detect().isSuccess());
+
+        assertEquals(2, server.getRequestCount());
+        assertEquals(BinaryDetectionCodec.REQUEST_CONTENT_TYPE, server.takeRequest().getHeader("Content-Type"));
+        assertEquals(BinaryDetectionCodec.REQUEST_CONTENT_TYPE, server.takeRequest().getHeader("Content-Type"));
+    }
+
+    @Test
+    public void keepsBinaryAfterFailedDetections() throws Exception {
+        server.enqueue(binary(500, failure("Detection failed")));
+        server.enqueue(json(500, "{\"error\":\"Detection failed\",\"detectedObjects\":[]}"));
+        server.enqueue(binary(200, new DetectionBuffer()));
+
+        assertEquals("Detection failed", detect().getError());
+        assertEquals("Detection failed", detectIntoBuffer().getError());
+        assertTrue(detect().isSuccess());
+
+        assertEquals(3, server.getRequestCount());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(BinaryDetectionCodec.REQUEST_CONTENT_TYPE, server.takeRequest().getHeader("Content-Type"));
+        }
+    }
+
+    @Test
+    public void serverErrorsWithoutAResultAreIOExceptions() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(502)
+                .setHeader("Content-Type", "text/html").setBody("<html><body>Bad Gateway</body></html>"));
+        server.enqueue(new MockResponse().setResponseCode(429)
+                .setHeader("Content-Type", "text/plain").setBody("Too many requests"));
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setResponseCode(503));
+
+        assertServerError(502, this::detect);
+        assertServerError(429, this::detectIntoBuffer);
+        assertServerError(503, this::detect);
+        assertServerError(503, this::detectIntoBuffer);
+    }
+
+    @Test
+    public void jsonClientsNeverSendBinary() throws Exception {
+        apiClient = new DetectionApiClient(HttpClients.newBuilder().build(), server.url("/").toString());
+        server.enqueue(json(200, RESULT_JSON));
+
+        detect();
+
+        RecordedRequest request = server.takeRequest();
+        assertTrue(request.getHeader("Content-Type").startsWith("multipart/form-data"));
+        assertNull(request.getHeader("Accept"));
+    }
+
+    private static void assertServerError(int code, Detection detection) {
+        try {
+            detection.run();
+            fail("Expected an IOException");
+        } catch (Exception e) {
+            assertTrue(e.toString(), e instanceof IOException);
+            assertTrue(e.getMessage(), e.getMessage().contains("HTTP " + code));
+        }
+    }
+
+    private interface Detection {
+        Object run() throws Exception;
+    }
+
+    private static DetectionBuffer failure(String error) {
+        DetectionBuffer result = new DetectionBuffer();
+        result.setError(error);
+        return result;
+    }
+
+    private static MockResponse binary(int code, DetectionBuffer result) {
+        return new MockResponse()
+                .setResponseCode(code)
+                .setHeader("Content-Type", BinaryDetectionCodec.RESULT_CONTENT_TYPE)
+                .setBody(new Buffer().write(BinaryDetectionCodec.encodeResult(result)));
+    }
+
+    private static MockResponse json(int code, String body) {
+        return new MockResponse()
+                .setResponseCode(code)
+                .setHeader("Content-Type", "application/json")
+                .setBody(body);
+    }
+
+    private DetectionResult detect() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<DetectionResult> result = new AtomicReference<>();
+        AtomicReference<Exception> error = new AtomicReference<>();
+        apiClient.detectJpeg(JPEG, new ImageDetectionListener() {
+            @Override
+            public void onResult(DetectionResult detectionResult) {
+                result.set(detectionResult);
+                done.countDown();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                error.set(e);
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        if (error.get() != null) {
+            throw error.get();
+        }
+        return result.get();
+    }
+
+    private DetectionBuffer detectIntoBuffer() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        DetectionBuffer copy = new DetectionBuffer();
+        AtomicReference<Exception> error = new AtomicReference<>();
+        apiClient.detectJpeg(JPEG, new DetectionBufferListener() {
+            @Override
+            public void onDetections(DetectionBuffer detections) {
+                copy.copyFrom(detections);
+                done.countDown();
+            }
+
+            @Override
+            public void onResult(DetectionResult result) {
+                error.set(new IllegalStateException("Expected a buffer"));
+                done.countDown();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                error.set(e);
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        if (error.get() != null) {
+            throw error.get();
+        }
+        return copy;
+    }
+}
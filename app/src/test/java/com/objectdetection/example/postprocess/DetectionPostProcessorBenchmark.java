@@ -0,0 +1,110 @@
+package com.objectdetection.example.postprocess;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.objectdetection.example.bench.Microbenchmark;
+import com.objectdetection.example.util.DetectionBuffer;
+import com.objectdetection.example.util.LabelPalette;
+import com.objectdetection.sdk.model.DetectedObject;
+import com.objectdetection.sdk.model.DetectionResult;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Benchmark of post-processing 1,000 boxes.
+ * <p>
+ * The baseline is what the result screen did before: sorting the SDK objects with
+ * {@code Collections.sort} and a comparator, without removing duplicates.
+ */
+public class DetectionPostProcessorBenchmark {
+
+    private static final int BOXES = 1_000;
+    private static final int TOP_K = 100;
+    private static final int OPS_PER_ITERATION = 2_000;
+
+    private static final Comparator<DetectedObject> BY_CONFIDENCE = new Comparator<DetectedObject>() {
+        @Override
+        public int compare(DetectedObject o1, DetectedObject o2) {
+            return Float.compare(o2.getConfidence(), o1.getConfidence());
+        }
+    };
+
+    private long checksum;
+
+    @Test
+    public void processes1kBoxesWithoutAllocating() {
+        DetectionBuffer in = boxes(new Random(1));
+        List<DetectedObject> objects = toObjects(in);
+        DetectionBuffer out = new DetectionBuffer(BOXES);
+        DetectionPostProcessor nms = DetectionPostProcessor.builder().setMaxResults(TOP_K).build();
+        DetectionPostProcessor topK = DetectionPostProcessor.builder()
+                .setIouThreshold(1f).setMaxResults(TOP_K).build();
+        DetectionPostProcessor nmsAll = DetectionPostProcessor.builder().build();
+        List<DetectedObject> scratch = new ArrayList<>(BOXES);
+
+        Microbenchmark bench = new Microbenchmark(OPS_PER_ITERATION);
+        Microbenchmark.Result sort = bench.measure("Collections.sort of SDK objects", () -> {
+            scratch.clear();
+            scratch.addAll(objects);
+            Collections.sort(scratch, BY_CONFIDENCE);
+            checksum += scratch.size();
+        });
+        Microbenchmark.Result topKOnly = bench.measure("top-" + TOP_K, () -> checksum += topK.process(in, out));
+        Microbenchmark.Result nmsTopK = bench.measure("per-class NMS, top-" + TOP_K,
+                () -> checksum += nms.process(in, out));
+        Microbenchmark.Result nmsFull = bench.measure("per-class NMS, all", () -> checksum += nmsAll.process(in, out));
+
+        Microbenchmark.report("Post-processing " + BOXES + " boxes, " + LabelPalette.COCO_LABELS.length + " labels",
+                sort, topKOnly, nmsTopK, nmsFull);
+        assertTrue(checksum > 0);
+        Microbenchmark.assertAllocationFree(nmsTopK);
+        Microbenchmark.assertAllocationFree(nmsFull);
+    }
+
+    /**
+     * Clusters of overlapping boxes, like raw model output before suppression.
+     */
+    private static DetectionBuffer boxes(Random random) {
+        DetectionBuffer buffer = new DetectionBuffer(BOXES);
+        String[] labels = LabelPalette.COCO_LABELS;
+        while (buffer.size() < BOXES) {
+            String label = labels[random.nextInt(labels.length)];
+            float x = random.nextFloat() * 1800;
+            float y = random.nextFloat() * 1000;
+            float size = 40 + random.nextFloat() * 200;
+            for (int i = 0; i < 5 && buffer.size() < BOXES; i++) {
+                float jitter = random.nextFloat() * 10;
+                buffer.add(label, random.nextFloat(), x + jitter, y + jitter, x + size + jitter, y + size);
+            }
+        }
+        return buffer;
+    }
+
+    private static List<DetectedObject> toObjects(DetectionBuffer buffer) {
+        JsonArray array = new JsonArray();
+        for (int i = 0; i < buffer.size(); i++) {
+            JsonObject box = new JsonObject();
+            box.addProperty("xMin", buffer.getXMin(i));
+            box.addProperty("yMin", buffer.getYMin(i));
+            box.addProperty("xMax", buffer.getXMax(i));
+            box.addProperty("yMax", buffer.getYMax(i));
+            JsonObject object = new JsonObject();
+            object.addProperty("label", buffer.getLabel(i));
+            object.addProperty("confidence", buffer.getConfidence(i));
+            object.add("box", box);
+            array.add(object);
+        }
+        JsonObject tree = new JsonObject();
+        tree.add("detectedObjects", array);
+        return new Gson().fromJson(tree, DetectionResult.class).getDetectedObjects();
+    }
+}
@@ -0,0 +1,165 @@
+package com.objectdetection.example.postprocess;
+
+import com.objectdetection.example.util.DetectionBuffer;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+
+public class DetectionPostProcessorTest {
+
+    @Test
+    public void ordersByFallingConfidence() {
+        DetectionBuffer in = new DetectionBuffer();
+        in.add("a", 0.3f, 0, 0, 10, 10);
+        in.add("b", 0.9f, 20, 0, 30, 10);
+        in.add("c", 0.6f, 40, 0, 50, 10);
+        DetectionBuffer out = new DetectionBuffer();
+
+        DetectionPostProcessor.builder().build().process(in, out);
+
+        assertEquals(3, out.size());
+        assertEquals("b", out.getLabel(0));
+        assertEquals("c", out.getLabel(1));
+        assertEquals("a", out.getLabel(2));
+    }
+
+    @Test
+    public void suppressesOverlappingBoxesOfTheSameLabel() {
+        DetectionBuffer in = new DetectionBuffer();
+        in.add("dog", 0.7f, 0, 0, 100, 100);
+        in.add("dog", 0.9f, 5, 5, 105, 105);
+        // Same place, other label
+        in.add("cat", 0.8f, 0, 0, 100, 100);
+        // Same label, elsewhere
+        in.add("dog", 0.5f, 300, 300, 400, 400);
+        DetectionBuffer out = new DetectionBuffer();
+
+        int kept = DetectionPostProcessor.builder().build().process(in, out);
+
+        assertEquals(3, kept);
+        assertEquals("dog", out.getLabel(0));
+        assertEquals(0.9f, out.getConfidence(0), 1e-6f);
+        assertEquals("cat", out.getLabel(1));
+        assertEquals(0.5f, out.getConfidence(2), 1e-6f);
+    }
+
+    @Test
+    public void iouThresholdOfOneDisablesSuppression() {
+        DetectionBuffer in = new DetectionBuffer();
+        in.add("dog", 0.7f, 0, 0, 100, 100);
+        in.add("dog", 0.9f, 0, 0, 100, 100);
+        DetectionBuffer out = new DetectionBuffer();
+
+        DetectionPostProcessor.builder().setIouThreshold(1f).build().process(in, out);
+
+        assertEquals(2, out.size());
+    }
+
+    @Test
+    public void keepsTopKAfterSuppression() {
+        DetectionBuffer in = new DetectionBuffer();
+        in.add("dog", 0.95f, 0, 0, 100, 100);
+        in.add("dog", 0.9f, 1, 1, 101, 101);
+        in.add("cat", 0.8f, 200, 0, 300, 100);
+        in.add("car", 0.7f, 400, 0, 500, 100);
+        DetectionBuffer out = new DetectionBuffer();
+
+        DetectionPostProcessor.builder().setMaxResults(2).build().process(in, out);
+
+        // The suppressed duplicate doesn't take one of the two places
+        assertEquals(2, out.size());
+        assertEquals("dog", out.getLabel(0));
+        assertEquals("cat", out.getLabel(1));
+    }
+
+    @Test
+    public void filtersByConfidenceAndLabel() {
+        DetectionBuffer in = new DetectionBuffer();
+        in.add("person", 0.9f, 0, 0, 10, 10);
+        in.add("person", 0.2f, 20, 0, 30, 10);
+        in.add("car", 0.9f, 40, 0, 50, 10);
+        DetectionBuffer out = new DetectionBuffer();
+
+        DetectionPostProcessor.builder()
+                .setMinConfidence(0.5f)
+                .setAllowedLabels(new HashSet<>(Arrays.asList("person", "dog")))
+                .build()
+                .process(in, out);
+
+        assertEquals(1, out.size());
+        assertEquals("person", out.getLabel(0));
+        assertEquals(0.9f, out.getConfidence(0), 1e-6f);
+    }
+
+    @Test
+    public void tiesKeepInputOrder() {
+        DetectionBuffer in = new DetectionBuffer();
+        in.add("first", 0.5f, 0, 0, 10, 10);
+        in.add("second", 0.5f, 20, 0, 30, 10);
+        in.add("third", 0.5f, 40, 0, 50, 10);
+        DetectionBuffer out = new DetectionBuffer();
+
+        DetectionPostProcessor.builder().build().process(in, out);
+
+        assertEquals("first", out.getLabel(0));
+        assertEquals("second", out.getLabel(1));
+        assertEquals("third", out.getLabel(2));
+    }
+
+    @Test
+    public void carriesMetadataAndTrackIds() {
+        DetectionBuffer in = new DetectionBuffer();
+        in.add("dog", 0.7f, 0, 0, 100, 100);
+        in.setTrackId(0, 42);
+        in.setProcessingTimeMs(120);
+        in.setImageSize(640, 480);
+        DetectionBuffer out = new DetectionBuffer();
+        out.add("stale", 1f, 0, 0, 1, 1);
+
+        DetectionPostProcessor.builder().build().process(in, out);
+
+        assertEquals(1, out.size());
+        assertEquals(42, out.getTrackId(0));
+        assertEquals(120, out.getProcessingTimeMs());
+        assertEquals(640, out.getImageWidth());
+        assertEquals(480, out.getImageHeight());
+    }
+
+    @Test
+    public void reusesScratchForGrowingInputs() {
+        DetectionPostProcessor processor = DetectionPostProcessor.builder().build();
+        DetectionBuffer out = new DetectionBuffer();
+        for (int size = 1; size <= 100; size *= 10) {
+            DetectionBuffer in = new DetectionBuffer();
+            for (int i = 0; i < size; i++) {
+                in.add("box", i / (float) size, i * 20, 0, i * 20 + 10, 10);
+            }
+            assertEquals(size, processor.process(in, out));
+            assertEquals((size - 1) / (float) size, out.getConfidence(0), 1e-6f);
+        }
+    }
+
+    @Test
+    public void computesIou() {
+        float[] a = {0, 0, 10, 10};
+        float[] b = {5, 0, 15, 10};
+        assertEquals(50f / 150f, DetectionPostProcessor.iou(a, 0, b, 0), 1e-6f);
+        assertEquals(1f, DetectionPostProcessor.iou(a, 0, a, 0), 1e-6f);
+        assertEquals(0f, DetectionPostProcessor.iou(a, 0, new float[]{20, 20, 30, 30}, 0), 0f);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsSameBufferForInputAndOutput() {
+        DetectionBuffer buffer = new DetectionBuffer();
+        DetectionPostProcessor.builder().build().process(buffer, buffer);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositiveMaxResults() {
+        DetectionPostProcessor.builder().setMaxResults(0);
+    }
+}
@@ -0,0 +1,113 @@
+package com.objectdetection.example.preprocess;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.Assert.*;
+
+public class EncodedImageTest {
+
+    private static byte[] bytes(int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        return data;
+    }
+
+    @Test
+    public void readsStreamLargerThanInitialCapacity() throws IOException {
+        byte[] data = bytes(EncodedImage.DEFAULT_INITIAL_CAPACITY * 2 + 17);
+
+        EncodedImage image = EncodedImage.read(new ByteArrayInputStream(data), -1);
+
+        assertEquals(data.length, image.getLength());
+        for (int i = 0; i < data.length; i++) {
+            assertEquals(data[i], image.getData()[i]);
+        }
+    }
+
+    @Test
+    public void exactSizeHintNeedsNoGrowth() throws IOException {
+        byte[] data = bytes(1000);
+
+        EncodedImage image = EncodedImage.read(new ByteArrayInputStream(data), data.length);
+
+        assertEquals(1000, image.getLength());
+        // One spare byte to detect the end of the stream without growing
+        assertEquals(1001, image.getData().length);
+    }
+
+    @Test
+    public void acceptsImagesUpToTheLimit() throws IOException {
+        byte[] data = bytes(1000);
+
+        assertEquals(1000, EncodedImage.read(new ByteArrayInputStream(data), -1, 1000).getLength());
+        assertEquals(1000, EncodedImage.read(new ByteArrayInputStream(data), 1000, 1000).getLength());
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsDeclaredSizeOverTheLimit() throws IOException {
+        EncodedImage.read(new ByteArrayInputStream(new byte[0]), 1001, 1000);
+    }
+
+    @Test
+    public void stopsReadingPastTheLimit() throws IOException {
+        CountingStream input = new CountingStream(bytes(EncodedImage.DEFAULT_INITIAL_CAPACITY * 4));
+        try {
+            // The declared size understates the stream
+            EncodedImage.read(input, 10, EncodedImage.DEFAULT_INITIAL_CAPACITY);
+            fail("Read an image over the limit");
+        } catch (IOException expected) {
+            // Too large
+        }
+        assertEquals(EncodedImage.DEFAULT_INITIAL_CAPACITY + 1, input.count);
+    }
+
+    @Test
+    public void streamsShareTheArray() throws IOException {
+        byte[] data = bytes(64);
+        EncodedImage image = new EncodedImage(data, 10);
+
+        try (InputStream input = image.newInputStream()) {
+            assertEquals(10, input.available());
+            assertEquals(data[0] & 0xFF, input.read());
+        }
+        assertSame(data, image.getData());
+    }
+
+    @Test
+    public void detectsJpegMarker() {
+        byte[] jpeg = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0};
+        byte[] png = {(byte) 0x89, 'P', 'N', 'G'};
+
+        assertTrue(new EncodedImage(jpeg, jpeg.length).isJpeg());
+        assertFalse(new EncodedImage(png, png.length).isJpeg());
+        assertFalse(new EncodedImage(jpeg, 2).isJpeg());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsLengthBeyondArray() {
+        new EncodedImage(new byte[4], 5);
+    }
+
+    private static final class CountingStream extends ByteArrayInputStream {
+        int count;
+
+        CountingStream(byte[] data) {
+            super(data);
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.objectdetection.example.preprocess;
+
+import com.objectdetection.example.bench.Microbenchmark;
+
+import org.junit.Test;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Random;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * JVM benchmark for the upload preprocessing stage.
+ * <p>
+ * Compares uploading a 12 MP camera photo as is with the downscaled and re-encoded
+ * version produced by the same sizing rules as {@link ImagePreprocessor}. Desktop
+ * ImageIO stands in for the Android codecs, and the upload time is modelled from a
+ * typical cellular uplink so the numbers are comparable between runs.
+ */
+public class ImagePreprocessingBenchmark {
+
+    private static final int PHOTO_WIDTH = 4032;
+    private static final int PHOTO_HEIGHT = 3024;
+    private static final float CAMERA_JPEG_QUALITY = 0.92f;
+    private static final double UPLINK_BYTES_PER_MS = 5_000_000 / 8.0 / 1000.0; // 5 Mbit/s
+    private static final int RUNS = 3;
+
+    @Test
+    public void reportsBytesOnWireAndEndToEndTime() throws IOException {
+        BufferedImage photo = syntheticPhoto(PHOTO_WIDTH, PHOTO_HEIGHT);
+        byte[] original = encodeJpeg(photo, CAMERA_JPEG_QUALITY);
+
+        byte[][] prepared = new byte[1][];
+        // Slow enough that one warm-up run and a few measured ones are stable
+        Microbenchmark.Result result = new Microbenchmark(1, RUNS, 1).measure("prepare 12 MP photo", () -> {
+            try {
+                prepared[0] = prepare(original);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        double preprocessMs = result.getMeanNanos() / 1e6;
+        double beforeMs = original.length / UPLINK_BYTES_PER_MS;
+        double afterMs = preprocessMs + prepared[0].length / UPLINK_BYTES_PER_MS;
+
+        Microbenchmark.report("Image preparation", result);
+        System.out.println(String.format(Locale.US,
+                "Upload preprocessing (%dx%d, 5 Mbit/s uplink)%n"
+                        + "  before: %,d bytes, %.0f ms end-to-end%n"
+                        + "  after:  %,d bytes, %.0f ms end-to-end (%.0f ms preprocessing)",
+                PHOTO_WIDTH, PHOTO_HEIGHT, original.length, beforeMs,
+                prepared[0].length, afterMs, preprocessMs));
+
+        assertTrue("Prepared image should be smaller", prepared[0].length < original.length / 4);
+        assertTrue("Preprocessing should pay for itself", afterMs < beforeMs);
+    }
+
+    /**
+     * Mirrors {@link ImagePreprocessor#prepare}: sampled decode, exact resize, re-encode.
+     */
+    private static byte[] prepare(byte[] jpeg) throws IOException {
+        BufferedImage decoded = ImageIO.read(new java.io.ByteArrayInputStream(jpeg));
+        int sampleSize = ImageSizing.calculateInSampleSize(decoded.getWidth(), decoded.getHeight(),
+                ImagePreprocessor.DEFAULT_MAX_LONG_EDGE);
+        int sampledWidth = decoded.getWidth() / sampleSize;
+        int sampledHeight = decoded.getHeight() / sampleSize;
+        float scale = ImageSizing.scaleToFit(sampledWidth, sampledHeight, ImagePreprocessor.DEFAULT_MAX_LONG_EDGE);
+        int width = ImageSizing.scaleDimension(sampledWidth, scale);
+        int height = ImageSizing.scaleDimension(sampledHeight, scale);
+
+        BufferedImage resized = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = resized.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.drawImage(decoded, 0, 0, width, height, null);
+        graphics.dispose();
+
+        return encodeJpeg(resized, ImagePreprocessor.DEFAULT_JPEG_QUALITY / 100f);
+    }
+
+    private static byte[] encodeJpeg(BufferedImage image, float quality) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+        ImageWriter writer = writers.next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(quality);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (MemoryCacheImageOutputStream stream = new MemoryCacheImageOutputStream(out)) {
+            writer.setOutput(stream);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Smooth gradients with sensor-like noise, which compresses roughly like a real photo.
+     */
+    private static BufferedImage syntheticPhoto(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int noise = random.nextInt(16);
+                int r = (x * 255 / width + noise) & 0xFF;
+                int g = (y * 255 / height + noise) & 0xFF;
+                int b = ((x + y) * 255 / (width + height) + noise) & 0xFF;
+                row[x] = (r << 16) | (g << 8) | b;
+            }
+            image.setRGB(0, y, width, 1, row, 0, width);
+        }
+        return image;
+    }
+}
@@ -0,0 +1,36 @@
+package com.objectdetection.example.preprocess;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ImageSizingTest {
+
+    @Test
+    public void sampleSizeKeepsLongEdgeAboveTarget() {
+        // 12 MP photo: 4032 / 4 = 1008 >= 800, 4032 / 8 = 504 < 800
+        assertEquals(4, ImageSizing.calculateInSampleSize(4032, 3024, 800));
+        assertEquals(4, ImageSizing.calculateInSampleSize(3024, 4032, 800));
+        // 50 MP photo
+        assertEquals(8, ImageSizing.calculateInSampleSize(8160, 6120, 800));
+    }
+
+    @Test
+    public void smallImagesAreNotSampled() {
+        assertEquals(1, ImageSizing.calculateInSampleSize(640, 480, 800));
+        assertEquals(1, ImageSizing.calculateInSampleSize(1500, 1000, 800));
+    }
+
+    @Test
+    public void scaleToFitCapsLongEdge() {
+        float scale = ImageSizing.scaleToFit(1008, 756, 800);
+        assertEquals(800, ImageSizing.scaleDimension(1008, scale));
+        assertEquals(600, ImageSizing.scaleDimension(756, scale));
+    }
+
+    @Test
+    public void scaleToFitNeverUpscales() {
+        assertEquals(1f, ImageSizing.scaleToFit(640, 480, 800), 0f);
+        assertEquals(1f, ImageSizing.scaleToFit(800, 800, 800), 0f);
+    }
+}
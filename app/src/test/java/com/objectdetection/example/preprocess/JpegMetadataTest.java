@@ -0,0 +1,93 @@
+package com.objectdetection.example.preprocess;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class JpegMetadataTest {
+
+    private static final byte[] SOI = {(byte) 0xFF, (byte) 0xD8};
+    private static final byte[] SCAN = {(byte) 0xFF, (byte) 0xDA, 0, 4, 1, 2, 3, 4, (byte) 0xFF, (byte) 0xD9};
+
+    private static byte[] segment(int marker, int payloadLength) {
+        byte[] segment = new byte[4 + payloadLength];
+        segment[0] = (byte) 0xFF;
+        segment[1] = (byte) marker;
+        segment[2] = (byte) ((payloadLength + 2) >> 8);
+        segment[3] = (byte) (payloadLength + 2);
+        Arrays.fill(segment, 4, segment.length, (byte) marker);
+        return segment;
+    }
+
+    private static EncodedImage jpeg(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.write(part, 0, part.length);
+        }
+        byte[] data = out.toByteArray();
+        // Spare room, like an image read from a stream
+        return new EncodedImage(Arrays.copyOf(data, data.length + 16), data.length);
+    }
+
+    private static byte[] bytes(EncodedImage image) {
+        return Arrays.copyOf(image.getData(), image.getLength());
+    }
+
+    @Test
+    public void removesExifXmpAndIptc() {
+        byte[] jfif = segment(0xE0, 14);
+        byte[] icc = segment(0xE2, 40);
+        byte[] quantization = segment(0xDB, 67);
+        EncodedImage photo = jpeg(SOI, jfif, segment(0xE1, 300), segment(0xE1, 500), icc,
+                segment(0xED, 80), quantization, SCAN);
+
+        EncodedImage stripped = JpegMetadata.strip(photo);
+
+        assertArrayEquals(bytes(jpeg(SOI, jfif, icc, quantization, SCAN)), bytes(stripped));
+        assertTrue(stripped.isJpeg());
+    }
+
+    @Test
+    public void sharesImagesWithoutMetadata() {
+        EncodedImage image = jpeg(SOI, segment(0xE0, 14), segment(0xDB, 67), SCAN);
+
+        assertSame(image, JpegMetadata.strip(image));
+    }
+
+    @Test
+    public void leavesTheScanAlone() {
+        // Marker-like bytes after the start of scan are image data
+        byte[] scan = {(byte) 0xFF, (byte) 0xDA, 0, 2, (byte) 0xFF, (byte) 0xE1, 0, 4, (byte) 0xFF, (byte) 0xD9};
+        EncodedImage image = jpeg(SOI, segment(0xE1, 10), scan);
+
+        assertArrayEquals(bytes(jpeg(SOI, scan)), bytes(JpegMetadata.strip(image)));
+    }
+
+    @Test
+    public void skipsFillBytes() {
+        byte[] fill = {(byte) 0xFF, (byte) 0xFF};
+        EncodedImage image = jpeg(SOI, fill, segment(0xE1, 10), segment(0xDB, 67), SCAN);
+
+        assertArrayEquals(bytes(jpeg(SOI, fill, segment(0xDB, 67), SCAN)), bytes(JpegMetadata.strip(image)));
+    }
+
+    @Test
+    public void rejectsMalformedImages() {
+        byte[] segment = segment(0xE1, 100);
+        EncodedImage[] malformed = {
+                jpeg(new byte[]{(byte) 0x89, 'P', 'N', 'G'}),
+                // Segment longer than the image
+                jpeg(SOI, Arrays.copyOf(segment, 50)),
+                // Ends before the scan
+                jpeg(SOI, segment),
+                // Not a marker
+                jpeg(SOI, new byte[]{0, 1, 2, 3}, SCAN),
+        };
+        for (EncodedImage image : malformed) {
+            assertNull(JpegMetadata.strip(image));
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.objectdetection.example.queue;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BackoffTest {
+
+    @Test
+    public void doublesUpToCap() {
+        Backoff backoff = new Backoff(1000, 60_000, new Random(1));
+
+        assertEquals(0, backoff.maxDelayMs(0));
+        assertEquals(1000, backoff.maxDelayMs(1));
+        assertEquals(2000, backoff.maxDelayMs(2));
+        assertEquals(32_000, backoff.maxDelayMs(6));
+        assertEquals(60_000, backoff.maxDelayMs(7));
+        assertEquals(60_000, backoff.maxDelayMs(1000));
+    }
+
+    @Test
+    public void jitterStaysWithinUpperHalf() {
+        Backoff backoff = new Backoff(1000, 60_000, new Random(7));
+
+        for (int attempts = 1; attempts < 20; attempts++) {
+            long max = backoff.maxDelayMs(attempts);
+            for (int i = 0; i < 100; i++) {
+                long delay = backoff.delayMs(attempts);
+                assertTrue(delay >= max / 2);
+                assertTrue(delay <= max);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsCapBelowBase() {
+        new Backoff(1000, 500, new Random());
+    }
+}
@@ -0,0 +1,195 @@
+package com.objectdetection.example.queue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class JobQueueTest {
+
+    private static final byte[] JPEG = {(byte) 0xFF, (byte) 0xD8, 1, 2, 3, 4, (byte) 0xFF, (byte) 0xD9};
+
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("job-queue").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void jobsSurviveReopen() throws IOException {
+        JobQueue queue = new JobQueue(directory);
+        PendingJob image = queue.addImage("content://media/1", "c0123", JPEG, 0, JPEG.length,
+                2.5f, 2.5f, 4000, 3000, 1000);
+        queue.addUrl("https://example.com/a.jpg", null, 2000);
+        queue.retryLater(image, 9000);
+        queue.close();
+
+        JobQueue reopened = new JobQueue(directory);
+        assertEquals(2, reopened.size());
+        List<PendingJob> due = reopened.claimDueJobs(5000, 10);
+        assertEquals(1, due.size());
+        assertEquals("https://example.com/a.jpg", due.get(0).getSource());
+        assertNull(due.get(0).getCacheKey());
+
+        List<PendingJob> later = reopened.claimDueJobs(9000, 10);
+        assertEquals(1, later.size());
+        PendingJob restored = later.get(0);
+        assertEquals(PendingJob.TYPE_IMAGE, restored.getType());
+        assertEquals("c0123", restored.getCacheKey());
+        assertEquals(1, restored.getAttempts());
+        assertEquals(2.5f, restored.getScaleX(), 0f);
+        assertEquals(4000, restored.getImageWidth());
+        assertArrayEquals(JPEG, reopened.readPayload(restored));
+        reopened.close();
+    }
+
+    @Test
+    public void removedJobsStayRemoved() throws IOException {
+        JobQueue queue = new JobQueue(directory);
+        PendingJob first = queue.addImage("content://media/1", null, JPEG, 0, JPEG.length, 1f, 1f, 8, 8, 0);
+        PendingJob second = queue.addUrl("https://example.com/b.jpg", null, 0);
+        queue.remove(first);
+        queue.close();
+
+        JobQueue reopened = new JobQueue(directory);
+        assertEquals(1, reopened.size());
+        PendingJob remaining = reopened.claimDueJobs(0, 10).get(0);
+        assertEquals(second.getId(), remaining.getId());
+        assertFalse(new File(directory, first.getId() + ".jpg").exists());
+
+        // Ids are not reused after a restart
+        PendingJob third = reopened.addUrl("https://example.com/c.jpg", null, 0);
+        assertTrue(third.getId() > second.getId());
+        reopened.close();
+    }
+
+    @Test
+    public void tornTailIsDiscarded() throws IOException {
+        JobQueue queue = new JobQueue(directory);
+        queue.addUrl("https://example.com/a.jpg", null, 0);
+        queue.addUrl("https://example.com/b.jpg", null, 0);
+        queue.close();
+
+        // Simulate a crash in the middle of writing the second record
+        File log = new File(directory, "jobs.log");
+        try (RandomAccessFile file = new RandomAccessFile(log, "rw")) {
+            file.setLength(file.length() - 5);
+        }
+
+        JobQueue reopened = new JobQueue(directory);
+        assertEquals(1, reopened.size());
+        // New records are appended after the last intact one
+        reopened.addUrl("https://example.com/c.jpg", null, 0);
+        reopened.close();
+
+        JobQueue again = new JobQueue(directory);
+        assertEquals(2, again.size());
+        assertEquals("https://example.com/c.jpg", again.claimDueJobs(0, 10).get(1).getSource());
+        again.close();
+    }
+
+    @Test
+    public void claimedJobsAreNotHandedOutAgain() throws IOException {
+        JobQueue queue = new JobQueue(directory);
+        for (int i = 0; i < 3; i++) {
+            queue.addUrl("https://example.com/" + i + ".jpg", null, 0);
+        }
+
+        List<PendingJob> first = queue.claimDueJobs(1000, 2);
+        List<PendingJob> second = queue.claimDueJobs(1000, 2);
+
+        assertEquals(2, first.size());
+        assertEquals(1, second.size());
+        assertEquals("https://example.com/2.jpg", second.get(0).getSource());
+        assertEquals(3, queue.getInFlightCount());
+        assertTrue(queue.claimDueJobs(1000, 2).isEmpty());
+        // Jobs in flight don't make the worker wake up for them
+        assertEquals(Long.MAX_VALUE, queue.getNextAttemptAtMs());
+
+        queue.retryLater(first.get(0), 5000);
+        queue.remove(first.get(1));
+        assertEquals(1, queue.getInFlightCount());
+        assertEquals(5000, queue.getNextAttemptAtMs());
+        assertEquals("https://example.com/0.jpg", queue.claimDueJobs(5000, 2).get(0).getSource());
+        queue.close();
+
+        // Attempts cut short by process death are due again
+        JobQueue reopened = new JobQueue(directory);
+        assertEquals(2, reopened.claimDueJobs(5000, 10).size());
+        reopened.close();
+    }
+
+    @Test
+    public void dueJobsAreOldestFirstAndLimited() throws IOException {
+        JobQueue queue = new JobQueue(directory);
+        for (int i = 0; i < 5; i++) {
+            queue.addUrl("https://example.com/" + i + ".jpg", null, i * 100);
+        }
+
+        List<PendingJob> due = queue.claimDueJobs(1000, 3);
+        assertEquals(3, due.size());
+        assertEquals("https://example.com/0.jpg", due.get(0).getSource());
+        assertEquals("https://example.com/2.jpg", due.get(2).getSource());
+        assertEquals(300, queue.getNextAttemptAtMs());
+
+        queue.retryLater(due.get(0), 5000);
+        queue.retryLater(due.get(1), 200);
+        assertEquals(200, queue.getNextAttemptAtMs());
+        // The retried job is older than the ones never claimed
+        assertEquals("https://example.com/1.jpg", queue.claimDueJobs(1000, 1).get(0).getSource());
+        assertEquals("https://example.com/3.jpg", queue.claimDueJobs(1000, 1).get(0).getSource());
+        assertEquals(400, queue.getNextAttemptAtMs());
+        queue.close();
+    }
+
+    @Test
+    public void compactsLogOnceMostlyObsolete() throws IOException {
+        JobQueue queue = new JobQueue(directory);
+        PendingJob kept = queue.addUrl("https://example.com/kept.jpg", "ukept", 0);
+        queue.retryLater(kept, 7000);
+        for (int i = 0; i < 100; i++) {
+            queue.remove(queue.addUrl("https://example.com/" + i + ".jpg", null, 0));
+        }
+        queue.close();
+
+        // 200+ records were written, far fewer remain after compaction
+        File log = new File(directory, "jobs.log");
+        assertTrue(log.length() < 64 * 100);
+
+        JobQueue reopened = new JobQueue(directory);
+        assertEquals(1, reopened.size());
+        PendingJob restored = reopened.claimDueJobs(7000, 10).get(0);
+        assertEquals("ukept", restored.getCacheKey());
+        assertEquals(1, restored.getAttempts());
+        reopened.close();
+    }
+
+    @Test
+    public void orphanPayloadsAreDeleted() throws IOException {
+        File orphan = new File(directory, "42.jpg");
+        Files.write(orphan.toPath(), JPEG);
+
+        new JobQueue(directory).close();
+
+        assertFalse(orphan.exists());
+    }
+}
@@ -0,0 +1,206 @@
+package com.objectdetection.example.session;
+
+import com.objectdetection.example.util.DetectionBuffer;
+import com.objectdetection.example.util.DetectionResults;
+import com.objectdetection.sdk.model.DetectionResult;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DetectionSessionTest {
+
+    private static DetectionResult emptyResult() {
+        return DetectionResults.fromBuffer(new DetectionBuffer());
+    }
+
+    private static final class RecordingObserver implements DetectionSession.Observer<String> {
+        final List<String> images = new ArrayList<>();
+        final List<DetectionResult> results = new ArrayList<>();
+        final List<Exception> failures = new ArrayList<>();
+        int lastWidth;
+        boolean lastQueued;
+
+        @Override
+        public void onImage(String image) {
+            images.add(image);
+        }
+
+        @Override
+        public void onResult(DetectionResult result, int imageWidth, int imageHeight) {
+            results.add(result);
+            lastWidth = imageWidth;
+        }
+
+        @Override
+        public void onFailure(Exception error, boolean queued) {
+            failures.add(error);
+            lastQueued = queued;
+        }
+    }
+
+    @Test
+    public void recreatedScreenJoinsRunningDetection() {
+        DetectionSession<String> session = new DetectionSession<>();
+        RecordingObserver first = new RecordingObserver();
+        assertTrue(session.start("content://image/1"));
+        assertEquals(DetectionSession.State.RUNNING, session.attach(first));
+
+        // Rotation: the new screen asks again and replaces the observer
+        RecordingObserver second = new RecordingObserver();
+        assertFalse(session.start("content://image/1"));
+        session.detach(first);
+        session.attach(second);
+
+        DetectionResult result = emptyResult();
+        session.complete(result, 640, 480);
+
+        assertTrue(first.results.isEmpty());
+        assertEquals(List.of(result), second.results);
+        assertEquals(640, second.lastWidth);
+        assertEquals(1, session.getStartedCount());
+        assertEquals(1, session.getJoinedCount());
+    }
+
+    @Test
+    public void finishedResultIsReplayedWithoutDetectingAgain() {
+        DetectionSession<String> session = new DetectionSession<>();
+        session.start("content://image/1");
+        DetectionResult result = emptyResult();
+        session.complete(result, 100, 50);
+
+        for (int rotation = 0; rotation < 3; rotation++) {
+            RecordingObserver observer = new RecordingObserver();
+            assertFalse(session.start("content://image/1"));
+            assertEquals(DetectionSession.State.SUCCEEDED, session.attach(observer));
+            assertEquals(List.of(result), observer.results);
+        }
+        assertEquals(1, session.getStartedCount());
+    }
+
+    @Test
+    public void loadedImageIsReplayedBeforeResult() {
+        DetectionSession<String> session = new DetectionSession<>();
+        RecordingObserver first = new RecordingObserver();
+        session.start("a");
+        session.attach(first);
+        session.publishImage("bitmap");
+        assertEquals(List.of("bitmap"), first.images);
+        assertTrue(first.results.isEmpty());
+
+        session.complete(emptyResult(), 0, 0);
+        RecordingObserver second = new RecordingObserver();
+        session.attach(second);
+        assertEquals(List.of("bitmap"), second.images);
+        assertEquals(1, second.results.size());
+
+        assertTrue(session.start("b"));
+        RecordingObserver third = new RecordingObserver();
+        session.attach(third);
+        assertTrue(third.images.isEmpty());
+    }
+
+    @Test
+    public void failureIsDeliveredUntilAcknowledged() {
+        DetectionSession<String> session = new DetectionSession<>();
+        session.start("https://example.com/a.jpg");
+        Exception error = new Exception("offline");
+        // Fails while no screen is attached, e.g. during the rotation
+        session.fail(error, true);
+
+        RecordingObserver first = new RecordingObserver();
+        session.attach(first);
+        // Destroyed before showing it
+        RecordingObserver second = new RecordingObserver();
+        session.attach(second);
+        session.acknowledgeFailure(error);
+        RecordingObserver third = new RecordingObserver();
+        session.attach(third);
+
+        assertEquals(List.of(error), first.failures);
+        assertTrue(first.lastQueued);
+        assertEquals(List.of(error), second.failures);
+        assertTrue(third.failures.isEmpty());
+        assertFalse(session.start("https://example.com/a.jpg"));
+    }
+
+    @Test
+    public void failureSentToAScreenIsReplayedUntilShown() {
+        DetectionSession<String> session = new DetectionSession<>();
+        RecordingObserver first = new RecordingObserver();
+        session.attach(first);
+        session.start("a");
+        Exception error = new Exception("offline");
+
+        session.fail(error, false);
+        // The screen is recreated before its posted update runs
+        RecordingObserver second = new RecordingObserver();
+        session.attach(second);
+
+        assertEquals(List.of(error), first.failures);
+        assertEquals(List.of(error), second.failures);
+    }
+
+    @Test
+    public void staleAcknowledgementIsIgnored() {
+        DetectionSession<String> session = new DetectionSession<>();
+        session.start("a");
+        Exception old = new Exception("old");
+        session.fail(old, false);
+        session.acknowledgeFailure(old);
+
+        session.start("b");
+        Exception error = new Exception("offline");
+        session.fail(error, false);
+        session.acknowledgeFailure(old);
+        RecordingObserver observer = new RecordingObserver();
+        session.attach(observer);
+
+        assertEquals(List.of(error), observer.failures);
+    }
+
+    @Test
+    public void otherSourceStartsNewDetection() {
+        DetectionSession<String> session = new DetectionSession<>();
+        session.start("a");
+        session.complete(emptyResult(), 0, 0);
+
+        assertTrue(session.start("b"));
+        assertEquals(DetectionSession.State.RUNNING, session.getState());
+        assertEquals(2, session.getStartedCount());
+    }
+
+    @Test
+    public void closeIgnoresLateOutcome() {
+        DetectionSession<String> session = new DetectionSession<>();
+        RecordingObserver observer = new RecordingObserver();
+        session.start("a");
+        session.attach(observer);
+        session.close();
+
+        session.complete(emptyResult(), 0, 0);
+
+        assertTrue(observer.results.isEmpty());
+        assertEquals(DetectionSession.State.RUNNING, session.getState());
+        assertFalse(session.start("b"));
+    }
+
+    @Test
+    public void staleDetachKeepsNewObserver() {
+        DetectionSession<String> session = new DetectionSession<>();
+        RecordingObserver first = new RecordingObserver();
+        RecordingObserver second = new RecordingObserver();
+        session.start("a");
+        session.attach(first);
+        // The new screen can attach before the old one is destroyed
+        session.attach(second);
+        session.detach(first);
+
+        session.complete(emptyResult(), 0, 0);
+
+        assertEquals(1, second.results.size());
+    }
+}
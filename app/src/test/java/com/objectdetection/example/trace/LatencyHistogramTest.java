@@ -0,0 +1,105 @@
+package com.objectdetection.example.trace;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void countsSmallValuesExactly() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int micros = 1; micros <= 60; micros++) {
+            histogram.recordMicros(micros);
+        }
+
+        assertEquals(60, histogram.getCount());
+        assertEquals(30, histogram.getPercentileMicros(50));
+        assertEquals(60, histogram.getPercentileMicros(100));
+        assertEquals(1, histogram.getPercentileMicros(0));
+        assertEquals(30.5, histogram.getMeanMicros(), 1e-9);
+    }
+
+    @Test
+    public void bucketsKeepRelativePrecision() {
+        int previous = -1;
+        for (long value = 0; value < LatencyHistogram.MAX_VALUE_MICROS; value = value * 17 / 16 + 1) {
+            int index = LatencyHistogram.bucketIndex(value);
+            assertTrue("Buckets must not go backwards at " + value, index >= previous);
+            previous = index;
+            long upper = LatencyHistogram.bucketUpperBound(index);
+            assertTrue("Upper bound below " + value, upper >= value);
+            assertTrue("Bucket of " + value + " too wide", upper - value <= value / 32 + 1);
+        }
+        assertEquals(LatencyHistogram.BUCKET_COUNT - 1,
+                LatencyHistogram.bucketIndex(LatencyHistogram.MAX_VALUE_MICROS));
+    }
+
+    @Test
+    public void reportsPercentilesOfUniformLatencies() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int micros = 1; micros <= 100_000; micros++) {
+            histogram.recordMicros(micros);
+        }
+
+        assertEquals(50_000, histogram.getPercentileMicros(50), 50_000 / 32.0);
+        assertEquals(99_000, histogram.getPercentileMicros(99), 99_000 / 32.0);
+        assertEquals(99_900, histogram.getPercentileMicros(99.9), 99_900 / 32.0);
+        assertEquals(100_000, histogram.getPercentileMicros(100));
+        assertEquals(100_000, histogram.getMaxMicros());
+        assertEquals(50_000.5, histogram.getMeanMicros(), 1e-6);
+    }
+
+    @Test
+    public void clampsOutOfRangeValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordMicros(-5);
+        histogram.recordMicros(Long.MAX_VALUE);
+
+        assertEquals(2, histogram.getCount());
+        assertEquals(0, histogram.getPercentileMicros(50));
+        assertEquals(LatencyHistogram.MAX_VALUE_MICROS, histogram.getMaxMicros());
+        assertEquals(LatencyHistogram.MAX_VALUE_MICROS, histogram.getPercentileMicros(100));
+    }
+
+    @Test
+    public void addToMergesCounts() {
+        LatencyHistogram fast = new LatencyHistogram();
+        LatencyHistogram slow = new LatencyHistogram();
+        for (int i = 0; i < 90; i++) {
+            fast.recordMicros(1_000);
+        }
+        for (int i = 0; i < 10; i++) {
+            slow.recordMicros(200_000);
+        }
+
+        LatencyHistogram merged = new LatencyHistogram();
+        fast.addTo(merged);
+        slow.addTo(merged);
+
+        assertEquals(100, merged.getCount());
+        assertEquals(1_000, merged.getPercentileMicros(90), 1_000 / 32.0);
+        assertEquals(200_000, merged.getPercentileMicros(91), 200_000 / 32.0);
+        assertEquals(200_000, merged.getMaxMicros());
+        assertEquals(20_900, merged.getMeanMicros(), 1e-6);
+        // Sources are unchanged
+        assertEquals(90, fast.getCount());
+    }
+
+    @Test
+    public void resetClearsEverything() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordMicros(5_000);
+        histogram.reset();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMaxMicros());
+        assertEquals(0, histogram.getPercentileMicros(99));
+        assertEquals(0, histogram.getMeanMicros(), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvalidPercentile() {
+        new LatencyHistogram().getPercentileMicros(101);
+    }
+}
@@ -0,0 +1,148 @@
+package com.objectdetection.example.trace;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LatencyTracerTest {
+
+    private static final long BASE_NANOS = 1_000_000_000L;
+    private static final long MS = 1_000_000L;
+
+    private final LatencyTracer tracer = LatencyTracer.getInstance();
+
+    @Before
+    public void setUp() {
+        tracer.reset();
+    }
+
+    @Test
+    public void recordsTimeBetweenStages() {
+        tracer.finish(trace("live", 20, 30, 90, 95, 100, 105));
+
+        TraceReport report = tracer.snapshot();
+        assertEquals(1, report.getStage("live", TraceStage.PREPROCESSED).getCount());
+        assertEquals(20_000, report.getStage("live", TraceStage.PREPROCESSED).getMaxMicros());
+        assertEquals(10_000, report.getStage("live", TraceStage.REQUEST_SENT).getMaxMicros());
+        assertEquals(60_000, report.getStage("live", TraceStage.FIRST_BYTE).getMaxMicros());
+        assertEquals(5_000, report.getStage("live", TraceStage.DRAWN).getMaxMicros());
+        assertEquals(105_000, report.getTotal("live").getMaxMicros());
+        assertEquals(0, report.getStage("live", TraceStage.CAPTURED).getCount());
+    }
+
+    @Test
+    public void foldsMissingStagesIntoTheNextOne() {
+        DetectionTrace trace = new DetectionTrace("still", BASE_NANOS);
+        trace.markAt(TraceStage.PREPROCESSED, BASE_NANOS + 10 * MS);
+        // Answered on the device, without network stages
+        trace.markAt(TraceStage.POST_PROCESSED, BASE_NANOS + 50 * MS);
+        trace.markAt(TraceStage.DRAWN, BASE_NANOS + 55 * MS);
+        tracer.finish(trace);
+
+        TraceReport report = tracer.snapshot();
+        assertEquals(0, report.getStage("still", TraceStage.FIRST_BYTE).getCount());
+        assertEquals(40_000, report.getStage("still", TraceStage.POST_PROCESSED).getMaxMicros());
+        assertEquals(55_000, report.getTotal("still").getMaxMicros());
+    }
+
+    @Test
+    public void recordsEachTraceOnce() {
+        DetectionTrace trace = trace("live", 1, 2, 3, 4, 5, 6);
+        tracer.finish(trace);
+        tracer.finish(trace);
+        tracer.finish(null);
+
+        assertTrue(trace.isFinished());
+        assertEquals(1, tracer.snapshot().getTotal("live").getCount());
+    }
+
+    @Test
+    public void keepsFirstStampOfAStage() {
+        DetectionTrace trace = new DetectionTrace("live", BASE_NANOS);
+        trace.markAt(TraceStage.PREPROCESSED, BASE_NANOS + 5 * MS);
+        trace.markAt(TraceStage.PREPROCESSED, BASE_NANOS + 9 * MS);
+
+        assertTrue(trace.hasReached(TraceStage.PREPROCESSED));
+        assertFalse(trace.hasReached(TraceStage.DRAWN));
+        assertEquals(5 * MS, trace.getStageNanos(TraceStage.PREPROCESSED));
+        assertEquals(-1, trace.getStageNanos(TraceStage.DRAWN));
+    }
+
+    @Test
+    public void mergesTracesOfAllThreads() throws InterruptedException {
+        final int threads = 4;
+        final int tracesPerThread = 1_000;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                for (int i = 0; i < tracesPerThread; i++) {
+                    tracer.finish(trace(i % 2 == 0 ? "live" : "still", 1, 2, 3, 4, 5, 6));
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        TraceReport report = tracer.snapshot();
+        assertEquals(threads * tracesPerThread / 2, report.getTotal("live").getCount());
+        assertEquals(threads * tracesPerThread / 2, report.getTotal("still").getCount());
+        assertEquals(2, report.getPipelines().size());
+    }
+
+    @Test
+    public void resetDropsEarlierTraces() throws InterruptedException {
+        Thread other = new Thread(() -> tracer.finish(trace("live", 1, 2, 3, 4, 5, 6)));
+        other.start();
+        other.join();
+        tracer.finish(trace("live", 1, 2, 3, 4, 5, 6));
+        assertEquals(2, tracer.snapshot().getTotal("live").getCount());
+
+        tracer.reset();
+        assertNull(tracer.snapshot().getTotal("live"));
+
+        tracer.finish(trace("live", 1, 2, 3, 4, 5, 6));
+        assertEquals(1, tracer.snapshot().getTotal("live").getCount());
+    }
+
+    @Test
+    public void formatsReport() {
+        assertEquals("No detections traced yet", tracer.snapshot().toText());
+
+        tracer.finish(trace("live", 20, 30, 90, 95, 100, 105));
+        TraceReport report = tracer.snapshot();
+
+        String text = report.toText();
+        assertTrue(text.startsWith("live: 1 detections\n"));
+        assertTrue(text.contains("first byte"));
+        assertTrue(text.contains("total"));
+
+        String[] rows = report.toCsv().split("\n");
+        assertEquals("pipeline,stage,count,mean_ms,p50_ms,p90_ms,p99_ms,p99_9_ms,max_ms", rows[0]);
+        // Every stage but the capture itself, and the total
+        assertEquals(1 + TraceStage.COUNT, rows.length);
+        assertEquals("live,preprocess,1,20.000,20.000,20.000,20.000,20.000,20.000", rows[1]);
+        assertTrue(rows[rows.length - 1].startsWith("live,total,1,"));
+    }
+
+    /**
+     * Builds a trace reaching every stage, at the given milliseconds after capture.
+     */
+    private static DetectionTrace trace(String pipeline, long preprocessedMs, long sentMs, long firstByteMs,
+                                        long parsedMs, long postProcessedMs, long drawnMs) {
+        DetectionTrace trace = new DetectionTrace(pipeline, BASE_NANOS);
+        trace.markAt(TraceStage.PREPROCESSED, BASE_NANOS + preprocessedMs * MS);
+        trace.markAt(TraceStage.REQUEST_SENT, BASE_NANOS + sentMs * MS);
+        trace.markAt(TraceStage.FIRST_BYTE, BASE_NANOS + firstByteMs * MS);
+        trace.markAt(TraceStage.PARSED, BASE_NANOS + parsedMs * MS);
+        trace.markAt(TraceStage.POST_PROCESSED, BASE_NANOS + postProcessedMs * MS);
+        trace.markAt(TraceStage.DRAWN, BASE_NANOS + drawnMs * MS);
+        return trace;
+    }
+}
@@ -0,0 +1,168 @@
+package com.objectdetection.example.util;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class BinaryDetectionCodecTest {
+
+    private final BinaryDetectionCodec codec = new BinaryDetectionCodec();
+    private final DetectionBuffer buffer = new DetectionBuffer(1);
+
+    private static DetectionBuffer sample() {
+        DetectionBuffer result = new DetectionBuffer();
+        result.add("person", 0.9f, 100f, 50f, 400f, 300f);
+        result.add("dog", 0.64f, 1f, 2f, 3f, 80.5f);
+        result.add("person", 0.5f, -0.0f, 1e-30f, 3.4028235e38f, Float.NaN);
+        result.add(null, 0.1f, 0f, 0f, 1f, 1f);
+        result.setProcessingTimeMs(120);
+        return result;
+    }
+
+    private void read(byte[] encoded) throws IOException {
+        codec.read(encoded, 0, encoded.length, buffer);
+    }
+
+    @Test
+    public void roundTripsResults() throws IOException {
+        DetectionBuffer result = sample();
+
+        read(BinaryDetectionCodec.encodeResult(result));
+
+        assertEquals(result.size(), buffer.size());
+        assertEquals(120, buffer.getProcessingTimeMs());
+        assertNull(buffer.getError());
+        for (int i = 0; i < result.size(); i++) {
+            assertEquals(result.getLabel(i), buffer.getLabel(i));
+            assertEquals(result.getConfidence(i), buffer.getConfidence(i), 0f);
+            assertEquals(result.getXMin(i), buffer.getXMin(i), 0f);
+            assertEquals(result.getYMin(i), buffer.getYMin(i), 0f);
+            assertEquals(result.getXMax(i), buffer.getXMax(i), 0f);
+            assertEquals(result.getYMax(i), buffer.getYMax(i), 0f);
+            assertEquals(DetectionBuffer.NO_TRACK, buffer.getTrackId(i));
+        }
+        assertEquals(Float.floatToRawIntBits(-0.0f), Float.floatToRawIntBits(buffer.getXMin(2)));
+    }
+
+    @Test
+    public void storesEachLabelOnce() {
+        byte[] encoded = BinaryDetectionCodec.encodeResult(sample());
+
+        // Header, "person" and "dog", then 22 bytes per detection
+        assertEquals(16 + 7 + 4 + 4 * 22, encoded.length);
+    }
+
+    @Test
+    public void roundTripsErrors() throws IOException {
+        DetectionBuffer failure = new DetectionBuffer();
+        failure.setError("Invalid image \u2013 not a JPEG");
+
+        read(BinaryDetectionCodec.encodeResult(failure));
+
+        assertEquals(0, buffer.size());
+        assertEquals("Invalid image \u2013 not a JPEG", buffer.getError());
+    }
+
+    @Test
+    public void replacesPreviousContentsAndReusesLabels() throws IOException {
+        byte[] encoded = BinaryDetectionCodec.encodeResult(sample());
+        read(encoded);
+        String person = buffer.getLabel(0);
+
+        DetectionBuffer empty = new DetectionBuffer();
+        empty.setProcessingTimeMs(7);
+        read(BinaryDetectionCodec.encodeResult(empty));
+        assertEquals(0, buffer.size());
+        assertEquals(7, buffer.getProcessingTimeMs());
+
+        read(encoded);
+        assertSame(person, buffer.getLabel(0));
+    }
+
+    @Test
+    public void readsStreamsLargerThanTheInputArray() throws IOException {
+        DetectionBuffer large = new DetectionBuffer();
+        for (int i = 0; i < 500; i++) {
+            large.add("l" + (i % 7), 0.5f, 1f, 2f, i, 4f);
+        }
+
+        codec.read(new ByteArrayInputStream(BinaryDetectionCodec.encodeResult(large)), buffer);
+
+        assertEquals(500, buffer.size());
+        assertEquals(499f, buffer.getXMax(499), 0f);
+        assertEquals("l2", buffer.getLabel(9));
+    }
+
+    @Test
+    public void rejectsMalformedResults() {
+        byte[] encoded = BinaryDetectionCodec.encodeResult(sample());
+        byte[] badLabelId = encoded.clone();
+        badLabelId[encoded.length - 3] = 9;
+        byte[][] invalid = {
+                new byte[0],
+                Arrays.copyOf(encoded, 15),
+                Arrays.copyOf(encoded, encoded.length - 1),
+                Arrays.copyOf(encoded, encoded.length + 1),
+                "{\"detectedObjects\":[]}".getBytes(StandardCharsets.UTF_8),
+                badLabelId};
+        for (byte[] input : invalid) {
+            try {
+                read(input);
+                fail("Decoded " + Arrays.toString(input));
+            } catch (IOException expected) {
+                // Malformed
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void refusesLabelsTooLongForTheTable() {
+        DetectionBuffer result = new DetectionBuffer();
+        char[] label = new char[256];
+        Arrays.fill(label, 'a');
+        result.add(new String(label), 0.5f, 0f, 0f, 1f, 1f);
+
+        BinaryDetectionCodec.encodeResult(result);
+    }
+
+    @Test
+    public void validatesRequests() throws IOException {
+        byte[] jpeg = {(byte) 0xFF, (byte) 0xD8, 1, 2, (byte) 0xFF, (byte) 0xD9};
+        byte[] body = new byte[2 + BinaryDetectionCodec.REQUEST_HEADER_SIZE + jpeg.length];
+        System.arraycopy(BinaryDetectionCodec.encodeRequestHeader(jpeg.length), 0, body, 2,
+                BinaryDetectionCodec.REQUEST_HEADER_SIZE);
+        System.arraycopy(jpeg, 0, body, 2 + BinaryDetectionCodec.REQUEST_HEADER_SIZE, jpeg.length);
+
+        assertEquals(2 + BinaryDetectionCodec.REQUEST_HEADER_SIZE,
+                BinaryDetectionCodec.decodeRequest(body, 2, body.length - 2));
+
+        try {
+            BinaryDetectionCodec.decodeRequest(body, 2, body.length - 3);
+            fail("Accepted a truncated image");
+        } catch (IOException expected) {
+            // Length mismatch
+        }
+        try {
+            BinaryDetectionCodec.decodeRequest(jpeg, 0, jpeg.length);
+            fail("Accepted a bare JPEG");
+        } catch (IOException expected) {
+            // No header
+        }
+    }
+
+    @Test
+    public void decoderIsPerThread() throws Exception {
+        assertSame(BinaryDetectionCodec.forCurrentThread(), BinaryDetectionCodec.forCurrentThread());
+
+        BinaryDetectionCodec[] other = new BinaryDetectionCodec[1];
+        Thread thread = new Thread(() -> other[0] = BinaryDetectionCodec.forCurrentThread());
+        thread.start();
+        thread.join();
+        assertNotSame(BinaryDetectionCodec.forCurrentThread(), other[0]);
+    }
+}
@@ -0,0 +1,212 @@
+package com.objectdetection.example.util;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.objectdetection.sdk.model.DetectionResult;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class DetectionJsonParserTest {
+
+    private static final String RESPONSE = "{\"detectedObjects\":["
+            + "{\"label\":\"person\",\"confidence\":0.9,\"box\":{\"xMin\":100,\"yMin\":50,\"xMax\":400,\"yMax\":300}},"
+            + "{\"box\":{\"yMax\":80.5,\"xMin\":1,\"yMin\":2,\"xMax\":3},\"confidence\":0.64,\"label\":\"dog\"}],"
+            + "\"processingTimeMs\":120}";
+
+    private final DetectionJsonParser parser = new DetectionJsonParser();
+    private final DetectionBuffer buffer = new DetectionBuffer(1);
+
+    private boolean read(String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        return parser.read(bytes, 0, bytes.length, buffer);
+    }
+
+    private boolean stream(String json) {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        return parser.stream(bytes, 0, bytes.length, buffer);
+    }
+
+    private void assertSameAsModel(String json) throws IOException {
+        DetectionBuffer model = new DetectionBuffer();
+        DetectionResults.toBuffer(new Gson().fromJson(json, DetectionResult.class), model);
+
+        assertTrue(read(json));
+
+        assertEquals(model.size(), buffer.size());
+        assertEquals(model.getProcessingTimeMs(), buffer.getProcessingTimeMs());
+        assertEquals(model.getError(), buffer.getError());
+        for (int i = 0; i < model.size(); i++) {
+            assertEquals(model.getLabel(i), buffer.getLabel(i));
+            assertEquals(model.getConfidence(i), buffer.getConfidence(i), 0f);
+            assertEquals(model.getXMin(i), buffer.getXMin(i), 0f);
+            assertEquals(model.getYMin(i), buffer.getYMin(i), 0f);
+            assertEquals(model.getXMax(i), buffer.getXMax(i), 0f);
+            assertEquals(model.getYMax(i), buffer.getYMax(i), 0f);
+        }
+    }
+
+    @Test
+    public void readsDetectionsInAnyFieldOrder() throws IOException {
+        assertTrue(read(RESPONSE));
+
+        assertEquals(2, buffer.size());
+        assertEquals(120, buffer.getProcessingTimeMs());
+        assertNull(buffer.getError());
+        assertEquals("person", buffer.getLabel(0));
+        assertEquals(0.9f, buffer.getConfidence(0), 1e-6f);
+        assertEquals(400f, buffer.getXMax(0), 0f);
+        assertEquals("dog", buffer.getLabel(1));
+        assertEquals(0.64f, buffer.getConfidence(1), 1e-6f);
+        assertEquals(1f, buffer.getXMin(1), 0f);
+        assertEquals(2f, buffer.getYMin(1), 0f);
+        assertEquals(3f, buffer.getXMax(1), 0f);
+        assertEquals(80.5f, buffer.getYMax(1), 0f);
+        assertEquals(DetectionBuffer.NO_TRACK, buffer.getTrackId(1));
+    }
+
+    @Test
+    public void matchesTheModelPath() throws IOException {
+        assertSameAsModel(RESPONSE);
+        // Numbers the fast conversion takes and ones it leaves to Double.parseDouble
+        assertSameAsModel("{\"detectedObjects\":[{\"label\":\"a\",\"confidence\":0.8912345678901234,"
+                + "\"box\":{\"xMin\":-0.0,\"yMin\":1.5e2,\"xMax\":1234.5677,\"yMax\":3.4028235E38}},"
+                + "{\"label\":\"b\",\"confidence\":1E-7,\"box\":{\"xMin\":0.000001234,\"yMin\":123456789012345678,"
+                + "\"xMax\":1e-30,\"yMax\":0.1}}],\"processingTimeMs\":-3}");
+        assertEquals(0, parser.getModelFallbacks());
+    }
+
+    @Test
+    public void skipsFieldsTheAppDoesNotUse() throws IOException {
+        assertTrue(read("{\"success\":true,\"model\":{\"name\":\"yolo\",\"classes\":[1,2]},"
+                + "\"detectedObjects\":[{\"label\":\"cat\",\"classId\":15,\"mask\":[[0,1],[1,0]],"
+                + "\"confidence\":0.8,\"box\":{\"xMin\":0.1,\"yMin\":0.2,\"xMax\":0.5,\"yMax\":0.9,\"area\":0.28}}],"
+                + "\"imageUrl\":\"https://example.com/a.jpg\"}"));
+
+        assertEquals(1, buffer.size());
+        assertEquals("cat", buffer.getLabel(0));
+        assertEquals(0.9f, buffer.getYMax(0), 1e-6f);
+    }
+
+    @Test
+    public void readsErrorsAndNulls() throws IOException {
+        assertTrue(read("{\"error\":\"Invalid image\",\"detectedObjects\":null,\"processingTimeMs\":null}"));
+        assertEquals("Invalid image", buffer.getError());
+        assertEquals(0, buffer.size());
+
+        assertTrue(read("{\"detectedObjects\":[null,{\"label\":null,\"box\":null}]}"));
+        assertNull(buffer.getError());
+        assertEquals(1, buffer.size());
+        assertNull(buffer.getLabel(0));
+        assertEquals(0f, buffer.getXMax(0), 0f);
+    }
+
+    @Test
+    public void replacesPreviousContents() throws IOException {
+        assertTrue(read(RESPONSE));
+        assertTrue(read("{\"detectedObjects\":[],\"processingTimeMs\":7}"));
+
+        assertEquals(0, buffer.size());
+        assertEquals(7, buffer.getProcessingTimeMs());
+    }
+
+    @Test
+    public void reusesLabelInstances() throws IOException {
+        assertTrue(read(RESPONSE));
+        String person = buffer.getLabel(0);
+
+        assertTrue(read(RESPONSE));
+
+        assertSame(person, buffer.getLabel(0));
+    }
+
+    @Test
+    public void readsStreamsAndByteBuffers() throws IOException {
+        byte[] bytes = RESPONSE.getBytes(StandardCharsets.UTF_8);
+        // Larger than the initial input array
+        StringBuilder large = new StringBuilder("{\"detectedObjects\":[");
+        for (int i = 0; i < 500; i++) {
+            large.append(i > 0 ? "," : "").append("{\"label\":\"l").append(i % 7).append("\",\"confidence\":0.5,"
+                    + "\"box\":{\"xMin\":1,\"yMin\":2,\"xMax\":").append(i).append(",\"yMax\":4}}");
+        }
+        byte[] largeBytes = large.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+
+        assertTrue(parser.read(new ByteArrayInputStream(largeBytes), buffer));
+        assertEquals(500, buffer.size());
+        assertEquals(499f, buffer.getXMax(499), 0f);
+        assertEquals("l2", buffer.getLabel(9));
+
+        ByteBuffer payload = ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+        assertTrue(parser.read(payload, buffer));
+        assertEquals(2, buffer.size());
+        assertFalse(payload.hasRemaining());
+    }
+
+    @Test
+    public void leavesOtherInputToTheModelPath() throws IOException {
+        // Escapes, lenient JSON and numbers as strings are read by the model classes
+        assertFalse(stream("{\"error\":\"Bad \\\"image\\\"\"}"));
+        assertSameAsModel("{\"error\":\"Bad \\\"image\\\"\"}");
+        assertEquals("Bad \"image\"", buffer.getError());
+        assertFalse(stream("{detectedObjects:[{'label':'cat','confidence':'0.5'}]}"));
+        assertSameAsModel("{detectedObjects:[{'label':'cat','confidence':'0.5'}]}");
+        assertFalse(stream("{\"processingTimeMs\":12.0}"));
+        assertSameAsModel("{\"processingTimeMs\":12.0}");
+        assertEquals(3, parser.getModelFallbacks());
+
+        assertFalse(read(""));
+        assertFalse(read("null"));
+    }
+
+    @Test
+    public void failsLikeTheModelPath() throws IOException {
+        String[] invalid = {
+                "[1,2]",
+                "{\"detectedObjects\":{\"label\":\"cat\"}}",
+                "{\"detectedObjects\":[{\"label\":[\"cat\"],\"confidence\":0.5}]}",
+                "{\"processingTimeMs\":\"soon\"}",
+                "{\"detectedObjects\":[]} {}"};
+        for (String json : invalid) {
+            assertFalse(json, stream(json));
+            try {
+                read(json);
+                throw new AssertionError("Parsed " + json);
+            } catch (JsonParseException expected) {
+                // Same as Gson.fromJson
+            }
+        }
+    }
+
+    @Test(expected = JsonParseException.class)
+    public void rejectsMalformedJson() throws IOException {
+        read("{\"detectedObjects\":[{\"label\":\"cat\",");
+    }
+
+    @Test
+    public void modelPathReadsIntoTheBuffer() throws IOException {
+        assertTrue(DetectionJsonParser.readModel(new StringReader(RESPONSE), buffer));
+        assertEquals(2, buffer.size());
+        assertEquals("dog", buffer.getLabel(1));
+
+        assertFalse(DetectionJsonParser.readModel(new StringReader(""), buffer));
+    }
+
+    @Test
+    public void parserAndBufferArePerThread() throws Exception {
+        assertSame(DetectionJsonParser.forCurrentThread(), DetectionJsonParser.forCurrentThread());
+        assertSame(DetectionJsonParser.getThreadBuffer(), DetectionJsonParser.getThreadBuffer());
+
+        DetectionJsonParser[] other = new DetectionJsonParser[1];
+        Thread thread = new Thread(() -> other[0] = DetectionJsonParser.forCurrentThread());
+        thread.start();
+        thread.join();
+        assertNotSame(DetectionJsonParser.forCurrentThread(), other[0]);
+    }
+}
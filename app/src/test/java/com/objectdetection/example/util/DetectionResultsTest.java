@@ -0,0 +1,93 @@
+package com.objectdetection.example.util;
+
+import com.google.gson.Gson;
+import com.objectdetection.sdk.listener.ImageDetectionListener;
+import com.objectdetection.sdk.model.DetectionResult;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DetectionResultsTest {
+
+    private final Gson gson = new Gson();
+
+    private DetectionResult parse(String json) {
+        return gson.fromJson(json, DetectionResult.class);
+    }
+
+    @Test
+    public void scalesPixelBoxesBackToOriginalSize() {
+        DetectionResult result = parse("{\"detectedObjects\":[{\"label\":\"person\",\"confidence\":0.9,"
+                + "\"box\":{\"xMin\":100,\"yMin\":50,\"xMax\":400,\"yMax\":300}}],\"processingTimeMs\":120}");
+
+        DetectionResult scaled = DetectionResults.scaleBoxes(result, 5.04f, 5.04f);
+        String json = gson.toJson(scaled);
+
+        assertTrue(json, json.contains("\"xMin\":504.0"));
+        assertTrue(json, json.contains("\"yMax\":1512.0"));
+        assertEquals(120, scaled.getProcessingTimeMs());
+        assertEquals("person", scaled.getDetectedObjects().get(0).getLabel());
+    }
+
+    @Test
+    public void leavesNormalizedBoxesUnchanged() {
+        DetectionResult result = parse("{\"detectedObjects\":[{\"label\":\"cat\",\"confidence\":0.8,"
+                + "\"box\":{\"xMin\":0.1,\"yMin\":0.2,\"xMax\":0.5,\"yMax\":0.9}}]}");
+
+        assertSame(result, DetectionResults.scaleBoxes(result, 4f, 4f));
+    }
+
+    @Test
+    public void handlesResultsWithoutObjects() {
+        DetectionResult result = parse("{\"error\":\"Invalid image\"}");
+
+        assertSame(result, DetectionResults.scaleBoxes(result, 2f, 2f));
+        assertNull(DetectionResults.scaleBoxes(null, 2f, 2f));
+    }
+
+    @Test
+    public void deliversBuffersToBufferListeners() {
+        DetectionBuffer detections = new DetectionBuffer();
+        detections.add("dog", 0.8f, 1f, 2f, 3f, 4f);
+        detections.setProcessingTimeMs(30);
+        List<Object> delivered = new ArrayList<>();
+
+        DetectionResults.deliver(detections, new DetectionBufferListener() {
+            @Override
+            public void onDetections(DetectionBuffer buffer) {
+                delivered.add(buffer);
+            }
+
+            @Override
+            public void onResult(DetectionResult result) {
+                delivered.add(result);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                delivered.add(e);
+            }
+        });
+        DetectionResults.deliver(detections, new ImageDetectionListener() {
+            @Override
+            public void onResult(DetectionResult result) {
+                delivered.add(result);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                delivered.add(e);
+            }
+        });
+
+        assertEquals(2, delivered.size());
+        assertSame(detections, delivered.get(0));
+        DetectionResult result = (DetectionResult) delivered.get(1);
+        assertEquals("dog", result.getDetectedObjects().get(0).getLabel());
+        assertEquals(30, result.getProcessingTimeMs());
+    }
+}
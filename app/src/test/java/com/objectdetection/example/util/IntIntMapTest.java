@@ -0,0 +1,46 @@
+package com.objectdetection.example.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class IntIntMapTest {
+
+    @Test
+    public void storesAndReplacesValues() {
+        IntIntMap map = new IntIntMap();
+        map.put(7, 70);
+        map.put(-3, 30);
+        map.put(7, 71);
+
+        assertEquals(2, map.size());
+        assertEquals(71, map.get(7, -1));
+        assertEquals(30, map.get(-3, -1));
+        assertEquals(-1, map.get(8, -1));
+        assertTrue(map.containsKey(-3));
+        assertFalse(map.containsKey(8));
+    }
+
+    @Test
+    public void zeroIsAnOrdinaryKey() {
+        IntIntMap map = new IntIntMap();
+        assertFalse(map.containsKey(0));
+
+        map.put(0, 5);
+        assertEquals(5, map.get(0, -1));
+    }
+
+    @Test
+    public void growsPastTheExpectedSize() {
+        IntIntMap map = new IntIntMap(4);
+        for (int i = 0; i < 10_000; i++) {
+            // Keys that differ only in high bits
+            map.put(i << 16, i);
+        }
+
+        assertEquals(10_000, map.size());
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i, map.get(i << 16, -1));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.objectdetection.example.util;
+
+import com.objectdetection.example.bench.Microbenchmark;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Micro-benchmark for coloring rows by label.
+ * <p>
+ * Compares the palette lookup with what every bind used to do: seed a new Random with the
+ * label's hash code, fill a new float[3] and convert it from HSV. Measures the time and
+ * the bytes allocated per bind.
+ */
+public class LabelPaletteBenchmark {
+
+    private static final int BINDS = 1_000_000;
+
+    private final LabelPalette palette = LabelPalette.getInstance();
+    private long checksum;
+
+    @Test
+    public void paletteLookupIsAllocationFree() {
+        String[] labels = labels();
+        int[] next = {0};
+
+        Microbenchmark bench = new Microbenchmark(BINDS);
+        Microbenchmark.Result random = bench.measure("new Random per bind", () -> {
+            String label = labels[next[0]++ % labels.length];
+            Random labelRandom = new Random(label.hashCode());
+            float[] hsv = new float[3];
+            hsv[0] = labelRandom.nextFloat() * 360;
+            hsv[1] = 0.8f + labelRandom.nextFloat() * 0.2f;
+            hsv[2] = 0.8f + labelRandom.nextFloat() * 0.2f;
+            checksum += LabelPalette.hsvToColor(hsv[0], hsv[1], hsv[2]);
+        });
+        Microbenchmark.Result lookup = bench.measure("palette lookup",
+                () -> checksum += palette.getColor(labels[next[0]++ % labels.length]));
+
+        Microbenchmark.report("Label colors", random, lookup);
+        assertTrue(checksum != 0);
+        Microbenchmark.assertAllocationFree(lookup);
+    }
+
+    /**
+     * Mostly COCO labels, with a few the model may add, as separate instances like
+     * labels parsed from responses.
+     */
+    private static String[] labels() {
+        String[] labels = new String[LabelPalette.COCO_LABELS.length + 4];
+        for (int i = 0; i < LabelPalette.COCO_LABELS.length; i++) {
+            labels[i] = new String(LabelPalette.COCO_LABELS[i]);
+        }
+        labels[labels.length - 4] = "forklift";
+        labels[labels.length - 3] = "drone";
+        labels[labels.length - 2] = "scooter";
+        labels[labels.length - 1] = "stroller";
+        for (String label : labels) {
+            // Caches the hash code, as a bound row's label has it after the first bind
+            label.hashCode();
+        }
+        return labels;
+    }
+}
@@ -0,0 +1,48 @@
+package com.objectdetection.example.util;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class LabelPaletteTest {
+
+    private final LabelPalette palette = LabelPalette.getInstance();
+
+    @Test
+    public void cocoLabelsHaveDistinctOpaqueColors() {
+        Set<Integer> colors = new HashSet<>();
+        for (String label : LabelPalette.COCO_LABELS) {
+            int color = palette.getColor(label);
+            assertEquals(0xFF, color >>> 24);
+            colors.add(color);
+        }
+        assertEquals(LabelPalette.COCO_LABELS.length, colors.size());
+    }
+
+    @Test
+    public void colorsAreStable() {
+        // A new String instance, as parsed from a response
+        assertEquals(palette.getColor("person"), palette.getColor(new String("person")));
+        assertEquals(palette.getColor("forklift"), palette.getColor("forklift"));
+        assertEquals(palette.getColor(null), palette.getColor(null));
+    }
+
+    @Test
+    public void unknownLabelsGetOpaqueColors() {
+        assertEquals(0xFF, palette.getColor("forklift") >>> 24);
+        assertEquals(0xFF, palette.getColor(null) >>> 24);
+        assertEquals(0xFF, palette.getColor("") >>> 24);
+    }
+
+    @Test
+    public void convertsPrimaryHues() {
+        assertEquals(0xFFFF0000, LabelPalette.hsvToColor(0f, 1f, 1f));
+        assertEquals(0xFF00FF00, LabelPalette.hsvToColor(120f, 1f, 1f));
+        assertEquals(0xFF0000FF, LabelPalette.hsvToColor(240f, 1f, 1f));
+        assertEquals(0xFFFFFFFF, LabelPalette.hsvToColor(200f, 0f, 1f));
+        assertEquals(0xFF000000, LabelPalette.hsvToColor(200f, 1f, 0f));
+    }
+}